@@ -41,6 +41,7 @@ import com.shc.silenceengine.utils.functional.UniCallback;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -62,6 +63,11 @@ public class AndroidAudioDevice extends AudioDevice
             .order(ByteOrder.nativeOrder())
             .asIntBuffer();
 
+    // The buffer to pass the orientation of the listener to AndroidOpenAL
+    private final FloatBuffer listenerValues = ByteBuffer.allocateDirect(6 * PrimitiveSize.FLOAT)
+            .order(ByteOrder.nativeOrder())
+            .asFloatBuffer();
+
     public AndroidAudioDevice()
     {
         ALCdevice device = ALC.alcOpenDevice();
@@ -172,32 +178,65 @@ public class AndroidAudioDevice extends AudioDevice
     }
 
     @Override
-    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded)
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        temp.put(0, buffer);
+        AL.alSourceQueueBuffers(id, 1, temp);
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        AL.alSourceUnqueueBuffers(id, 1, temp);
+        return temp.get(0);
+    }
+
+    @Override
+    public void alListenerf(int param, float value)
+    {
+        AL.alListenerf(param, value);
+    }
+
+    @Override
+    public void alListener3f(int param, float v1, float v2, float v3)
+    {
+        AL.alListener3f(param, v1, v2, v3);
+    }
+
+    @Override
+    public void alListenerfv(int param, float[] values)
+    {
+        listenerValues.clear();
+        listenerValues.put(values).flip();
+
+        AL.alListenerfv(param, listenerValues);
+    }
+
+    @Override
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                               UniCallback<Throwable> onError)
     {
         if (!isSupported(format))
             throw new SilenceException("Cannot parse sound. The format is unsupported: " + format);
 
         if (format == AudioFormat.WAV)
-            new Thread(() ->
+            TaskManager.runAsync(() -> new WavReader(data)).thenOnUpdate(reader ->
             {
-                WavReader reader = new WavReader(data);
-
+                // The OpenAL calls are made on the update thread, only the decoding happens on the workers
                 ALBuffer alBuffer = new ALBuffer();
                 alBuffer.uploadData(new AndroidDirectBuffer(reader.data), reader.alFormat, reader.sampleRate);
 
-                TaskManager.runOnUpdate(() -> onDecoded.invoke(alBuffer));
-            }).start();
+                onDecoded.invoke(alBuffer);
+            }).onError(onError);
 
         else if (format == AudioFormat.OGG)
-            new Thread(() ->
+            TaskManager.runAsync(() -> new OggReader(data)).thenOnUpdate(reader ->
             {
-                OggReader reader = new OggReader(data);
-
                 ALBuffer alBuffer = new ALBuffer();
                 alBuffer.uploadData(new AndroidDirectBuffer(reader.getData()), reader.getFormat(), reader.getSampleRate());
 
-                TaskManager.runOnUpdate(() -> onDecoded.invoke(alBuffer));
-            }).start();
+                onDecoded.invoke(alBuffer);
+            }).onError(onError);
     }
 
     @Override
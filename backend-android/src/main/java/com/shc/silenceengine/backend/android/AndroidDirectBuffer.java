@@ -25,15 +25,20 @@
 package com.shc.silenceengine.backend.android;
 
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.PrimitiveSize;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
  * @author Sri Harsha Chilakapati
  */
 public class AndroidDirectBuffer extends DirectBuffer
 {
+    // The size of the pattern that is repeatedly copied by fill
+    private static final int FILL_CHUNK_SIZE = 4096;
+
     private ByteBuffer nativeBuffer;
 
     public AndroidDirectBuffer(ByteBuffer buffer)
@@ -126,6 +131,127 @@ public class AndroidDirectBuffer extends DirectBuffer
         return nativeBuffer.get(byteIndex);
     }
 
+    // A view of the native buffer at the index, so that the bulk transfers don't touch the position of the buffer
+    private ByteBuffer view(int byteIndex, int length)
+    {
+        ByteBuffer view = nativeBuffer.duplicate().order(nativeBuffer.order());
+        view.limit(byteIndex + length).position(byteIndex);
+
+        return view;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, byte[] src, int from, int length)
+    {
+        view(byteIndex, length).put(src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, short[] src, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.SHORT).asShortBuffer().put(src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, int[] src, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.INT).asIntBuffer().put(src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, float[] src, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.FLOAT).asFloatBuffer().put(src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, double[] src, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.DOUBLE).asDoubleBuffer().put(src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, byte[] dst, int from, int length)
+    {
+        view(byteIndex, length).get(dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, short[] dst, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.SHORT).asShortBuffer().get(dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, int[] dst, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.INT).asIntBuffer().get(dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, float[] dst, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.FLOAT).asFloatBuffer().get(dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, double[] dst, int from, int length)
+    {
+        view(byteIndex, length * PrimitiveSize.DOUBLE).asDoubleBuffer().get(dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer copyTo(int byteIndex, DirectBuffer dst, int dstIndex, int length)
+    {
+        if (!(dst.nativeBuffer() instanceof ByteBuffer))
+            return super.copyTo(byteIndex, dst, dstIndex, length);
+
+        if (dst == this && Math.abs(dstIndex - byteIndex) < length)
+        {
+            // The bulk put doesn't guarantee the order of the copy, so go through a temporary array for overlaps
+            byte[] temp = new byte[length];
+            read(byteIndex, temp, 0, length);
+            return write(dstIndex, temp, 0, length);
+        }
+
+        ByteBuffer target = ((ByteBuffer) dst.nativeBuffer()).duplicate();
+        target.limit(dstIndex + length).position(dstIndex);
+
+        // A bulk put between two direct buffers is a single memory copy
+        target.put(view(byteIndex, length));
+        return this;
+    }
+
+    @Override
+    public DirectBuffer fill(int byteIndex, int length, byte value)
+    {
+        ByteBuffer view = view(byteIndex, length);
+
+        byte[] chunk = new byte[Math.min(length, FILL_CHUNK_SIZE)];
+        Arrays.fill(chunk, value);
+
+        while (view.hasRemaining())
+            view.put(chunk, 0, Math.min(chunk.length, view.remaining()));
+
+        return this;
+    }
+
+    @Override
+    public DirectBuffer slice(int byteIndex, int length)
+    {
+        return new AndroidDirectBuffer(view(byteIndex, length).slice().order(nativeBuffer.order()));
+    }
+
     @Override
     public Object nativeBuffer()
     {
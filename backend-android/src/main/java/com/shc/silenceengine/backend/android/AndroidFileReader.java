@@ -24,7 +24,7 @@
 
 package com.shc.silenceengine.backend.android;
 
-import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
@@ -33,6 +33,7 @@ import com.shc.silenceengine.utils.functional.UniCallback;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
@@ -42,13 +43,12 @@ import java.io.InputStreamReader;
 public class AndroidFileReader extends FileReader
 {
     @Override
-    public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    protected void readBinary(FilePath file, UniCallback<DirectBuffer> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
-            try
+            try (InputStream inputStream = ((AndroidFilePath) file).getInputStream())
             {
-                InputStream inputStream = ((AndroidFilePath) file).getInputStream();
                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
                 byte[] buffer = new byte[4096];
@@ -63,28 +63,24 @@ public class AndroidFileReader extends FileReader
                     outputStream.write(buffer, 0, n);
                 }
 
-                inputStream.close();
-
                 byte[] bytes = outputStream.toByteArray();
 
                 DirectBuffer directBuffer = new AndroidDirectBuffer(bytes.length);
+                directBuffer.write(0, bytes, 0, bytes.length);
 
-                for (int i = 0; i < bytes.length; i++)
-                    directBuffer.writeByte(i, bytes[i]);
-
-                TaskManager.runOnUpdate(() -> onComplete.invoke(directBuffer));
+                return directBuffer;
             }
-            catch (Exception e)
+            catch (IOException e)
             {
-                SilenceEngine.log.getRootLogger().error(e);
+                throw new SilenceException("Failed to read file " + file.getPath() + ": " + e.getMessage(), e);
             }
-        }).start();
+        }).thenOnUpdate(onComplete).onError(onError);
     }
 
     @Override
-    public void readTextFile(FilePath file, UniCallback<String> onComplete)
+    protected void readText(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
             try (
                     InputStream inputStream = ((AndroidFilePath) file).getInputStream();
@@ -97,13 +93,12 @@ public class AndroidFileReader extends FileReader
                 while ((line = bufferedReader.readLine()) != null)
                     stringBuilder.append(line).append("\n");
 
-                TaskManager.runOnUpdate(() -> onComplete.invoke(stringBuilder.toString()));
+                return stringBuilder.toString();
             }
-            catch (Exception e)
+            catch (IOException e)
             {
-                SilenceEngine.log.getRootLogger().error(e);
+                throw new SilenceException("Failed to read file " + file.getPath() + ": " + e.getMessage(), e);
             }
-
-        }).start();
+        }).thenOnUpdate(onComplete).onError(onError);
     }
 }
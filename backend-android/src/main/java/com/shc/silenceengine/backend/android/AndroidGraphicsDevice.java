@@ -124,6 +124,7 @@ public class AndroidGraphicsDevice implements IGraphicsDevice
     public void glClear(int flags)
     {
         Data.renderCallsThisFrame = 0;
+        Data.bytesUploadedThisFrame = 0;
         GLES30.glClear(flags);
     }
 
@@ -155,6 +156,27 @@ public class AndroidGraphicsDevice implements IGraphicsDevice
         GLES30.glDrawElements(primitive, vertexCount, type, offset);
     }
 
+    @Override
+    public void glDrawArraysInstanced(int primitive, int offset, int vertexCount, int instanceCount)
+    {
+        Data.renderCallsThisFrame++;
+        Data.totalRenderCalls++;
+        GLES30.glDrawArraysInstanced(primitive, offset, vertexCount, instanceCount);
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor)
+    {
+        GLES30.glVertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public boolean isInstancingSupported()
+    {
+        // Instanced arrays are a core feature of OpenGL ES 3.0
+        return true;
+    }
+
     @Override
     public void glEnable(int capability)
     {
@@ -25,11 +25,15 @@
 package com.shc.silenceengine.backend.android;
 
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.DirectBufferPool;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
 import com.shc.silenceengine.io.IODevice;
 import com.shc.silenceengine.io.ImageReader;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * @author Sri Harsha Chilakapati
  */
@@ -38,16 +42,31 @@ public class AndroidIODevice implements IODevice
     private FileReader  fileReader  = new AndroidFileReader();
     private ImageReader imageReader = new AndroidImageReader();
 
+    private DirectBufferPool<ByteBuffer> bufferPool = new AndroidDirectBufferPool();
+
     @Override
     public DirectBuffer create(int sizeInBytes)
     {
-        return new AndroidDirectBuffer(sizeInBytes);
+        return bufferPool.create(sizeInBytes);
     }
 
     @Override
     public void free(DirectBuffer directBuffer)
     {
-        ((AndroidDirectBuffer) directBuffer).free();
+        if (!bufferPool.free(directBuffer))
+            ((AndroidDirectBuffer) directBuffer).free();
+    }
+
+    @Override
+    public DirectBuffer createTemporary(int sizeInBytes)
+    {
+        return bufferPool.createTemporary(sizeInBytes);
+    }
+
+    @Override
+    public DirectBufferPool<ByteBuffer> getBufferPool()
+    {
+        return bufferPool;
     }
 
     @Override
@@ -73,4 +92,36 @@ public class AndroidIODevice implements IODevice
     {
         return imageReader;
     }
+
+    private static class AndroidDirectBufferPool extends DirectBufferPool<ByteBuffer>
+    {
+        private static final int ARENA_SIZE = 256 * 1024;
+
+        private AndroidDirectBufferPool()
+        {
+            super(ARENA_SIZE);
+        }
+
+        @Override
+        protected ByteBuffer allocateBlock(int sizeInBytes)
+        {
+            return ByteBuffer.allocateDirect(sizeInBytes).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        protected void freeBlock(ByteBuffer block)
+        {
+            // Direct buffers are released by the GC
+        }
+
+        @Override
+        protected DirectBuffer wrapBlock(ByteBuffer block, int offset, int sizeInBytes)
+        {
+            ByteBuffer view = block.duplicate();
+            view.limit(offset + sizeInBytes);
+            view.position(offset);
+
+            return new AndroidDirectBuffer(view.slice().order(ByteOrder.nativeOrder()));
+        }
+    }
 }
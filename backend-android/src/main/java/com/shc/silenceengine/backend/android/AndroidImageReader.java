@@ -27,7 +27,6 @@ package com.shc.silenceengine.backend.android;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import com.shc.silenceengine.core.SilenceException;
-import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.ImageReader;
@@ -42,34 +41,45 @@ import java.io.IOException;
 public class AndroidImageReader extends ImageReader
 {
     @Override
-    public void readImage(DirectBuffer memory, UniCallback<Image> uniCallback)
+    public void readImage(DirectBuffer memory, UniCallback<Image> uniCallback, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
             Bitmap bitmap = BitmapFactory.decodeStream(new DirectBufferInputStream(memory));
 
             if (bitmap == null)
                 throw new SilenceException(new IOException("Error decoding image from memory"));
 
-            Image image = new Image(bitmap.getWidth(), bitmap.getHeight());
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
 
-            for (int x = 0; x < image.getWidth(); x++)
-                for (int y = 0; y < image.getHeight(); y++)
-                {
-                    int pixel = bitmap.getPixel(x, y);
+            // Bitmap gives non premultiplied ARGB ints, which are repacked into RGBA8 bytes row by row
+            int[] row = new int[width];
+            byte[] rowBytes = new byte[width * 4];
+
+            DirectBuffer imageData = DirectBuffer.create(width * height * 4);
 
-                    float a = android.graphics.Color.alpha(pixel) / 255f;
-                    float r = android.graphics.Color.red(pixel) / 255f;
-                    float g = android.graphics.Color.green(pixel) / 255f;
-                    float b = android.graphics.Color.blue(pixel) / 255f;
+            for (int y = 0; y < height; y++)
+            {
+                bitmap.getPixels(row, 0, width, 0, y, width, 1);
 
-                    image.setPixel(x, y, new Color(r, g, b, a));
+                for (int x = 0, i = 0; x < width; x++)
+                {
+                    int pixel = row[x];
+
+                    rowBytes[i++] = (byte) (pixel >>> 16);
+                    rowBytes[i++] = (byte) (pixel >>> 8);
+                    rowBytes[i++] = (byte) pixel;
+                    rowBytes[i++] = (byte) (pixel >>> 24);
                 }
 
+                imageData.write(y * width * 4, rowBytes, 0, rowBytes.length);
+            }
+
             bitmap.recycle();
             bitmap = null;
 
-            TaskManager.runOnUpdate(() -> uniCallback.invoke(image));
-        }).start();
+            return new Image(width, height, width, height, imageData);
+        }).thenOnUpdate(uniCallback).onError(onError);
     }
 }
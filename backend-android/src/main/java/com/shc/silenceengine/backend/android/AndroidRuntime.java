@@ -27,12 +27,15 @@ package com.shc.silenceengine.backend.android;
 import com.shc.silenceengine.core.Game;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.utils.GameTimer;
+import com.shc.silenceengine.utils.ScratchPool;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.TimeUtils;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -41,6 +44,22 @@ public final class AndroidRuntime
 {
     public static Game game;
 
+    // The size of the worker pool of the job system, leaving one core for the game loop
+    private static final int NUM_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Every thread that uses the math temporaries gets its own scratch pool
+    private static final ThreadLocal<ScratchPool> SCRATCH_POOLS = new ThreadLocal<ScratchPool>()
+    {
+        @Override
+        protected ScratchPool initialValue()
+        {
+            return new ScratchPool();
+        }
+    };
+
+    // Shared across restarts of the activity, the threads are daemons so they never keep the process alive
+    private static ExecutorService workerPool;
+
     private AndroidRuntime()
     {
     }
@@ -56,6 +75,21 @@ public final class AndroidRuntime
 
         AndroidRuntime.game = game;
 
+        if (workerPool == null)
+            workerPool = Executors.newFixedThreadPool(NUM_WORKERS, runnable ->
+            {
+                Thread thread = new Thread(runnable, "SilenceEngine Worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        TaskManager.setAsyncRunner(task -> workerPool.execute(task::invoke));
+        TaskManager.setThreadYielder(Thread::yield);
+        TaskManager.setMaxConcurrentJobs(NUM_WORKERS);
+
+        // The math temporaries are taken from a pool of their own on every thread
+        ScratchPool.setProvider(SCRATCH_POOLS::get);
+
         // Notify the game loop that we got focus
         SilenceEngine.gameLoop.onFocusGain();
 
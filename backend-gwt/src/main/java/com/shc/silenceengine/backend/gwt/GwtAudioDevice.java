@@ -24,7 +24,6 @@
 
 package com.shc.silenceengine.backend.gwt;
 
-import com.google.gwt.typedarrays.shared.ArrayBufferView;
 import com.shc.gwtal.client.openal.AL;
 import com.shc.gwtal.client.openal.AL10;
 import com.shc.gwtal.client.openal.ALContext;
@@ -66,7 +65,7 @@ public class GwtAudioDevice extends AudioDevice
     @Override
     public void alBufferData(int id, int format, DirectBuffer data, int frequency)
     {
-        AL10.alBufferData(id, format, ((ArrayBufferView) data.nativeBuffer()).buffer(), frequency);
+        AL10.alBufferData(id, format, ((GwtDirectBuffer) data).toArrayBuffer(), frequency);
     }
 
     @Override
@@ -142,17 +141,45 @@ public class GwtAudioDevice extends AudioDevice
     }
 
     @Override
-    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded)
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        throw new SilenceException("Queueing buffers is not supported with WebAudio.");
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        throw new SilenceException("Queueing buffers is not supported with WebAudio.");
+    }
+
+    @Override
+    public void alListenerf(int param, float value)
+    {
+        AL10.alListenerf(param, value);
+    }
+
+    @Override
+    public void alListener3f(int param, float v1, float v2, float v3)
+    {
+        AL10.alListener3f(param, v1, v2, v3);
+    }
+
+    @Override
+    public void alListenerfv(int param, float[] values)
+    {
+        AL10.alListenerfv(param, values);
+    }
+
+    @Override
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                               UniCallback<Throwable> onError)
     {
         if (!isSupported(format))
             throw new SilenceException("Audio format " + format + " is not supported.");
 
-        AudioDecoder.decodeAudio(((ArrayBufferView) data.nativeBuffer()).buffer(),
+        AudioDecoder.decodeAudio(((GwtDirectBuffer) data).toArrayBuffer(),
                 alBufferID -> onDecoded.invoke(new ALBuffer(alBufferID)),
-                reason ->
-                {
-                    throw new SilenceException("Error decoding: " + reason);
-                });
+                reason -> onError.invoke(new SilenceException("Error decoding: " + reason)));
     }
 
     @Override
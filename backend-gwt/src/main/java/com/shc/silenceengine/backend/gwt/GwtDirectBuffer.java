@@ -26,9 +26,14 @@ package com.shc.silenceengine.backend.gwt;
 
 import com.google.gwt.typedarrays.client.ArrayBufferNative;
 import com.google.gwt.typedarrays.client.DataViewNative;
+import com.google.gwt.typedarrays.client.Float32ArrayNative;
+import com.google.gwt.typedarrays.client.Uint8ArrayNative;
 import com.google.gwt.typedarrays.shared.ArrayBuffer;
 import com.google.gwt.typedarrays.shared.DataView;
+import com.google.gwt.typedarrays.shared.Float32Array;
+import com.google.gwt.typedarrays.shared.Uint8Array;
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.PrimitiveSize;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -40,6 +45,7 @@ public class GwtDirectBuffer extends DirectBuffer
 
     private ArrayBuffer buffer;
     private DataView    view;
+    private int         offset;
 
     public GwtDirectBuffer(ArrayBuffer data)
     {
@@ -55,6 +61,28 @@ public class GwtDirectBuffer extends DirectBuffer
         view = DataViewNative.create(buffer);
     }
 
+    /**
+     * Creates a DirectBuffer that is a view of a part of an ArrayBuffer.
+     *
+     * @param data        The ArrayBuffer to view.
+     * @param offset      The offset of the view in bytes.
+     * @param sizeInBytes The size of the view in bytes.
+     */
+    public GwtDirectBuffer(ArrayBuffer data, int offset, int sizeInBytes)
+    {
+        super(sizeInBytes);
+
+        if (!endiannness)
+        {
+            littleEndian = getEndianness();
+            endiannness = true;
+        }
+
+        this.buffer = data;
+        this.offset = offset;
+        view = DataViewNative.create(buffer, offset, sizeInBytes);
+    }
+
     public GwtDirectBuffer(int sizeInBytes)
     {
         super(sizeInBytes);
@@ -155,18 +183,233 @@ public class GwtDirectBuffer extends DirectBuffer
         return view.getInt8(byteIndex);
     }
 
+    @Override
+    public DirectBuffer write(int byteIndex, byte[] src, int from, int length)
+    {
+        writeBytes(buffer, offset + byteIndex, src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, short[] src, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.SHORT != 0)
+            return super.write(byteIndex, src, from, length);
+
+        writeShorts(buffer, offset + byteIndex, src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, int[] src, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.INT != 0)
+            return super.write(byteIndex, src, from, length);
+
+        writeInts(buffer, offset + byteIndex, src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, float[] src, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.FLOAT != 0)
+            return super.write(byteIndex, src, from, length);
+
+        writeFloats(buffer, offset + byteIndex, src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer write(int byteIndex, double[] src, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.DOUBLE != 0)
+            return super.write(byteIndex, src, from, length);
+
+        writeDoubles(buffer, offset + byteIndex, src, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, byte[] dst, int from, int length)
+    {
+        readBytes(buffer, offset + byteIndex, dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, short[] dst, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.SHORT != 0)
+            return super.read(byteIndex, dst, from, length);
+
+        readShorts(buffer, offset + byteIndex, dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, int[] dst, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.INT != 0)
+            return super.read(byteIndex, dst, from, length);
+
+        readInts(buffer, offset + byteIndex, dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, float[] dst, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.FLOAT != 0)
+            return super.read(byteIndex, dst, from, length);
+
+        readFloats(buffer, offset + byteIndex, dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer read(int byteIndex, double[] dst, int from, int length)
+    {
+        if ((offset + byteIndex) % PrimitiveSize.DOUBLE != 0)
+            return super.read(byteIndex, dst, from, length);
+
+        readDoubles(buffer, offset + byteIndex, dst, from, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer copyTo(int byteIndex, DirectBuffer dst, int dstIndex, int length)
+    {
+        if (!(dst instanceof GwtDirectBuffer))
+            return super.copyTo(byteIndex, dst, dstIndex, length);
+
+        copyBytes(buffer, offset + byteIndex, ((GwtDirectBuffer) dst).buffer,
+                ((GwtDirectBuffer) dst).offset + dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer fill(int byteIndex, int length, byte value)
+    {
+        fillBytes(buffer, offset + byteIndex, length, value);
+        return this;
+    }
+
+    @Override
+    public DirectBuffer slice(int byteIndex, int length)
+    {
+        return new GwtDirectBuffer(buffer, offset + byteIndex, length);
+    }
+
     @Override
     public Object nativeBuffer()
     {
         return view;
     }
 
+    /**
+     * @return A Uint8Array over exactly the bytes of this buffer.
+     */
+    public Uint8Array asUint8Array()
+    {
+        return Uint8ArrayNative.create(buffer, offset, sizeInBytes);
+    }
+
+    /**
+     * @return A Float32Array over exactly the bytes of this buffer.
+     */
+    public Float32Array asFloat32Array()
+    {
+        return Float32ArrayNative.create(buffer, offset, sizeInBytes / PrimitiveSize.FLOAT);
+    }
+
+    /**
+     * @return An ArrayBuffer with the contents of this buffer. This is the underlying ArrayBuffer if this buffer covers
+     * all of it, otherwise it is a copy.
+     */
+    public ArrayBuffer toArrayBuffer()
+    {
+        if (offset == 0 && buffer.byteLength() == sizeInBytes)
+            return buffer;
+
+        return buffer.slice(offset, offset + sizeInBytes);
+    }
+
     @Override
     public DirectBuffer clear()
     {
-        for (int i = 0; i < sizeInBytes; i++)
-            writeByte(i, (byte) 0);
-
-        return this;
+        return fill(0, sizeInBytes, (byte) 0);
     }
+
+    // The typed arrays use the platform byte order, which is the byte order that is used with the DataView, and they
+    // need the byte index to be aligned to the size of the element, hence the checks in the bulk methods.
+    private static native void writeBytes(ArrayBuffer buffer, int byteIndex, byte[] src, int from, int length) /*-{
+        new Int8Array(buffer, byteIndex, length).set(src.slice(from, from + length));
+    }-*/;
+
+    private static native void writeShorts(ArrayBuffer buffer, int byteIndex, short[] src, int from, int length) /*-{
+        new Int16Array(buffer, byteIndex, length).set(src.slice(from, from + length));
+    }-*/;
+
+    private static native void writeInts(ArrayBuffer buffer, int byteIndex, int[] src, int from, int length) /*-{
+        new Int32Array(buffer, byteIndex, length).set(src.slice(from, from + length));
+    }-*/;
+
+    private static native void writeFloats(ArrayBuffer buffer, int byteIndex, float[] src, int from, int length) /*-{
+        new Float32Array(buffer, byteIndex, length).set(src.slice(from, from + length));
+    }-*/;
+
+    private static native void writeDoubles(ArrayBuffer buffer, int byteIndex, double[] src, int from, int length) /*-{
+        new Float64Array(buffer, byteIndex, length).set(src.slice(from, from + length));
+    }-*/;
+
+    private static native void readBytes(ArrayBuffer buffer, int byteIndex, byte[] dst, int from, int length) /*-{
+        var view = new Int8Array(buffer, byteIndex, length);
+
+        for (var i = 0; i < length; i++)
+            dst[from + i] = view[i];
+    }-*/;
+
+    private static native void readShorts(ArrayBuffer buffer, int byteIndex, short[] dst, int from, int length) /*-{
+        var view = new Int16Array(buffer, byteIndex, length);
+
+        for (var i = 0; i < length; i++)
+            dst[from + i] = view[i];
+    }-*/;
+
+    private static native void readInts(ArrayBuffer buffer, int byteIndex, int[] dst, int from, int length) /*-{
+        var view = new Int32Array(buffer, byteIndex, length);
+
+        for (var i = 0; i < length; i++)
+            dst[from + i] = view[i];
+    }-*/;
+
+    private static native void readFloats(ArrayBuffer buffer, int byteIndex, float[] dst, int from, int length) /*-{
+        var view = new Float32Array(buffer, byteIndex, length);
+
+        for (var i = 0; i < length; i++)
+            dst[from + i] = view[i];
+    }-*/;
+
+    private static native void readDoubles(ArrayBuffer buffer, int byteIndex, double[] dst, int from, int length) /*-{
+        var view = new Float64Array(buffer, byteIndex, length);
+
+        for (var i = 0; i < length; i++)
+            dst[from + i] = view[i];
+    }-*/;
+
+    private static native void copyBytes(ArrayBuffer src, int srcIndex, ArrayBuffer dst, int dstIndex, int length) /*-{
+        // TypedArray.set copies the source first if both the arrays share the same buffer, so overlaps are fine
+        new Uint8Array(dst, dstIndex, length).set(new Uint8Array(src, srcIndex, length));
+    }-*/;
+
+    private static native void fillBytes(ArrayBuffer buffer, int byteIndex, int length, byte value) /*-{
+        var view = new Uint8Array(buffer, byteIndex, length);
+
+        if (view.fill)
+            view.fill(value & 0xFF);
+        else
+            for (var i = 0; i < length; i++)
+                view[i] = value;
+    }-*/;
 }
@@ -25,6 +25,7 @@
 package com.shc.silenceengine.backend.gwt;
 
 import com.google.gwt.xhr.client.XMLHttpRequest;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
@@ -35,8 +36,14 @@ import com.shc.silenceengine.utils.functional.UniCallback;
  */
 public class GwtFileReader extends FileReader
 {
+    private static SilenceException failure(FilePath file, XMLHttpRequest request)
+    {
+        return new SilenceException("Failed to read file " + file.getPath() + ": " + request.getStatus() + " "
+                                    + request.getStatusText());
+    }
+
     @Override
-    public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    protected void readBinary(FilePath file, UniCallback<DirectBuffer> onComplete, UniCallback<Throwable> onError)
     {
         // Create a XMLHttpRequest to load the file into a direct buffer
         XMLHttpRequest request = XMLHttpRequest.create();
@@ -46,8 +53,13 @@ public class GwtFileReader extends FileReader
         request.setResponseType(XMLHttpRequest.ResponseType.ArrayBuffer);
         request.setOnReadyStateChange(xhr ->
         {
-            if (request.getReadyState() == XMLHttpRequest.DONE)
-                // Invoke the onComplete handler
+            if (request.getReadyState() != XMLHttpRequest.DONE)
+                return;
+
+            // Network errors have a status of zero, and the server errors have an error status
+            if (request.getStatus() == 0 || request.getStatus() >= 400)
+                onError.invoke(failure(file, request));
+            else
                 onComplete.invoke(new GwtDirectBuffer(request.getResponseArrayBuffer()));
         });
 
@@ -56,7 +68,7 @@ public class GwtFileReader extends FileReader
     }
 
     @Override
-    public void readTextFile(FilePath file, UniCallback<String> onComplete)
+    protected void readText(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError)
     {
         // Create a XMLHttpRequest to load the file into a direct buffer
         XMLHttpRequest request = XMLHttpRequest.create();
@@ -66,8 +78,12 @@ public class GwtFileReader extends FileReader
         request.setResponseType(XMLHttpRequest.ResponseType.Default);
         request.setOnReadyStateChange(xhr ->
         {
-            if (request.getReadyState() == XMLHttpRequest.DONE)
-                // Invoke the onComplete handler
+            if (request.getReadyState() != XMLHttpRequest.DONE)
+                return;
+
+            if (request.getStatus() == 0 || request.getStatus() >= 400)
+                onError.invoke(failure(file, request));
+            else
                 onComplete.invoke(request.getResponseText());
         });
 
@@ -24,10 +24,9 @@
 
 package com.shc.silenceengine.backend.gwt;
 
-import com.google.gwt.typedarrays.client.Float32ArrayNative;
-import com.google.gwt.typedarrays.client.Uint8ArrayNative;
 import com.google.gwt.typedarrays.shared.ArrayBufferView;
 import com.shc.silenceengine.graphics.IGraphicsDevice;
+import com.shc.silenceengine.graphics.opengl.GLException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.DirectFloatBuffer;
 import com.shc.webgl4j.client.WebGL10;
@@ -152,6 +151,24 @@ public class GwtGraphicsDevice implements IGraphicsDevice
         WebGL10.glDrawElements(primitive, vertexCount, type, offset);
     }
 
+    @Override
+    public void glDrawArraysInstanced(int primitive, int offset, int vertexCount, int instanceCount)
+    {
+        throw new GLException("Instanced rendering is not supported in WebGL 1.0");
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor)
+    {
+        throw new GLException("Instanced rendering is not supported in WebGL 1.0");
+    }
+
+    @Override
+    public boolean isInstancingSupported()
+    {
+        return false;
+    }
+
     @Override
     public void glEnable(int capability)
     {
@@ -310,13 +327,13 @@ public class GwtGraphicsDevice implements IGraphicsDevice
     @Override
     public void glUniformMatrix3fv(int location, boolean transpose, DirectFloatBuffer matrix)
     {
-        WebGL10.glUniformMatrix3fv(location, transpose, Float32ArrayNative.create(((ArrayBufferView) matrix.getDirectBuffer().nativeBuffer()).buffer()));
+        WebGL10.glUniformMatrix3fv(location, transpose, ((GwtDirectBuffer) matrix.getDirectBuffer()).asFloat32Array());
     }
 
     @Override
     public void glUniformMatrix4fv(int location, boolean transpose, DirectFloatBuffer matrix)
     {
-        WebGL10.glUniformMatrix4fv(location, transpose, Float32ArrayNative.create(((ArrayBufferView) matrix.getDirectBuffer().nativeBuffer()).buffer()));
+        WebGL10.glUniformMatrix4fv(location, transpose, ((GwtDirectBuffer) matrix.getDirectBuffer()).asFloat32Array());
     }
 
     @Override
@@ -403,11 +420,11 @@ public class GwtGraphicsDevice implements IGraphicsDevice
         switch (type)
         {
             case GL_FLOAT:
-                arrayBufferView = Float32ArrayNative.create(((ArrayBufferView) pixels.nativeBuffer()).buffer());
+                arrayBufferView = ((GwtDirectBuffer) pixels).asFloat32Array();
                 break;
 
             case GL_UNSIGNED_BYTE:
-                arrayBufferView = Uint8ArrayNative.create(((ArrayBufferView) pixels.nativeBuffer()).buffer());
+                arrayBufferView = ((GwtDirectBuffer) pixels).asUint8Array();
                 break;
         }
 
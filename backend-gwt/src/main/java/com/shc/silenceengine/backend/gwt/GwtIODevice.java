@@ -24,7 +24,10 @@
 
 package com.shc.silenceengine.backend.gwt;
 
+import com.google.gwt.typedarrays.client.ArrayBufferNative;
+import com.google.gwt.typedarrays.shared.ArrayBuffer;
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.DirectBufferPool;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
 import com.shc.silenceengine.io.IODevice;
@@ -38,16 +41,31 @@ public class GwtIODevice implements IODevice
     private FileReader  fileReader  = new GwtFileReader();
     private ImageReader imageReader = new GwtImageReader();
 
+    private DirectBufferPool<ArrayBuffer> bufferPool = new GwtDirectBufferPool();
+
     @Override
     public DirectBuffer create(int sizeInBytes)
     {
-        return new GwtDirectBuffer(sizeInBytes);
+        return bufferPool.create(sizeInBytes);
     }
 
     @Override
     public void free(DirectBuffer directBuffer)
     {
-        // Will be taken care by GC
+        // Buffers that are not from the pool will be taken care by GC
+        bufferPool.free(directBuffer);
+    }
+
+    @Override
+    public DirectBuffer createTemporary(int sizeInBytes)
+    {
+        return bufferPool.createTemporary(sizeInBytes);
+    }
+
+    @Override
+    public DirectBufferPool<ArrayBuffer> getBufferPool()
+    {
+        return bufferPool;
     }
 
     @Override
@@ -73,4 +91,32 @@ public class GwtIODevice implements IODevice
     {
         return imageReader;
     }
+
+    private static class GwtDirectBufferPool extends DirectBufferPool<ArrayBuffer>
+    {
+        private static final int ARENA_SIZE = 256 * 1024;
+
+        private GwtDirectBufferPool()
+        {
+            super(ARENA_SIZE);
+        }
+
+        @Override
+        protected ArrayBuffer allocateBlock(int sizeInBytes)
+        {
+            return ArrayBufferNative.create(sizeInBytes);
+        }
+
+        @Override
+        protected void freeBlock(ArrayBuffer block)
+        {
+            // Will be taken care by GC
+        }
+
+        @Override
+        protected DirectBuffer wrapBlock(ArrayBuffer block, int offset, int sizeInBytes)
+        {
+            return new GwtDirectBuffer(block, offset, sizeInBytes);
+        }
+    }
 }
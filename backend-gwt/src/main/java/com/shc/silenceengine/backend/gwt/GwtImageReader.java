@@ -26,8 +26,7 @@ package com.shc.silenceengine.backend.gwt;
 
 import com.google.gwt.canvas.dom.client.ImageData;
 import com.google.gwt.typedarrays.shared.ArrayBuffer;
-import com.google.gwt.typedarrays.shared.ArrayBufferView;
-import com.shc.silenceengine.graphics.Color;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.ImageReader;
@@ -41,29 +40,29 @@ public class GwtImageReader extends ImageReader
     private static void jsLoadedCallback(ImageData pixels, int width, int height, int oWidth, int oHeight,
                                          UniCallback<Image> onComplete)
     {
-        Image image = new Image(width, height, oWidth, oHeight);
-
-        for (int x = 0; x < width; x++)
-        {
-            for (int y = 0; y < height; y++)
-                image.setPixel(x, y, new Color(
-                        pixels.getRedAt(x, y) / 255f,
-                        pixels.getGreenAt(x, y) / 255f,
-                        pixels.getBlueAt(x, y) / 255f,
-                        pixels.getAlphaAt(x, y) / 255f
-                ));
-        }
+        // Canvas image data is already RGBA8, so it only needs to be copied into an ArrayBuffer of our own
+        Image image = new Image(width, height, oWidth, oHeight, new GwtDirectBuffer(copyPixels(pixels)));
 
         onComplete.invoke(image);
     }
 
+    private static void jsErrorCallback(UniCallback<Throwable> onError)
+    {
+        onError.invoke(new SilenceException("Failed to decode image"));
+    }
+
+    private static native ArrayBuffer copyPixels(ImageData pixels) /*-{
+        return new Uint8Array(pixels.data).buffer;
+    }-*/;
+
     @Override
-    public void readImage(DirectBuffer memory, UniCallback<Image> onComplete)
+    public void readImage(DirectBuffer memory, UniCallback<Image> onComplete, UniCallback<Throwable> onError)
     {
-        getImage(((ArrayBufferView) memory.nativeBuffer()).buffer(), onComplete);
+        getImage(((GwtDirectBuffer) memory).toArrayBuffer(), onComplete, onError);
     }
 
-    private native void getImage(ArrayBuffer memory, UniCallback<Image> onComplete) /*-{
+    private native void getImage(ArrayBuffer memory, UniCallback<Image> onComplete,
+                                 UniCallback<Throwable> onError) /*-{
         var arrayBufferView = new Uint8Array(memory);
         var blob = new Blob([arrayBufferView], {type: "image/jpeg"});
 
@@ -107,6 +106,12 @@ public class GwtImageReader extends ImageReader
                 img.width, img.height, onComplete);
         };
 
+        img.onerror = function ()
+        {
+            $doc.body.removeChild(img);
+            @com.shc.silenceengine.backend.gwt.GwtImageReader::jsErrorCallback(*)(onError);
+        };
+
         $doc.body.appendChild(img);
     }-*/;
 }
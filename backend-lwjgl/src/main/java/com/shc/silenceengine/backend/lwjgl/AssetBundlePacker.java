@@ -0,0 +1,228 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.backend.lwjgl;
+
+import com.shc.silenceengine.backend.lwjgl.soundreaders.OggReader;
+import com.shc.silenceengine.backend.lwjgl.soundreaders.WaveReader;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.DirectBuffer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Packs a directory of assets into an {@link AssetBundle}, offline and without starting the engine. Images are decoded
+ * with STB Image into RGBA8 pixels, OGG and WAV files are decoded into PCM samples, and all the other files are stored
+ * as they are. The names of the entries are the paths of the files relative to the directory.
+ *
+ * <p> Run it with the directory and the bundle to write as the arguments:</p>
+ *
+ * <pre>
+ *     java com.shc.silenceengine.backend.lwjgl.AssetBundlePacker assets/ assets.bundle
+ * </pre>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class AssetBundlePacker
+{
+    private AssetBundlePacker()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            System.err.println("Usage: AssetBundlePacker <input directory> <output file>");
+            System.exit(1);
+        }
+
+        long startTime = System.nanoTime();
+        int count = pack(Paths.get(args[0]), Paths.get(args[1]));
+
+        System.out.println("Packed " + count + " files into " + args[1] + " in "
+                           + (System.nanoTime() - startTime) / 1000000 + " ms");
+    }
+
+    /**
+     * Packs all the files in a directory, and its subdirectories, into a bundle.
+     *
+     * @param directory The directory to pack.
+     * @param output    The file to write the bundle to.
+     *
+     * @return The number of files in the bundle.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public static int pack(Path directory, Path output) throws IOException
+    {
+        List<Path> files;
+
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        AssetBundle.Builder builder = new AssetBundle.Builder();
+
+        // Every buffer that is added to the builder, freed once the bundle is written
+        List<LwjglDirectBuffer> buffers = new ArrayList<>();
+
+        try
+        {
+            for (Path file : files)
+            {
+                String name = directory.relativize(file).toString().replace('\\', '/');
+                LwjglDirectBuffer contents = readFile(file);
+                buffers.add(contents);
+
+                // Empty files are read into a buffer of a single byte
+                addFile(builder, buffers, name, Files.size(file) == 0 ? contents.slice(0, 0) : contents);
+            }
+
+            LwjglDirectBuffer bundle = new LwjglDirectBuffer(builder.getSizeBytes());
+            buffers.add(bundle);
+
+            builder.build(bundle);
+
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                ByteBuffer buffer = ((ByteBuffer) bundle.nativeBuffer()).duplicate();
+
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+        }
+        finally
+        {
+            for (LwjglDirectBuffer buffer : buffers)
+                buffer.free();
+        }
+
+        return files.size();
+    }
+
+    private static void addFile(AssetBundle.Builder builder, List<LwjglDirectBuffer> buffers, String name,
+                                DirectBuffer contents)
+    {
+        switch (getExtension(name))
+        {
+            case "png":
+            case "jpg":
+            case "jpeg":
+            case "bmp":
+            case "tga":
+            case "gif":
+            case "psd":
+            {
+                IntBuffer width = BufferUtils.createIntBuffer(1);
+                IntBuffer height = BufferUtils.createIntBuffer(1);
+                IntBuffer components = BufferUtils.createIntBuffer(1);
+
+                ByteBuffer pixels = stbi_load_from_memory((ByteBuffer) contents.nativeBuffer(), width, height,
+                        components, 4);
+
+                if (pixels == null)
+                    throw new SilenceException("Failed to decode " + name + ": " + stbi_failure_reason());
+
+                LwjglDirectBuffer image = new LwjglDirectBuffer(pixels, STBImage::stbi_image_free);
+                buffers.add(image);
+
+                builder.addImage(name, width.get(0), height.get(0), image);
+                break;
+            }
+
+            case "ogg":
+            case "oga":
+            {
+                OggReader reader = new OggReader(contents);
+                builder.addPCM(name, reader.getFormat(), reader.getSampleRate(),
+                        new LwjglDirectBuffer(reader.getData(), false));
+                break;
+            }
+
+            case "wav":
+            case "wave":
+            {
+                WaveReader reader = new WaveReader(contents);
+                builder.addPCM(name, reader.getFormat(), reader.getSampleRate(),
+                        new LwjglDirectBuffer(reader.getData(), false));
+                break;
+            }
+
+            default:
+                builder.addRaw(name, contents);
+        }
+    }
+
+    private static String getExtension(String name)
+    {
+        int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(index + 1).toLowerCase();
+    }
+
+    private static LwjglDirectBuffer readFile(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new SilenceException("Cannot pack files larger than 2 GB: " + file);
+
+            ByteBuffer buffer = MemoryUtil.memAlloc(Math.max(1, (int) channel.size()));
+            buffer.limit((int) channel.size());
+
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    MemoryUtil.memFree(buffer);
+                    throw new EOFException("Unexpected end of file: " + file);
+                }
+            }
+
+            buffer.flip();
+            return new LwjglDirectBuffer(buffer);
+        }
+    }
+}
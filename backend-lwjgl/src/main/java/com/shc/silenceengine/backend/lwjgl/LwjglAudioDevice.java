@@ -25,20 +25,25 @@
 package com.shc.silenceengine.backend.lwjgl;
 
 import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.AudioStreamDecoder;
+import com.shc.silenceengine.audio.PCMStreamDecoder;
 import com.shc.silenceengine.audio.openal.ALBuffer;
 import com.shc.silenceengine.backend.lwjgl.soundreaders.OggReader;
+import com.shc.silenceengine.backend.lwjgl.soundreaders.OggStreamDecoder;
 import com.shc.silenceengine.backend.lwjgl.soundreaders.WaveReader;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.UniCallback;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.openal.AL;
 import org.lwjgl.openal.AL10;
 import org.lwjgl.openal.ALC;
 import org.lwjgl.openal.ALCCapabilities;
 
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 
 import static org.lwjgl.openal.ALC10.*;
@@ -51,6 +56,9 @@ public class LwjglAudioDevice extends AudioDevice
     private long device;
     private long context;
 
+    // The buffer to pass the orientation of the listener to OpenAL
+    private final FloatBuffer listenerValues = BufferUtils.createFloatBuffer(6);
+
     public LwjglAudioDevice()
     {
         device = alcOpenDevice((ByteBuffer) null);
@@ -150,7 +158,41 @@ public class LwjglAudioDevice extends AudioDevice
     }
 
     @Override
-    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded)
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        AL10.alSourceQueueBuffers(id, buffer);
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        return AL10.alSourceUnqueueBuffers(id);
+    }
+
+    @Override
+    public void alListenerf(int param, float value)
+    {
+        AL10.alListenerf(param, value);
+    }
+
+    @Override
+    public void alListener3f(int param, float v1, float v2, float v3)
+    {
+        AL10.alListener3f(param, v1, v2, v3);
+    }
+
+    @Override
+    public void alListenerfv(int param, float[] values)
+    {
+        listenerValues.clear();
+        listenerValues.put(values).flip();
+
+        AL10.alListenerfv(param, listenerValues);
+    }
+
+    @Override
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                               UniCallback<Throwable> onError)
     {
         if (!isSupported(format))
             throw new SilenceException("Error, cannot decode unsupported format");
@@ -159,7 +201,17 @@ public class LwjglAudioDevice extends AudioDevice
         {
             case OGG:
             {
-                OggReader reader = new OggReader(data);
+                OggReader reader;
+
+                try
+                {
+                    reader = new OggReader(data);
+                }
+                catch (SilenceException e)
+                {
+                    onError.invoke(e);
+                    break;
+                }
 
                 TaskManager.runOnUpdate(() ->
                 {
@@ -174,7 +226,17 @@ public class LwjglAudioDevice extends AudioDevice
 
             case WAV:
             {
-                WaveReader reader = new WaveReader(data);
+                WaveReader reader;
+
+                try
+                {
+                    reader = new WaveReader(data);
+                }
+                catch (SilenceException e)
+                {
+                    onError.invoke(e);
+                    break;
+                }
 
                 TaskManager.runOnUpdate(() ->
                 {
@@ -207,6 +269,32 @@ public class LwjglAudioDevice extends AudioDevice
         return false;
     }
 
+    @Override
+    public AudioStreamDecoder createStreamDecoder(AudioFormat format, DirectBuffer data)
+    {
+        switch (format)
+        {
+            case OGG:
+                return new OggStreamDecoder(data);
+
+            case WAV:
+            {
+                // WAV files are not compressed, so the samples are streamed as they are read
+                WaveReader reader = new WaveReader(data);
+                return new PCMStreamDecoder(new LwjglDirectBuffer(reader.getData()), reader.getFormat(),
+                        reader.getSampleRate());
+            }
+        }
+
+        return super.createStreamDecoder(format, data);
+    }
+
+    @Override
+    public boolean isStreamingSupported(AudioFormat format)
+    {
+        return format == AudioFormat.OGG || format == AudioFormat.WAV;
+    }
+
     private void cleanUp()
     {
         alcCloseDevice(device);
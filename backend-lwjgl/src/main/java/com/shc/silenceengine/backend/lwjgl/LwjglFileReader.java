@@ -25,66 +25,190 @@
 package com.shc.silenceengine.backend.lwjgl;
 
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
+import org.lwjgl.system.MemoryUtil;
+
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
+ * Reads files on the worker threads of the {@link TaskManager}. Binary files are read straight into native memory
+ * without going through the Java heap. External files are read with a {@link FileChannel}, and large external files
+ * are memory mapped, in which case the returned buffer is read only. Resources are streamed into a buffer that is
+ * sized by their content length.
+ *
  * @author Sri Harsha Chilakapati
  */
 public class LwjglFileReader extends FileReader
 {
+    /**
+     * External files of this size or larger are memory mapped instead of being read into memory.
+     */
+    public static final int MAP_THRESHOLD = 16 * 1024 * 1024;
+
+    // The size of the buffer for resources that don't report their content length
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
     @Override
-    public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    protected void readBinary(FilePath file, UniCallback<DirectBuffer> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
             try
             {
-                InputStream inputStream = ((LwjglFilePath) file).getInputStream();
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                if (file.getType() == FilePath.Type.EXTERNAL)
+                    return readExternalFile(file, false);
 
-                byte[] buffer = new byte[4096];
+                return readResourceFile(file);
+            }
+            catch (IOException e)
+            {
+                throw new SilenceException("Failed to read file " + file.getPath() + ": " + e.getMessage(), e);
+            }
+        }).thenOnUpdate(onComplete).onError(onError);
+    }
 
-                while (true)
-                {
-                    int n = inputStream.read(buffer);
+    /**
+     * Memory maps external files regardless of their size, so that only the parts of them that are used are paged in.
+     * Resources can't be mapped, and are read into memory.
+     */
+    @Override
+    public void mapBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    {
+        if (file.getType() != FilePath.Type.EXTERNAL)
+        {
+            readBinaryFile(file, onComplete);
+            return;
+        }
 
-                    if (n < 0)
-                        break;
+        TaskManager.runAsync(() ->
+        {
+            try
+            {
+                return readExternalFile(file, true);
+            }
+            catch (IOException e)
+            {
+                throw new SilenceException("Failed to map file " + file.getPath() + ": " + e.getMessage(), e);
+            }
+        }).thenOnUpdate(onComplete);
+    }
+
+    private static DirectBuffer readExternalFile(FilePath file, boolean map) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(Paths.get(file.getPath()), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE)
+                throw new SilenceException("Cannot read files larger than 2 GB: " + file.getPath());
+
+            if (map || size >= MAP_THRESHOLD)
+            {
+                // The mapping stays valid after the channel is closed, and is unmapped when the buffer is collected
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.nativeOrder());
+                return new LwjglDirectBuffer(mapped, false);
+            }
 
-                    outputStream.write(buffer, 0, n);
+            // Files are small enough here to be read into a buffer from the pool
+            DirectBuffer directBuffer = SilenceEngine.io.create((int) size);
+            ByteBuffer buffer = ((ByteBuffer) directBuffer.nativeBuffer()).duplicate();
+
+            try
+            {
+                while (buffer.hasRemaining())
+                {
+                    if (channel.read(buffer) < 0)
+                        throw new EOFException("Unexpected end of file: " + file.getPath());
                 }
+            }
+            catch (IOException e)
+            {
+                SilenceEngine.io.free(directBuffer);
+                throw e;
+            }
+
+            return directBuffer;
+        }
+    }
+
+    private static DirectBuffer readResourceFile(FilePath file) throws IOException
+    {
+        URL url = LwjglFileReader.class.getClassLoader().getResource(file.getPath());
 
-                inputStream.close();
+        if (url == null)
+            throw new FileNotFoundException("Resource not found: " + file.getPath());
 
-                byte[] bytes = outputStream.toByteArray();
+        URLConnection connection = url.openConnection();
+        long contentLength = connection.getContentLengthLong();
 
-                DirectBuffer directBuffer = new LwjglDirectBuffer(bytes.length);
+        try (ReadableByteChannel channel = Channels.newChannel(connection.getInputStream()))
+        {
+            // The content length is only a hint, the buffer still grows if the stream turns out to be larger
+            ByteBuffer buffer = MemoryUtil.memAlloc(contentLength >= 0 && contentLength < Integer.MAX_VALUE
+                                                    ? Math.max(1, (int) contentLength)
+                                                    : DEFAULT_BUFFER_SIZE);
+
+            try
+            {
+                while (true)
+                {
+                    if (!buffer.hasRemaining())
+                    {
+                        // Check for the end of the stream before growing the buffer
+                        ByteBuffer probe = ByteBuffer.allocate(1);
+
+                        if (channel.read(probe) < 0)
+                            break;
 
-                for (int i = 0; i < bytes.length; i++)
-                    directBuffer.writeByte(i, bytes[i]);
+                        buffer = MemoryUtil.memRealloc(buffer, buffer.capacity() * 2);
+                        buffer.put(probe.get(0));
+                    }
 
-                TaskManager.runOnUpdate(() -> onComplete.invoke(directBuffer));
+                    if (channel.read(buffer) < 0)
+                        break;
+                }
             }
-            catch (Exception e)
+            catch (IOException e)
             {
-                SilenceEngine.log.getRootLogger().error(e);
+                MemoryUtil.memFree(buffer);
+                throw e;
             }
-        }).start();
+
+            int size = buffer.position();
+
+            // Trim the excess, so that the size of the DirectBuffer is the size of the file
+            if (size != buffer.capacity())
+                buffer = MemoryUtil.memRealloc(buffer, Math.max(1, size));
+
+            buffer.clear();
+            return new LwjglDirectBuffer(buffer);
+        }
     }
 
     @Override
-    public void readTextFile(FilePath file, UniCallback<String> onComplete)
+    protected void readText(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
             try (
                     InputStream inputStream = ((LwjglFilePath) file).getInputStream();
@@ -97,13 +221,12 @@ public class LwjglFileReader extends FileReader
                 while ((line = bufferedReader.readLine()) != null)
                     stringBuilder.append(line).append("\n");
 
-                TaskManager.runOnUpdate(() -> onComplete.invoke(stringBuilder.toString()));
+                return stringBuilder.toString();
             }
-            catch (Exception e)
+            catch (IOException e)
             {
-                SilenceEngine.log.getRootLogger().error(e);
+                throw new SilenceException("Failed to read file " + file.getPath() + ": " + e.getMessage(), e);
             }
-
-        }).start();
+        }).thenOnUpdate(onComplete).onError(onError);
     }
 }
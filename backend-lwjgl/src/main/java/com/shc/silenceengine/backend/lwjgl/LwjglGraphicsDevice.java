@@ -27,11 +27,14 @@ package com.shc.silenceengine.backend.lwjgl;
 import com.shc.silenceengine.graphics.IGraphicsDevice;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.DirectFloatBuffer;
+import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
 import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
@@ -156,6 +159,25 @@ public class LwjglGraphicsDevice implements IGraphicsDevice
         GL11.glDrawElements(primitive, vertexCount, type, offset);
     }
 
+    @Override
+    public void glDrawArraysInstanced(int primitive, int offset, int vertexCount, int instanceCount)
+    {
+        IGraphicsDevice.super.glDrawArraysInstanced(primitive, offset, vertexCount, instanceCount);
+        GL31.glDrawArraysInstanced(primitive, offset, vertexCount, instanceCount);
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor)
+    {
+        GL33.glVertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public boolean isInstancingSupported()
+    {
+        return GL.getCapabilities().OpenGL33;
+    }
+
     @Override
     public void glEnable(int capability)
     {
@@ -24,15 +24,16 @@
 
 package com.shc.silenceengine.backend.lwjgl;
 
-import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.DirectBufferPool;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.io.FileReader;
 import com.shc.silenceengine.io.IODevice;
 import com.shc.silenceengine.io.ImageReader;
+import org.lwjgl.system.MemoryUtil;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -42,31 +43,32 @@ public class LwjglIODevice implements IODevice
     private FileReader  fileReader  = new LwjglFileReader();
     private ImageReader imageReader = new LwjglImageReader();
 
-    private List<DirectBuffer> directBuffers = new ArrayList<>();
+    private DirectBufferPool<ByteBuffer> bufferPool = new LwjglDirectBufferPool();
 
-    public LwjglIODevice()
+    @Override
+    public DirectBuffer create(int sizeInBytes)
     {
-        // Free all the direct buffers at the end
-        SilenceEngine.eventManager.addDisposeHandler(() ->
-        {
-            directBuffers.forEach(directBuffer -> ((LwjglDirectBuffer) directBuffer).free());
-            directBuffers.clear();
-        });
+        return bufferPool.create(sizeInBytes);
     }
 
     @Override
-    public synchronized DirectBuffer create(int sizeInBytes)
+    public void free(DirectBuffer directBuffer)
     {
-        DirectBuffer directBuffer = new LwjglDirectBuffer(sizeInBytes);
-        directBuffers.add(directBuffer);
-        return directBuffer;
+        // Buffers that are not from the pool, like the mapped files and decoded images, free themselves
+        if (!bufferPool.free(directBuffer))
+            ((LwjglDirectBuffer) directBuffer).free();
     }
 
     @Override
-    public synchronized void free(DirectBuffer directBuffer)
+    public DirectBuffer createTemporary(int sizeInBytes)
     {
-        ((LwjglDirectBuffer) directBuffer).free();
-        directBuffers.remove(directBuffer);
+        return bufferPool.createTemporary(sizeInBytes);
+    }
+
+    @Override
+    public DirectBufferPool<ByteBuffer> getBufferPool()
+    {
+        return bufferPool;
     }
 
     @Override
@@ -92,4 +94,36 @@ public class LwjglIODevice implements IODevice
     {
         return imageReader;
     }
+
+    private static class LwjglDirectBufferPool extends DirectBufferPool<ByteBuffer>
+    {
+        private static final int ARENA_SIZE = 1024 * 1024;
+
+        private LwjglDirectBufferPool()
+        {
+            super(ARENA_SIZE);
+        }
+
+        @Override
+        protected ByteBuffer allocateBlock(int sizeInBytes)
+        {
+            return MemoryUtil.memAlloc(sizeInBytes);
+        }
+
+        @Override
+        protected void freeBlock(ByteBuffer block)
+        {
+            MemoryUtil.memFree(block);
+        }
+
+        @Override
+        protected DirectBuffer wrapBlock(ByteBuffer block, int offset, int sizeInBytes)
+        {
+            ByteBuffer view = block.duplicate();
+            view.limit(offset + sizeInBytes);
+            view.position(offset);
+
+            return new LwjglDirectBuffer(view.slice().order(ByteOrder.nativeOrder()), false);
+        }
+    }
 }
@@ -25,13 +25,13 @@
 package com.shc.silenceengine.backend.lwjgl;
 
 import com.shc.silenceengine.core.SilenceException;
-import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.ImageReader;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.UniCallback;
 import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBImage;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
@@ -44,9 +44,9 @@ import static org.lwjgl.stb.STBImage.*;
 public class LwjglImageReader extends ImageReader
 {
     @Override
-    public void readImage(DirectBuffer memory, UniCallback<Image> onComplete)
+    public void readImage(DirectBuffer memory, UniCallback<Image> onComplete, UniCallback<Throwable> onError)
     {
-        new Thread(() ->
+        TaskManager.runAsync(() ->
         {
             IntBuffer width = BufferUtils.createIntBuffer(1);
             IntBuffer height = BufferUtils.createIntBuffer(1);
@@ -57,26 +57,9 @@ public class LwjglImageReader extends ImageReader
             if (imageBuffer == null)
                 throw new SilenceException("Failed to load image: " + stbi_failure_reason());
 
-            Image image = new Image(width.get(0), height.get(0));
-
-            for (int y = 0; y < image.getHeight(); y++)
-            {
-                for (int x = 0; x < image.getWidth(); x++)
-                {
-                    int start = 4 * (y * image.getWidth() + x);
-
-                    float r = (imageBuffer.get(start) & 0xff) / 255f;
-                    float g = (imageBuffer.get(start + 1) & 0xff) / 255f;
-                    float b = (imageBuffer.get(start + 2) & 0xff) / 255f;
-                    float a = (imageBuffer.get(start + 3) & 0xff) / 255f;
-
-                    image.setPixel(x, y, new Color(r, g, b, a));
-                }
-            }
-
-            stbi_image_free(imageBuffer);
-
-            TaskManager.runOnUpdate(() -> onComplete.invoke(image));
-        }).start();
+            // The decoded pixels are already RGBA8, so the image takes over the memory allocated by STB
+            return new Image(width.get(0), height.get(0), width.get(0), height.get(0),
+                    new LwjglDirectBuffer(imageBuffer, STBImage::stbi_image_free));
+        }).thenOnUpdate(onComplete).onError(onError);
     }
 }
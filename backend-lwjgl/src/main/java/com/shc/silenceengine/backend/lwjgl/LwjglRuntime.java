@@ -29,10 +29,14 @@ import com.shc.silenceengine.backend.lwjgl.glfw.Window;
 import com.shc.silenceengine.core.Game;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.ScratchPool;
 import com.shc.silenceengine.utils.TaskManager;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
 import org.lwjgl.system.Configuration;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * The LwjglRuntime initializes the LWJGL library, and starts the native event loop.
  *
@@ -40,6 +44,19 @@ import org.lwjgl.system.Configuration;
  */
 public final class LwjglRuntime
 {
+    // The size of the worker pool of the job system, leaving one core for the game loop
+    private static final int NUM_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Every thread that uses the math temporaries gets its own scratch pool
+    private static final ThreadLocal<ScratchPool> SCRATCH_POOLS = new ThreadLocal<ScratchPool>()
+    {
+        @Override
+        protected ScratchPool initialValue()
+        {
+            return new ScratchPool();
+        }
+    };
+
     private LwjglRuntime()
     {
     }
@@ -55,6 +72,21 @@ public final class LwjglRuntime
         SilenceEngine.graphics = new LwjglGraphicsDevice();
         SilenceEngine.audio = new LwjglAudioDevice();
 
+        // Background jobs are run on a pool of daemon threads
+        ExecutorService workerPool = Executors.newFixedThreadPool(NUM_WORKERS, runnable ->
+        {
+            Thread thread = new Thread(runnable, "SilenceEngine Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        TaskManager.setAsyncRunner(task -> workerPool.execute(task::invoke));
+        TaskManager.setThreadYielder(Thread::yield);
+        TaskManager.setMaxConcurrentJobs(NUM_WORKERS);
+
+        // The math temporaries are taken from a pool of their own on every thread
+        ScratchPool.setProvider(SCRATCH_POOLS::get);
+
         // Set AWT fix on Mac OS X
         if (SilenceEngine.display.getPlatform() == SilenceEngine.Platform.MACOSX)
             System.setProperty("java.awt.headless", "true");
@@ -99,5 +131,10 @@ public final class LwjglRuntime
 
         // Raise the dispose event finally
         SilenceEngine.eventManager.raiseDisposeEvent();
+
+        TaskManager.setAsyncRunner(null);
+        TaskManager.setThreadYielder(null);
+        ScratchPool.setProvider(null);
+        workerPool.shutdown();
     }
 }
@@ -27,6 +27,7 @@ package com.shc.silenceengine.backend.lwjgl.glfw;
 import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
+import com.shc.silenceengine.utils.ScratchPool;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFWImage;
 
@@ -64,7 +65,10 @@ public class Cursor
 
         ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
 
-        Color color = Color.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Color color = scratch.color();
 
         for (int y = 0; y < height; y++)
         {
@@ -84,7 +88,7 @@ public class Cursor
             }
         }
 
-        Color.REUSABLE_STACK.push(color);
+        scratch.release(mark);
 
         data.flip();
         glfwImage.pixels(data);
@@ -26,11 +26,11 @@ package com.shc.silenceengine.backend.lwjgl.glfw;
 
 import com.shc.silenceengine.backend.lwjgl.glfw.callbacks.*;
 import com.shc.silenceengine.core.SilenceEngine;
-import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector4;
+import com.shc.silenceengine.utils.ScratchPool;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.*;
@@ -823,36 +823,16 @@ public class Window
         glfwImage.width(width);
         glfwImage.height(height);
 
-        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
-
-        Color color = Color.REUSABLE_STACK.pop();
-
-        for (int y = 0; y < height; y++)
-        {
-            for (int x = 0; x < width; x++)
-            {
-                image.getPixel(x, y, color);
-
-                float r = (color.r * 255f);
-                float g = (color.g * 255f);
-                float b = (color.b * 255f);
-                float a = (color.a * 255f);
-
-                data.put((byte) r)
-                        .put((byte) g)
-                        .put((byte) b)
-                        .put((byte) a);
-            }
-        }
-
-        Color.REUSABLE_STACK.push(color);
-
-        data.flip();
-        glfwImage.pixels(data);
+        // GLFW copies the pixels, so the RGBA8 images can be passed as is
+        Image packed = image.getFormat() == Image.Format.RGBA8 ? image : image.convert(Image.Format.RGBA8);
+        glfwImage.pixels((ByteBuffer) packed.getImageData().nativeBuffer());
 
         glfwSetWindowIcon(handle, glfwImages);
 
         glfwImages.free();
+
+        if (packed != image)
+            packed.dispose();
     }
 
     /**
@@ -1081,7 +1061,10 @@ public class Window
      */
     public void setFramebufferSize(Vector2 fbSize)
     {
-        Vector2 temp = Vector2.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector2 temp = scratch.vector2();
         Vector2 framebufferSize = getFramebufferSize();
         Vector2 size = getSize();
 
@@ -1092,7 +1075,7 @@ public class Window
 
         setSize(size);
 
-        Vector2.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
     }
 
     /**
@@ -1105,9 +1088,12 @@ public class Window
      */
     public void setFramebufferSize(float width, float height)
     {
-        Vector2 temp = Vector2.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector2 temp = scratch.vector2();
         setFramebufferSize(temp.set(width, height));
-        Vector2.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
     }
 
     public String getClipboardString()
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.backend.lwjgl.soundreaders;
+
+import com.shc.silenceengine.audio.AudioStreamDecoder;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBVorbisInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.stb.STBVorbis.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * <p> A stream decoder based on the STB vorbis libraries. Unlike the {@link OggReader}, this decodes the samples from
+ * the OGG data incrementally, so only the encoded data stays in memory while a long track is streamed. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class OggStreamDecoder implements AudioStreamDecoder
+{
+    private long handle;
+
+    private int      channels;
+    private int      sampleRate;
+    private int      lengthInFrames;
+    private ALFormat format;
+
+    /**
+     * Opens a decoder over the OGG data in a DirectBuffer. The data is not copied, and should stay alive until the
+     * decoder is disposed.
+     *
+     * @param directBuffer Direct buffer to decode the data from
+     */
+    public OggStreamDecoder(DirectBuffer directBuffer)
+    {
+        IntBuffer error = BufferUtils.createIntBuffer(1);
+        handle = stb_vorbis_open_memory((ByteBuffer) directBuffer.nativeBuffer(), error, null);
+
+        if (handle == NULL)
+            throw new SilenceException("Error " + error.get(0) + ": decoding the OGG data");
+
+        STBVorbisInfo info = STBVorbisInfo.malloc();
+        stb_vorbis_get_info(handle, info);
+
+        channels = info.channels();
+        sampleRate = info.sample_rate();
+        info.free();
+
+        format = channels == 1 ? ALFormat.MONO_16 : ALFormat.STEREO_16;
+        lengthInFrames = stb_vorbis_stream_length_in_samples(handle);
+    }
+
+    @Override
+    public ALFormat getFormat()
+    {
+        return format;
+    }
+
+    @Override
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    @Override
+    public int getLengthInFrames()
+    {
+        return lengthInFrames;
+    }
+
+    @Override
+    public int decode(DirectBuffer dst, int offset, int maxBytes)
+    {
+        ByteBuffer bytes = ((ByteBuffer) dst.nativeBuffer()).duplicate();
+        bytes.position(offset);
+        bytes.limit(offset + maxBytes / format.getFrameSize() * format.getFrameSize());
+
+        ShortBuffer samples = bytes.slice().order(ByteOrder.nativeOrder()).asShortBuffer();
+
+        // The number of samples decoded per channel, that is, the number of sample frames
+        int frames = stb_vorbis_get_samples_short_interleaved(handle, channels, samples);
+
+        return frames * format.getFrameSize();
+    }
+
+    @Override
+    public void seek(int frame)
+    {
+        stb_vorbis_seek(handle, frame);
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (handle == NULL)
+            return;
+
+        stb_vorbis_close(handle);
+        handle = NULL;
+    }
+}
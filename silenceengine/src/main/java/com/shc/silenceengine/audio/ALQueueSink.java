@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.audio.openal.ALSource;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p> A {@link PCMSink} that plays the samples through an OpenAL source, by queueing them in a fixed set of OpenAL
+ * buffers that are rotated. A buffer is unqueued and reused as soon as the source is done playing it, so a stream of
+ * any length is played with only a few buffers. </p>
+ *
+ * <p> If the buffers run dry while playing, the source stops on its own. The sink restarts it as soon as the next
+ * chunk is submitted, and counts it as an underrun. </p>
+ *
+ * <p> A stopped sink can be moved to another source with {@link #setSource(ALSource)}, so that its buffers are reused
+ * by the next stream instead of creating new ones. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class ALQueueSink implements PCMSink
+{
+    private ALSource   source;
+    private ALBuffer[] buffers;
+
+    // The sizes of the samples in each of the buffers, and the indices of the buffers that are free
+    private int[] bufferSizes;
+    private int[] freeBuffers;
+    private int   freeCount;
+
+    private boolean playing;
+    private boolean started;
+    private int     underruns;
+
+    /**
+     * Creates a sink that queues the samples on a source. The source is not owned by the sink, and is not disposed
+     * with it.
+     *
+     * @param source      The source to play the samples through.
+     * @param bufferCount The number of buffers to rotate.
+     */
+    public ALQueueSink(ALSource source, int bufferCount)
+    {
+        this.source = source;
+
+        buffers = new ALBuffer[bufferCount];
+        bufferSizes = new int[bufferCount];
+        freeBuffers = new int[bufferCount];
+
+        for (int i = 0; i < bufferCount; i++)
+        {
+            buffers[i] = new ALBuffer();
+            freeBuffers[i] = i;
+        }
+
+        freeCount = bufferCount;
+    }
+
+    @Override
+    public int getFreeBuffers()
+    {
+        return freeCount;
+    }
+
+    @Override
+    public int getQueuedBuffers()
+    {
+        return buffers.length - freeCount;
+    }
+
+    @Override
+    public void submit(DirectBuffer samples, ALFormat format, int sampleRate)
+    {
+        if (freeCount == 0)
+            throw new SilenceException("Cannot submit samples, all the buffers are queued");
+
+        int index = freeBuffers[--freeCount];
+
+        buffers[index].uploadData(samples, format, sampleRate);
+        bufferSizes[index] = samples.sizeBytes();
+        source.queueBuffer(buffers[index]);
+
+        if (playing && source.getState() == ALSource.State.STOPPED)
+        {
+            // The source stopped because it played all the buffers before this one was submitted
+            if (started)
+                underruns++;
+
+            source.play();
+            started = true;
+        }
+    }
+
+    @Override
+    public int update()
+    {
+        int played = 0;
+
+        for (int processed = source.getBuffersProcessed(); processed > 0; processed--)
+            played += reclaim(source.unqueueBuffer());
+
+        return played;
+    }
+
+    private int reclaim(int bufferID)
+    {
+        for (int i = 0; i < buffers.length; i++)
+        {
+            if (buffers[i].getID() == bufferID)
+            {
+                freeBuffers[freeCount++] = i;
+                return bufferSizes[i];
+            }
+        }
+
+        throw new SilenceException("The buffer " + bufferID + " is not owned by this sink");
+    }
+
+    @Override
+    public void play()
+    {
+        playing = true;
+
+        if (getQueuedBuffers() > 0 && source.getState() != ALSource.State.PLAYING)
+        {
+            source.play();
+            started = true;
+        }
+    }
+
+    @Override
+    public void pause()
+    {
+        playing = false;
+        source.pause();
+    }
+
+    @Override
+    public void stop()
+    {
+        playing = false;
+        started = false;
+
+        // Nothing is queued on the source, which may already be used by someone else after this sink is stopped
+        if (getQueuedBuffers() == 0)
+            return;
+
+        // Detaching the buffers from a stopped source removes all of them from its queue
+        source.stop();
+        source.attachBuffer(null);
+
+        for (int i = 0; i < buffers.length; i++)
+            freeBuffers[i] = i;
+
+        freeCount = buffers.length;
+    }
+
+    @Override
+    public int getUnderruns()
+    {
+        return underruns;
+    }
+
+    public ALSource getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Moves this sink to another source. The sink should be stopped, so that none of its buffers are queued on the
+     * old source.
+     *
+     * @param source The source to play the samples through from now on.
+     */
+    public void setSource(ALSource source)
+    {
+        if (getQueuedBuffers() > 0)
+            throw new SilenceException("Cannot change the source of a sink that has queued buffers, stop it first");
+
+        this.source = source;
+    }
+
+    @Override
+    public void dispose()
+    {
+        stop();
+
+        for (ALBuffer buffer : buffers)
+            buffer.dispose();
+    }
+}
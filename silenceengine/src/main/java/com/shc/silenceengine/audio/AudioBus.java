@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>An AudioBus is a group of sounds that share a volume, like the music, the sound effects or the sounds of the user
+ * interface. Buses form a tree under the master bus of the {@link AudioScene}, and the volume of a bus is multiplied
+ * with the volumes of all its parents. Sounds and streams are assigned to a bus with {@link Sound#setBus(AudioBus)}
+ * and {@link AudioStream#setBus(AudioBus)}, and play on the master bus otherwise.</p>
+ *
+ * <p>Changing the volume of a bus doesn't touch any of the playing sources. The scene computes the gains of all the
+ * buses once per frame, and sends the gain of a source to OpenAL only if it is changed.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AudioBus
+{
+    private final String         name;
+    private final AudioBus       parent;
+    private final List<AudioBus> children;
+
+    private float   volume = 1;
+    private boolean muted;
+
+    // The volume of this bus multiplied with the volumes of its parents, computed by the scene every frame
+    private float effectiveGain = 1;
+
+    /**
+     * Creates a bus under a parent bus.
+     *
+     * @param name   The name of this bus.
+     * @param parent The parent bus, usually the master bus of the scene, or another bus under it.
+     */
+    public AudioBus(String name, AudioBus parent)
+    {
+        this.name = name;
+        this.parent = parent;
+        this.children = new ArrayList<>();
+
+        if (parent != null)
+            parent.children.add(this);
+    }
+
+    void updateGain(float parentGain)
+    {
+        effectiveGain = muted ? 0 : parentGain * volume;
+
+        for (int i = 0; i < children.size(); i++)
+            children.get(i).updateGain(effectiveGain);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public AudioBus getParent()
+    {
+        return parent;
+    }
+
+    public List<AudioBus> getChildren()
+    {
+        return Collections.unmodifiableList(children);
+    }
+
+    public float getVolume()
+    {
+        return volume;
+    }
+
+    /**
+     * Sets the volume of this bus. The change is heard from the next update of the scene.
+     *
+     * @param volume The volume, where 1 is the original volume of the sounds.
+     */
+    public void setVolume(float volume)
+    {
+        this.volume = Math.max(0, volume);
+    }
+
+    public boolean isMuted()
+    {
+        return muted;
+    }
+
+    /**
+     * Mutes or unmutes this bus and all the buses under it. The voices of the muted sounds are made virtual, so they
+     * don't take real voices until they are unmuted.
+     *
+     * @param muted Whether to mute this bus.
+     */
+    public void setMuted(boolean muted)
+    {
+        this.muted = muted;
+    }
+
+    /**
+     * @return The gain of the sounds on this bus as of the last update of the scene, including the volumes of the
+     * parents of this bus.
+     */
+    public float getEffectiveGain()
+    {
+        return effectiveGain;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AudioBus{" +
+               "name='" + name + '\'' +
+               ", volume=" + volume +
+               ", muted=" + muted +
+               ", effectiveGain=" + effectiveGain +
+               '}';
+    }
+}
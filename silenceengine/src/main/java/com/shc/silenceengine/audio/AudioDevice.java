@@ -25,7 +25,10 @@
 package com.shc.silenceengine.audio;
 
 import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 /**
@@ -69,10 +72,54 @@ public abstract class AudioDevice
 
     public abstract void alDeleteSources(int... sources);
 
-    public abstract void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded);
+    public abstract void alSourceQueueBuffers(int id, int buffer);
+
+    public abstract int alSourceUnqueueBuffers(int id);
+
+    public abstract void alListenerf(int param, float value);
+
+    public abstract void alListener3f(int param, float v1, float v2, float v3);
+
+    public abstract void alListenerfv(int param, float[] values);
+
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded)
+    {
+        readToALBuffer(format, data, onDecoded, error -> SilenceEngine.log.getRootLogger().error(error));
+    }
+
+    /**
+     * Decodes audio into a buffer, and reports the errors of decoding to a callback instead of logging them.
+     *
+     * @param format    The format of the audio.
+     * @param data      The encoded audio.
+     * @param onDecoded The callback to invoke with the decoded buffer.
+     * @param onError   The callback to invoke with the error, if the audio can't be decoded.
+     */
+    public abstract void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                                        UniCallback<Throwable> onError);
 
     public abstract boolean isSupported(AudioFormat format);
 
+    /**
+     * Creates a decoder that decodes the audio incrementally, for streaming it with an {@link AudioStream}.
+     *
+     * @param format The format of the audio.
+     * @param data   The encoded audio, which should stay alive until the decoder is disposed.
+     *
+     * @return The decoder of the audio.
+     *
+     * @throws com.shc.silenceengine.core.SilenceException If this device can't stream the format.
+     */
+    public AudioStreamDecoder createStreamDecoder(AudioFormat format, DirectBuffer data)
+    {
+        throw new SilenceException("Streaming audio of format " + format + " is not supported.");
+    }
+
+    public boolean isStreamingSupported(AudioFormat format)
+    {
+        return false;
+    }
+
     /**
      * The format of the audio. This represents the File Format, and not the format used to store the sound in memory.
      */
@@ -81,7 +128,54 @@ public abstract class AudioDevice
         OGG,
         WAV,
         MP3,
-        WEBM
+        WEBM;
+
+        /**
+         * Guesses the format of an audio file from the extension of its name. Files with unknown extensions are taken
+         * to be OGG files.
+         *
+         * @param path The path of the audio file.
+         *
+         * @return The format of the audio file.
+         */
+        public static AudioFormat forPath(FilePath path)
+        {
+            switch (path.getExtension())
+            {
+                case "wav":
+                case "pcm":
+                case "wave":
+                case "riff":
+                    return WAV;
+
+                case "mp3":
+                case "mp4":
+                case "mpg":
+                    return MP3;
+
+                case "webm":
+                    return WEBM;
+
+                default:
+                    return OGG;
+            }
+        }
+    }
+
+    /**
+     * The statistics of the calls made to OpenAL through the wrappers in the openal package and the AudioScene. The
+     * calls in this frame are counted from the start of the last update of the AudioScene.
+     */
+    public static final class Data
+    {
+        public static long totalALCalls     = 0;
+        public static int  alCallsThisFrame = 0;
+
+        public static void countCall()
+        {
+            totalALCalls++;
+            alCallsThisFrame++;
+        }
     }
 
     /**
@@ -161,6 +255,14 @@ public abstract class AudioDevice
                 AL_CONE_OUTER_GAIN  = 0x1022,
                 AL_SOURCE_TYPE      = 0x1027;
 
+        /**
+         * Source offsets.
+         */
+        public static final int
+                AL_SEC_OFFSET    = 0x1024,
+                AL_SAMPLE_OFFSET = 0x1025,
+                AL_BYTE_OFFSET   = 0x1026;
+
         /**
          * Source state.
          */
@@ -22,15 +22,13 @@
  * SOFTWARE.
  */
 
+
 package com.shc.silenceengine.audio;
 
 import com.shc.silenceengine.audio.openal.ALSource;
 import com.shc.silenceengine.core.SilenceEngine;
-import com.shc.silenceengine.utils.ReusableStack;
-
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.math.Vector3;
 
 import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
 
@@ -39,26 +37,89 @@ import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
  * and also updates the position, direction and velocity of the updated sources. It acts like a master of all sounds.
  * </p>
  *
+ * <p>Every sound that is played takes a voice. There are a fixed number of real voices, each of which has its own
+ * OpenAL source, and the rest of the voices are virtual. A virtual voice keeps track of the time of its sound without
+ * playing it, and is made real again once it is audible and a real voice is free. When all the real voices are busy,
+ * a new sound takes the real voice of a sound with a lower priority, or with the same priority and a lower volume at
+ * the listener. Voices that are too far from the listener to be heard are made virtual, so they don't hold on to a
+ * real voice. All the voices live in arrays that are allocated up front, so playing and updating the sounds doesn't
+ * allocate anything.</p>
+ *
+ * <p>The sounds are grouped into a tree of {@link AudioBus}es under the {@link #master} bus. Once per frame, the scene
+ * computes the gains of the buses, and sends the listener and the properties of all the real voices to OpenAL in a
+ * single pass. Only the properties that are changed since the last frame are sent, and the number of OpenAL calls is
+ * counted in {@link AudioDevice.Data}.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class AudioScene
 {
-    private ReusableStack<ALSource>      sourcesPool;
-    private ReusableStack<PlayingSource> playingSourcesPool;
+    /**
+     * The default number of real voices, which are played through an OpenAL source.
+     */
+    public static final int DEFAULT_MAX_VOICES = 32;
+
+    /**
+     * The default number of voices that are tracked, including both real and virtual voices.
+     */
+    public static final int DEFAULT_MAX_VIRTUAL_VOICES = 256;
+
+    /**
+     * The master bus, which is the root of all the buses. Sounds that are not assigned to a bus play on this bus.
+     */
+    public final AudioBus master = new AudioBus("Master", null);
+
+    /**
+     * The position of the listener. It is also used to find the voices that are audible.
+     */
+    public final Vector3 listenerPosition = new Vector3();
+
+    /**
+     * The velocity of the listener, which is used to render the doppler effect.
+     */
+    public final Vector3 listenerVelocity = new Vector3();
+
+    /**
+     * The direction the listener is facing, and the up direction of the listener.
+     */
+    public final Vector3 listenerForward = new Vector3(0, 0, -1);
+    public final Vector3 listenerUp      = new Vector3(0, 1, 0);
+
+    // The properties of the listener that are last sent to OpenAL, which start with the defaults of OpenAL
+    private final Vector3 appliedListenerPosition = new Vector3();
+    private final Vector3 appliedListenerVelocity = new Vector3();
+    private final Vector3 appliedListenerForward  = new Vector3(0, 0, -1);
+    private final Vector3 appliedListenerUp       = new Vector3(0, 1, 0);
+    private final float[] listenerOrientation     = new float[6];
+
+    private Voice[] voices;
+    private int     voiceCount;
+
+    private ALSource[] freeSources;
+    private int        freeSourceCount;
+    private int        createdSources;
+    private int        maxVoices;
 
-    private Map<PlayingSource, AudioSource> playingSources;
+    private float audibilityThreshold = 0.01f;
 
     private AudioSource defaultAudioSource;
 
+    private long stolenVoices;
+    private long droppedVoices;
+
     /**
      * Prevent instantiation by users. Should only be used via {@code SilenceEngine.audio.scene}
      */
     AudioScene()
     {
-        sourcesPool = new ReusableStack<>(ALSource::new);
-        playingSourcesPool = new ReusableStack<>(PlayingSource::new);
+        voices = new Voice[DEFAULT_MAX_VIRTUAL_VOICES];
+
+        for (int i = 0; i < voices.length; i++)
+            voices[i] = new Voice();
+
+        maxVoices = DEFAULT_MAX_VOICES;
+        freeSources = new ALSource[maxVoices];
 
-        playingSources = new HashMap<>();
         defaultAudioSource = new AudioSource();
 
         SilenceEngine.eventManager.addDisposeHandler(this::cleanUp);
@@ -71,58 +132,291 @@ public final class AudioScene
      */
     public void stopAllSources()
     {
-        for (PlayingSource source : playingSources.keySet())
+        for (int i = voiceCount - 1; i >= 0; i--)
         {
-            source.alSource.stop();
-            sourcesPool.push(source.alSource);
+            if (voices[i].audioSource != defaultAudioSource)
+                releaseVoice(i);
         }
-
-        playingSources.clear();
     }
 
     private void cleanUp()
     {
-        // Cleanup all the sources in the object pool
-        for (ALSource source : sourcesPool.getAsList())
-            source.dispose();
+        for (int i = voiceCount - 1; i >= 0; i--)
+            releaseVoice(i);
+
+        // The sinks are kept by the voices after their streams are stopped, so dispose them along with the voices
+        for (Voice voice : voices)
+            voice.disposeSink();
+
+        // Cleanup all the sources in the pool, all of them are free now
+        for (int i = 0; i < freeSourceCount; i++)
+            freeSources[i].dispose();
+
+        freeSourceCount = 0;
+        createdSources = 0;
     }
 
     private void updateSources(float deltaTime)
     {
-        Iterator<PlayingSource> iterator = playingSources.keySet().iterator();
+        AudioDevice.Data.alCallsThisFrame = 0;
 
-        while (iterator.hasNext())
+        // Compute the gains of all the buses and move the listener, before the voices are updated with them
+        master.updateGain(1);
+        updateListener();
+
+        for (int i = voiceCount - 1; i >= 0; i--)
         {
-            PlayingSource playingSource = iterator.next();
-            ALSource source = playingSource.alSource;
-            AudioSource audioSource = playingSources.get(playingSource);
+            Voice voice = voices[i];
+
+            if (voice.stream != null)
+            {
+                voice.stream.update();
+
+                if (voice.stream.getState() == AudioStream.State.STOPPED)
+                    releaseVoice(i);
+                else
+                    pushSourceParameters(voice, voice.audioSource.updated);
 
-            ALSource.State state = source.getState();
+                continue;
+            }
 
-            if (state != ALSource.State.PLAYING &&
-                state != ALSource.State.LOOPING)
+            voice.elapsed += deltaTime;
+
+            // A voice of unknown duration is only virtual if it is stolen, and it can't be resumed from the right time.
+            // It is dropped before the check for the end, which it would always be past with a zero duration.
+            if (!voice.isReal() && voice.duration <= 0)
             {
-                source.attachBuffer(null);
+                releaseVoice(i);
+                droppedVoices++;
+                continue;
+            }
 
-                iterator.remove();
-                sourcesPool.push(source);
-                playingSourcesPool.push(playingSource);
+            // Looping sounds never end on their own, and the others are only polled once they could have ended
+            boolean ended = !voice.loop && voice.elapsed >= voice.duration &&
+                            (!voice.isReal() || voice.alSource.getParameter(AL_SOURCE_STATE) != AL_PLAYING);
 
+            if (ended)
+            {
+                releaseVoice(i);
                 continue;
             }
 
-            if (audioSource.updated)
+            voice.audibility = computeAudibility(voice.audioSource, voice.bus);
+
+            if (voice.isReal())
             {
-                source.pause();
+                // Sounds of unknown duration can't be resumed from the right time, so they are stopped instead
+                if (voice.audibility < audibilityThreshold && voice.duration <= 0)
+                    releaseVoice(i);
 
-                source.setParameter(AL_POSITION, audioSource.position);
-                source.setParameter(AL_VELOCITY, audioSource.velocity);
-                source.setParameter(AL_DIRECTION, audioSource.direction);
+                else if (voice.audibility < audibilityThreshold)
+                    makeVirtual(voice);
 
-                audioSource.updated = false;
-                source.play();
+                else
+                    pushSourceParameters(voice, voice.audioSource.updated);
             }
         }
+
+        // The sources are applied to all of their voices, so clear the flags only after all of them are done
+        for (int i = 0; i < voiceCount; i++)
+            voices[i].audioSource.updated = false;
+
+        // Resume the virtual voices that can be heard again, if there are real voices for them
+        for (int i = 0; i < voiceCount; i++)
+        {
+            Voice voice = voices[i];
+
+            // The voices that are stolen in this loop are only released in the next update, so skip them here
+            if (!voice.isReal() && voice.duration > 0 && voice.audibility >= audibilityThreshold &&
+                acquireSource(voice))
+                startVoice(voice, voice.loop ? voice.elapsed % voice.duration : voice.elapsed);
+        }
+    }
+
+    private void updateListener()
+    {
+        if (!listenerPosition.equals(appliedListenerPosition))
+        {
+            SilenceEngine.audio.alListener3f(AL_POSITION, listenerPosition.x, listenerPosition.y, listenerPosition.z);
+            AudioDevice.Data.countCall();
+            appliedListenerPosition.set(listenerPosition);
+        }
+
+        if (!listenerVelocity.equals(appliedListenerVelocity))
+        {
+            SilenceEngine.audio.alListener3f(AL_VELOCITY, listenerVelocity.x, listenerVelocity.y, listenerVelocity.z);
+            AudioDevice.Data.countCall();
+            appliedListenerVelocity.set(listenerVelocity);
+        }
+
+        if (!listenerForward.equals(appliedListenerForward) || !listenerUp.equals(appliedListenerUp))
+        {
+            listenerOrientation[0] = listenerForward.x;
+            listenerOrientation[1] = listenerForward.y;
+            listenerOrientation[2] = listenerForward.z;
+            listenerOrientation[3] = listenerUp.x;
+            listenerOrientation[4] = listenerUp.y;
+            listenerOrientation[5] = listenerUp.z;
+
+            SilenceEngine.audio.alListenerfv(AL_ORIENTATION, listenerOrientation);
+            AudioDevice.Data.countCall();
+
+            appliedListenerForward.set(listenerForward);
+            appliedListenerUp.set(listenerUp);
+        }
+    }
+
+    private float computeAudibility(AudioSource source, AudioBus bus)
+    {
+        float gain = source.gain * bus.getEffectiveGain();
+
+        // Static sounds are not positioned, they are always heard as they are
+        if (source == defaultAudioSource)
+            return gain;
+
+        // This is the inverse distance clamped model of OpenAL, with the default reference distance and rolloff
+        float distance = source.position.distance(listenerPosition);
+        return distance <= 1 ? gain : gain / distance;
+    }
+
+    private boolean acquireSource(Voice voice)
+    {
+        if (freeSourceCount > 0)
+        {
+            voice.alSource = freeSources[--freeSourceCount];
+            return true;
+        }
+
+        if (createdSources < maxVoices)
+        {
+            voice.alSource = new ALSource();
+            createdSources++;
+            return true;
+        }
+
+        // All the real voices are busy, so steal the least important one if it is less important than this voice
+        Voice victim = null;
+
+        for (int i = 0; i < voiceCount; i++)
+        {
+            Voice candidate = voices[i];
+
+            if (!candidate.isReal() || candidate.stream != null || candidate == voice)
+                continue;
+
+            if (victim == null || candidate.isLessImportantThan(victim))
+                victim = candidate;
+        }
+
+        if (victim == null || !victim.isLessImportantThan(voice))
+            return false;
+
+        voice.alSource = victim.alSource;
+        victim.alSource = null;
+
+        voice.alSource.stop();
+        voice.alSource.attachBuffer(null);
+
+        stolenVoices++;
+        return true;
+    }
+
+    private void freeSource(ALSource source)
+    {
+        source.stop();
+        source.attachBuffer(null);
+
+        // The sources over the limit are disposed, in case the limit is lowered while they are playing
+        if (createdSources > maxVoices)
+        {
+            source.dispose();
+            createdSources--;
+        }
+        else
+            freeSources[freeSourceCount++] = source;
+    }
+
+    private void makeVirtual(Voice voice)
+    {
+        freeSource(voice.alSource);
+        voice.alSource = null;
+    }
+
+    private void startVoice(Voice voice, float offset)
+    {
+        ALSource alSource = voice.alSource;
+
+        alSource.attachBuffer(voice.sound.buffer);
+        alSource.setParameter(AL_LOOPING, voice.loop);
+        pushSourceParameters(voice, true);
+
+        if (offset > 0)
+            alSource.setParameter(AL_SEC_OFFSET, offset);
+
+        alSource.play();
+    }
+
+    /**
+     * Sends the properties of the AudioSource of a voice to its OpenAL source. Only the properties that are changed
+     * since they were last sent are sent again, unless they are forced, since most of the sources don't change in most
+     * of the frames.
+     */
+    private void pushSourceParameters(Voice voice, boolean force)
+    {
+        AudioSource source = voice.audioSource;
+        ALSource alSource = voice.alSource;
+
+        if (force || !source.position.equals(voice.position))
+        {
+            alSource.setParameter(AL_POSITION, source.position);
+            voice.position.set(source.position);
+        }
+
+        if (force || !source.velocity.equals(voice.velocity))
+        {
+            alSource.setParameter(AL_VELOCITY, source.velocity);
+            voice.velocity.set(source.velocity);
+        }
+
+        if (force || !source.direction.equals(voice.direction))
+        {
+            alSource.setParameter(AL_DIRECTION, source.direction);
+            voice.direction.set(source.direction);
+        }
+
+        float gain = source.gain * voice.bus.getEffectiveGain();
+
+        if (force || gain != voice.gain)
+        {
+            alSource.setParameter(AL_GAIN, gain);
+            voice.gain = gain;
+        }
+    }
+
+    private Voice claimVoice()
+    {
+        if (voiceCount == voices.length)
+            return null;
+
+        return voices[voiceCount++];
+    }
+
+    private void releaseVoice(int index)
+    {
+        Voice voice = voices[index];
+
+        // Stopping the stream stops the sink too, which is kept by the voice for the next stream
+        if (voice.stream != null)
+            voice.stream.stop();
+
+        if (voice.isReal())
+            freeSource(voice.alSource);
+
+        voice.reset();
+
+        // Swap the last voice into this slot, so that the active voices stay packed at the start of the array
+        voices[index] = voices[--voiceCount];
+        voices[voiceCount] = voice;
     }
 
     /**
@@ -168,24 +462,119 @@ public final class AudioScene
      */
     public void play(Sound sound, AudioSource source, boolean loop)
     {
-        ALSource alSource = sourcesPool.pop();
+        play(sound, source, loop, sound.getPriority());
+    }
+
+    /**
+     * Plays a sound through a specified AudioSource with a priority. If all the real voices are busy, the sound takes
+     * the voice of a less important sound, or starts as a virtual voice if there is none. If all the virtual voices
+     * are also busy, the sound is not played at all.
+     *
+     * @param sound    The Sound object to be played.
+     * @param source   The AudioSource object which describes the spatial properties.
+     * @param loop     Whether to play the sound in loop.
+     * @param priority The priority of the sound, which overrides the priority of the Sound object.
+     */
+    public void play(Sound sound, AudioSource source, boolean loop, int priority)
+    {
+        Voice voice = claimVoice();
 
-        source.update();
+        if (voice == null)
+        {
+            droppedVoices++;
+            return;
+        }
 
-        alSource.attachBuffer(sound.buffer);
-        alSource.setParameter(AL_POSITION, source.position);
-        alSource.setParameter(AL_VELOCITY, source.velocity);
-        alSource.setParameter(AL_DIRECTION, source.direction);
-        alSource.setParameter(AL_LOOPING, loop);
+        voice.sound = sound;
+        voice.audioSource = source;
+        voice.bus = sound.getBus() == null ? master : sound.getBus();
+        voice.loop = loop;
+        voice.priority = priority;
+        voice.duration = sound.buffer.getDuration();
+        voice.audibility = computeAudibility(source, voice.bus);
 
-        source.updated = false;
-        alSource.play();
+        if (voice.audibility >= audibilityThreshold && acquireSource(voice))
+        {
+            startVoice(voice, 0);
+            return;
+        }
 
-        PlayingSource playingSource = playingSourcesPool.pop();
-        playingSource.sound = sound;
-        playingSource.alSource = alSource;
+        // A virtual voice needs to know when the sound ends, to resume it from the right time
+        if (voice.duration <= 0)
+        {
+            releaseVoice(voiceCount - 1);
+            droppedVoices++;
+        }
+    }
 
-        playingSources.put(playingSource, source);
+    /**
+     * Plays a stream as a static audio, that is, it has no position and special effects.
+     *
+     * @param stream The stream to be played.
+     * @param loop   Whether to start over at the end of the track.
+     */
+    public void playStream(AudioStream stream, boolean loop)
+    {
+        playStream(stream, defaultAudioSource, loop);
+    }
+
+    /**
+     * Plays a stream through a specified AudioSource. The stream is played from the start with its own OpenAL source
+     * and {@link AudioStream#DEFAULT_BUFFER_COUNT} queued buffers, and is updated with the scene until it stops. A
+     * stream always takes a real voice, and its voice is never stolen. The buffers are kept by the voice once the
+     * stream stops, and are reused by the next stream that is played on it.
+     *
+     * @param stream The stream to be played.
+     * @param source The AudioSource object which describes the spatial properties.
+     * @param loop   Whether to start over at the end of the track.
+     */
+    public void playStream(AudioStream stream, AudioSource source, boolean loop)
+    {
+        stopStream(stream);
+
+        Voice voice = claimVoice();
+
+        if (voice != null)
+        {
+            voice.stream = stream;
+            voice.audioSource = source;
+            voice.bus = stream.getBus() == null ? master : stream.getBus();
+            voice.priority = Integer.MAX_VALUE;
+            voice.audibility = Float.POSITIVE_INFINITY;
+        }
+
+        if (voice == null || !acquireSource(voice))
+        {
+            if (voice != null)
+                releaseVoice(voiceCount - 1);
+
+            throw new SilenceException("There are no voices left to play the stream");
+        }
+
+        voice.alSource.setParameter(AL_LOOPING, false);
+        pushSourceParameters(voice, true);
+
+        // The buffers of the sink are created only the first time a stream is played on this voice
+        if (voice.sink == null)
+            voice.sink = new ALQueueSink(voice.alSource, AudioStream.DEFAULT_BUFFER_COUNT);
+        else
+            voice.sink.setSource(voice.alSource);
+
+        stream.play(voice.sink, loop);
+    }
+
+    /**
+     * Stops a stream that is played through this scene, and frees its OpenAL buffers.
+     *
+     * @param stream The stream to be stopped.
+     */
+    public void stopStream(AudioStream stream)
+    {
+        for (int i = voiceCount - 1; i >= 0; i--)
+        {
+            if (voices[i].stream == stream)
+                releaseVoice(i);
+        }
     }
 
     /**
@@ -195,10 +584,10 @@ public final class AudioScene
      */
     public void stopFromAllSources(Sound sound)
     {
-        for (PlayingSource source : playingSources.keySet())
+        for (int i = voiceCount - 1; i >= 0; i--)
         {
-            if (source.sound.buffer.getID() == sound.buffer.getID())
-                source.alSource.stop();
+            if (voices[i].isPlaying(sound))
+                releaseVoice(i);
         }
     }
 
@@ -209,10 +598,10 @@ public final class AudioScene
      */
     public void stopAllFromSource(AudioSource source)
     {
-        for (PlayingSource playingSource : playingSources.keySet())
+        for (int i = voiceCount - 1; i >= 0; i--)
         {
-            if (playingSources.get(playingSource) == source)
-                playingSource.alSource.stop();
+            if (voices[i].audioSource == source && voices[i].stream == null)
+                releaseVoice(i);
         }
     }
 
@@ -234,17 +623,185 @@ public final class AudioScene
      */
     public void stop(Sound sound, AudioSource source)
     {
-        for (PlayingSource playingSource : playingSources.keySet())
+        for (int i = voiceCount - 1; i >= 0; i--)
         {
-            if (playingSource.sound.buffer.getID() == sound.buffer.getID())
-                if (playingSources.get(playingSource) == source)
-                    playingSource.alSource.stop();
+            if (voices[i].isPlaying(sound) && voices[i].audioSource == source)
+                releaseVoice(i);
         }
     }
 
-    private static class PlayingSource
+    /**
+     * Sets the number of real voices, that is, the number of sounds that can be heard at the same time. Lowering it
+     * takes effect as the extra voices are stopped or made virtual.
+     *
+     * @param maxVoices The number of real voices.
+     */
+    public void setMaxVoices(int maxVoices)
+    {
+        if (maxVoices < 1)
+            throw new SilenceException("There should be at least one voice");
+
+        ALSource[] sources = new ALSource[maxVoices];
+
+        // Dispose the free sources that are over the new limit, the busy ones are disposed when they are freed
+        while (freeSourceCount > maxVoices)
+        {
+            freeSources[--freeSourceCount].dispose();
+            createdSources--;
+        }
+
+        System.arraycopy(freeSources, 0, sources, 0, freeSourceCount);
+
+        this.freeSources = sources;
+        this.maxVoices = maxVoices;
+    }
+
+    public int getMaxVoices()
+    {
+        return maxVoices;
+    }
+
+    /**
+     * Sets the number of voices that are tracked, including the virtual voices. Sounds that are played when all of
+     * them are busy are dropped.
+     *
+     * @param maxVirtualVoices The number of voices.
+     */
+    public void setMaxVirtualVoices(int maxVirtualVoices)
+    {
+        if (maxVirtualVoices < voiceCount)
+            throw new SilenceException("Cannot track less voices than there are playing: " + voiceCount);
+
+        Voice[] newVoices = new Voice[maxVirtualVoices];
+        int keptVoices = Math.min(voices.length, maxVirtualVoices);
+
+        // The idle voices are kept along with their sinks too, as long as they fit
+        System.arraycopy(voices, 0, newVoices, 0, keptVoices);
+
+        for (int i = keptVoices; i < voices.length; i++)
+            voices[i].disposeSink();
+
+        for (int i = keptVoices; i < newVoices.length; i++)
+            newVoices[i] = new Voice();
+
+        voices = newVoices;
+    }
+
+    public int getMaxVirtualVoices()
+    {
+        return voices.length;
+    }
+
+    /**
+     * Sets the volume below which the voices are made virtual. The volume of a voice is the gain of its source
+     * attenuated by its distance to the listener.
+     *
+     * @param audibilityThreshold The lowest volume that can be heard, the default is 0.01.
+     */
+    public void setAudibilityThreshold(float audibilityThreshold)
+    {
+        this.audibilityThreshold = audibilityThreshold;
+    }
+
+    public float getAudibilityThreshold()
+    {
+        return audibilityThreshold;
+    }
+
+    /**
+     * @return The number of voices that are playing through an OpenAL source.
+     */
+    public int getRealVoiceCount()
+    {
+        int count = 0;
+
+        for (int i = 0; i < voiceCount; i++)
+            if (voices[i].isReal())
+                count++;
+
+        return count;
+    }
+
+    /**
+     * @return The number of voices that are tracked without being played.
+     */
+    public int getVirtualVoiceCount()
     {
-        private ALSource alSource;
-        private Sound    sound;
+        return voiceCount - getRealVoiceCount();
+    }
+
+    /**
+     * @return The number of times the real voice of a sound is taken by a more important sound.
+     */
+    public long getStolenVoices()
+    {
+        return stolenVoices;
+    }
+
+    /**
+     * @return The number of sounds that are not played because there are no voices for them.
+     */
+    public long getDroppedVoices()
+    {
+        return droppedVoices;
+    }
+
+    private static class Voice
+    {
+        private ALSource    alSource;
+        private Sound       sound;
+        private AudioSource audioSource;
+
+        private AudioStream stream;
+        private ALQueueSink sink;
+        private AudioBus    bus;
+
+        // The properties that are last sent to the OpenAL source of this voice
+        private final Vector3 position  = new Vector3();
+        private final Vector3 velocity  = new Vector3();
+        private final Vector3 direction = new Vector3();
+
+        private float gain;
+
+        private boolean loop;
+        private int     priority;
+        private float   audibility;
+        private float   elapsed;
+        private float   duration;
+
+        private boolean isReal()
+        {
+            return alSource != null;
+        }
+
+        private boolean isPlaying(Sound sound)
+        {
+            return this.sound != null && this.sound.buffer.getID() == sound.buffer.getID();
+        }
+
+        private boolean isLessImportantThan(Voice other)
+        {
+            return priority < other.priority || (priority == other.priority && audibility < other.audibility);
+        }
+
+        // The sink is not reset, it is reused by the next stream that is played on this voice
+        private void reset()
+        {
+            alSource = null;
+            sound = null;
+            audioSource = null;
+            stream = null;
+            bus = null;
+            elapsed = 0;
+        }
+
+        private void disposeSink()
+        {
+            if (sink == null)
+                return;
+
+            sink.dispose();
+            sink = null;
+        }
     }
 }
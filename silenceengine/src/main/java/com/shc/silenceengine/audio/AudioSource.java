@@ -51,10 +51,17 @@ public class AudioSource
      */
     public final Vector3 direction = new Vector3();
 
+    /**
+     * The gain of the source, that is, the volume of the sounds that are played through it. This is also used to
+     * decide which of the voices are stolen when the AudioScene runs out of them.
+     */
+    public float gain = 1;
+
     boolean updated = true;
 
     /**
-     * Marks this source for updating. This causes the AudioScene to apply these properties to all the playing sounds.
+     * Marks this source for updating. The AudioScene finds the changed properties of the sources every frame on its
+     * own, this forces it to apply all the properties to the playing sounds again.
      */
     public void update()
     {
@@ -0,0 +1,484 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.BundleFilePath;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * <p> An AudioStream plays a long track without decoding all of it into memory. The track is decoded a chunk at a
+ * time on the worker threads of the {@link TaskManager}, and the chunks are submitted to a {@link PCMSink} which plays
+ * them from a few rotating buffers. The memory used by a stream is bounded by the size of its chunks, no matter how
+ * long the track is. </p>
+ *
+ * <p> Streams are usually played with {@link AudioScene#playStream(AudioStream, AudioSource, boolean)}, which plays
+ * them through an OpenAL source and updates them every frame. A stream can also be played into any other sink with
+ * {@link #play(PCMSink, boolean)}, in which case {@link #update()} has to be called every frame. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AudioStream implements IResource
+{
+    /**
+     * The default number of buffers queued on the sink.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    /**
+     * The default size of a chunk of samples, in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+
+    private AudioStreamDecoder decoder;
+    private DirectBuffer       data;
+    private PCMSink            sink;
+    private AudioBus           bus;
+
+    private ALFormat format;
+    private int      sampleRate;
+    private int      frameSize;
+    private int      chunkSize;
+
+    // A chunk is decoded while the other one waits to be submitted
+    private Chunk[] chunks;
+    private Chunk   readyChunk;
+
+    private State   state = State.STOPPED;
+    private boolean looping;
+
+    // The generation is bumped to discard the chunks that are decoding when the stream is seeked or stopped
+    private int     generation;
+    private int     seekFrame;
+    private boolean decoding;
+    private boolean endOfStream;
+
+    private long startFrame;
+    private long playedFrames;
+
+    private boolean disposeRequested;
+    private boolean disposed;
+
+    /**
+     * Creates a stream that plays the audio from a decoder, with chunks of the default size.
+     *
+     * @param decoder The decoder of the audio. It is disposed along with the stream.
+     */
+    public AudioStream(AudioStreamDecoder decoder)
+    {
+        this(decoder, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a stream that plays the audio from a decoder.
+     *
+     * @param decoder   The decoder of the audio. It is disposed along with the stream.
+     * @param chunkSize The size of a chunk of samples in bytes, which is rounded down to whole sample frames.
+     */
+    public AudioStream(AudioStreamDecoder decoder, int chunkSize)
+    {
+        this.decoder = decoder;
+
+        format = decoder.getFormat();
+        sampleRate = decoder.getSampleRate();
+        frameSize = format.getFrameSize();
+
+        this.chunkSize = Math.max(frameSize, chunkSize / frameSize * frameSize);
+
+        chunks = new Chunk[2];
+
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = new Chunk(DirectBuffer.create(this.chunkSize));
+    }
+
+    /**
+     * Opens a stream of an audio file. Files other than the PCM samples in asset bundles are mapped instead of read
+     * where possible, and are decoded by the decoder from {@link AudioDevice#createStreamDecoder(AudioDevice.AudioFormat,
+     * DirectBuffer)}.
+     *
+     * @param path     The path of the audio file.
+     * @param onOpened The callback that receives the stream.
+     */
+    public static void open(FilePath path, UniCallback<AudioStream> onOpened)
+    {
+        if (path instanceof BundleFilePath && ((BundleFilePath) path).isDecodedAudio())
+        {
+            BundleFilePath bundlePath = (BundleFilePath) path;
+            AssetBundle.Entry entry = bundlePath.getEntry();
+
+            onOpened.invoke(new AudioStream(new PCMStreamDecoder(bundlePath.getData(), entry.getFormat(),
+                    entry.getSampleRate())));
+            return;
+        }
+
+        SilenceEngine.io.getFileReader().mapBinaryFile(path, data ->
+        {
+            AudioDevice.AudioFormat format = AudioDevice.AudioFormat.forPath(path);
+            AudioStream stream = new AudioStream(SilenceEngine.audio.createStreamDecoder(format, data));
+
+            // The data of the files in the bundles belongs to the bundle
+            if (!(path instanceof BundleFilePath))
+                stream.data = data;
+
+            onOpened.invoke(stream);
+        });
+    }
+
+    /**
+     * Starts playing this stream into a sink from the start. The sink is used until the stream is stopped, and is
+     * not disposed by the stream.
+     *
+     * @param sink The sink to play the samples into.
+     * @param loop Whether to start over at the end of the track.
+     */
+    public void play(PCMSink sink, boolean loop)
+    {
+        stop();
+
+        this.sink = sink;
+        this.looping = loop;
+
+        state = State.PLAYING;
+        sink.play();
+
+        update();
+    }
+
+    /**
+     * Decodes the next chunks and submits them to the sink, as the sink frees its buffers. This is called every
+     * frame by the AudioScene for the streams that are played through it.
+     */
+    public void update()
+    {
+        if (state == State.STOPPED || disposed)
+            return;
+
+        playedFrames += sink.update() / frameSize;
+        submitReadyChunk();
+
+        if (!decoding && !endOfStream && readyChunk == null)
+            decodeNext();
+
+        if (endOfStream && !decoding && readyChunk == null && sink.getQueuedBuffers() == 0)
+            stop();
+    }
+
+    private void submitReadyChunk()
+    {
+        if (readyChunk == null || sink.getFreeBuffers() == 0)
+            return;
+
+        Chunk chunk = readyChunk;
+        readyChunk = null;
+
+        sink.submit(chunk.size == chunkSize ? chunk.buffer : chunk.buffer.slice(0, chunk.size), format, sampleRate);
+        chunk.busy = false;
+    }
+
+    private void decodeNext()
+    {
+        Chunk chunk = chunks[0].busy ? chunks[1] : chunks[0];
+        chunk.busy = true;
+
+        final int generation = this.generation;
+        final int seekFrame = this.seekFrame;
+        final boolean looping = this.looping;
+
+        this.seekFrame = -1;
+        decoding = true;
+
+        TaskManager.runAsync(() -> decode(chunk, seekFrame, looping))
+                .thenOnUpdate(decoded -> onDecoded(decoded, generation))
+                .onError(error ->
+                {
+                    SilenceEngine.log.getRootLogger().error(error);
+
+                    chunk.busy = false;
+                    onDecoded(null, generation);
+                    stop();
+                });
+    }
+
+    // Runs on a worker thread, there is only one of these running for a stream at any time
+    private Chunk decode(Chunk chunk, int seekFrame, boolean looping)
+    {
+        if (seekFrame >= 0)
+            decoder.seek(seekFrame);
+
+        chunk.size = 0;
+        chunk.last = false;
+
+        boolean rewound = false;
+
+        while (chunk.size < chunkSize)
+        {
+            int decoded = decoder.decode(chunk.buffer, chunk.size, chunkSize - chunk.size);
+
+            if (decoded > 0)
+            {
+                chunk.size += decoded;
+                rewound = false;
+            }
+            else if (looping && !rewound)
+            {
+                decoder.seek(0);
+                rewound = true;
+            }
+            else
+            {
+                chunk.last = true;
+                break;
+            }
+        }
+
+        return chunk;
+    }
+
+    private void onDecoded(Chunk chunk, int generation)
+    {
+        decoding = false;
+
+        if (disposeRequested)
+        {
+            dispose();
+            return;
+        }
+
+        if (chunk == null)
+            return;
+
+        // The stream is seeked or stopped while this chunk was decoding, so throw it away
+        if (generation != this.generation)
+        {
+            chunk.busy = false;
+            return;
+        }
+
+        if (chunk.last)
+            endOfStream = true;
+
+        if (chunk.size > 0)
+            readyChunk = chunk;
+        else
+            chunk.busy = false;
+
+        // The next chunk is decoded on the next update, so that a stream doesn't decode more than a chunk per frame
+        if (state != State.STOPPED)
+            submitReadyChunk();
+    }
+
+    public void pause()
+    {
+        if (state != State.PLAYING)
+            return;
+
+        state = State.PAUSED;
+        sink.pause();
+    }
+
+    public void resume()
+    {
+        if (state != State.PAUSED)
+            return;
+
+        state = State.PLAYING;
+        sink.play();
+    }
+
+    /**
+     * Stops this stream, and discards the samples that are queued on the sink. The next time the stream is played,
+     * it plays from the start.
+     */
+    public void stop()
+    {
+        // A stopped stream doesn't touch its sink anymore, it might be released already
+        if (state != State.STOPPED)
+            sink.stop();
+
+        state = State.STOPPED;
+        discard(0);
+    }
+
+    /**
+     * Moves the playback of this stream to a time in the track. The samples that are queued are discarded, so the
+     * seek is heard as soon as the next chunk is decoded.
+     *
+     * @param seconds The time to seek to, in seconds.
+     */
+    public void seek(float seconds)
+    {
+        int frame = Math.max(0, (int) (seconds * sampleRate));
+        int length = decoder.getLengthInFrames();
+
+        if (length >= 0)
+            frame = Math.min(frame, length);
+
+        if (state != State.STOPPED)
+        {
+            sink.stop();
+
+            if (state == State.PLAYING)
+                sink.play();
+        }
+
+        discard(frame);
+        update();
+    }
+
+    private void discard(int frame)
+    {
+        generation++;
+
+        if (readyChunk != null)
+        {
+            readyChunk.busy = false;
+            readyChunk = null;
+        }
+
+        seekFrame = frame;
+        endOfStream = false;
+
+        startFrame = frame;
+        playedFrames = 0;
+    }
+
+    /**
+     * @return The time in the track that is being played, in seconds.
+     */
+    public float getPosition()
+    {
+        long frame = startFrame + playedFrames;
+        int length = decoder.getLengthInFrames();
+
+        if (looping && length > 0)
+            frame %= length;
+
+        return frame / (float) sampleRate;
+    }
+
+    /**
+     * @return The length of the track in seconds, or -1 if it is not known.
+     */
+    public float getDuration()
+    {
+        int length = decoder.getLengthInFrames();
+        return length < 0 ? -1 : length / (float) sampleRate;
+    }
+
+    public State getState()
+    {
+        return state;
+    }
+
+    public boolean isLooping()
+    {
+        return looping;
+    }
+
+    public AudioBus getBus()
+    {
+        return bus;
+    }
+
+    /**
+     * Assigns this stream to a bus, whose volume is applied to this stream when it is played through the AudioScene.
+     *
+     * @param bus The bus to play this stream on, or null to play it on the master bus.
+     */
+    public void setBus(AudioBus bus)
+    {
+        this.bus = bus;
+    }
+
+    public PCMSink getSink()
+    {
+        return sink;
+    }
+
+    public AudioStreamDecoder getDecoder()
+    {
+        return decoder;
+    }
+
+    /**
+     * Stops this stream and frees its decoder and chunks. If a chunk is still decoding, the stream is disposed once
+     * it is done.
+     */
+    @Override
+    public void dispose()
+    {
+        if (disposed)
+            return;
+
+        stop();
+
+        if (decoding)
+        {
+            disposeRequested = true;
+            return;
+        }
+
+        decoder.dispose();
+
+        for (Chunk chunk : chunks)
+            SilenceEngine.io.free(chunk.buffer);
+
+        if (data != null)
+            SilenceEngine.io.free(data);
+
+        disposed = true;
+    }
+
+    public boolean isDisposed()
+    {
+        return disposed;
+    }
+
+    public enum State
+    {
+        PLAYING, PAUSED, STOPPED
+    }
+
+    private static class Chunk
+    {
+        private final DirectBuffer buffer;
+
+        private int     size;
+        private boolean last;
+        private boolean busy;
+
+        Chunk(DirectBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p> A decoder that decodes audio incrementally into PCM samples, a chunk at a time. Decoders are used by the {@link
+ * AudioStream} to play long tracks without decoding them completely into memory. The decoding happens on the worker
+ * threads of the {@link com.shc.silenceengine.utils.TaskManager}, but never on more than one thread at a time, so the
+ * implementations need not be thread safe. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public interface AudioStreamDecoder extends IResource
+{
+    /**
+     * @return The format of the PCM samples that are decoded.
+     */
+    ALFormat getFormat();
+
+    /**
+     * @return The sample rate of the audio, in Hz.
+     */
+    int getSampleRate();
+
+    /**
+     * @return The length of the audio in sample frames, or -1 if it is not known.
+     */
+    int getLengthInFrames();
+
+    /**
+     * Decodes the next samples of the audio into a buffer. The decoder can decode less than the requested number of
+     * bytes, but always decodes whole sample frames.
+     *
+     * @param dst      The buffer to decode the samples into.
+     * @param offset   The byte offset in the buffer to write the samples at.
+     * @param maxBytes The maximum number of bytes to decode.
+     *
+     * @return The number of bytes that are decoded, which is zero at the end of the audio.
+     */
+    int decode(DirectBuffer dst, int offset, int maxBytes);
+
+    /**
+     * Moves the decoder to a sample frame, so that the next call to decode starts from that frame.
+     *
+     * @param frame The index of the sample frame to seek to.
+     */
+    void seek(int frame);
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p> A {@link PCMSink} that plays nothing. The submitted buffers are consumed on the next update as if they were
+ * played instantly, which makes it possible to test the streaming of audio without an audio device. It also counts the
+ * chunks and the bytes that are submitted to it. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class NullPCMSink implements PCMSink
+{
+    private int bufferCount;
+    private int queuedBuffers;
+    private int queuedBytes;
+
+    private long submittedBytes;
+    private int  submittedChunks;
+
+    private boolean playing;
+
+    public NullPCMSink(int bufferCount)
+    {
+        this.bufferCount = bufferCount;
+    }
+
+    @Override
+    public int getFreeBuffers()
+    {
+        return bufferCount - queuedBuffers;
+    }
+
+    @Override
+    public int getQueuedBuffers()
+    {
+        return queuedBuffers;
+    }
+
+    @Override
+    public void submit(DirectBuffer samples, ALFormat format, int sampleRate)
+    {
+        queuedBuffers++;
+        queuedBytes += samples.sizeBytes();
+
+        submittedBytes += samples.sizeBytes();
+        submittedChunks++;
+    }
+
+    @Override
+    public int update()
+    {
+        if (!playing)
+            return 0;
+
+        int played = queuedBytes;
+
+        queuedBuffers = 0;
+        queuedBytes = 0;
+
+        return played;
+    }
+
+    @Override
+    public void play()
+    {
+        playing = true;
+    }
+
+    @Override
+    public void pause()
+    {
+        playing = false;
+    }
+
+    @Override
+    public void stop()
+    {
+        playing = false;
+        queuedBuffers = 0;
+        queuedBytes = 0;
+    }
+
+    @Override
+    public int getUnderruns()
+    {
+        return 0;
+    }
+
+    public long getSubmittedBytes()
+    {
+        return submittedBytes;
+    }
+
+    public int getSubmittedChunks()
+    {
+        return submittedChunks;
+    }
+
+    @Override
+    public void dispose()
+    {
+        stop();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p> A PCMSink is where an {@link AudioStream} sends the samples it decodes. The sink holds a fixed number of
+ * buffers, which are played one after the other. The stream submits a chunk of samples whenever one of the buffers is
+ * free, and the sink frees the buffers as they are played. </p>
+ *
+ * <p> The {@link ALQueueSink} plays the samples through an OpenAL source, and the {@link NullPCMSink} consumes them
+ * without any audio device, for testing the streaming. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public interface PCMSink extends IResource
+{
+    /**
+     * @return The number of buffers that can be submitted right now.
+     */
+    int getFreeBuffers();
+
+    /**
+     * @return The number of buffers that are submitted and not yet played.
+     */
+    int getQueuedBuffers();
+
+    /**
+     * Submits a chunk of samples to be played after the chunks that are already submitted. The samples are copied, so
+     * the buffer can be reused after this returns.
+     *
+     * @param samples    The samples to play.
+     * @param format     The format of the samples.
+     * @param sampleRate The sample rate of the samples, in Hz.
+     */
+    void submit(DirectBuffer samples, ALFormat format, int sampleRate);
+
+    /**
+     * Frees the buffers that are done playing, so that they can be submitted again.
+     *
+     * @return The number of bytes of samples that are played since the last update.
+     */
+    int update();
+
+    void play();
+
+    void pause();
+
+    /**
+     * Stops playing, and discards all the buffers that are submitted.
+     */
+    void stop();
+
+    /**
+     * @return The number of times the sink ran out of samples while playing.
+     */
+    int getUnderruns();
+}
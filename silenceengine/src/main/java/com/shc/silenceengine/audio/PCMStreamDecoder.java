@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.audio;
+
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * <p> An {@link AudioStreamDecoder} over samples that are already decoded, like those of a WAV file or an asset
+ * bundle. It simply copies the samples from the buffer a chunk at a time. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class PCMStreamDecoder implements AudioStreamDecoder
+{
+    private DirectBuffer samples;
+    private ALFormat     format;
+
+    private int sampleRate;
+    private int position;
+
+    /**
+     * Creates a decoder that streams the PCM samples in a buffer. The buffer is not copied, and is not freed when
+     * this decoder is disposed.
+     *
+     * @param samples    The PCM samples to stream.
+     * @param format     The format of the samples.
+     * @param sampleRate The sample rate of the samples, in Hz.
+     */
+    public PCMStreamDecoder(DirectBuffer samples, ALFormat format, int sampleRate)
+    {
+        this.samples = samples;
+        this.format = format;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public ALFormat getFormat()
+    {
+        return format;
+    }
+
+    @Override
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    @Override
+    public int getLengthInFrames()
+    {
+        return samples.sizeBytes() / format.getFrameSize();
+    }
+
+    @Override
+    public int decode(DirectBuffer dst, int offset, int maxBytes)
+    {
+        int frameSize = format.getFrameSize();
+        int length = Math.min(maxBytes, samples.sizeBytes() - position) / frameSize * frameSize;
+
+        samples.copyTo(position, dst, offset, length);
+        position += length;
+
+        return length;
+    }
+
+    @Override
+    public void seek(int frame)
+    {
+        position = Math.max(0, Math.min(frame, getLengthInFrames())) * format.getFrameSize();
+    }
+
+    @Override
+    public void dispose()
+    {
+        samples = null;
+    }
+}
@@ -40,6 +40,9 @@ public class Sound implements IResource
      */
     public ALBuffer buffer;
 
+    private int      priority;
+    private AudioBus bus;
+
     /**
      * Construct a new Sound object with a OpenAL Buffer.
      *
@@ -77,8 +80,48 @@ public class Sound implements IResource
         SilenceEngine.audio.scene.stopStatic(this);
     }
 
+    /**
+     * @return The priority of this sound, which is used when there are no free voices to play it.
+     */
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this sound. When all the voices of the AudioScene are busy, a sound takes the voice of a
+     * playing sound with a lower priority. Sounds with the same priority take the voice of the quietest one. The
+     * default priority is zero.
+     *
+     * @param priority The priority of this sound.
+     */
+    public void setPriority(int priority)
+    {
+        this.priority = priority;
+    }
+
+    public AudioBus getBus()
+    {
+        return bus;
+    }
+
+    /**
+     * Assigns this sound to a bus, whose volume is applied to this sound from the next update of the AudioScene.
+     *
+     * @param bus The bus to play this sound on, or null to play it on the master bus.
+     */
+    public void setBus(AudioBus bus)
+    {
+        this.bus = bus;
+    }
+
+    /**
+     * Disposes the OpenAL buffer that is backing this sound.
+     */
     @Override
     public void dispose()
     {
+        if (!buffer.isDisposed())
+            buffer.dispose();
     }
 }
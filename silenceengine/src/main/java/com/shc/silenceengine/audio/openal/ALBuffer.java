@@ -24,6 +24,7 @@
 
 package com.shc.silenceengine.audio.openal;
 
+import com.shc.silenceengine.audio.AudioDevice;
 import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.io.DirectBuffer;
@@ -38,6 +39,8 @@ import com.shc.silenceengine.io.DirectBuffer;
 public class ALBuffer implements IResource
 {
     private int     id;
+    private int     sizeBytes;
+    private float   duration;
     private boolean disposed;
 
     /**
@@ -48,6 +51,7 @@ public class ALBuffer implements IResource
     public ALBuffer()
     {
         id = SilenceEngine.audio.alGenBuffers();
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -77,8 +81,12 @@ public class ALBuffer implements IResource
             throw new ALException("Unable to upload data to disposed OpenAL buffer");
 
         SilenceEngine.audio.alBufferData(id, format.getAlFormat(), data, frequency);
+        AudioDevice.Data.countCall();
 
         ALError.check();
+
+        sizeBytes = data.sizeBytes();
+        duration = sizeBytes / (float) (format.getFrameSize() * frequency);
     }
 
     /**
@@ -93,6 +101,7 @@ public class ALBuffer implements IResource
             throw new ALException("Unable to dispose an already disposed OpenAL buffer");
 
         SilenceEngine.audio.alDeleteBuffers(id);
+        AudioDevice.Data.countCall();
         ALError.check();
 
         disposed = true;
@@ -106,6 +115,23 @@ public class ALBuffer implements IResource
         return id;
     }
 
+    /**
+     * @return The size of the sample data that is last uploaded to this buffer, in bytes.
+     */
+    public int getSizeBytes()
+    {
+        return sizeBytes;
+    }
+
+    /**
+     * @return The duration of the samples that are last uploaded to this buffer in seconds, or zero if the samples
+     * are not uploaded through this object.
+     */
+    public float getDuration()
+    {
+        return duration;
+    }
+
     /**
      * @return True if disposed, else false
      */
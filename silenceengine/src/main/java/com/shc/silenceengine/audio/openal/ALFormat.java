@@ -39,29 +39,33 @@ public enum ALFormat
     /**
      * 8-Bit Mono Audio Format
      */
-    MONO_8(AL_FORMAT_MONO8),
+    MONO_8(AL_FORMAT_MONO8, 1),
 
     /**
      * 16-Bit Mono Audio Format
      */
-    MONO_16(AL_FORMAT_MONO16),
+    MONO_16(AL_FORMAT_MONO16, 2),
 
     /**
      * 8-Bit Stereo Audio Format
      */
-    STEREO_8(AL_FORMAT_STEREO8),
+    STEREO_8(AL_FORMAT_STEREO8, 2),
 
     /**
      * 16-Bit Stereo Audio Format
      */
-    STEREO_16(AL_FORMAT_STEREO16);
+    STEREO_16(AL_FORMAT_STEREO16, 4);
 
     // The integer constant of the OpenAL format
     private int alFormat;
 
-    ALFormat(int alFormat)
+    // The number of bytes in a single sample frame, with all the channels
+    private int frameSize;
+
+    ALFormat(int alFormat, int frameSize)
     {
         this.alFormat = alFormat;
+        this.frameSize = frameSize;
     }
 
     /**
@@ -97,4 +101,14 @@ public enum ALFormat
     {
         return alFormat;
     }
+
+    /**
+     * Returns the size of a single sample frame, which is one sample for each of the channels.
+     *
+     * @return The number of bytes in a sample frame of this format.
+     */
+    public int getFrameSize()
+    {
+        return frameSize;
+    }
 }
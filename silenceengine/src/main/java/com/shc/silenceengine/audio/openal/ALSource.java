@@ -24,6 +24,7 @@
 
 package com.shc.silenceengine.audio.openal;
 
+import com.shc.silenceengine.audio.AudioDevice;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.math.Vector3;
 
@@ -47,6 +48,7 @@ public class ALSource
     public ALSource()
     {
         id = SilenceEngine.audio.alGenSources();
+        AudioDevice.Data.countCall();
     }
 
     /**
@@ -61,6 +63,55 @@ public class ALSource
         setParameter(AL_BUFFER, buffer == null ? 0 : buffer.getID());
     }
 
+    /**
+     * Queues a buffer to be played after the buffers that are already queued on this source. Buffers are queued for
+     * streaming, and a source that has buffers queued should not have a buffer attached.
+     *
+     * @param buffer The buffer to queue.
+     */
+    public void queueBuffer(ALBuffer buffer)
+    {
+        if (isDisposed())
+            throw new ALException("Cannot queue buffers on a disposed ALSource");
+
+        SilenceEngine.audio.alSourceQueueBuffers(id, buffer.getID());
+        AudioDevice.Data.countCall();
+        ALError.check();
+    }
+
+    /**
+     * Removes the oldest buffer from the queue of this source. Only the buffers that are processed can be removed.
+     *
+     * @return The ID of the removed buffer.
+     */
+    public int unqueueBuffer()
+    {
+        if (isDisposed())
+            throw new ALException("Cannot unqueue buffers from a disposed ALSource");
+
+        int buffer = SilenceEngine.audio.alSourceUnqueueBuffers(id);
+        AudioDevice.Data.countCall();
+        ALError.check();
+
+        return buffer;
+    }
+
+    /**
+     * @return The number of buffers in the queue of this source.
+     */
+    public int getBuffersQueued()
+    {
+        return getParameter(AL_BUFFERS_QUEUED);
+    }
+
+    /**
+     * @return The number of buffers in the queue of this source that are done playing.
+     */
+    public int getBuffersProcessed()
+    {
+        return getParameter(AL_BUFFERS_PROCESSED);
+    }
+
     /**
      * Sets the value of a property in this source object.
      *
@@ -76,6 +127,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSourcei(id, parameter, value);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -108,6 +160,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSourcef(id, parameter, value);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -142,6 +195,7 @@ public class ALSource
             throw new ALException("ALSource is already disposed");
 
         SilenceEngine.audio.alSource3f(id, parameter, value1, value2, value3);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -156,6 +210,7 @@ public class ALSource
             throw new ALException("Cannot play a disposed ALSource");
 
         SilenceEngine.audio.alSourcePlay(id);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -170,6 +225,7 @@ public class ALSource
             throw new ALException("Cannot pause a disposed ALSource");
 
         SilenceEngine.audio.alSourcePause(id);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -184,6 +240,7 @@ public class ALSource
             throw new ALException("Cannot stop a disposed ALSource");
 
         SilenceEngine.audio.alSourceStop(id);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -198,6 +255,7 @@ public class ALSource
             throw new ALException("Cannot rewind a disposed ALSource");
 
         SilenceEngine.audio.alSourceRewind(id);
+        AudioDevice.Data.countCall();
         ALError.check();
     }
 
@@ -242,6 +300,7 @@ public class ALSource
     public int getParameter(int parameter)
     {
         int result = SilenceEngine.audio.alGetSourcei(id, parameter);
+        AudioDevice.Data.countCall();
         ALError.check();
 
         return result;
@@ -258,6 +317,7 @@ public class ALSource
             throw new ALException("Cannot Dispose an already disposed OpenAL Source");
 
         SilenceEngine.audio.alDeleteSources(id);
+        AudioDevice.Data.countCall();
         ALError.check();
 
         disposed = true;
@@ -49,7 +49,7 @@ public final class Collision2D
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector2 tmpNormal = Vector2.REUSABLE_STACK.pop();
+        Vector2 tmpNormal = response.tmpNormal;
 
         for (int i = 0; i < a.vertexCount(); i++)
         {
@@ -60,10 +60,7 @@ public final class Collision2D
             Vector2 normal = edge.perpendicular().normalize();
 
             if (isSeparatingAxis(a, b, normal, response))
-            {
-                Vector2.REUSABLE_STACK.push(tmpNormal);
                 return false;
-            }
         }
 
         for (int i = 0; i < b.vertexCount(); i++)
@@ -75,10 +72,7 @@ public final class Collision2D
             Vector2 normal = edge.perpendicular().normalize();
 
             if (isSeparatingAxis(a, b, normal, response))
-            {
-                Vector2.REUSABLE_STACK.push(tmpNormal);
                 return false;
-            }
         }
 
         response.a = a;
@@ -86,8 +80,6 @@ public final class Collision2D
         response.overlapV.set(response.overlapN).scale(response.overlap);
         response.intersection = true;
 
-        Vector2.REUSABLE_STACK.push(tmpNormal);
-
         return true;
     }
 
@@ -96,9 +88,9 @@ public final class Collision2D
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector2 tmpOffset = Vector2.REUSABLE_STACK.pop();
-        Vector2 tmpRangeA = Vector2.REUSABLE_STACK.pop();
-        Vector2 tmpRangeB = Vector2.REUSABLE_STACK.pop();
+        Vector2 tmpOffset = response.tmpOffset;
+        Vector2 tmpRangeA = response.tmpRangeA;
+        Vector2 tmpRangeB = response.tmpRangeB;
 
         Vector2 offset = tmpOffset.set(b.getPosition()).subtract(a.getPosition());
 
@@ -110,13 +102,7 @@ public final class Collision2D
         rangeB.add(projectedOffset, projectedOffset);
 
         if (rangeA.x > rangeB.y || rangeB.x > rangeA.y)
-        {
-            Vector2.REUSABLE_STACK.push(tmpOffset);
-            Vector2.REUSABLE_STACK.push(tmpRangeA);
-            Vector2.REUSABLE_STACK.push(tmpRangeB);
-
             return true;
-        }
 
         float overlap;
 
@@ -164,10 +150,6 @@ public final class Collision2D
                 response.overlapN.negate();
         }
 
-        Vector2.REUSABLE_STACK.push(tmpOffset);
-        Vector2.REUSABLE_STACK.push(tmpRangeA);
-        Vector2.REUSABLE_STACK.push(tmpRangeB);
-
         return false;
     }
 
@@ -210,12 +192,23 @@ public final class Collision2D
         private boolean bInA;
         private boolean intersection;
 
+        // The scratch vectors of the tests, a thread that uses its own response doesn't share any state
+        private Vector2 tmpNormal;
+        private Vector2 tmpOffset;
+        private Vector2 tmpRangeA;
+        private Vector2 tmpRangeB;
+
         public Response()
         {
             a = b = null;
             overlapV = new Vector2();
             overlapN = new Vector2();
 
+            tmpNormal = new Vector2();
+            tmpOffset = new Vector2();
+            tmpRangeA = new Vector2();
+            tmpRangeB = new Vector2();
+
             clear();
         }
 
@@ -229,6 +222,52 @@ public final class Collision2D
             return this;
         }
 
+        /**
+         * Copies the result of another response into this response. The scratch vectors are not copied, so a response
+         * can keep the result of a test while the other one is used for the next test.
+         *
+         * @param other The response to copy.
+         *
+         * @return This response, for chaining.
+         */
+        public Response set(Response other)
+        {
+            a = other.a;
+            b = other.b;
+
+            overlapV.set(other.overlapV);
+            overlapN.set(other.overlapN);
+            overlap = other.overlap;
+
+            aInB = other.aInB;
+            bInA = other.bInA;
+            intersection = other.intersection;
+
+            return this;
+        }
+
+        /**
+         * Swaps the polygons of this response, so that it describes the collision of the polygon B with the polygon A.
+         * The overlap vectors are negated, to push the polygon B out of the polygon A instead.
+         *
+         * @return This response, for chaining.
+         */
+        public Response reverse()
+        {
+            Polygon tmpPolygon = a;
+            a = b;
+            b = tmpPolygon;
+
+            overlapV.negate();
+            overlapN.negate();
+
+            boolean tmpInside = aInB;
+            aInB = bInA;
+            bInA = tmpInside;
+
+            return this;
+        }
+
         public Polygon getPolygonA()
         {
             return a;
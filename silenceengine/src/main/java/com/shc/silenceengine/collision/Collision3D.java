@@ -47,9 +47,9 @@ public class Collision3D
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector3 tmpAxis = Vector3.REUSABLE_STACK.pop();
-        Vector3 tmpEdge1 = Vector3.REUSABLE_STACK.pop();
-        Vector3 tmpEdge2 = Vector3.REUSABLE_STACK.pop();
+        Vector3 tmpAxis = response.tmpAxis;
+        Vector3 tmpEdge1 = response.tmpEdge1;
+        Vector3 tmpEdge2 = response.tmpEdge2;
 
         Vector3 v1, v2, v3;
 
@@ -80,13 +80,7 @@ public class Collision3D
                 continue;
 
             if (isSeparatingAxis(a, b, tmpAxis, response))
-            {
-                Vector3.REUSABLE_STACK.push(tmpAxis);
-                Vector3.REUSABLE_STACK.push(tmpEdge1);
-                Vector3.REUSABLE_STACK.push(tmpEdge2);
-
                 return false;
-            }
         }
 
         for (int v = 0; v < b.vertexCount() - 2; v++)
@@ -116,13 +110,7 @@ public class Collision3D
                 continue;
 
             if (isSeparatingAxis(a, b, tmpAxis, response))
-            {
-                Vector3.REUSABLE_STACK.push(tmpAxis);
-                Vector3.REUSABLE_STACK.push(tmpEdge1);
-                Vector3.REUSABLE_STACK.push(tmpEdge2);
-
                 return false;
-            }
         }
 
         response.a = a;
@@ -130,10 +118,6 @@ public class Collision3D
         response.intersection = true;
         response.overlapV.set(response.overlapN).scale(response.overlap);
 
-        Vector3.REUSABLE_STACK.push(tmpAxis);
-        Vector3.REUSABLE_STACK.push(tmpEdge1);
-        Vector3.REUSABLE_STACK.push(tmpEdge2);
-
         return true;
     }
 
@@ -142,9 +126,9 @@ public class Collision3D
         if (response == null)
             response = tmpResponse.clear();
 
-        Vector3 tmpOffset = Vector3.REUSABLE_STACK.pop();
-        Vector2 tmpRangeA = Vector2.REUSABLE_STACK.pop();
-        Vector2 tmpRangeB = Vector2.REUSABLE_STACK.pop();
+        Vector3 tmpOffset = response.tmpOffset;
+        Vector2 tmpRangeA = response.tmpRangeA;
+        Vector2 tmpRangeB = response.tmpRangeB;
 
         Vector3 offset = tmpOffset.set(b.getPosition()).subtract(a.getPosition());
         float projectedOffset = offset.dot(axis);
@@ -155,13 +139,7 @@ public class Collision3D
         rangeB.add(projectedOffset, projectedOffset);
 
         if (rangeA.x > rangeB.y || rangeB.x > rangeA.y)
-        {
-            Vector3.REUSABLE_STACK.push(tmpOffset);
-            Vector2.REUSABLE_STACK.push(tmpRangeA);
-            Vector2.REUSABLE_STACK.push(tmpRangeB);
-
             return true;
-        }
 
         float overlap;
 
@@ -209,10 +187,6 @@ public class Collision3D
                 response.overlapN.negate();
         }
 
-        Vector3.REUSABLE_STACK.push(tmpOffset);
-        Vector2.REUSABLE_STACK.push(tmpRangeA);
-        Vector2.REUSABLE_STACK.push(tmpRangeB);
-
         return false;
     }
 
@@ -251,12 +225,27 @@ public class Collision3D
         private boolean bInA;
         private boolean intersection;
 
+        // The scratch vectors of the tests, a thread that uses its own response doesn't share any state
+        private Vector3 tmpAxis;
+        private Vector3 tmpEdge1;
+        private Vector3 tmpEdge2;
+        private Vector3 tmpOffset;
+        private Vector2 tmpRangeA;
+        private Vector2 tmpRangeB;
+
         public Response()
         {
             a = b = null;
             overlapV = new Vector3();
             overlapN = new Vector3();
 
+            tmpAxis = new Vector3();
+            tmpEdge1 = new Vector3();
+            tmpEdge2 = new Vector3();
+            tmpOffset = new Vector3();
+            tmpRangeA = new Vector2();
+            tmpRangeB = new Vector2();
+
             clear();
         }
 
@@ -270,6 +259,30 @@ public class Collision3D
             return this;
         }
 
+        /**
+         * Copies the result of another response into this response. The scratch vectors are not copied, so a response
+         * can keep the result of a test while the other one is used for the next test.
+         *
+         * @param other The response to copy.
+         *
+         * @return This response, for chaining.
+         */
+        public Response set(Response other)
+        {
+            a = other.a;
+            b = other.b;
+
+            overlapV.set(other.overlapV);
+            overlapN.set(other.overlapN);
+            overlap = other.overlap;
+
+            aInB = other.aInB;
+            bInA = other.bInA;
+            intersection = other.intersection;
+
+            return this;
+        }
+
         public Polyhedron getPolygonA()
         {
             return a;
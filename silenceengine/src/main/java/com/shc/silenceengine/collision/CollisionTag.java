@@ -24,15 +24,43 @@
 
 package com.shc.silenceengine.collision;
 
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.utils.IDGenerator;
 
 /**
+ * A tag that identifies a group of collision components for the scene colliders. Every tag is also given a bit in a
+ * {@code long} mask, so that the colliders can filter the pairs with a single bitwise test. Because of this, only
+ * {@link #MAX_TAGS} tags can be created.
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class CollisionTag
 {
+    public static final int MAX_TAGS = 64;
+
+    private static int nextIndex;
+
     public final long id = IDGenerator.generate();
 
+    /**
+     * The index of this tag, from 0 to {@link #MAX_TAGS} - 1.
+     */
+    public final int index;
+
+    /**
+     * The mask with only the bit of this tag set.
+     */
+    public final long mask;
+
+    public CollisionTag()
+    {
+        if (nextIndex == MAX_TAGS)
+            throw new SilenceException("Cannot create more than " + MAX_TAGS + " collision tags");
+
+        index = nextIndex++;
+        mask = 1L << index;
+    }
+
     @Override
     public int hashCode()
     {
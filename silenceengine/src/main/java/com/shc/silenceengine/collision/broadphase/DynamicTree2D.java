@@ -22,351 +22,790 @@
  * SOFTWARE.
  */
 
+
 package com.shc.silenceengine.collision.broadphase;
 
-import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.geom2d.Rectangle;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.utils.LongIntMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
+ * A dynamic bounding volume tree for the 2D broadphase. Every collision component is a leaf of a binary tree, and
+ * every internal node holds the union of the boxes of its children. New leaves are placed with a branch and bound
+ * search using the perimeter of the enlarged boxes as the cost. The nodes are rotated whenever that makes the boxes of
+ * the children tighter, and AVL style rotations keep the height of the tree in check.
+ *
+ * <p> The boxes of the leaves are fattened by a margin (a fraction of the size of the component on each axis), so
+ * that a component which moves a little stays in its box and needs no changes to the tree when it is updated. The
+ * nodes are stored in flat arrays and are recycled through a free list, so that inserting, updating and querying the
+ * tree doesn't create any garbage once it has grown to its working size.</p>
+ *
  * @author Sri Harsha Chilakapati
  * @author Josh "ShadowLordAlpha"
  */
 public class DynamicTree2D implements IBroadphase2D
 {
-    private Node root;
+    private static final int NULL_NODE = -1;
 
-    private List<CollisionComponent2D> retrieveList;
+    // The difference in the heights of the children that is fixed by an AVL rotation. Smaller differences are left to
+    // the rotations that reduce the cost, as balancing on the height alone makes the boxes of the tree looser.
+    private static final int MAX_IMBALANCE = 2;
+
+    // The boxes of the nodes, fattened boxes for the leaves
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+
+    // The links of the nodes, the parent link is the next link for the nodes in the free list
+    private int[] parent;
+    private int[] child1;
+    private int[] child2;
+    private int[] height;
+
+    private CollisionComponent2D[] components;
 
-    private Map<Long, Node> nodeMap;
-    private Map<Long, AABB> aabbMap;
+    private int root     = NULL_NODE;
+    private int freeList = NULL_NODE;
+    private int nodeCount;
+    private int capacity;
 
-    private AABB tmpUnion = new AABB();
-    private AABB tmpU     = new AABB();
+    private LongIntMap proxies;
+
+    private int[] stack;
+
+    private float margin = 0.2f;
+
+    private List<CollisionComponent2D> retrieveList;
 
     public DynamicTree2D()
     {
-        nodeMap = new HashMap<>();
-        aabbMap = new HashMap<>();
+        this(16);
+    }
 
+    /**
+     * Creates a dynamic tree with space for the given number of components. The tree grows as needed when more
+     * components are inserted.
+     *
+     * @param initialCapacity The number of components to reserve the space for.
+     */
+    public DynamicTree2D(int initialCapacity)
+    {
+        capacity = Math.max(1, initialCapacity * 2 - 1);
+
+        minX = new float[capacity];
+        minY = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+
+        parent = new int[capacity];
+        child1 = new int[capacity];
+        child2 = new int[capacity];
+        height = new int[capacity];
+
+        components = new CollisionComponent2D[capacity];
+
+        proxies = new LongIntMap(initialCapacity);
+        stack = new int[64];
         retrieveList = new ArrayList<>();
+
+        linkFreeNodes(0);
     }
 
     @Override
     public void clear()
     {
-        nodeMap.clear();
-        root = null;
+        Arrays.fill(components, null);
+        proxies.clear();
+
+        root = NULL_NODE;
+        nodeCount = 0;
+
+        linkFreeNodes(0);
     }
 
     @Override
     public void insert(CollisionComponent2D e)
     {
-        Node node = new Node();
-        node.component = e;
-        node.aabb = getAABB(e);
+        if (proxies.get(e.id) != LongIntMap.NONE)
+        {
+            update(e);
+            return;
+        }
 
-        nodeMap.put(e.id, node);
+        int leaf = allocateNode();
+        components[leaf] = e;
+        setFatBounds(leaf, e.polygon.getBounds());
 
-        insert(node);
+        proxies.put(e.id, leaf);
+        insertLeaf(leaf);
     }
 
     @Override
     public void remove(CollisionComponent2D e)
     {
-        Node node = nodeMap.get(e.id);
+        int leaf = proxies.remove(e.id);
+
+        if (leaf == LongIntMap.NONE)
+            return;
 
-        if (node != null)
+        removeLeaf(leaf);
+        freeNode(leaf);
+    }
+
+    /**
+     * Updates the box of the component in the tree. The tree is only changed if the component moved out of its fat
+     * box, otherwise this is just a containment test.
+     *
+     * @param e The component that is moved.
+     *
+     * @return True if the component has moved out of its fat box, and was given a new one.
+     */
+    @Override
+    public boolean update(CollisionComponent2D e)
+    {
+        int leaf = proxies.get(e.id);
+
+        if (leaf == LongIntMap.NONE)
         {
-            remove(node);
-            nodeMap.remove(e.id);
-            aabbMap.remove(e.id);
+            insert(e);
+            return true;
         }
+
+        Rectangle bounds = e.polygon.getBounds();
+
+        float x = bounds.getX();
+        float y = bounds.getY();
+
+        if (minX[leaf] <= x && minY[leaf] <= y &&
+            maxX[leaf] >= x + bounds.getWidth() && maxY[leaf] >= y + bounds.getHeight())
+            return false;
+
+        removeLeaf(leaf);
+        setFatBounds(leaf, bounds);
+        insertLeaf(leaf);
+
+        return true;
     }
 
+    /**
+     * Retrieves the components whose fat boxes overlap with the fat box of the component, if it is in the tree. Unlike
+     * the tight bounds, the overlap of the fat boxes is symmetric and only changes when {@link #update} returns true
+     * for either of the components, so the results can be kept till then.
+     *
+     * @param e The component to retrieve the candidates for.
+     *
+     * @return The list of the candidates, which is reused by the next retrieval.
+     */
     @Override
     public List<CollisionComponent2D> retrieve(CollisionComponent2D e)
     {
-        retrieveList.clear();
-        queryNode(getAABB(e), root);
-        return retrieveList;
+        int leaf = proxies.get(e.id);
+
+        if (leaf == LongIntMap.NONE)
+            return IBroadphase2D.super.retrieve(e);
+
+        return query(minX[leaf], minY[leaf], maxX[leaf], maxY[leaf]);
     }
 
     @Override
     public List<CollisionComponent2D> retrieve(Rectangle rect)
+    {
+        return query(rect.getX(), rect.getY(), rect.getX() + rect.getWidth(), rect.getY() + rect.getHeight());
+    }
+
+    private List<CollisionComponent2D> query(float qMinX, float qMinY, float qMaxX, float qMaxY)
     {
         retrieveList.clear();
-        queryNode(new AABB(rect.getPosition(), rect.getWidth(), rect.getHeight()), root);
+
+        if (root == NULL_NODE)
+            return retrieveList;
+
+        int top = 0;
+        stack[top++] = root;
+
+        while (top > 0)
+        {
+            int node = stack[--top];
+
+            if (minX[node] > qMaxX || maxX[node] < qMinX || minY[node] > qMaxY || maxY[node] < qMinY)
+                continue;
+
+            if (child1[node] == NULL_NODE)
+                retrieveList.add(components[node]);
+            else
+            {
+                if (top + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+
+                stack[top++] = child1[node];
+                stack[top++] = child2[node];
+            }
+        }
+
         return retrieveList;
     }
 
-    private void remove(Node node)
+    /**
+     * @return The fraction of the size of a component that its box is enlarged by on each side.
+     */
+    public float getMargin()
     {
-        if (root == null) return;
+        return margin;
+    }
 
-        if (node == root)
+    /**
+     * Sets the fraction of the size of a component that its box is enlarged by on each side. Larger margins mean
+     * fewer changes to the tree for moving components, but more candidates from the queries. The new margin only
+     * applies to the components that are inserted or moved out of their boxes after this call.
+     *
+     * @param margin The new margin, as a fraction of the size.
+     */
+    public void setMargin(float margin)
+    {
+        this.margin = margin;
+    }
+
+    /**
+     * @return The height of the tree, which is zero for an empty tree or a tree with a single component.
+     */
+    public int getHeight()
+    {
+        return root == NULL_NODE ? 0 : height[root];
+    }
+
+    /**
+     * @return The number of nodes in the tree, including the internal nodes.
+     */
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    /**
+     * @return The number of components in the tree.
+     */
+    public int getProxyCount()
+    {
+        return proxies.size();
+    }
+
+    private void setFatBounds(int node, Rectangle bounds)
+    {
+        float w = bounds.getWidth();
+        float h = bounds.getHeight();
+
+        float mx = w * margin;
+        float my = h * margin;
+
+        minX[node] = bounds.getX() - mx;
+        minY[node] = bounds.getY() - my;
+        maxX[node] = bounds.getX() + w + mx;
+        maxY[node] = bounds.getY() + h + my;
+    }
+
+    private void linkFreeNodes(int from)
+    {
+        for (int i = from; i < capacity - 1; i++)
         {
-            root = null;
-            return;
+            parent[i] = i + 1;
+            height[i] = -1;
         }
 
-        Node parent = node.parent;
-        Node grandParent = parent.parent;
+        parent[capacity - 1] = NULL_NODE;
+        height[capacity - 1] = -1;
 
-        Node other = (parent.left == node) ? parent.right : parent.left;
+        freeList = from;
+    }
 
-        if (grandParent != null)
+    private int allocateNode()
+    {
+        if (freeList == NULL_NODE)
         {
-            if (grandParent.left == parent)
-                grandParent.left = other;
-            else
-                grandParent.right = other;
+            int oldCapacity = capacity;
+            capacity *= 2;
 
-            other.parent = grandParent;
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
 
-            Node n = grandParent;
-            while (n != null)
-            {
-                Node left = n.left;
-                Node right = n.right;
+            parent = Arrays.copyOf(parent, capacity);
+            child1 = Arrays.copyOf(child1, capacity);
+            child2 = Arrays.copyOf(child2, capacity);
+            height = Arrays.copyOf(height, capacity);
 
-                n.aabb = AABB.union(left.aabb, right.aabb, n.aabb);
+            components = Arrays.copyOf(components, capacity);
 
-                n = n.parent;
-            }
-        }
-        else
-        {
-            root = other;
-            other.parent = null;
+            linkFreeNodes(oldCapacity);
         }
+
+        int node = freeList;
+        freeList = parent[node];
+
+        parent[node] = NULL_NODE;
+        child1[node] = NULL_NODE;
+        child2[node] = NULL_NODE;
+        height[node] = 0;
+
+        nodeCount++;
+
+        return node;
     }
 
-    private AABB getAABB(CollisionComponent2D e)
+    private void freeNode(int node)
     {
-        AABB aabb;
+        components[node] = null;
+        height[node] = -1;
+        parent[node] = freeList;
 
-        if (aabbMap.containsKey(e.id))
-            aabb = aabbMap.get(e.id);
-        else
-        {
-            aabb = new AABB(new Vector2(), new Vector2());
-            aabbMap.put(e.id, aabb);
-        }
+        freeList = node;
+        nodeCount--;
+    }
+
+    private float perimeter(int node)
+    {
+        return 2 * (maxX[node] - minX[node] + maxY[node] - minY[node]);
+    }
 
-        aabb.min.set(e.polygon.getMinX(), e.polygon.getMinY());
-        aabb.max.set(e.polygon.getMaxX(), e.polygon.getMaxY());
+    private float unionPerimeter(int a, int b)
+    {
+        return 2 * (Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]) +
+                    Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]));
+    }
 
-        return aabb;
+    private void setUnion(int node, int a, int b)
+    {
+        minX[node] = Math.min(minX[a], minX[b]);
+        minY[node] = Math.min(minY[a], minY[b]);
+        maxX[node] = Math.max(maxX[a], maxX[b]);
+        maxY[node] = Math.max(maxY[a], maxY[b]);
     }
 
-    private void insert(Node item)
+    private void insertLeaf(int leaf)
     {
-        if (root == null)
+        if (root == NULL_NODE)
         {
-            root = item;
+            root = leaf;
+            parent[root] = NULL_NODE;
             return;
         }
 
-        AABB itemAABB = item.aabb;
+        int sibling = findBestSibling(leaf);
+
+        // Create a new parent for the sibling and the leaf
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+
+        parent[newParent] = oldParent;
+        setUnion(newParent, leaf, sibling);
+        height[newParent] = height[sibling] + 1;
+
+        if (oldParent != NULL_NODE)
+        {
+            if (child1[oldParent] == sibling)
+                child1[oldParent] = newParent;
+            else
+                child2[oldParent] = newParent;
+        }
+        else
+            root = newParent;
+
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        refit(parent[leaf]);
+    }
+
+    /**
+     * Finds the node which is the cheapest sibling for the new leaf. The subtrees are searched with a branch and bound
+     * on the cost, which is the perimeter of the new parent plus the increase of the perimeters of all the ancestors.
+     */
+    private int findBestSibling(int leaf)
+    {
+        float areaD = perimeter(leaf);
+        float centerX = (minX[leaf] + maxX[leaf]) / 2;
+        float centerY = (minY[leaf] + maxY[leaf]) / 2;
+
+        float areaBase = perimeter(root);
+        float directCost = unionPerimeter(root, leaf);
+        float inheritedCost = 0;
+
+        int bestSibling = root;
+        float bestCost = directCost;
 
-        Node node = root;
+        int index = root;
 
-        while (!node.isLeaf())
+        while (child1[index] != NULL_NODE)
         {
-            AABB aabb = node.aabb;
+            int c1 = child1[index];
+            int c2 = child2[index];
 
-            float perimeter = aabb.getPerimeter();
+            float cost = directCost + inheritedCost;
 
-            AABB union = AABB.union(aabb, itemAABB, tmpUnion);
-            float unionPerimeter = union.getPerimeter();
+            if (cost < bestCost)
+            {
+                bestSibling = index;
+                bestCost = cost;
+            }
+
+            inheritedCost += directCost - areaBase;
 
-            float cost = 2 * unionPerimeter;
-            float descendCost = 2 * (unionPerimeter - perimeter);
+            boolean leaf1 = child1[c1] == NULL_NODE;
+            boolean leaf2 = child1[c2] == NULL_NODE;
 
-            Node left = node.left;
-            Node right = node.right;
+            float lowerCost1 = Float.MAX_VALUE;
+            float directCost1 = unionPerimeter(c1, leaf);
+            float area1 = 0;
 
-            float costLeft;
-            if (left.isLeaf())
+            if (leaf1)
             {
-                AABB u = AABB.union(left.aabb, itemAABB, tmpU);
-                costLeft = u.getPerimeter() + descendCost;
+                float cost1 = directCost1 + inheritedCost;
+
+                if (cost1 < bestCost)
+                {
+                    bestSibling = c1;
+                    bestCost = cost1;
+                }
             }
             else
             {
-                AABB u = AABB.union(left.aabb, itemAABB, tmpU);
-                costLeft = u.getPerimeter() - left.aabb.getPerimeter() + descendCost;
+                area1 = perimeter(c1);
+                lowerCost1 = inheritedCost + directCost1 + Math.min(areaD - area1, 0);
             }
 
-            float costRight;
-            if (right.isLeaf())
+            float lowerCost2 = Float.MAX_VALUE;
+            float directCost2 = unionPerimeter(c2, leaf);
+            float area2 = 0;
+
+            if (leaf2)
             {
-                AABB u = AABB.union(right.aabb, itemAABB, tmpU);
-                costRight = u.getPerimeter() + descendCost;
+                float cost2 = directCost2 + inheritedCost;
+
+                if (cost2 < bestCost)
+                {
+                    bestSibling = c2;
+                    bestCost = cost2;
+                }
             }
             else
             {
-                AABB u = AABB.union(right.aabb, itemAABB, tmpU);
-                costRight = u.getPerimeter() - right.aabb.getPerimeter() + descendCost;
+                area2 = perimeter(c2);
+                lowerCost2 = inheritedCost + directCost2 + Math.min(areaD - area2, 0);
             }
 
-            if (cost < costLeft && cost < costRight)
+            if (leaf1 && leaf2)
                 break;
 
-            node = (costLeft < costRight) ? left : right;
+            if (bestCost <= lowerCost1 && bestCost <= lowerCost2)
+                break;
+
+            // Break the ties with the distance to the centers
+            if (lowerCost1 == lowerCost2 && !leaf1)
+            {
+                float dx1 = (minX[c1] + maxX[c1]) / 2 - centerX;
+                float dy1 = (minY[c1] + maxY[c1]) / 2 - centerY;
+                float dx2 = (minX[c2] + maxX[c2]) / 2 - centerX;
+                float dy2 = (minY[c2] + maxY[c2]) / 2 - centerY;
+
+                lowerCost1 = dx1 * dx1 + dy1 * dy1;
+                lowerCost2 = dx2 * dx2 + dy2 * dy2;
+            }
+
+            if (lowerCost1 < lowerCost2 && !leaf1)
+            {
+                index = c1;
+                areaBase = area1;
+                directCost = directCost1;
+            }
+            else
+            {
+                index = c2;
+                areaBase = area2;
+                directCost = directCost2;
+            }
+        }
+
+        return bestSibling;
+    }
+
+    private void removeLeaf(int leaf)
+    {
+        if (leaf == root)
+        {
+            root = NULL_NODE;
+            return;
         }
 
-        Node parent = node.parent;
-        Node newParent = new Node();
-        newParent.parent = node.parent;
-        newParent.aabb = AABB.union(node.aabb, itemAABB, newParent.aabb);
+        int p = parent[leaf];
+        int grandParent = parent[p];
+        int sibling = child1[p] == leaf ? child2[p] : child1[p];
 
-        if (parent != null)
+        if (grandParent != NULL_NODE)
         {
-            if (parent.left == node)
-                parent.left = newParent;
+            // Connect the sibling to the grand parent, and destroy the parent
+            if (child1[grandParent] == p)
+                child1[grandParent] = sibling;
             else
-                parent.right = newParent;
+                child2[grandParent] = sibling;
 
-            newParent.left = node;
-            newParent.right = item;
+            parent[sibling] = grandParent;
+            freeNode(p);
 
-            node.parent = newParent;
-            item.parent = newParent;
+            refit(grandParent);
         }
         else
         {
-            newParent.left = node;
-            newParent.right = item;
-
-            node.parent = newParent;
-            item.parent = newParent;
-
-            root = newParent;
+            root = sibling;
+            parent[sibling] = NULL_NODE;
+            freeNode(p);
         }
 
-        node = item.parent;
+        parent[leaf] = NULL_NODE;
+    }
 
-        while (node != null)
+    private void refit(int index)
+    {
+        // Walk back to the root, balancing and fixing the heights and the boxes
+        while (index != NULL_NODE)
         {
-            Node left = node.left;
-            Node right = node.right;
+            index = balance(index);
+
+            int c1 = child1[index];
+            int c2 = child2[index];
 
-            node.aabb = AABB.union(left.aabb, right.aabb, node.aabb);
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
 
-            node = node.parent;
+            rotate(index);
+
+            index = parent[index];
         }
     }
 
-    private void queryNode(AABB aabb, Node node)
+    /**
+     * Performs a left or right rotation if the heights of the children of the node A differ by more than the maximum
+     * imbalance.
+     *
+     * @return The index of the node that takes the place of A.
+     */
+    private int balance(int iA)
     {
-        if (node == null)
-            return;
+        if (child1[iA] == NULL_NODE || height[iA] < 2)
+            return iA;
+
+        int iB = child1[iA];
+        int iC = child2[iA];
 
-        if (node.aabb.intersects(aabb))
+        int balance = height[iC] - height[iB];
+
+        // Rotate C up
+        if (balance > MAX_IMBALANCE)
         {
-            if (node.isLeaf())
-                retrieveList.add(node.component);
-            else
+            int iF = child1[iC];
+            int iG = child2[iC];
+
+            child1[iC] = iA;
+            parent[iC] = parent[iA];
+            parent[iA] = iC;
+
+            replaceChild(parent[iC], iA, iC);
+
+            if (height[iF] > height[iG])
             {
-                queryNode(aabb, node.left);
-                queryNode(aabb, node.right);
+                child2[iC] = iF;
+                child2[iA] = iG;
+                parent[iG] = iA;
+
+                setUnion(iA, iB, iG);
+                setUnion(iC, iA, iF);
+
+                height[iA] = 1 + Math.max(height[iB], height[iG]);
+                height[iC] = 1 + Math.max(height[iA], height[iF]);
             }
-        }
-    }
+            else
+            {
+                child2[iC] = iG;
+                child2[iA] = iF;
+                parent[iF] = iA;
 
-    private static class AABB
-    {
-        public Vector2 min;
-        public Vector2 max;
+                setUnion(iA, iB, iF);
+                setUnion(iC, iA, iG);
 
-        public AABB()
-        {
-            min = new Vector2();
-            max = new Vector2();
-        }
+                height[iA] = 1 + Math.max(height[iB], height[iF]);
+                height[iC] = 1 + Math.max(height[iA], height[iG]);
+            }
 
-        public AABB(Vector2 min, Vector2 max)
-        {
-            this.min = min.copy();
-            this.max = max.copy();
+            return iC;
         }
 
-        public AABB(Vector2 min, float width, float height)
+        // Rotate B up
+        if (balance < -MAX_IMBALANCE)
         {
-            this.min = min.copy();
-            this.max = min.add(width, height);
-        }
+            int iD = child1[iB];
+            int iE = child2[iB];
 
-        // Unused method should possibly delete
-        public static AABB create(CollisionComponent2D c)
-        {
-            Vector2 min = Vector2.REUSABLE_STACK.pop();
-            Vector2 max = Vector2.REUSABLE_STACK.pop();
+            child1[iB] = iA;
+            parent[iB] = parent[iA];
+            parent[iA] = iB;
+
+            replaceChild(parent[iB], iA, iB);
+
+            if (height[iD] > height[iE])
+            {
+                child2[iB] = iD;
+                child1[iA] = iE;
+                parent[iE] = iA;
+
+                setUnion(iA, iC, iE);
+                setUnion(iB, iA, iD);
 
-            min.set(c.polygon.getMinX(), c.polygon.getMinY());
-            max.set(c.polygon.getMaxX(), c.polygon.getMaxY());
+                height[iA] = 1 + Math.max(height[iC], height[iE]);
+                height[iB] = 1 + Math.max(height[iA], height[iD]);
+            }
+            else
+            {
+                child2[iB] = iE;
+                child1[iA] = iD;
+                parent[iD] = iA;
 
-            AABB aabb = new AABB(min, max);
+                setUnion(iA, iC, iD);
+                setUnion(iB, iA, iE);
 
-            Vector2.REUSABLE_STACK.push(min);
-            Vector2.REUSABLE_STACK.push(max);
+                height[iA] = 1 + Math.max(height[iC], height[iD]);
+                height[iB] = 1 + Math.max(height[iA], height[iE]);
+            }
 
-            return aabb;
+            return iB;
         }
 
-        public static AABB union(AABB aabb1, AABB aabb2, AABB store)
+        return iA;
+    }
+
+    /**
+     * Swaps a child of A with a grand child of A if that reduces the perimeters of the children of A. This keeps the tree
+     * tight when the components are moving, since the place chosen on insertion becomes worse as the tree changes.
+     */
+    private void rotate(int iA)
+    {
+        if (height[iA] < 2)
+            return;
+
+        int iB = child1[iA];
+        int iC = child2[iA];
+
+        if (height[iB] == 0)
         {
-            if (store == null)
-                store = new AABB();
+            // B is a leaf, try swapping it with the children of C
+            int iF = child1[iC];
+            int iG = child2[iC];
 
-            store.min.set(aabb1.min);
-            store.max.set(aabb1.max);
+            float costBase = perimeter(iC);
+            float costBF = unionPerimeter(iB, iG);
+            float costBG = unionPerimeter(iB, iF);
 
-            store.union(aabb2);
+            if (costBase <= costBF && costBase <= costBG)
+                return;
 
-            return store;
+            if (costBF < costBG)
+                swapFirst(iA, iB, iC, iF, iG);
+            else
+                swapSecond(iA, iB, iC, iG, iF);
         }
-
-        public void union(AABB aabb)
+        else if (height[iC] == 0)
         {
-            min.x = Math.min(aabb.min.x, min.x);
-            min.y = Math.min(aabb.min.y, min.y);
+            // C is a leaf, try swapping it with the children of B
+            int iD = child1[iB];
+            int iE = child2[iB];
 
-            max.x = Math.max(aabb.max.x, max.x);
-            max.y = Math.max(aabb.max.y, max.y);
-        }
+            float costBase = perimeter(iB);
+            float costCD = unionPerimeter(iC, iE);
+            float costCE = unionPerimeter(iC, iD);
 
-        public boolean intersects(AABB aabb)
-        {
-            return !(min.x > aabb.max.x || max.x < aabb.min.x) &&
-                   !(min.y > aabb.max.y || max.y < aabb.min.y);
-        }
+            if (costBase <= costCD && costBase <= costCE)
+                return;
 
-        public float getPerimeter()
+            if (costCD < costCE)
+                swapFirst(iA, iC, iB, iD, iE);
+            else
+                swapSecond(iA, iC, iB, iE, iD);
+        }
+        else
         {
-            return 2 * (this.max.x - this.min.x + this.max.y - this.min.y);
+            int iD = child1[iB];
+            int iE = child2[iB];
+            int iF = child1[iC];
+            int iG = child2[iC];
+
+            float areaB = perimeter(iB);
+            float areaC = perimeter(iC);
+
+            float costBF = areaB + unionPerimeter(iB, iG);
+            float costBG = areaB + unionPerimeter(iB, iF);
+            float costCD = areaC + unionPerimeter(iC, iE);
+            float costCE = areaC + unionPerimeter(iC, iD);
+
+            float bestCost = Math.min(Math.min(costBF, costBG), Math.min(costCD, costCE));
+
+            if (bestCost >= areaB + areaC)
+                return;
+
+            if (bestCost == costBF)
+                swapFirst(iA, iB, iC, iF, iG);
+            else if (bestCost == costBG)
+                swapSecond(iA, iB, iC, iG, iF);
+            else if (bestCost == costCD)
+                swapFirst(iA, iC, iB, iD, iE);
+            else
+                swapSecond(iA, iC, iB, iE, iD);
         }
     }
 
-    private static class Node
+    /**
+     * Swaps the child X of A with the first child Y of its sibling S, Z being the other child of S.
+     */
+    private void swapFirst(int iA, int iX, int iS, int iY, int iZ)
     {
-        public Node parent;
-        public Node left;
-        public Node right;
+        replaceChild(iA, iX, iY);
+        child1[iS] = iX;
 
-        public CollisionComponent2D component;
-        public AABB                 aabb;
+        parent[iX] = iS;
+        parent[iY] = iA;
 
-        public boolean isLeaf()
-        {
-            return left == null;
-        }
+        setUnion(iS, iX, iZ);
+        height[iS] = 1 + Math.max(height[iX], height[iZ]);
+        height[iA] = 1 + Math.max(height[iS], height[iY]);
+    }
+
+    /**
+     * Swaps the child X of A with the second child Y of its sibling S, Z being the other child of S.
+     */
+    private void swapSecond(int iA, int iX, int iS, int iY, int iZ)
+    {
+        replaceChild(iA, iX, iY);
+        child2[iS] = iX;
+
+        parent[iX] = iS;
+        parent[iY] = iA;
+
+        setUnion(iS, iX, iZ);
+        height[iS] = 1 + Math.max(height[iX], height[iZ]);
+        height[iA] = 1 + Math.max(height[iS], height[iY]);
+    }
+
+    private void replaceChild(int node, int oldChild, int newChild)
+    {
+        if (node == NULL_NODE)
+            root = newChild;
+        else if (child1[node] == oldChild)
+            child1[node] = newChild;
+        else
+            child2[node] = newChild;
     }
 }
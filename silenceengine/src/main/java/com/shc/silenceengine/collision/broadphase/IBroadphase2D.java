@@ -40,6 +40,23 @@ public interface IBroadphase2D
 
     void remove(CollisionComponent2D e);
 
+    /**
+     * Updates a component that has moved. The default implementation removes the component and inserts it again, but
+     * the implementations can avoid that when the component hasn't moved far enough to change its place.
+     *
+     * @param e The component that has moved.
+     *
+     * @return True if the place of the component has changed, false if the results of the earlier retrievals for the
+     * component are still valid.
+     */
+    default boolean update(CollisionComponent2D e)
+    {
+        remove(e);
+        insert(e);
+
+        return true;
+    }
+
     default List<CollisionComponent2D> retrieve(CollisionComponent2D e)
     {
         return retrieve(e.polygon.getBounds());
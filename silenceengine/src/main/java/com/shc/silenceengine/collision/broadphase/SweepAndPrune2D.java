@@ -0,0 +1,326 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.collision.broadphase;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.utils.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sort and sweep broadphase, which keeps the components sorted on the minimum of their bounds along one axis. The
+ * queries binary search for the first component that can overlap and sweep along the axis till the components start
+ * after the query, so this works best when the components are spread along that axis, like in a side scrolling world.
+ *
+ * <p> The components are sorted with an insertion sort before the first query after any change. Since the components
+ * move only a little between the frames, the order is nearly sorted already and the sort is close to linear. The
+ * bounds are stored in flat arrays, and nothing is allocated once the arrays have grown to the working size.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class SweepAndPrune2D implements IBroadphase2D
+{
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+
+    private static final int DIMENSIONS = 2;
+
+    private final int axis;
+
+    // The bounds of the components, DIMENSIONS floats for every slot
+    private float[] min;
+    private float[] max;
+
+    private CollisionComponent2D[] components;
+
+    private LongIntMap slots;
+
+    private int[] freeSlots;
+    private int   freeSlotCount;
+    private int   slotCount;
+
+    // The slots sorted on the minimum along the axis, and the minimums in the same order
+    private int[]   order;
+    private float[] keys;
+    private int     orderCount;
+
+    // The largest extent of a component along the axis, which bounds how far before the query a component can start
+    private float maxExtent;
+
+    private boolean dirty;
+
+    private List<CollisionComponent2D> retrieveList;
+
+    /**
+     * Creates a sweep and prune broadphase that sorts the components along the X axis.
+     */
+    public SweepAndPrune2D()
+    {
+        this(AXIS_X);
+    }
+
+    /**
+     * Creates a sweep and prune broadphase that sorts the components along the given axis.
+     *
+     * @param axis The axis to sort along, either {@link #AXIS_X} or {@link #AXIS_Y}.
+     */
+    public SweepAndPrune2D(int axis)
+    {
+        if (axis < 0 || axis >= DIMENSIONS)
+            throw new SilenceException("Invalid axis for the sweep and prune: " + axis);
+
+        this.axis = axis;
+
+        min = new float[16 * DIMENSIONS];
+        max = new float[16 * DIMENSIONS];
+
+        components = new CollisionComponent2D[16];
+        freeSlots = new int[16];
+
+        order = new int[16];
+        keys = new float[16];
+
+        slots = new LongIntMap();
+        retrieveList = new ArrayList<>();
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(components, null);
+        slots.clear();
+
+        slotCount = 0;
+        freeSlotCount = 0;
+        orderCount = 0;
+        maxExtent = 0;
+        dirty = false;
+    }
+
+    @Override
+    public void insert(CollisionComponent2D e)
+    {
+        if (slots.get(e.id) != LongIntMap.NONE)
+        {
+            update(e);
+            return;
+        }
+
+        int slot = allocateSlot();
+
+        components[slot] = e;
+        slots.put(e.id, slot);
+        setBounds(slot, e.polygon.getBounds());
+
+        order[orderCount++] = slot;
+        dirty = true;
+    }
+
+    @Override
+    public void remove(CollisionComponent2D e)
+    {
+        int slot = slots.remove(e.id);
+
+        if (slot == LongIntMap.NONE)
+            return;
+
+        // The slot is taken out of the order and freed on the next sort
+        components[slot] = null;
+        dirty = true;
+    }
+
+    @Override
+    public boolean update(CollisionComponent2D e)
+    {
+        int slot = slots.get(e.id);
+
+        if (slot == LongIntMap.NONE)
+        {
+            insert(e);
+            return true;
+        }
+
+        Rectangle bounds = e.polygon.getBounds();
+        int i = slot * DIMENSIONS;
+
+        if (min[i] == bounds.getX() && min[i + 1] == bounds.getY() &&
+            max[i] == bounds.getX() + bounds.getWidth() && max[i + 1] == bounds.getY() + bounds.getHeight())
+            return false;
+
+        setBounds(slot, bounds);
+        dirty = true;
+
+        return true;
+    }
+
+    @Override
+    public List<CollisionComponent2D> retrieve(Rectangle rect)
+    {
+        return query(rect.getX(), rect.getY(), rect.getX() + rect.getWidth(), rect.getY() + rect.getHeight());
+    }
+
+    private List<CollisionComponent2D> query(float qMinX, float qMinY, float qMaxX, float qMaxY)
+    {
+        if (dirty)
+            sort();
+
+        retrieveList.clear();
+
+        float qMin = axis == AXIS_X ? qMinX : qMinY;
+        float qMax = axis == AXIS_X ? qMaxX : qMaxY;
+
+        for (int i = firstIndexAtLeast(qMin - maxExtent); i < orderCount && keys[i] <= qMax; i++)
+        {
+            int b = order[i] * DIMENSIONS;
+
+            if (max[b] < qMinX || min[b] > qMaxX || max[b + 1] < qMinY || min[b + 1] > qMaxY)
+                continue;
+
+            retrieveList.add(components[order[i]]);
+        }
+
+        return retrieveList;
+    }
+
+    /**
+     * @return The axis that the components are sorted along.
+     */
+    public int getAxis()
+    {
+        return axis;
+    }
+
+    /**
+     * @return The number of components in this broadphase.
+     */
+    public int getProxyCount()
+    {
+        return slots.size();
+    }
+
+    private int firstIndexAtLeast(float key)
+    {
+        int low = 0;
+        int high = orderCount;
+
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if (keys[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private void sort()
+    {
+        // Drop the removed slots, and refresh the keys from the bounds
+        int count = 0;
+        float extent = 0;
+
+        for (int i = 0; i < orderCount; i++)
+        {
+            int slot = order[i];
+
+            if (components[slot] == null)
+            {
+                freeSlots[freeSlotCount++] = slot;
+                continue;
+            }
+
+            int b = slot * DIMENSIONS + axis;
+
+            order[count] = slot;
+            keys[count] = min[b];
+            extent = Math.max(extent, max[b] - min[b]);
+
+            count++;
+        }
+
+        orderCount = count;
+        maxExtent = extent;
+
+        // An insertion sort, which is nearly linear as the order is mostly the same as in the last frame
+        for (int i = 1; i < orderCount; i++)
+        {
+            float key = keys[i];
+            int slot = order[i];
+            int j = i - 1;
+
+            while (j >= 0 && keys[j] > key)
+            {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+
+            keys[j + 1] = key;
+            order[j + 1] = slot;
+        }
+
+        dirty = false;
+    }
+
+    private void setBounds(int slot, Rectangle bounds)
+    {
+        int i = slot * DIMENSIONS;
+
+        min[i] = bounds.getX();
+        min[i + 1] = bounds.getY();
+        max[i] = bounds.getX() + bounds.getWidth();
+        max[i + 1] = bounds.getY() + bounds.getHeight();
+    }
+
+    private int allocateSlot()
+    {
+        if (freeSlotCount > 0)
+            return freeSlots[--freeSlotCount];
+
+        if (slotCount == components.length)
+        {
+            int capacity = slotCount * 2;
+
+            min = Arrays.copyOf(min, capacity * DIMENSIONS);
+            max = Arrays.copyOf(max, capacity * DIMENSIONS);
+
+            components = Arrays.copyOf(components, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+
+            order = Arrays.copyOf(order, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+
+        return slotCount++;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.collision.colliders;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.utils.TaskManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the narrowphase tests of the candidate pairs of a scene collider in parallel. The pairs are split into chunks,
+ * and the chunks are taken by the background jobs of the {@link TaskManager} and by the update thread itself, so the
+ * narrowphase never waits on a job that hasn't started yet. The result of every pair is written in its own place in an
+ * array, which lets the collider notify the callbacks on the update thread in the same order as the pairs.
+ *
+ * <p> Every participant is given a worker index, zero for the update thread and one onwards for the jobs, that the
+ * test of the pair uses to pick its own response and scratch objects.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+final class ParallelNarrowphase
+{
+    /**
+     * The number of pairs that are tested in one chunk.
+     */
+    static final int CHUNK_SIZE = 64;
+
+    private ParallelNarrowphase()
+    {
+    }
+
+    /**
+     * @return The number of workers that can take part in a narrowphase, including the update thread.
+     */
+    static int getMaxWorkers()
+    {
+        return TaskManager.getMaxConcurrentJobs() + 1;
+    }
+
+    /**
+     * Tests the pairs in parallel and returns when all of them are tested.
+     *
+     * @param pairCount The number of pairs to test.
+     * @param results   The array that receives the result of every pair.
+     * @param workers   The number of workers to use, including the update thread.
+     * @param test      The test of a single pair.
+     */
+    static void run(int pairCount, boolean[] results, int workers, PairTest test)
+    {
+        Batch batch = new Batch(pairCount, results, test);
+
+        int jobs = Math.min(workers - 1, batch.chunkCount - 1);
+
+        for (int i = 1; i <= jobs; i++)
+        {
+            final int worker = i;
+            TaskManager.runAsync(() -> batch.work(worker));
+        }
+
+        batch.work(0);
+
+        // The remaining chunks are already taken by the jobs, and are short enough to wait for without blocking
+        while (batch.completedChunks.get() < batch.chunkCount)
+            TaskManager.yieldThread();
+
+        if (batch.error != null)
+            SilenceException.reThrow(batch.error);
+    }
+
+    @FunctionalInterface
+    interface PairTest
+    {
+        boolean test(int pair, int worker);
+    }
+
+    private static class Batch
+    {
+        private final int       pairCount;
+        private final int       chunkCount;
+        private final boolean[] results;
+        private final PairTest  test;
+
+        private final AtomicInteger nextChunk       = new AtomicInteger();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+
+        private volatile Throwable error;
+
+        Batch(int pairCount, boolean[] results, PairTest test)
+        {
+            this.pairCount = pairCount;
+            this.chunkCount = (pairCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            this.results = results;
+            this.test = test;
+        }
+
+        void work(int worker)
+        {
+            int chunk;
+
+            // A job that starts late finds all the chunks taken, and returns without touching the pairs
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount)
+            {
+                int end = Math.min(pairCount, (chunk + 1) * CHUNK_SIZE);
+
+                try
+                {
+                    for (int pair = chunk * CHUNK_SIZE; pair < end; pair++)
+                        results[pair] = test.test(pair, worker);
+                }
+                catch (Throwable e)
+                {
+                    error = e;
+                }
+
+                completedChunks.incrementAndGet();
+            }
+        }
+    }
+}
@@ -24,17 +24,17 @@
 
 package com.shc.silenceengine.collision.colliders;
 
+import com.shc.silenceengine.collision.Collision2D;
 import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.collision.broadphase.IBroadphase2D;
 import com.shc.silenceengine.scene.Scene2D;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
 import com.shc.silenceengine.scene.components.IComponent2D;
 import com.shc.silenceengine.scene.entity.Entity2D;
+import com.shc.silenceengine.utils.LongIntMap;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * <p> A SceneCollider that checks collisions between 2D entities in a scene. SceneCollider2D is an object that manages
@@ -51,12 +51,36 @@ import java.util.Map;
  * <p> In the above example, collisions are checked between Player-Enemy and Player-EnemyBullet, and others are just
  * ignored. </p>
  *
+ * <p> The candidate pairs are found with the broadphase, and are sorted and deduplicated so that every pair is tested
+ * only once, even if the tags of both the components are registered with each other. The candidate pairs are kept
+ * across the frames, and only the components that have changed their place in the broadphase are queried again. The
+ * pairs that overlap are also kept till the next frame, so that the callbacks are notified when a contact begins and
+ * ends. </p>
+ *
+ * <p> The callbacks are invoked after all the pairs of the frame are tested, and not right after the test of every
+ * pair. The response of every contact is kept, and is handed to the callback with {@link
+ * CollisionComponent2D.CollisionCallback#handleCollision(Entity2D, CollisionComponent2D, Collision2D.Response)}. It is
+ * also copied into {@link Collision2D#getResponse()} before the callbacks of the contact are invoked, so the callbacks
+ * that read it from there still get the response of their own contact. </p>
+ *
+ * <p> The narrowphase can be run in parallel on the background jobs of the TaskManager with {@link
+ * #setParallel(boolean)}. Every job tests the pairs with its own response, and the callbacks are still invoked on the
+ * update thread in the same order as the serial narrowphase. </p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class SceneCollider2D
 {
-    // The collision map, used to store registered classes
-    private Map<CollisionTag, List<CollisionTag>> collisionMap = new HashMap<>();
+    private static final int CONTACT_BEGIN = 0;
+    private static final int CONTACT_STAY  = 1;
+    private static final int CONTACT_END   = 2;
+
+    // The registered collisions, the mask of the tags that every tag collides with, indexed by the tag
+    private long[] collisionMasks = new long[CollisionTag.MAX_TAGS];
+
+    // The mask of the tags that any tag is registered to collide with, and whether the registrations have changed
+    private long    collidedTags;
+    private boolean registrationsChanged;
 
     // The Scene and the broadphase
     private Scene2D       scene;
@@ -65,13 +89,50 @@ public class SceneCollider2D
     // Number of children in the scene
     private int childrenInScene;
 
-    // The list of entities
-    private List<Entity2D> entities;
+    // The collision components, in slots that don't change while the components are in the scene
+    private CollisionComponent2D[] components = new CollisionComponent2D[64];
+    private LongIntMap             slots      = new LongIntMap();
+
+    private boolean[] moved = new boolean[64];
+
+    private int[] lastSeen  = new int[64];
+    private int[] freeSlots = new int[64];
+    private int[] removed   = new int[64];
+
+    private int slotCount;
+    private int freeSlotCount;
+    private int removedCount;
+    private int rebuildCount;
+
+    // The candidate pairs and the contacts of the current and the previous frames, a pair of slots in each long
+    private long[] pairs            = new long[256];
+    private long[] contacts         = new long[256];
+    private long[] previousContacts = new long[256];
+
+    private int pairCount;
+    private int contactCount;
+    private int previousContactCount;
+
+    // The parallel narrowphase, the result of every pair and a response for every worker
+    private boolean                parallel;
+    private boolean[]              results   = new boolean[256];
+    private Collision2D.Response[] responses = { new Collision2D.Response() };
+
+    // The responses of the pairs that overlap, by the index of the pair and then by the index of the contact
+    private Collision2D.Response[] pairResponses    = new Collision2D.Response[256];
+    private Collision2D.Response[] contactResponses = new Collision2D.Response[256];
+    private Collision2D.Response   reversedResponse = new Collision2D.Response();
+
+    private final ParallelNarrowphase.PairTest pairTest = this::testPair;
 
     public SceneCollider2D(IBroadphase2D broadphase)
     {
         this.broadphase = broadphase;
-        entities = new ArrayList<>();
+    }
+
+    private static long pairKey(int slot1, int slot2)
+    {
+        return slot1 < slot2 ? ((long) slot1 << 32) | slot2 : ((long) slot2 << 32) | slot1;
     }
 
     /**
@@ -102,10 +163,10 @@ public class SceneCollider2D
      */
     public void register(CollisionTag type1, CollisionTag type2)
     {
-        if (!collisionMap.containsKey(type1))
-            collisionMap.put(type1, new ArrayList<>());
+        collisionMasks[type1.index] |= type2.mask;
+        collidedTags |= type2.mask;
 
-        collisionMap.get(type1).add(type2);
+        registrationsChanged = true;
     }
 
     /**
@@ -114,64 +175,314 @@ public class SceneCollider2D
      */
     public void checkCollisions()
     {
-        // If there are no children in the scene, simply return
-        if (scene.entities.size() == 0)
+        // Update the list of components from the list of children in the scene
+        if (scene.numEntities() != childrenInScene)
+            updateEntities();
+
+        // Update the broadphase for repositioned entities
+        for (int slot = 0; slot < slotCount; slot++)
         {
-            childrenInScene = 0;
-            return;
+            CollisionComponent2D collision = components[slot];
+
+            if (isLive(slot) && collision.entity.transformComponent.transformed && broadphase.update(collision))
+                moved[slot] = true;
         }
 
-        // Update the list of entities from the list of children in the scene
-        if (scene.numEntities() != childrenInScene)
+        findPairs();
+        testPairs();
+        notifyContacts();
+
+        Arrays.fill(moved, 0, slotCount, false);
+        registrationsChanged = false;
+
+        // The removed components are kept till the contacts with them are ended
+        for (int i = 0; i < removedCount; i++)
+        {
+            components[removed[i]] = null;
+            freeSlots[freeSlotCount++] = removed[i];
+        }
+
+        removedCount = 0;
+    }
+
+    private void findPairs()
+    {
+        int keptCount = 0;
+
+        // The pairs of the components that haven't moved in the broadphase are still the same
+        if (!registrationsChanged)
         {
-            entities.clear();
-            broadphase.clear();
-            childrenInScene = 0;
+            for (int i = 0; i < pairCount; i++)
+            {
+                int slot1 = (int) (pairs[i] >>> 32);
+                int slot2 = (int) pairs[i];
 
-            updateEntities(scene.entities);
+                if (isLive(slot1) && isLive(slot2) && !moved[slot1] && !moved[slot2])
+                    pairs[keptCount++] = pairs[i];
+            }
         }
 
-        // Update the broadphase for repositioned entities
-        for (Entity2D entity : entities)
+        pairCount = keptCount;
+
+        // Find the new pairs of the components that have moved
+        for (int slot = 0; slot < slotCount; slot++)
         {
-            for (IComponent2D component : entity.getComponents())
+            if (!isLive(slot) || !(moved[slot] || registrationsChanged))
+                continue;
+
+            CollisionComponent2D collision = components[slot];
+
+            if (collision.tag == null)
+                continue;
+
+            long mask = collisionMasks[collision.tag.index];
+
+            if (mask == 0 && (collidedTags & collision.tag.mask) == 0)
+                continue;
+
+            List<CollisionComponent2D> collidables = broadphase.retrieve(collision);
+
+            for (int i = 0, n = collidables.size(); i < n; i++)
             {
-                if (component instanceof CollisionComponent2D)
-                {
-                    CollisionComponent2D collision = (CollisionComponent2D) component;
+                CollisionComponent2D collidable = collidables.get(i);
 
-                    if (entity.transformComponent.transformed)
-                    {
-                        broadphase.remove(collision);
-                        broadphase.insert(collision);
-                    }
-                }
+                if (collidable == collision || collidable.tag == null)
+                    continue;
+
+                if ((mask & collidable.tag.mask) == 0 &&
+                    (collisionMasks[collidable.tag.index] & collision.tag.mask) == 0)
+                    continue;
+
+                int other = slots.get(collidable.id);
+
+                if (other == LongIntMap.NONE)
+                    continue;
+
+                if (pairCount == pairs.length)
+                    pairs = Arrays.copyOf(pairs, pairCount * 2);
+
+                pairs[pairCount++] = pairKey(slot, other);
             }
         }
 
-        // Iterate and check collisions
-        for (CollisionTag type1 : collisionMap.keySet())
+        // Sorting brings the duplicates together, and makes the narrowphase walk the components in order
+        Arrays.sort(pairs, 0, pairCount);
+
+        int uniqueCount = 0;
+
+        for (int i = 0; i < pairCount; i++)
         {
-            for (Entity2D entity : entities)
+            if (uniqueCount == 0 || pairs[i] != pairs[uniqueCount - 1])
+                pairs[uniqueCount++] = pairs[i];
+        }
+
+        pairCount = uniqueCount;
+    }
+
+    private void testPairs()
+    {
+        long[] swap = previousContacts;
+        previousContacts = contacts;
+        previousContactCount = contactCount;
+
+        contacts = swap;
+        contactCount = 0;
+
+        if (contacts.length < pairCount)
+            contacts = new long[Math.max(pairCount, contacts.length * 2)];
+
+        if (contactResponses.length < contacts.length)
+            contactResponses = new Collision2D.Response[contacts.length];
+
+        if (pairResponses.length < pairCount)
+            pairResponses = Arrays.copyOf(pairResponses, Math.max(pairCount, pairResponses.length * 2));
+
+        if (parallel && pairCount > ParallelNarrowphase.CHUNK_SIZE)
+        {
+            int workers = ParallelNarrowphase.getMaxWorkers();
+
+            if (results.length < pairCount)
+                results = new boolean[Math.max(pairCount, results.length * 2)];
+
+            if (responses.length < workers)
             {
-                CollisionComponent2D collision = entity.getComponent(CollisionComponent2D.class);
+                int oldLength = responses.length;
+                responses = Arrays.copyOf(responses, workers);
 
-                if (type1 == collision.tag)
-                {
-                    List<CollisionComponent2D> collidables = broadphase.retrieve(collision);
+                for (int i = oldLength; i < workers; i++)
+                    responses[i] = new Collision2D.Response();
+            }
 
-                    for (CollisionTag type2 : collisionMap.get(type1))
-                    {
-                        for (CollisionComponent2D collidable : collidables)
-                            if (collidable.tag == type2)
-                                if (collision.polygon.intersects(collidable.polygon))
-                                    collision.callback.handleCollision(collision.entity, collidable);
-                    }
-                }
+            ParallelNarrowphase.run(pairCount, results, workers, pairTest);
+
+            // Collect the contacts in the order of the pairs, so they are still sorted
+            for (int i = 0; i < pairCount; i++)
+                if (results[i])
+                    addContact(i);
+        }
+        else
+        {
+            for (int i = 0; i < pairCount; i++)
+                if (testPair(i, 0))
+                    addContact(i);
+        }
+    }
+
+    private boolean testPair(int index, int worker)
+    {
+        long pair = pairs[index];
+
+        CollisionComponent2D collision1 = components[(int) (pair >>> 32)];
+        CollisionComponent2D collision2 = components[(int) pair];
+
+        Collision2D.Response response = responses[worker].clear();
+
+        if (!Collision2D.testPolygonCollision(collision1.polygon, collision2.polygon, response))
+            return false;
+
+        // The response of the worker is reused for its next pair, so the pair keeps a copy for its callbacks
+        if (pairResponses[index] == null)
+            pairResponses[index] = new Collision2D.Response();
+
+        pairResponses[index].set(response);
+        return true;
+    }
+
+    private void addContact(int index)
+    {
+        contactResponses[contactCount] = pairResponses[index];
+        contacts[contactCount++] = pairs[index];
+    }
+
+    private void notifyContacts()
+    {
+        // Both the lists are sorted, so merge them to find the contacts that began, stayed and ended
+        int i = 0;
+        int j = 0;
+
+        while (i < previousContactCount || j < contactCount)
+        {
+            if (j == contactCount || (i < previousContactCount && previousContacts[i] < contacts[j]))
+                notifyContact(previousContacts[i++], null, CONTACT_END);
+
+            else if (i == previousContactCount || contacts[j] < previousContacts[i])
+            {
+                notifyContact(contacts[j], contactResponses[j], CONTACT_BEGIN);
+                notifyContact(contacts[j], contactResponses[j++], CONTACT_STAY);
+            }
+            else
+            {
+                notifyContact(contacts[j], contactResponses[j++], CONTACT_STAY);
+                i++;
             }
         }
     }
 
+    private void notifyContact(long pair, Collision2D.Response response, int event)
+    {
+        CollisionComponent2D collision1 = components[(int) (pair >>> 32)];
+        CollisionComponent2D collision2 = components[(int) pair];
+
+        if ((collisionMasks[collision1.tag.index] & collision2.tag.mask) != 0)
+            notifyContact(collision1, collision2, response, event);
+
+        // The response of the pair is from the first component, the second one gets it the other way around
+        if ((collisionMasks[collision2.tag.index] & collision1.tag.mask) != 0)
+            notifyContact(collision2, collision1, response == null ? null : reversedResponse.set(response).reverse(),
+                          event);
+    }
+
+    private void notifyContact(CollisionComponent2D collision, CollisionComponent2D collidable,
+                               Collision2D.Response response, int event)
+    {
+        if (collision.callback == null)
+            return;
+
+        if (response != null)
+            Collision2D.getResponse().set(response);
+
+        switch (event)
+        {
+            case CONTACT_BEGIN:
+                collision.callback.collisionBegin(collision.entity, collidable);
+                break;
+
+            case CONTACT_STAY:
+                collision.callback.handleCollision(collision.entity, collidable, response);
+                break;
+
+            case CONTACT_END:
+                collision.callback.collisionEnd(collision.entity, collidable);
+                break;
+        }
+    }
+
+    /**
+     * @return Whether the narrowphase is run in parallel.
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Sets whether the narrowphase tests are run in parallel on the background jobs of the TaskManager. This is worth
+     * it only with a lot of candidate pairs, small frames are always tested on the update thread. The polygons must not
+     * be changed by other threads while the collisions are checked.
+     *
+     * @param parallel Whether to run the narrowphase in parallel.
+     */
+    public void setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return The number of candidate pairs from the broadphase in the last frame.
+     */
+    public int getPairCount()
+    {
+        return pairCount;
+    }
+
+    /**
+     * @return The number of pairs of components that are overlapping in the last frame.
+     */
+    public int getContactCount()
+    {
+        return contactCount;
+    }
+
+    private boolean isLive(int slot)
+    {
+        return components[slot] != null && lastSeen[slot] == rebuildCount;
+    }
+
+    private void updateEntities()
+    {
+        rebuildCount++;
+        childrenInScene = 0;
+
+        updateEntities(scene.entities);
+
+        // Remove the components that are no longer in the scene
+        for (int slot = 0; slot < slotCount; slot++)
+        {
+            CollisionComponent2D collision = components[slot];
+
+            if (collision == null || lastSeen[slot] == rebuildCount)
+                continue;
+
+            broadphase.remove(collision);
+            slots.remove(collision.id);
+
+            if (removedCount == removed.length)
+                removed = Arrays.copyOf(removed, removedCount * 2);
+
+            removed[removedCount++] = slot;
+        }
+    }
+
     private void updateEntities(List<Entity2D> entities)
     {
         for (Entity2D entity : entities)
@@ -180,8 +491,21 @@ public class SceneCollider2D
             {
                 if (component instanceof CollisionComponent2D)
                 {
-                    broadphase.insert((CollisionComponent2D) component);
-                    this.entities.add(entity);
+                    CollisionComponent2D collision = (CollisionComponent2D) component;
+                    int slot = slots.get(collision.id);
+
+                    if (slot == LongIntMap.NONE)
+                    {
+                        slot = allocateSlot();
+                        components[slot] = collision;
+
+                        slots.put(collision.id, slot);
+                        broadphase.insert(collision);
+
+                        moved[slot] = true;
+                    }
+
+                    lastSeen[slot] = rebuildCount;
                 }
             }
 
@@ -191,4 +515,20 @@ public class SceneCollider2D
                 updateEntities(entity.getChildren());
         }
     }
+
+    private int allocateSlot()
+    {
+        if (freeSlotCount > 0)
+            return freeSlots[--freeSlotCount];
+
+        if (slotCount == components.length)
+        {
+            components = Arrays.copyOf(components, slotCount * 2);
+            moved = Arrays.copyOf(moved, slotCount * 2);
+            lastSeen = Arrays.copyOf(lastSeen, slotCount * 2);
+            freeSlots = Arrays.copyOf(freeSlots, slotCount * 2);
+        }
+
+        return slotCount++;
+    }
 }
@@ -24,6 +24,7 @@
 
 package com.shc.silenceengine.collision.colliders;
 
+import com.shc.silenceengine.collision.Collision3D;
 import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.collision.broadphase.IBroadphase3D;
 import com.shc.silenceengine.scene.Scene3D;
@@ -32,6 +33,7 @@ import com.shc.silenceengine.scene.components.IComponent3D;
 import com.shc.silenceengine.scene.entity.Entity3D;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +53,15 @@ import java.util.Map;
  * <p> In the above example, collisions are checked between Player-Enemy and Player-EnemyBullet, and others are just
  * ignored. </p>
  *
+ * <p> The candidate pairs are all tested before the callbacks are invoked, so the response of every pair that collides
+ * is kept, and is handed to the callback with {@link CollisionComponent3D.CollisionCallback#handleCollision(Entity3D,
+ * CollisionComponent3D, Collision3D.Response)}. It is also copied into {@link Collision3D#getResponse()} before the
+ * callback is invoked, so the callbacks that read it from there still get the response of their own pair. </p>
+ *
+ * <p> The narrowphase can be run in parallel on the background jobs of the TaskManager with {@link
+ * #setParallel(boolean)}. Every job tests the pairs with its own response, and the callbacks are still invoked on the
+ * update thread in the same order as the serial narrowphase. </p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class SceneCollider3D
@@ -68,6 +79,22 @@ public class SceneCollider3D
     // The list of entities
     private List<Entity3D> entities;
 
+    // The candidate pairs of this frame, the component that is notified and the one that it collides with
+    private CollisionComponent3D[] pairCollisions  = new CollisionComponent3D[256];
+    private CollisionComponent3D[] pairCollidables = new CollisionComponent3D[256];
+    private boolean[]              results         = new boolean[256];
+
+    private int pairCount;
+
+    // The parallel narrowphase and a response for every worker
+    private boolean                parallel;
+    private Collision3D.Response[] responses = { new Collision3D.Response() };
+
+    // The responses of the pairs that collide, by the index of the pair
+    private Collision3D.Response[] pairResponses = new Collision3D.Response[256];
+
+    private final ParallelNarrowphase.PairTest pairTest = this::testPair;
+
     public SceneCollider3D(IBroadphase3D broadphase)
     {
         this.broadphase = broadphase;
@@ -141,15 +168,14 @@ public class SceneCollider3D
                     CollisionComponent3D collision = (CollisionComponent3D) component;
 
                     if (entity.transformComponent.transformed)
-                    {
-                        broadphase.remove(collision);
-                        broadphase.insert(collision);
-                    }
+                        broadphase.update(collision);
                 }
             }
         }
 
-        // Iterate and check collisions
+        // Find the candidate pairs
+        pairCount = 0;
+
         for (CollisionTag type1 : collisionMap.keySet())
         {
             for (Entity3D entity : entities)
@@ -164,12 +190,100 @@ public class SceneCollider3D
                     {
                         for (CollisionComponent3D collidable : collidables)
                             if (collidable.tag == type2)
-                                if (collision.polyhedron.intersects(collidable.polyhedron))
-                                    collision.callback.handleCollision(collision.entity, collidable);
+                                addPair(collision, collidable);
                     }
                 }
             }
         }
+
+        testPairs();
+
+        // Notify the callbacks in the order of the pairs
+        for (int i = 0; i < pairCount; i++)
+        {
+            if (results[i])
+            {
+                Collision3D.getResponse().set(pairResponses[i]);
+                pairCollisions[i].callback.handleCollision(pairCollisions[i].entity, pairCollidables[i],
+                        pairResponses[i]);
+            }
+
+            pairCollisions[i] = pairCollidables[i] = null;
+        }
+    }
+
+    private void addPair(CollisionComponent3D collision, CollisionComponent3D collidable)
+    {
+        if (pairCount == pairCollisions.length)
+        {
+            pairCollisions = Arrays.copyOf(pairCollisions, pairCount * 2);
+            pairCollidables = Arrays.copyOf(pairCollidables, pairCount * 2);
+            results = Arrays.copyOf(results, pairCount * 2);
+            pairResponses = Arrays.copyOf(pairResponses, pairCount * 2);
+        }
+
+        pairCollisions[pairCount] = collision;
+        pairCollidables[pairCount++] = collidable;
+    }
+
+    private void testPairs()
+    {
+        if (parallel && pairCount > ParallelNarrowphase.CHUNK_SIZE)
+        {
+            int workers = ParallelNarrowphase.getMaxWorkers();
+
+            if (responses.length < workers)
+            {
+                int oldLength = responses.length;
+                responses = Arrays.copyOf(responses, workers);
+
+                for (int i = oldLength; i < workers; i++)
+                    responses[i] = new Collision3D.Response();
+            }
+
+            ParallelNarrowphase.run(pairCount, results, workers, pairTest);
+        }
+        else
+        {
+            for (int i = 0; i < pairCount; i++)
+                results[i] = testPair(i, 0);
+        }
+    }
+
+    private boolean testPair(int index, int worker)
+    {
+        Collision3D.Response response = responses[worker].clear();
+
+        if (!Collision3D.testPolyhedronCollision(pairCollisions[index].polyhedron, pairCollidables[index].polyhedron,
+                response))
+            return false;
+
+        // The response of the worker is reused for its next pair, so the pair keeps a copy for its callback
+        if (pairResponses[index] == null)
+            pairResponses[index] = new Collision3D.Response();
+
+        pairResponses[index].set(response);
+        return true;
+    }
+
+    /**
+     * @return Whether the narrowphase is run in parallel.
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Sets whether the narrowphase tests are run in parallel on the background jobs of the TaskManager. This is worth
+     * it only with a lot of candidate pairs, small frames are always tested on the update thread. The polyhedrons must
+     * not be changed by other threads while the collisions are checked.
+     *
+     * @param parallel Whether to run the narrowphase in parallel.
+     */
+    public void setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
     }
 
     private void updateEntities(List<Entity3D> entities)
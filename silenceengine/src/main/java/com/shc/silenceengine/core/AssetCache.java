@@ -0,0 +1,665 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.core;
+
+import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.functional.BiCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of loaded resources, keyed by their type and the file they are loaded from, that is shared by the {@link
+ * ResourceLoader}s. Every user of a resource holds a reference counted {@link Handle} to it, and a resource is loaded
+ * only once no matter how many loaders need it, even if they request it while it is still being loaded.
+ *
+ * <p> Resources that are no longer referenced are not disposed right away if their type has a {@link Sizer}, which is
+ * the case for textures and audio buffers. They stay resident in the cache, so that loading them again is a hit, until
+ * the resident bytes of their {@link Budget} exceed the budget. The least recently released resources are then
+ * evicted first. Resources of the other types are disposed as soon as they are released. Note that resources which
+ * are still referenced are never evicted, and can take the cache over its budget.</p>
+ *
+ * <p> A resource that is made of other resources, like a font of its page textures, holds a handle to each of them
+ * in the cache for as long as it is resident. They stay alive while anyone holds the resource, even a loader that
+ * found it in the cache and never loaded them itself, and are released when the resource is disposed.</p>
+ *
+ * <p> The cache is not thread safe, and should only be used on the update thread, like the callbacks of the resource
+ * loaders. All the resources in a cache are disposed when the engine is disposed.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AssetCache
+{
+    private static Map<Class<? extends IResource>, SizeInfo> sizers = new HashMap<>();
+
+    private static AssetCache shared;
+
+    private Map<Class<? extends IResource>, Map<FilePath, Record>> records    = new HashMap<>();
+    private Map<Class<? extends IResource>, Statistics>            statistics = new HashMap<>();
+
+    // The resident records without any references, least recently released first
+    private Record idleHead;
+    private Record idleTail;
+
+    private long[] budgets       = new long[Budget.values().length];
+    private long[] residentBytes = new long[Budget.values().length];
+
+    /**
+     * Creates a new cache, with a graphics budget of 256 MB and an audio budget of 64 MB. The cache disposes all its
+     * resources when the engine is disposed, after the game.
+     */
+    public AssetCache()
+    {
+        budgets[Budget.GRAPHICS.ordinal()] = 256 * 1024 * 1024;
+        budgets[Budget.AUDIO.ordinal()] = 64 * 1024 * 1024;
+
+        SilenceEngine.eventManager.addDisposeHandler(this::clear, EventManager.DEFAULT_PRIORITY - 1);
+    }
+
+    /**
+     * @return The cache that is used by the resource loaders that are created without a cache.
+     */
+    public static AssetCache getShared()
+    {
+        if (shared == null)
+            shared = new AssetCache();
+
+        return shared;
+    }
+
+    /**
+     * Sets the sizer for a type of resources. Resources with a sizer are kept resident when they are released, until
+     * their budget is exceeded.
+     *
+     * @param type   The class of the resources.
+     * @param budget The budget that the resources are counted against.
+     * @param sizer  The sizer that computes the size of a resource in bytes.
+     * @param <T>    The type of the resources.
+     */
+    public static <T extends IResource> void setSizer(Class<T> type, Budget budget, Sizer<? super T> sizer)
+    {
+        sizers.put(type, new SizeInfo(budget, sizer));
+    }
+
+    /**
+     * Acquires a reference to a resource. If the resource is not in the cache, the returned handle is not loaded, and
+     * the resource should be loaded with a {@link ResourceLoader} of this cache.
+     *
+     * @param type The class of the resource.
+     * @param path The file the resource is loaded from.
+     * @param <T>  The type of the resource.
+     *
+     * @return A new handle to the resource, which should be released when it is no longer used.
+     */
+    public <T extends IResource> Handle<T> acquire(Class<T> type, FilePath path)
+    {
+        Map<FilePath, Record> recordsOfType = records.get(type);
+
+        if (recordsOfType == null)
+            records.put(type, recordsOfType = new HashMap<>());
+
+        Record record = recordsOfType.get(path);
+        Statistics stats = getStatistics(type);
+
+        if (record == null)
+        {
+            recordsOfType.put(path, record = new Record(type, path));
+            stats.misses++;
+        }
+        else
+            stats.hits++;
+
+        return retain(record);
+    }
+
+    private <T extends IResource> Handle<T> retain(Record record)
+    {
+        if (record.idle)
+            unlinkIdle(record);
+
+        record.references++;
+        return new Handle<>(this, record);
+    }
+
+    private void release(Record record)
+    {
+        if (--record.references > 0)
+            return;
+
+        switch (record.state)
+        {
+            case EMPTY:
+                records.get(record.type).remove(record.path);
+                break;
+
+            case RESIDENT:
+                retire(record);
+                break;
+
+            default:
+                // A record that is loading is retired once it is loaded
+                break;
+        }
+    }
+
+    private void complete(Record record, IResource resource, List<Handle<?>> dependencies)
+    {
+        record.resource = resource;
+        record.dependencies = dependencies;
+        record.state = State.RESIDENT;
+
+        SizeInfo sizeInfo = sizers.get(record.type);
+
+        if (sizeInfo != null)
+        {
+            record.budget = sizeInfo.budget;
+            record.sizeBytes = sizeInfo.sizeOf(resource);
+            residentBytes[record.budget.ordinal()] += record.sizeBytes;
+        }
+
+        Statistics stats = getStatistics(record.type);
+        stats.residentBytes += record.sizeBytes;
+        stats.residentCount++;
+
+        List<BiCallback<IResource, Throwable>> waiters = record.waiters;
+        record.waiters = null;
+
+        if (waiters != null)
+            for (BiCallback<IResource, Throwable> waiter : waiters)
+                waiter.invoke(resource, null);
+
+        if (record.references == 0)
+            retire(record);
+        else if (record.budget != null)
+            enforceBudget(record.budget);
+    }
+
+    private void fail(Record record, Throwable error)
+    {
+        // The record is empty again, so that the resource can be loaded by the next loader that claims it
+        record.state = State.EMPTY;
+
+        List<BiCallback<IResource, Throwable>> waiters = record.waiters;
+        record.waiters = null;
+
+        if (waiters != null)
+            for (BiCallback<IResource, Throwable> waiter : waiters)
+                waiter.invoke(null, error);
+
+        if (record.references == 0)
+            records.get(record.type).remove(record.path);
+    }
+
+    // Called when a resident record loses its last reference
+    private void retire(Record record)
+    {
+        if (record.budget == null)
+        {
+            evict(record);
+            return;
+        }
+
+        linkIdle(record);
+        enforceBudget(record.budget);
+    }
+
+    private void enforceBudget(Budget budget)
+    {
+        Record record = idleHead;
+
+        while (record != null && residentBytes[budget.ordinal()] > budgets[budget.ordinal()])
+        {
+            Record next = record.nextIdle;
+
+            if (record.budget == budget)
+            {
+                evict(record);
+                getStatistics(record.type).evictions++;
+
+                // Releasing the dependencies of the record may have evicted the next one too
+                if (next != null && !next.idle)
+                    next = idleHead;
+            }
+
+            record = next;
+        }
+    }
+
+    private void evict(Record record)
+    {
+        if (record.idle)
+            unlinkIdle(record);
+
+        records.get(record.type).remove(record.path);
+
+        if (record.budget != null)
+            residentBytes[record.budget.ordinal()] -= record.sizeBytes;
+
+        Statistics stats = getStatistics(record.type);
+        stats.residentBytes -= record.sizeBytes;
+        stats.residentCount--;
+
+        record.state = State.EVICTED;
+        record.resource.dispose();
+        record.resource = null;
+
+        // The dependencies are released after the resource, which may still use them while it is disposed
+        List<Handle<?>> dependencies = record.dependencies;
+        record.dependencies = null;
+
+        for (Handle<?> dependency : dependencies)
+            dependency.release();
+    }
+
+    private void linkIdle(Record record)
+    {
+        record.prevIdle = idleTail;
+        record.nextIdle = null;
+
+        if (idleTail == null)
+            idleHead = record;
+        else
+            idleTail.nextIdle = record;
+
+        idleTail = record;
+        record.idle = true;
+    }
+
+    private void unlinkIdle(Record record)
+    {
+        if (record.prevIdle == null)
+            idleHead = record.nextIdle;
+        else
+            record.prevIdle.nextIdle = record.nextIdle;
+
+        if (record.nextIdle == null)
+            idleTail = record.prevIdle;
+        else
+            record.nextIdle.prevIdle = record.prevIdle;
+
+        record.prevIdle = record.nextIdle = null;
+        record.idle = false;
+    }
+
+    /**
+     * Evicts all the resources that are not referenced, regardless of the budgets.
+     */
+    public void trim()
+    {
+        while (idleHead != null)
+        {
+            getStatistics(idleHead.type).evictions++;
+            evict(idleHead);
+        }
+    }
+
+    /**
+     * Disposes all the resident resources, including the ones that are still referenced. The handles to them are no
+     * longer loaded after this.
+     */
+    public void clear()
+    {
+        List<Record> resident = new ArrayList<>();
+
+        for (Map<FilePath, Record> recordsOfType : records.values())
+            for (Record record : recordsOfType.values())
+                if (record.state == State.RESIDENT)
+                    resident.add(record);
+
+        // Evicting a record releases its dependencies, which may evict the ones later in the list already
+        for (Record record : resident)
+            if (record.state == State.RESIDENT)
+                evict(record);
+    }
+
+    public long getBudget(Budget budget)
+    {
+        return budgets[budget.ordinal()];
+    }
+
+    /**
+     * Sets a budget, and evicts the resources that are not referenced until the resident bytes are within it.
+     *
+     * @param budget The budget to set.
+     * @param bytes  The maximum number of resident bytes.
+     */
+    public void setBudget(Budget budget, long bytes)
+    {
+        budgets[budget.ordinal()] = bytes;
+        enforceBudget(budget);
+    }
+
+    /**
+     * @param budget The budget.
+     *
+     * @return The total size of all the resident resources that are counted against the budget, in bytes.
+     */
+    public long getResidentBytes(Budget budget)
+    {
+        return residentBytes[budget.ordinal()];
+    }
+
+    /**
+     * Gets the statistics of a type of resources. The returned object is live, and is updated as the cache is used.
+     *
+     * @param type The class of the resources.
+     *
+     * @return The statistics of the type.
+     */
+    public Statistics getStatistics(Class<? extends IResource> type)
+    {
+        Statistics stats = statistics.get(type);
+
+        if (stats == null)
+            statistics.put(type, stats = new Statistics());
+
+        return stats;
+    }
+
+    /**
+     * @return The statistics of all the types that are used with this cache.
+     */
+    public Map<Class<? extends IResource>, Statistics> getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts of all the types. The resident counts are not affected.
+     */
+    public void resetStatistics()
+    {
+        for (Statistics stats : statistics.values())
+            stats.hits = stats.misses = stats.evictions = 0;
+    }
+
+    private enum State
+    {
+        EMPTY, LOADING, RESIDENT, EVICTED
+    }
+
+    /**
+     * The kinds of memory that resources are counted against.
+     */
+    public enum Budget
+    {
+        GRAPHICS, AUDIO
+    }
+
+    /**
+     * Computes the size of a resource in the memory of its budget.
+     *
+     * @param <T> The type of the resources.
+     */
+    @FunctionalInterface
+    public interface Sizer<T extends IResource>
+    {
+        long sizeOf(T resource);
+    }
+
+    /**
+     * A reference to a resource in the cache. Every handle holds one reference, which has to be released exactly once.
+     *
+     * @param <T> The type of the resource.
+     */
+    public static final class Handle<T extends IResource>
+    {
+        private final AssetCache cache;
+        private final Record     record;
+
+        private boolean released;
+
+        private Handle(AssetCache cache, Record record)
+        {
+            this.cache = cache;
+            this.record = record;
+        }
+
+        /**
+         * @return The resource, or null if it is not loaded yet.
+         */
+        @SuppressWarnings("unchecked")
+        public T get()
+        {
+            return record.state == State.RESIDENT ? (T) record.resource : null;
+        }
+
+        public boolean isLoaded()
+        {
+            return record.state == State.RESIDENT;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Class<T> getType()
+        {
+            return (Class<T>) record.type;
+        }
+
+        public FilePath getPath()
+        {
+            return record.path;
+        }
+
+        /**
+         * @return A new handle to the same resource, which holds a reference of its own.
+         */
+        public Handle<T> retain()
+        {
+            if (released)
+                throw new SilenceException("Cannot retain a released handle");
+
+            return cache.retain(record);
+        }
+
+        /**
+         * Releases the reference held by this handle. The resource may be disposed after this, and the handle should no
+         * longer be used.
+         */
+        public void release()
+        {
+            if (released)
+                throw new SilenceException("This handle is already released");
+
+            released = true;
+            cache.release(record);
+        }
+
+        public boolean isReleased()
+        {
+            return released;
+        }
+
+        /**
+         * Claims the loading of the resource, used by the loaders to load a resource only once.
+         *
+         * @return True if the caller should load the resource, false if it is already loaded or being loaded.
+         */
+        boolean claim()
+        {
+            if (record.state != State.EMPTY)
+                return false;
+
+            record.state = State.LOADING;
+            return true;
+        }
+
+        /**
+         * Invokes a callback when the resource is loaded by the loader that claimed it, or right away if it is
+         * already loaded. The callback receives either the resource, or the error if the loading failed.
+         */
+        void whenLoaded(BiCallback<IResource, Throwable> callback)
+        {
+            if (record.state == State.RESIDENT)
+                callback.invoke(record.resource, null);
+            else
+            {
+                if (record.waiters == null)
+                    record.waiters = new ArrayList<>();
+
+                record.waiters.add(callback);
+            }
+        }
+
+        /**
+         * Stores the resource that is loaded by the loader that claimed it, along with the handles to the resources it
+         * depends on. The handles are owned by the cache from then on, and are released when the resource is disposed.
+         */
+        void complete(IResource resource, List<Handle<?>> dependencies)
+        {
+            cache.complete(record, resource, dependencies);
+        }
+
+        /**
+         * Reports that the loader that claimed the resource failed to load it.
+         */
+        void fail(Throwable error)
+        {
+            cache.fail(record, error);
+        }
+    }
+
+    /**
+     * The statistics of a single type of resources in a cache.
+     */
+    public static final class Statistics
+    {
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long residentBytes;
+        private int  residentCount;
+
+        /**
+         * @return The number of times a resource is acquired while it is already in the cache, either resident or
+         * being loaded.
+         */
+        public long getHits()
+        {
+            return hits;
+        }
+
+        /**
+         * @return The number of times a resource is acquired while it is not in the cache.
+         */
+        public long getMisses()
+        {
+            return misses;
+        }
+
+        public float getHitRate()
+        {
+            long total = hits + misses;
+            return total == 0 ? 0 : (float) hits / total;
+        }
+
+        /**
+         * @return The number of resources that are evicted to stay within the budget, or by trimming the cache.
+         */
+        public long getEvictions()
+        {
+            return evictions;
+        }
+
+        public long getResidentBytes()
+        {
+            return residentBytes;
+        }
+
+        public int getResidentCount()
+        {
+            return residentCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Statistics{" +
+                   "hits=" + hits +
+                   ", misses=" + misses +
+                   ", evictions=" + evictions +
+                   ", residentBytes=" + residentBytes +
+                   ", residentCount=" + residentCount +
+                   '}';
+        }
+    }
+
+    private static class SizeInfo
+    {
+        private final Budget           budget;
+        private final Sizer<IResource> sizer;
+
+        @SuppressWarnings("unchecked")
+        private SizeInfo(Budget budget, Sizer<?> sizer)
+        {
+            this.budget = budget;
+            this.sizer = (Sizer<IResource>) sizer;
+        }
+
+        private long sizeOf(IResource resource)
+        {
+            return sizer.sizeOf(resource);
+        }
+    }
+
+    private static class Record
+    {
+        private final Class<? extends IResource> type;
+        private final FilePath                   path;
+
+        private State     state = State.EMPTY;
+        private IResource resource;
+        private int       references;
+
+        private List<Handle<?>> dependencies;
+
+        private Budget budget;
+        private long   sizeBytes;
+
+        private List<BiCallback<IResource, Throwable>> waiters;
+
+        private boolean idle;
+        private Record  prevIdle;
+        private Record  nextIdle;
+
+        private Record(Class<? extends IResource> type, FilePath path)
+        {
+            this.type = type;
+            this.path = path;
+        }
+    }
+
+    static
+    {
+        setSizer(Texture.class, Budget.GRAPHICS, Texture::getSizeBytes);
+        setSizer(ALBuffer.class, Budget.AUDIO, ALBuffer::getSizeBytes);
+        setSizer(Sound.class, Budget.AUDIO, sound -> sound.buffer.getSizeBytes());
+    }
+}
@@ -30,29 +30,40 @@ import com.shc.silenceengine.events.IResizeEventHandler;
 import com.shc.silenceengine.events.IUpdateEventHandler;
 import com.shc.silenceengine.graphics.opengl.GLContext;
 import com.shc.silenceengine.utils.GameTimer;
+import com.shc.silenceengine.utils.functional.BooleanProvider;
 import com.shc.silenceengine.utils.functional.Provider;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
 /**
+ * The EventManager dispatches the game events to the registered handlers. Adding and removing handlers is deferred
+ * until the next event is raised, so handlers can be safely added or removed from within another handler, and from
+ * any thread.
+ *
+ * <p> Every handler has a priority, and handlers with a higher priority are invoked first. Handlers with the same
+ * priority are invoked in the order they were added. The handlers are dispatched from an array that is only rebuilt
+ * when the registered handlers actually change, and the queued add and remove requests are pooled, so raising an
+ * event doesn't allocate any memory.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class EventManager
 {
-    private List<IUpdateEventHandler>  updateEventHandlers  = new ArrayList<>();
-    private List<IRenderEventHandler>  renderEventHandlers  = new ArrayList<>();
-    private List<IResizeEventHandler>  resizeEventHandlers  = new ArrayList<>();
-    private List<IDisposeEventHandler> disposeEventHandlers = new ArrayList<>();
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private HandlerList updateEventHandlers  = new HandlerList();
+    private HandlerList renderEventHandlers  = new HandlerList();
+    private HandlerList resizeEventHandlers  = new HandlerList();
+    private HandlerList disposeEventHandlers = new HandlerList();
 
-    private Queue<EventHandlerQueueObject> eventHandlersQueue = new LinkedList<>();
+    private final List<EventHandlerQueueObject> eventHandlersQueue = new ArrayList<>();
+    private final List<EventHandlerQueueObject> queueObjectPool    = new ArrayList<>();
 
-    private boolean           waiting;
-    private Provider<Boolean> waitCondition;
+    private boolean         waiting;
+    private BooleanProvider waitCondition;
 
     /**
      * Prevent instantiation by the users.
@@ -63,82 +74,79 @@ public final class EventManager
 
     public void addUpdateHandler(IUpdateEventHandler handler)
     {
-        EventHandlerQueueObject<IUpdateEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.ADD_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.UPDATE;
+        addUpdateHandler(handler, DEFAULT_PRIORITY);
+    }
 
-        eventHandlersQueue.add(eventHandlersQueueObject);
+    public void addUpdateHandler(IUpdateEventHandler handler, int priority)
+    {
+        queue(updateEventHandlers, handler, EventQueueAction.ADD_HANDLER, priority);
     }
 
     public void addRenderHandler(IRenderEventHandler handler)
     {
-        EventHandlerQueueObject<IRenderEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.ADD_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.RENDER;
+        addRenderHandler(handler, DEFAULT_PRIORITY);
+    }
 
-        eventHandlersQueue.add(eventHandlersQueueObject);
+    public void addRenderHandler(IRenderEventHandler handler, int priority)
+    {
+        queue(renderEventHandlers, handler, EventQueueAction.ADD_HANDLER, priority);
     }
 
     public void addResizeHandler(IResizeEventHandler handler)
     {
-        EventHandlerQueueObject<IResizeEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.ADD_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.RESIZE;
+        addResizeHandler(handler, DEFAULT_PRIORITY);
+    }
 
-        eventHandlersQueue.add(eventHandlersQueueObject);
+    public void addResizeHandler(IResizeEventHandler handler, int priority)
+    {
+        queue(resizeEventHandlers, handler, EventQueueAction.ADD_HANDLER, priority);
     }
 
     public void addDisposeHandler(IDisposeEventHandler handler)
     {
-        EventHandlerQueueObject<IDisposeEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.ADD_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.DISPOSE;
+        addDisposeHandler(handler, DEFAULT_PRIORITY);
+    }
 
-        eventHandlersQueue.add(eventHandlersQueueObject);
+    public void addDisposeHandler(IDisposeEventHandler handler, int priority)
+    {
+        queue(disposeEventHandlers, handler, EventQueueAction.ADD_HANDLER, priority);
     }
 
     public void removeUpdateHandler(IUpdateEventHandler handler)
     {
-        EventHandlerQueueObject<IUpdateEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.REMOVE_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.UPDATE;
-
-        eventHandlersQueue.add(eventHandlersQueueObject);
+        queue(updateEventHandlers, handler, EventQueueAction.REMOVE_HANDLER, DEFAULT_PRIORITY);
     }
 
     public void removeRenderHandler(IRenderEventHandler handler)
     {
-        EventHandlerQueueObject<IRenderEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.REMOVE_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.RENDER;
-
-        eventHandlersQueue.add(eventHandlersQueueObject);
+        queue(renderEventHandlers, handler, EventQueueAction.REMOVE_HANDLER, DEFAULT_PRIORITY);
     }
 
     public void removeResizeHandler(IResizeEventHandler handler)
     {
-        EventHandlerQueueObject<IResizeEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.REMOVE_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.RESIZE;
-
-        eventHandlersQueue.add(eventHandlersQueueObject);
+        queue(resizeEventHandlers, handler, EventQueueAction.REMOVE_HANDLER, DEFAULT_PRIORITY);
     }
 
     public void removeDisposeHandler(IDisposeEventHandler handler)
     {
-        EventHandlerQueueObject<IDisposeEventHandler> eventHandlersQueueObject = new EventHandlerQueueObject<>();
-        eventHandlersQueueObject.handler = handler;
-        eventHandlersQueueObject.action = EventQueueAction.REMOVE_HANDLER;
-        eventHandlersQueueObject.eventType = EventType.DISPOSE;
+        queue(disposeEventHandlers, handler, EventQueueAction.REMOVE_HANDLER, DEFAULT_PRIORITY);
+    }
+
+    private void queue(HandlerList handlers, Object handler, EventQueueAction action, int priority)
+    {
+        synchronized (eventHandlersQueue)
+        {
+            EventHandlerQueueObject object = queueObjectPool.isEmpty()
+                                             ? new EventHandlerQueueObject()
+                                             : queueObjectPool.remove(queueObjectPool.size() - 1);
+
+            object.handlers = handlers;
+            object.handler = handler;
+            object.action = action;
+            object.priority = priority;
 
-        eventHandlersQueue.add(eventHandlersQueueObject);
+            eventHandlersQueue.add(object);
+        }
     }
 
     /**
@@ -150,7 +158,7 @@ public final class EventManager
      *
      * @param condition A provider that provides a condition on how much time to wait.
      */
-    public void waitUntil(Provider<Boolean> condition)
+    public void waitUntil(BooleanProvider condition)
     {
         waitCondition = condition;
 
@@ -158,6 +166,19 @@ public final class EventManager
             waiting = !condition.provide();
     }
 
+    /**
+     * Waits for the condition to be satisfied, see {@link #waitUntil(BooleanProvider)}.
+     *
+     * @param condition A provider that provides a condition on how much time to wait.
+     *
+     * @deprecated The boxed condition is unboxed on every update, use {@link #waitUntil(BooleanProvider)} instead.
+     */
+    @Deprecated
+    public void waitUntil(Provider<Boolean> condition)
+    {
+        waitUntil(condition == null ? null : (BooleanProvider) condition::provide);
+    }
+
     public void raiseUpdateEvent(float deltaTime)
     {
         processHandlers();
@@ -168,8 +189,10 @@ public final class EventManager
                 return;
         }
 
-        for (IUpdateEventHandler handler : updateEventHandlers)
-            handler.update(deltaTime);
+        Object[] handlers = updateEventHandlers.snapshot;
+
+        for (int i = 0; i < handlers.length; i++)
+            ((IUpdateEventHandler) handlers[i]).update(deltaTime);
     }
 
     public void raiseRenderEvent(float delta)
@@ -180,8 +203,10 @@ public final class EventManager
         if (waiting)
             return;
 
-        for (IRenderEventHandler handler : renderEventHandlers)
-            handler.render(delta);
+        Object[] handlers = renderEventHandlers.snapshot;
+
+        for (int i = 0; i < handlers.length; i++)
+            ((IRenderEventHandler) handlers[i]).render(delta);
     }
 
     public void raiseResizeEvent()
@@ -191,16 +216,20 @@ public final class EventManager
         if (waiting)
             return;
 
-        for (IResizeEventHandler handler : resizeEventHandlers)
-            handler.resized();
+        Object[] handlers = resizeEventHandlers.snapshot;
+
+        for (int i = 0; i < handlers.length; i++)
+            ((IResizeEventHandler) handlers[i]).resized();
     }
 
     public void raiseDisposeEvent()
     {
         processHandlers();
 
-        for (IDisposeEventHandler handler : disposeEventHandlers)
-            handler.dispose();
+        Object[] handlers = disposeEventHandlers.snapshot;
+
+        for (int i = 0; i < handlers.length; i++)
+            ((IDisposeEventHandler) handlers[i]).dispose();
 
         // No updates happen after dispose, it's the end of the game
         clearAllHandlers();
@@ -216,55 +245,51 @@ public final class EventManager
         disposeEventHandlers.clear();
     }
 
-    @SuppressWarnings({ "suspicious", "SuspiciousMethodCalls" })
+    /**
+     * @return The number of update handlers that are registered, not counting the ones that are still queued.
+     */
+    public int getNumUpdateHandlers()
+    {
+        return updateEventHandlers.snapshot.length;
+    }
+
+    /**
+     * @return The number of render handlers that are registered, not counting the ones that are still queued.
+     */
+    public int getNumRenderHandlers()
+    {
+        return renderEventHandlers.snapshot.length;
+    }
+
     private void processHandlers()
     {
-        while (!eventHandlersQueue.isEmpty())
+        synchronized (eventHandlersQueue)
         {
-            EventHandlerQueueObject object = eventHandlersQueue.poll();
-
-            if (object == null)
-                break;
+            if (eventHandlersQueue.isEmpty())
+                return;
 
-            switch (object.eventType)
+            for (int i = 0; i < eventHandlersQueue.size(); i++)
             {
-                case UPDATE:
-                    if (object.action == EventQueueAction.ADD_HANDLER)
-                        updateEventHandlers.add((IUpdateEventHandler) object.handler);
-                    else
-                        updateEventHandlers.remove(object.handler);
-                    break;
-
-                case RENDER:
-                    if (object.action == EventQueueAction.ADD_HANDLER)
-                        renderEventHandlers.add((IRenderEventHandler) object.handler);
-                    else
-                        renderEventHandlers.remove(object.handler);
-                    break;
-
-                case RESIZE:
-                    if (object.action == EventQueueAction.ADD_HANDLER)
-                        resizeEventHandlers.add((IResizeEventHandler) object.handler);
-                    else
-                        resizeEventHandlers.remove(object.handler);
-                    break;
-
-                case DISPOSE:
-                    if (object.action == EventQueueAction.ADD_HANDLER)
-                        disposeEventHandlers.add((IDisposeEventHandler) object.handler);
-                    else
-                        disposeEventHandlers.remove(object.handler);
-                    break;
+                EventHandlerQueueObject object = eventHandlersQueue.get(i);
+
+                if (object.action == EventQueueAction.ADD_HANDLER)
+                    object.handlers.add(object.handler, object.priority);
+                else
+                    object.handlers.remove(object.handler);
+
+                // Return the object to the pool, don't hold on to the handler
+                object.handlers = null;
+                object.handler = null;
+                queueObjectPool.add(object);
             }
+
+            eventHandlersQueue.clear();
         }
-    }
 
-    private enum EventType
-    {
-        UPDATE,
-        RENDER,
-        RESIZE,
-        DISPOSE
+        updateEventHandlers.commit();
+        renderEventHandlers.commit();
+        resizeEventHandlers.commit();
+        disposeEventHandlers.commit();
     }
 
     private enum EventQueueAction
@@ -273,11 +298,95 @@ public final class EventManager
         REMOVE_HANDLER
     }
 
-    private static class EventHandlerQueueObject<T>
+    private static class EventHandlerQueueObject
     {
-        EventType        eventType;
+        HandlerList      handlers;
         EventQueueAction action;
 
-        T handler;
+        Object handler;
+        int    priority;
+    }
+
+    /**
+     * The handlers of a single event type, sorted by their priority. The changes are made to a working array, and are
+     * published to the snapshot array that is used for dispatching only when they are committed.
+     */
+    private static class HandlerList
+    {
+        private static final Object[] EMPTY = new Object[0];
+
+        Object[] snapshot = EMPTY;
+
+        private Object[] handlers   = new Object[16];
+        private int[]    priorities = new int[16];
+        private int      size;
+        private boolean  dirty;
+
+        void add(Object handler, int priority)
+        {
+            if (size == handlers.length)
+            {
+                Object[] newHandlers = new Object[size * 2];
+                int[] newPriorities = new int[size * 2];
+
+                System.arraycopy(handlers, 0, newHandlers, 0, size);
+                System.arraycopy(priorities, 0, newPriorities, 0, size);
+
+                handlers = newHandlers;
+                priorities = newPriorities;
+            }
+
+            // Insert after all the handlers with the same or higher priority, so the order is deterministic
+            int index = size;
+            while (index > 0 && priorities[index - 1] < priority)
+                index--;
+
+            System.arraycopy(handlers, index, handlers, index + 1, size - index);
+            System.arraycopy(priorities, index, priorities, index + 1, size - index);
+
+            handlers[index] = handler;
+            priorities[index] = priority;
+            size++;
+
+            dirty = true;
+        }
+
+        void remove(Object handler)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                if (handlers[i].equals(handler))
+                {
+                    System.arraycopy(handlers, i + 1, handlers, i, size - i - 1);
+                    System.arraycopy(priorities, i + 1, priorities, i, size - i - 1);
+
+                    handlers[--size] = null;
+                    dirty = true;
+                    return;
+                }
+            }
+        }
+
+        void clear()
+        {
+            for (int i = 0; i < size; i++)
+                handlers[i] = null;
+
+            size = 0;
+            snapshot = EMPTY;
+            dirty = false;
+        }
+
+        void commit()
+        {
+            if (!dirty)
+                return;
+
+            Object[] newSnapshot = new Object[size];
+            System.arraycopy(handlers, 0, newSnapshot, 0, size);
+
+            snapshot = newSnapshot;
+            dirty = false;
+        }
     }
 }
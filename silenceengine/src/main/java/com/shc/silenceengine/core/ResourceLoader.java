@@ -22,114 +22,197 @@
  * SOFTWARE.
  */
 
+
 package com.shc.silenceengine.core;
 
 import com.shc.silenceengine.audio.AudioDevice.AudioFormat;
 import com.shc.silenceengine.audio.Sound;
 import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.events.IUpdateEventHandler;
 import com.shc.silenceengine.graphics.Image;
 import com.shc.silenceengine.graphics.fonts.BitmapFont;
 import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.io.BundleFilePath;
+import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.scene.tiled.TmxMap;
 import com.shc.silenceengine.utils.IDGenerator;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.TimeUtils;
+import com.shc.silenceengine.utils.functional.BiCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
+ * Loads a set of resources in the background, in a pipeline of three stages. Every resource is first read from its
+ * file, then decoded, and finally uploaded on the update thread. The reads and decodes run in parallel, but only up to
+ * a limit per stage, and the uploads are spread over frames so that each frame spends at most the upload budget on
+ * them. This keeps loading screens animating at a steady frame rate.
+ *
+ * <p> Resources can depend on other resources, like a {@link BitmapFont} on the textures of its pages, or a {@link
+ * TmxMap} on the textures of its tilesets. Dependencies are discovered once a resource is decoded, and are loaded
+ * through the same pipeline. A resource is uploaded only after all its dependencies are, and a resource that is needed
+ * more than once, either defined twice or shared as a dependency, is loaded only once. Since dependencies are found
+ * while loading, the total count and hence the percentage can change after the loading starts.</p>
+ *
+ * <p> The loaded resources are kept in an {@link AssetCache}, which is shared by all the loaders unless a loader is
+ * created with a cache of its own. A resource that is already in the cache is not loaded again, and a resource that is
+ * being loaded by another loader is waited for. Every loader holds a reference to the resources it loads, until they
+ * are released with {@link #disposeAll()}.</p>
+ *
+ * <p> All the callbacks of the stages are invoked on the update thread, and so is the {@link ILoadListener} that
+ * receives the timing of each resource as it is loaded.</p>
+ *
+ * <p> A resource that fails in any of the stages frees its slot in the stage, and is counted as done so that the
+ * loader still finishes. The error is reported to the listener, and the resources that depend on the failed resource
+ * fail along with it. Failed resources are null in the loader, and are not added to the cache.</p>
+ *
  * @author Sri Harsha Chilakapati
  * @author Gamefreak0
  */
 public class ResourceLoader
 {
-    private static Map<Class<? extends IResource>, ILoadHelper> loadHelpers = new HashMap<>();
+    private static Map<Class<? extends IResource>, IStagedLoadHelper<?, ?, ?>> loadHelpers = new HashMap<>();
+
+    private AssetCache cache;
+
+    private Map<Long, Entry>                                      idMap;
+    private Map<Class<? extends IResource>, Map<FilePath, Entry>> entries;
+
+    // The entries that are loaded, in the order they are loaded
+    private List<Entry> loaded;
+
+    private ArrayDeque<Entry> readQueue;
+    private ArrayDeque<Entry> decodeQueue;
+    private ArrayDeque<Entry> uploadQueue;
+
+    private int readsInFlight;
+    private int decodesInFlight;
 
-    private Map<FilePath, Class<? extends IResource>> toBeLoaded;
+    private int    maxConcurrentReads   = 4;
+    private int    maxConcurrentDecodes = 2;
+    private double uploadBudget         = 4;
 
-    private Map<Long, FilePath>      idMap;
-    private Map<FilePath, IResource> loaded;
+    private ILoadListener       listener;
+    private IUpdateEventHandler uploadHandler;
 
-    private int done  = 0;
-    private int count = 0;
+    private boolean started;
+    private boolean uploading;
 
+    private int done   = 0;
+    private int count  = 0;
+    private int failed = 0;
+
+    /**
+     * Creates a loader that keeps its resources in the shared cache.
+     */
     public ResourceLoader()
     {
-        toBeLoaded = new HashMap<>();
+        this(AssetCache.getShared());
+    }
+
+    /**
+     * Creates a loader that keeps its resources in a specific cache.
+     *
+     * @param cache The cache of the loaded resources.
+     */
+    public ResourceLoader(AssetCache cache)
+    {
+        this.cache = cache;
+
         idMap = new HashMap<>();
-        loaded = new HashMap<>();
+        entries = new HashMap<>();
+        loaded = new ArrayList<>();
+
+        readQueue = new ArrayDeque<>();
+        decodeQueue = new ArrayDeque<>();
+        uploadQueue = new ArrayDeque<>();
+
+        uploadHandler = delta -> uploadPending();
     }
 
+    /**
+     * Sets a load helper that loads a resource in a single step. The resource is uploaded as soon as the helper submits
+     * it, so these helpers don't get the benefits of the staged pipeline.
+     *
+     * @param clazz      The class of the resource.
+     * @param loadHelper The load helper.
+     */
     public static void setHelper(Class<? extends IResource> clazz, ILoadHelper loadHelper)
     {
-        loadHelpers.put(clazz, loadHelper);
+        setHelper(clazz, new SingleStepLoadHelper<>(loadHelper));
     }
 
-    private static void imageLoadHelper(FilePath path, ISubmitter<Image> submitter)
+    /**
+     * Sets a load helper that loads a resource in separate read, decode and upload stages.
+     *
+     * @param clazz      The class of the resource.
+     * @param loadHelper The load helper.
+     */
+    public static void setHelper(Class<? extends IResource> clazz, IStagedLoadHelper<?, ?, ?> loadHelper)
     {
-        SilenceEngine.io.getImageReader().readImage(path, image -> submitter.submit(image, path));
+        loadHelpers.put(clazz, loadHelper);
     }
 
-    private static void textureLoadHelper(FilePath path, ISubmitter<Texture> submitter)
+    private static void decodeImage(FilePath path, DirectBuffer data, UniCallback<Image> onDecoded,
+                                    UniCallback<Throwable> onError)
     {
-        SilenceEngine.io.getImageReader().readImage(path, image ->
+        // The pixels of the images in bundles are used as they are, the data is a view into the bundle
+        if (path instanceof BundleFilePath && ((BundleFilePath) path).isDecodedImage())
+        {
+            onDecoded.invoke(((BundleFilePath) path).getImage());
+            return;
+        }
+
+        SilenceEngine.io.getImageReader().readImage(data, image ->
+        {
+            SilenceEngine.io.free(data);
+            onDecoded.invoke(image);
+        }, error ->
         {
-            submitter.submit(Texture.fromImage(image), path);
-            image.dispose();
+            SilenceEngine.io.free(data);
+            onError.invoke(error);
         });
     }
 
-    private static void alBufferLoadHelper(FilePath path, ISubmitter<ALBuffer> submitter)
+    private static void decodeAudio(FilePath path, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                                    UniCallback<Throwable> onError)
     {
-        AudioFormat format = AudioFormat.OGG;
-
-        switch (path.getExtension())
+        if (path instanceof BundleFilePath && ((BundleFilePath) path).isDecodedAudio())
         {
-            case "ogg":
-            case "ogv":
-            case "oga":
-                format = AudioFormat.OGG;
-                break;
-
-            case "wav":
-            case "pcm":
-            case "wave":
-            case "riff":
-                format = AudioFormat.WAV;
-                break;
-
-            case "mp3":
-            case "mp4":
-            case "mpg":
-                format = AudioFormat.MP3;
-                break;
-
-            case "webm":
-                format = AudioFormat.WEBM;
+            BundleFilePath bundlePath = (BundleFilePath) path;
+            onDecoded.invoke(bundlePath.getBundle().createALBuffer(bundlePath.getEntry()));
+            return;
         }
 
-        final AudioFormat finalFormat = format;
-        SilenceEngine.io.getFileReader().readBinaryFile(path, data ->
-                SilenceEngine.audio.readToALBuffer(finalFormat, data, buffer -> submitter.submit(buffer, path)));
+        SilenceEngine.audio.readToALBuffer(AudioFormat.forPath(path), data, onDecoded, onError);
     }
 
-    private static void soundLoadHelper(FilePath path, ISubmitter<Sound> submitter)
+    private static void readBinary(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
     {
-        alBufferLoadHelper(path, (resource, filePath) -> submitter.submit(new Sound(resource), path));
+        SilenceEngine.io.getFileReader().readBinaryFile(path, onRead, onError);
     }
 
-    private static void bitmapFontLoadHelper(FilePath path, ISubmitter<BitmapFont> submitter)
+    private static void readText(FilePath path, UniCallback<String> onRead, UniCallback<Throwable> onError)
     {
-        BitmapFont.load(path, bitmapFont -> submitter.submit(bitmapFont, path));
+        SilenceEngine.io.getFileReader().readTextFile(path, onRead, onError);
     }
 
-    public long define(Class<? extends IResource> klass, FilePath path)
+    // Wraps a callback so that it is always invoked on the update thread, no matter which thread the stage finishes on
+    private static <T> UniCallback<T> onUpdate(UniCallback<T> callback)
     {
-        toBeLoaded.put(path, klass);
-        count++;
+        return value -> TaskManager.runOnUpdate(() -> callback.invoke(value));
+    }
 
+    public long define(Class<? extends IResource> klass, FilePath path)
+    {
         long id = IDGenerator.generate();
-        idMap.put(id, path);
+        idMap.put(id, require(klass, path));
 
         return id;
     }
@@ -137,44 +220,480 @@ public class ResourceLoader
     @SuppressWarnings("unchecked")
     public <T extends IResource> T get(long id)
     {
-        return (T) loaded.get(idMap.get(id));
+        Entry entry = idMap.get(id);
+        return entry == null ? null : (T) entry.resource;
     }
 
+    /**
+     * Gets a new handle to a resource that is defined in this loader. The handle holds a reference of its own, and so
+     * the resource stays alive even after this loader releases its resources, until the handle is released.
+     *
+     * @param id  The ID of the resource, returned by {@link #define(Class, FilePath)}.
+     * @param <T> The type of the resource.
+     *
+     * @return A new handle to the resource, or null if the ID is not defined in this loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IResource> AssetCache.Handle<T> getHandle(long id)
+    {
+        Entry entry = idMap.get(id);
+        return entry == null ? null : (AssetCache.Handle<T>) entry.handle.retain();
+    }
+
+    /**
+     * Gets a resource that is loaded by this loader, either because it was defined, or because another resource
+     * depends on it.
+     *
+     * @param type The class of the resource.
+     * @param path The file the resource is loaded from.
+     * @param <T>  The type of the resource.
+     *
+     * @return The resource, or null if it is not loaded yet.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends IResource> T get(Class<T> type, FilePath path)
+    {
+        Map<FilePath, Entry> entriesOfType = entries.get(type);
+
+        if (entriesOfType == null)
+            return null;
+
+        Entry entry = entriesOfType.get(path);
+        return entry == null ? null : (T) entry.resource;
+    }
+
+    /**
+     * Starts loading all the defined resources. Resources that are defined after the loader is started are loaded
+     * right away.
+     */
     public void start()
     {
-        Iterator<FilePath> iterator = toBeLoaded.keySet().iterator();
+        if (started)
+            return;
 
-        while (iterator.hasNext())
-        {
-            FilePath path = iterator.next();
+        started = true;
+
+        for (Map<FilePath, Entry> entriesOfType : entries.values())
+            for (Entry entry : entriesOfType.values())
+                if (entry.state == State.DEFINED)
+                    enqueue(entry);
+
+        pump();
+    }
+
+    // Gets the entry of a resource, creating it if this is the first time it is needed
+    @SuppressWarnings("unchecked")
+    private Entry require(Class<? extends IResource> type, FilePath path)
+    {
+        Map<FilePath, Entry> entriesOfType = entries.get(type);
+
+        if (entriesOfType == null)
+            entries.put(type, entriesOfType = new HashMap<>());
+
+        Entry entry = entriesOfType.get(path);
 
-            Class<? extends IResource> type = toBeLoaded.get(path);
+        if (entry != null)
+            return entry;
 
-            ILoadHelper<?> loadHelper = loadHelpers.get(type);
-            loadHelper.load(path, (resource, path1) ->
+        IStagedLoadHelper<?, ?, ?> loadHelper = loadHelpers.get(type);
+
+        if (loadHelper == null)
+            throw new SilenceException("No load helper is registered for " + type.getName());
+
+        entry = new Entry(type, path, (IStagedLoadHelper<IResource, Object, Object>) loadHelper);
+        entry.handle = (AssetCache.Handle<IResource>) cache.acquire(type, path);
+        entriesOfType.put(path, entry);
+        count++;
+
+        if (started)
+            enqueue(entry);
+
+        return entry;
+    }
+
+    private void enqueue(Entry entry)
+    {
+        entry.queueTime = TimeUtils.currentMillis();
+
+        if (!entry.handle.claim())
+        {
+            // Already loaded, or being loaded by another loader of the cache
+            entry.state = State.WAITING;
+            entry.handle.whenLoaded((resource, error) ->
             {
-                done++;
-                loaded.put(path1, resource);
+                if (error == null)
+                    finish(entry, resource);
+                else
+                    fail(entry, error);
             });
+            return;
+        }
+
+        entry.state = State.QUEUED;
+        readQueue.add(entry);
+
+        if (!uploading)
+        {
+            SilenceEngine.eventManager.addUpdateHandler(uploadHandler);
+            uploading = true;
+        }
+    }
+
+    // Starts as many reads and decodes as the limits of their stages allow
+    private void pump()
+    {
+        while (readsInFlight < maxConcurrentReads && !readQueue.isEmpty())
+            read(readQueue.poll());
+
+        while (decodesInFlight < maxConcurrentDecodes && !decodeQueue.isEmpty())
+            decode(decodeQueue.poll());
+    }
+
+    private void read(Entry entry)
+    {
+        readsInFlight++;
+
+        entry.state = State.READING;
+        entry.readStartTime = TimeUtils.currentMillis();
+
+        UniCallback<Throwable> onError = onUpdate(error ->
+        {
+            // Only the first result of the stage counts, the helper may still finish after throwing
+            if (entry.state != State.READING)
+                return;
+
+            readsInFlight--;
+
+            fail(entry, error);
+            pump();
+        });
+
+        try
+        {
+            entry.loadHelper.read(entry.path, onUpdate(data ->
+            {
+                if (entry.state != State.READING)
+                    return;
+
+                readsInFlight--;
 
-            iterator.remove();
+                entry.data = data;
+                entry.readEndTime = TimeUtils.currentMillis();
+                entry.state = State.READ;
+
+                decodeQueue.add(entry);
+                pump();
+            }), onError);
+        }
+        catch (RuntimeException e)
+        {
+            onError.invoke(e);
+        }
+    }
+
+    private void decode(Entry entry)
+    {
+        decodesInFlight++;
+
+        entry.state = State.DECODING;
+        entry.decodeStartTime = TimeUtils.currentMillis();
+
+        UniCallback<Throwable> onError = onUpdate(error ->
+        {
+            if (entry.state != State.DECODING)
+                return;
+
+            decodesInFlight--;
+
+            fail(entry, error);
+            pump();
+        });
+
+        try
+        {
+            entry.loadHelper.decode(entry.path, entry.data, onUpdate(decoded ->
+            {
+                if (entry.state != State.DECODING)
+                    return;
+
+                decodesInFlight--;
+
+                entry.data = decoded;
+                entry.decodeEndTime = TimeUtils.currentMillis();
+                entry.state = State.DECODED;
+
+                entry.loadHelper.requireDependencies(entry.path, decoded, (type, path) ->
+                {
+                    Entry dependency = require(type, path);
+
+                    if (dependency == entry || entry.dependencies.contains(dependency))
+                        return;
+
+                    entry.dependencies.add(dependency);
+
+                    if (dependency.state == State.FAILED)
+                        entry.error = dependencyFailed(dependency);
+
+                    else if (dependency.state != State.LOADED)
+                    {
+                        dependency.dependents.add(entry);
+                        entry.pendingDependencies++;
+                    }
+                });
+
+                if (entry.error != null)
+                    fail(entry, entry.error);
+
+                else if (entry.pendingDependencies == 0)
+                    uploadQueue.add(entry);
+
+                pump();
+            }), onError);
+        }
+        catch (RuntimeException e)
+        {
+            onError.invoke(e);
+        }
+    }
+
+    // Uploads the decoded resources on the update thread, until the upload budget of this frame is used up
+    private void uploadPending()
+    {
+        double startTime = TimeUtils.currentMillis();
+
+        // At least one resource is uploaded every frame, so that the loading always makes progress
+        while (!uploadQueue.isEmpty())
+        {
+            upload(uploadQueue.poll());
+
+            if (TimeUtils.currentMillis() - startTime >= uploadBudget)
+                break;
+        }
+
+        if (done == count)
+        {
+            SilenceEngine.eventManager.removeUpdateHandler(uploadHandler);
+            uploading = false;
         }
     }
 
+    private void upload(Entry entry)
+    {
+        entry.uploadStartTime = TimeUtils.currentMillis();
+
+        List<AssetCache.Handle<?>> dependencyHandles = new ArrayList<>();
+
+        try
+        {
+            entry.resource = entry.loadHelper.upload(entry.path, entry.data, this);
+
+            // The resource keeps its dependencies alive in the cache, as the other loaders that get it from the cache
+            // don't hold handles to them
+            for (Entry dependency : entry.dependencies)
+                dependencyHandles.add(dependency.handle.retain());
+        }
+        catch (RuntimeException e)
+        {
+            for (AssetCache.Handle<?> handle : dependencyHandles)
+                handle.release();
+
+            fail(entry, e);
+            return;
+        }
+
+        entry.uploadEndTime = TimeUtils.currentMillis();
+
+        entry.data = null;
+        entry.handle.complete(entry.resource, dependencyHandles);
+
+        loaded(entry);
+    }
+
+    // Finishes an entry whose resource is loaded by the cache, the whole wait is reported as the dependency time
+    private void finish(Entry entry, IResource resource)
+    {
+        entry.readStartTime = entry.readEndTime = entry.queueTime;
+        entry.decodeStartTime = entry.decodeEndTime = entry.queueTime;
+        entry.uploadStartTime = entry.uploadEndTime = TimeUtils.currentMillis();
+
+        entry.resource = resource;
+        loaded(entry);
+    }
+
+    private void loaded(Entry entry)
+    {
+        entry.state = State.LOADED;
+
+        loaded.add(entry);
+        done++;
+
+        for (Entry dependent : entry.dependents)
+        {
+            if (--dependent.pendingDependencies == 0 && dependent.state != State.FAILED)
+                uploadQueue.add(dependent);
+        }
+
+        entry.dependents.clear();
+
+        if (listener != null)
+            listener.loaded(entry.path, entry.resource, new Timing(entry));
+    }
+
+    private static SilenceException dependencyFailed(Entry dependency)
+    {
+        return new SilenceException("Failed to load the dependency " + dependency.path, dependency.error);
+    }
+
+    // Counts a resource that can't be loaded as done, so that the loader still finishes
+    private void fail(Entry entry, Throwable error)
+    {
+        if (entry.state == State.FAILED)
+            return;
+
+        // The other loaders that wait for the resource in the cache fail along with this one
+        if (entry.state != State.WAITING)
+            entry.handle.fail(error);
+
+        entry.state = State.FAILED;
+        entry.error = error;
+        entry.data = null;
+        entry.resource = null;
+
+        done++;
+        failed++;
+
+        if (listener != null)
+            listener.failed(entry.path, error);
+        else
+            SilenceEngine.log.getRootLogger().error("Failed to load " + entry.path, error);
+
+        for (Entry dependent : entry.dependents)
+            fail(dependent, dependencyFailed(entry));
+
+        entry.dependents.clear();
+    }
+
     public float getPercentage()
     {
+        if (count == 0)
+            return 100;
+
         return (float) done / (float) count * 100f;
     }
 
     public boolean isDone()
     {
-        return getPercentage() == 100;
+        return done == count;
+    }
+
+    /**
+     * @return The number of resources that failed to load. These are counted as done as well.
+     */
+    public int getFailedCount()
+    {
+        return failed;
     }
 
+    /**
+     * Gets the error that a resource defined in this loader failed with.
+     *
+     * @param id The ID of the resource, returned by {@link #define(Class, FilePath)}.
+     *
+     * @return The error, or null if the resource didn't fail or the ID is not defined in this loader.
+     */
+    public Throwable getError(long id)
+    {
+        Entry entry = idMap.get(id);
+        return entry == null ? null : entry.error;
+    }
+
+    /**
+     * Releases all the resources of this loader to the cache, the ones that depend on other resources are released
+     * first. The cache disposes them once they are no longer referenced, or keeps them until they are evicted.
+     */
     public void disposeAll()
     {
-        for (IResource resource : loaded.values())
-            resource.dispose();
+        for (int i = loaded.size() - 1; i >= 0; i--)
+            loaded.get(i).handle.release();
+
+        loaded.clear();
+
+        // Also let go of the resources that are not loaded yet
+        for (Map<FilePath, Entry> entriesOfType : entries.values())
+            for (Entry entry : entriesOfType.values())
+                if (!entry.handle.isReleased())
+                    entry.handle.release();
+    }
+
+    public AssetCache getCache()
+    {
+        return cache;
+    }
+
+    public int getMaxConcurrentReads()
+    {
+        return maxConcurrentReads;
+    }
+
+    /**
+     * Sets the number of files that are read at the same time.
+     *
+     * @param maxConcurrentReads The maximum number of reads in flight, at least one.
+     */
+    public void setMaxConcurrentReads(int maxConcurrentReads)
+    {
+        this.maxConcurrentReads = Math.max(1, maxConcurrentReads);
+    }
+
+    public int getMaxConcurrentDecodes()
+    {
+        return maxConcurrentDecodes;
+    }
+
+    /**
+     * Sets the number of resources that are decoded at the same time.
+     *
+     * @param maxConcurrentDecodes The maximum number of decodes in flight, at least one.
+     */
+    public void setMaxConcurrentDecodes(int maxConcurrentDecodes)
+    {
+        this.maxConcurrentDecodes = Math.max(1, maxConcurrentDecodes);
+    }
+
+    public double getUploadBudget()
+    {
+        return uploadBudget;
+    }
+
+    /**
+     * Sets the time that can be spent on uploading resources in each frame. At least one resource is uploaded every
+     * frame regardless of this budget.
+     *
+     * @param uploadBudget The upload budget in milliseconds.
+     */
+    public void setUploadBudget(double uploadBudget)
+    {
+        this.uploadBudget = uploadBudget;
+    }
+
+    public ILoadListener getListener()
+    {
+        return listener;
+    }
+
+    /**
+     * Sets the listener that is notified every time a resource is loaded.
+     *
+     * @param listener The listener, or null to remove it.
+     */
+    public void setListener(ILoadListener listener)
+    {
+        this.listener = listener;
+    }
+
+    private enum State
+    {
+        DEFINED, QUEUED, WAITING, READING, READ, DECODING, DECODED, LOADED, FAILED
     }
 
     @FunctionalInterface
@@ -189,12 +708,390 @@ public class ResourceLoader
         void load(FilePath path, ISubmitter<T> submitter);
     }
 
+    /**
+     * Loads a resource in three stages. The read and decode stages can finish on any thread, the upload stage is always
+     * called on the update thread. A stage that can't finish should invoke its error callback, or throw if it fails
+     * right away, so that the loader can move on to the other resources.
+     *
+     * @param <T> The type of the resource.
+     * @param <R> The type of the data that is read from the file.
+     * @param <D> The type of the decoded data.
+     */
+    public interface IStagedLoadHelper<T extends IResource, R, D>
+    {
+        /**
+         * Reads the data of the resource from its file.
+         *
+         * @param path    The file of the resource.
+         * @param onRead  The callback to invoke with the data.
+         * @param onError The callback to invoke with the error, if the data can't be read.
+         */
+        void read(FilePath path, UniCallback<R> onRead, UniCallback<Throwable> onError);
+
+        /**
+         * Decodes the data that is read, preferably in the background.
+         *
+         * @param path      The file of the resource.
+         * @param data      The data that is read.
+         * @param onDecoded The callback to invoke with the decoded data.
+         * @param onError   The callback to invoke with the error, if the data can't be decoded.
+         */
+        void decode(FilePath path, R data, UniCallback<D> onDecoded, UniCallback<Throwable> onError);
+
+        /**
+         * Declares the other resources that this resource needs to be uploaded. Every dependency is loaded before the
+         * upload stage of this resource, and can be retrieved there with {@link ResourceLoader#get(Class, FilePath)}.
+         *
+         * @param path    The file of the resource.
+         * @param decoded The decoded data.
+         * @param require The callback to invoke with the class and the file of every dependency.
+         */
+        default void requireDependencies(FilePath path, D decoded,
+                                         BiCallback<Class<? extends IResource>, FilePath> require)
+        {
+        }
+
+        /**
+         * Creates the resource from the decoded data, on the update thread.
+         *
+         * @param path    The file of the resource.
+         * @param decoded The decoded data.
+         * @param loader  The loader, to retrieve the dependencies from.
+         *
+         * @return The loaded resource.
+         */
+        T upload(FilePath path, D decoded, ResourceLoader loader);
+    }
+
+    /**
+     * Receives the resources as they are loaded, along with the time taken by each of the stages.
+     */
+    @FunctionalInterface
+    public interface ILoadListener
+    {
+        void loaded(FilePath path, IResource resource, Timing timing);
+
+        /**
+         * Receives the resources that failed to load. The errors are logged unless this is overridden.
+         *
+         * @param path  The file of the resource.
+         * @param error The error that the resource failed with.
+         */
+        default void failed(FilePath path, Throwable error)
+        {
+            SilenceEngine.log.getRootLogger().error("Failed to load " + path, error);
+        }
+    }
+
+    /**
+     * The time that a resource took in each of the stages of loading, in milliseconds.
+     */
+    public static class Timing
+    {
+        private final double queueTime;
+        private final double readTime;
+        private final double decodeTime;
+        private final double dependencyTime;
+        private final double uploadTime;
+        private final double totalTime;
+
+        private Timing(Entry entry)
+        {
+            queueTime = entry.readStartTime - entry.queueTime;
+            readTime = entry.readEndTime - entry.readStartTime;
+            decodeTime = entry.decodeEndTime - entry.decodeStartTime;
+            dependencyTime = entry.uploadStartTime - entry.decodeEndTime;
+            uploadTime = entry.uploadEndTime - entry.uploadStartTime;
+            totalTime = entry.uploadEndTime - entry.queueTime;
+        }
+
+        /**
+         * @return The time spent waiting for a free read slot.
+         */
+        public double getQueueTime()
+        {
+            return queueTime;
+        }
+
+        public double getReadTime()
+        {
+            return readTime;
+        }
+
+        /**
+         * @return The time from the start of decoding to the end. The time spent waiting for a free decode slot after
+         * the read is not included, it is neither in the read time nor in the decode time.
+         */
+        public double getDecodeTime()
+        {
+            return decodeTime;
+        }
+
+        /**
+         * @return The time spent waiting for the dependencies and for the upload budget after decoding.
+         */
+        public double getDependencyTime()
+        {
+            return dependencyTime;
+        }
+
+        public double getUploadTime()
+        {
+            return uploadTime;
+        }
+
+        /**
+         * @return The time from being queued to being uploaded.
+         */
+        public double getTotalTime()
+        {
+            return totalTime;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Timing{" +
+                   "queueTime=" + queueTime +
+                   ", readTime=" + readTime +
+                   ", decodeTime=" + decodeTime +
+                   ", dependencyTime=" + dependencyTime +
+                   ", uploadTime=" + uploadTime +
+                   ", totalTime=" + totalTime +
+                   '}';
+        }
+    }
+
+    private static class Entry
+    {
+        private final Class<? extends IResource>                  type;
+        private final FilePath                                    path;
+        private final IStagedLoadHelper<IResource, Object, Object> loadHelper;
+
+        private State     state = State.DEFINED;
+        private Object    data;
+        private IResource resource;
+        private Throwable error;
+
+        private AssetCache.Handle<IResource> handle;
+
+        private List<Entry> dependencies = new ArrayList<>();
+        private List<Entry> dependents   = new ArrayList<>();
+        private int         pendingDependencies;
+
+        private double queueTime;
+        private double readStartTime;
+        private double readEndTime;
+        private double decodeStartTime;
+        private double decodeEndTime;
+        private double uploadStartTime;
+        private double uploadEndTime;
+
+        private Entry(Class<? extends IResource> type, FilePath path,
+                      IStagedLoadHelper<IResource, Object, Object> loadHelper)
+        {
+            this.type = type;
+            this.path = path;
+            this.loadHelper = loadHelper;
+        }
+    }
+
+    // Adapts a single step load helper to the pipeline, it does all its work in the read stage
+    private static class SingleStepLoadHelper<T extends IResource> implements IStagedLoadHelper<T, T, T>
+    {
+        private final ILoadHelper<T> loadHelper;
+
+        private SingleStepLoadHelper(ILoadHelper<T> loadHelper)
+        {
+            this.loadHelper = loadHelper;
+        }
+
+        @Override
+        public void read(FilePath path, UniCallback<T> onRead, UniCallback<Throwable> onError)
+        {
+            loadHelper.load(path, (resource, filePath) -> onRead.invoke(resource));
+        }
+
+        @Override
+        public void decode(FilePath path, T data, UniCallback<T> onDecoded, UniCallback<Throwable> onError)
+        {
+            onDecoded.invoke(data);
+        }
+
+        @Override
+        public T upload(FilePath path, T decoded, ResourceLoader loader)
+        {
+            return decoded;
+        }
+    }
+
+    private static class ImageLoadHelper implements IStagedLoadHelper<Image, DirectBuffer, Image>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            readBinary(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer data, UniCallback<Image> onDecoded,
+                           UniCallback<Throwable> onError)
+        {
+            decodeImage(path, data, onDecoded, onError);
+        }
+
+        @Override
+        public Image upload(FilePath path, Image decoded, ResourceLoader loader)
+        {
+            return decoded;
+        }
+    }
+
+    private static class TextureLoadHelper implements IStagedLoadHelper<Texture, DirectBuffer, Image>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            readBinary(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer data, UniCallback<Image> onDecoded,
+                           UniCallback<Throwable> onError)
+        {
+            decodeImage(path, data, onDecoded, onError);
+        }
+
+        @Override
+        public Texture upload(FilePath path, Image decoded, ResourceLoader loader)
+        {
+            Texture texture = Texture.fromImage(decoded);
+            decoded.dispose();
+
+            return texture;
+        }
+    }
+
+    private static class ALBufferLoadHelper implements IStagedLoadHelper<ALBuffer, DirectBuffer, ALBuffer>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            readBinary(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                           UniCallback<Throwable> onError)
+        {
+            decodeAudio(path, data, onDecoded, onError);
+        }
+
+        @Override
+        public ALBuffer upload(FilePath path, ALBuffer decoded, ResourceLoader loader)
+        {
+            return decoded;
+        }
+    }
+
+    private static class SoundLoadHelper implements IStagedLoadHelper<Sound, DirectBuffer, ALBuffer>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<DirectBuffer> onRead, UniCallback<Throwable> onError)
+        {
+            readBinary(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                           UniCallback<Throwable> onError)
+        {
+            decodeAudio(path, data, onDecoded, onError);
+        }
+
+        @Override
+        public Sound upload(FilePath path, ALBuffer decoded, ResourceLoader loader)
+        {
+            return new Sound(decoded);
+        }
+    }
+
+    private static class BitmapFontLoadHelper implements IStagedLoadHelper<BitmapFont, String, BitmapFont>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<String> onRead, UniCallback<Throwable> onError)
+        {
+            readText(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, String data, UniCallback<BitmapFont> onDecoded,
+                           UniCallback<Throwable> onError)
+        {
+            TaskManager.runAsync(() -> BitmapFont.parse(path, data)).thenOnUpdate(onDecoded).onError(onError);
+        }
+
+        @Override
+        public void requireDependencies(FilePath path, BitmapFont decoded,
+                                        BiCallback<Class<? extends IResource>, FilePath> require)
+        {
+            for (FilePath page : decoded.getPageFiles().values())
+                require.invoke(Texture.class, page);
+        }
+
+        @Override
+        public BitmapFont upload(FilePath path, BitmapFont decoded, ResourceLoader loader)
+        {
+            for (Map.Entry<Integer, FilePath> page : decoded.getPageFiles().entrySet())
+                decoded.pages.put(page.getKey(), loader.get(Texture.class, page.getValue()));
+
+            // The pages may be shared with other fonts, so they are disposed by the loader
+            decoded.setOwnsPages(false);
+
+            return decoded;
+        }
+    }
+
+    private static class TmxMapLoadHelper implements IStagedLoadHelper<TmxMap, String, TmxMap>
+    {
+        @Override
+        public void read(FilePath path, UniCallback<String> onRead, UniCallback<Throwable> onError)
+        {
+            readText(path, onRead, onError);
+        }
+
+        @Override
+        public void decode(FilePath path, String data, UniCallback<TmxMap> onDecoded, UniCallback<Throwable> onError)
+        {
+            TaskManager.runAsync(() -> TmxMap.parse(path, data, TmxMap.LoadMode.PARALLEL, onDecoded, onError))
+                    .onError(onError);
+        }
+
+        @Override
+        public void requireDependencies(FilePath path, TmxMap decoded,
+                                        BiCallback<Class<? extends IResource>, FilePath> require)
+        {
+            for (FilePath source : decoded.getImageSources())
+                require.invoke(Texture.class, source);
+        }
+
+        @Override
+        public TmxMap upload(FilePath path, TmxMap decoded, ResourceLoader loader)
+        {
+            for (FilePath source : decoded.getImageSources())
+                decoded.setTexture(source, loader.get(Texture.class, source));
+
+            return decoded;
+        }
+    }
+
     static
     {
-        setHelper(Image.class, ResourceLoader::imageLoadHelper);
-        setHelper(Texture.class, ResourceLoader::textureLoadHelper);
-        setHelper(ALBuffer.class, ResourceLoader::alBufferLoadHelper);
-        setHelper(Sound.class, ResourceLoader::soundLoadHelper);
-        setHelper(BitmapFont.class, ResourceLoader::bitmapFontLoadHelper);
+        setHelper(Image.class, new ImageLoadHelper());
+        setHelper(Texture.class, new TextureLoadHelper());
+        setHelper(ALBuffer.class, new ALBufferLoadHelper());
+        setHelper(Sound.class, new SoundLoadHelper());
+        setHelper(BitmapFont.class, new BitmapFontLoadHelper());
+        setHelper(TmxMap.class, new TmxMapLoadHelper());
     }
 }
@@ -52,6 +52,17 @@ public class SilenceException extends RuntimeException
         super();
     }
 
+    /**
+     * Constructs the SilenceException with a message and the exception that caused it.
+     *
+     * @param message The message explaining the cause of this exception.
+     * @param cause   The exception that caused this exception.
+     */
+    public SilenceException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+
     public SilenceException(Throwable throwable)
     {
         super(throwable.toString());
@@ -27,7 +27,7 @@ package com.shc.silenceengine.graphics;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.Vector4;
 import com.shc.silenceengine.utils.MathUtils;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * A Color class with RGBA colors. Has 140 predefined colors from <a href=http://www.w3schools.com/colors/colors_names.asp>http://www.w3schools.com/colors/colors_names.asp</a>
@@ -37,8 +37,6 @@ import com.shc.silenceengine.utils.ReusableStack;
  */
 public class Color
 {
-    public static final ReusableStack<Color> REUSABLE_STACK = new ReusableStack<>(Color::new);
-
     // Primitive colors
     public static final Color BLACK = new Color(0x000000);
     public static final Color RED   = new Color(0xFF0000);
@@ -315,11 +313,13 @@ public class Color
 
     public Color lerp(Color target, float alpha)
     {
-        Vector4 temp1 = Vector4.REUSABLE_STACK.pop();
-        Vector4 temp2 = Vector4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector4 temp1 = scratch.vector4();
+        Vector4 temp2 = scratch.vector4();
         set(temp1.set(this).scale(1f - alpha).add(temp2.set(target).scale(alpha)));
-        Vector4.REUSABLE_STACK.push(temp1);
-        Vector4.REUSABLE_STACK.push(temp2);
+        scratch.release(mark);
 
         return this;
     }
@@ -30,6 +30,7 @@ import com.shc.silenceengine.graphics.opengl.BufferObject;
 import com.shc.silenceengine.graphics.opengl.GLContext;
 import com.shc.silenceengine.graphics.opengl.Primitive;
 import com.shc.silenceengine.graphics.opengl.Program;
+import com.shc.silenceengine.graphics.opengl.RingBufferObject;
 import com.shc.silenceengine.graphics.opengl.VertexArray;
 import com.shc.silenceengine.io.DirectBuffer;
 import com.shc.silenceengine.io.PrimitiveSize;
@@ -40,6 +41,20 @@ import com.shc.silenceengine.math.Vector4;
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
 /**
+ * A renderer that collects vertex data in a batch and flushes it to the GPU when required. By default the renderer
+ * stores positions, normals, colors and texture coordinates in four separate buffers, each component being a float.
+ * When created with a {@link VertexFormat}, the renderer works in the interleaved mode, where all the vertex data is
+ * written into a single buffer in the layout specified by the format, and uploaded with one call per flush.
+ *
+ * <p> The renderer can also stream its batches through a {@link RingBufferObject}, which is enabled by calling the
+ * {@link #setStreamingSegments(int)} method. In the streaming mode, every flush writes into the next segment of the
+ * ring instead of rewriting the same buffer objects, so a batch never waits on the draw of the previous one.</p>
+ *
+ * <p> When begun with {@link #beginQuads()}, the renderer works in the quad mode. Every four vertices make a quad, and
+ * the batch is drawn with a static element buffer of quad indices that is shared by all the renderers. Quads are best
+ * submitted with the {@link #emitQuad(Vector3, Vector3, Vector3, Vector3, float, float, float, float, Color, float)}
+ * method, which writes four vertices instead of the six needed for two separate triangles.</p>
+ *
  * @author Sri Harsha Chilakapati
  * @author Heiko Brumme
  */
@@ -57,6 +72,15 @@ public class DynamicRenderer implements IResource
     public static final int SIZE_OF_COLOR    = PrimitiveSize.FLOAT * NUM_COLOR_COMPONENTS;
     public static final int SIZE_OF_TEXCOORD = PrimitiveSize.FLOAT * NUM_TEXCOORD_COMPONENTS;
 
+    // The maximum number of vertices that can be addressed by the unsigned short quad indices
+    public static final int MAX_QUAD_VERTICES = 65536;
+
+    // The element buffer of quad indices, shared by all the renderers
+    private static BufferObject quadIndices;
+
+    private static int quadIndicesCapacity;
+    private static int quadIndicesUsers;
+
     // The maximum size of the batch, by default is 1024^2 = 10,48,576 vertices
     private int maxBatchSize;
 
@@ -66,6 +90,12 @@ public class DynamicRenderer implements IResource
     // Active state of this batcher
     private boolean active = false;
 
+    // The vertex format, null when the separate buffers layout is used
+    private VertexFormat vertexFormat;
+
+    // The buffer to store the collected data in the interleaved mode
+    private DirectBuffer iBuffer;
+
     // The mapped buffers to store the collected data
     private DirectBuffer vBuffer;
     private DirectBuffer cBuffer;
@@ -78,22 +108,32 @@ public class DynamicRenderer implements IResource
     private BufferObject vboCol;
     private BufferObject vboTex;
     private BufferObject vboNorm;
+    private BufferObject vboInterleaved;
+
+    // The ring buffer for the streaming mode, null when not streaming
+    private RingBufferObject ringBuffer;
 
     // VBO index locations in shader
     private int vertexLocation   = -1;
     private int colorLocation    = -1;
     private int texCoordLocation = -1;
     private int normalLocation   = -1;
+    private int texIndexLocation = -1;
 
     // The no. of vertices in the current batch
     private int vertexCount;
     private int colorCount;
     private int texCoordCount;
     private int normalCount;
+    private int texIndexCount;
 
     // The rendering mode
     private Primitive beginMode;
 
+    // Whether the current batch is made of indexed quads
+    private boolean quadMode;
+    private boolean usesQuadIndices;
+
     // The rendering policy
     private RenderPolicy renderPolicy;
 
@@ -114,15 +154,47 @@ public class DynamicRenderer implements IResource
      * @param maxBatchSize The maximum size of the batch.
      */
     public DynamicRenderer(int batchSize, int maxBatchSize)
+    {
+        this(batchSize, maxBatchSize, null);
+    }
+
+    /**
+     * Creates the DynamicRenderer in the interleaved mode, with the default batch sizes.
+     *
+     * @param vertexFormat The layout of the interleaved vertex data, or null to use separate buffers.
+     */
+    public DynamicRenderer(VertexFormat vertexFormat)
+    {
+        this(4096, 1024 * 1024, vertexFormat);
+    }
+
+    /**
+     * Creates the DynamicRenderer in the interleaved mode, with a batch that doesn't grow.
+     *
+     * @param batchSize    The size of the batch.
+     * @param vertexFormat The layout of the interleaved vertex data, or null to use separate buffers.
+     */
+    public DynamicRenderer(int batchSize, VertexFormat vertexFormat)
+    {
+        this(batchSize, batchSize, vertexFormat);
+    }
+
+    /**
+     * Creates the DynamicRenderer, and initialises OpenGL. If a vertex format is specified, the renderer works in the
+     * interleaved mode, storing all the vertex data in a single buffer.
+     *
+     * @param batchSize    The size of the initial batch size.
+     * @param maxBatchSize The maximum size of the batch.
+     * @param vertexFormat The layout of the interleaved vertex data, or null to use separate buffers.
+     */
+    public DynamicRenderer(int batchSize, int maxBatchSize, VertexFormat vertexFormat)
     {
         this.batchSize = batchSize;
         this.maxBatchSize = maxBatchSize;
+        this.vertexFormat = vertexFormat;
 
         // Create the buffers
-        vBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_VERTEX);
-        nBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_NORMAL);
-        cBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_COLOR);
-        tBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_TEXCOORD);
+        createBuffers(batchSize);
 
         // Initialise OpenGL handles
         initGLHandles();
@@ -148,6 +220,30 @@ public class DynamicRenderer implements IResource
         return nBuffer;
     }
 
+    /**
+     * @return The buffer with the interleaved vertex data, or null if this renderer is not in the interleaved mode.
+     */
+    public DirectBuffer getInterleavedBuffer()
+    {
+        return iBuffer;
+    }
+
+    /**
+     * @return The vertex format of this renderer, or null if this renderer is not in the interleaved mode.
+     */
+    public VertexFormat getVertexFormat()
+    {
+        return vertexFormat;
+    }
+
+    /**
+     * @return Whether this renderer stores all the vertex data in a single buffer, laid out by its vertex format.
+     */
+    public boolean isInterleaved()
+    {
+        return vertexFormat != null;
+    }
+
     public int getVertexCount()
     {
         return vertexCount;
@@ -163,15 +259,78 @@ public class DynamicRenderer implements IResource
         if (maxBatchSize > this.maxBatchSize)
         {
             // Resize the VBOs data store
-            vboVert.uploadData(maxBatchSize * SIZE_OF_VERTEX, BufferObject.Usage.STREAM_DRAW);
-            vboNorm.uploadData(maxBatchSize * SIZE_OF_NORMAL, BufferObject.Usage.STREAM_DRAW);
-            vboCol.uploadData(maxBatchSize * SIZE_OF_COLOR, BufferObject.Usage.STREAM_DRAW);
-            vboTex.uploadData(maxBatchSize * SIZE_OF_TEXCOORD, BufferObject.Usage.STREAM_DRAW);
+            if (vertexFormat != null)
+                vboInterleaved.uploadData(maxBatchSize * vertexFormat.getStride(), BufferObject.Usage.STREAM_DRAW);
+            else
+            {
+                vboVert.uploadData(maxBatchSize * SIZE_OF_VERTEX, BufferObject.Usage.STREAM_DRAW);
+                vboNorm.uploadData(maxBatchSize * SIZE_OF_NORMAL, BufferObject.Usage.STREAM_DRAW);
+                vboCol.uploadData(maxBatchSize * SIZE_OF_COLOR, BufferObject.Usage.STREAM_DRAW);
+                vboTex.uploadData(maxBatchSize * SIZE_OF_TEXCOORD, BufferObject.Usage.STREAM_DRAW);
+            }
         }
 
         this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * Enables or disables the streaming mode of this renderer. In the streaming mode, the batches are uploaded into a
+     * ring of buffer segments, and the ring is orphaned only when it wraps around.
+     *
+     * @param numSegments The number of segments in the ring, or zero to disable the streaming mode.
+     */
+    public void setStreamingSegments(int numSegments)
+    {
+        if (ringBuffer != null)
+        {
+            if (ringBuffer.getNumSegments() == numSegments)
+                return;
+
+            ringBuffer.dispose();
+            ringBuffer = null;
+        }
+
+        if (numSegments > 0)
+            ringBuffer = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, numSegments,
+                    batchSize * getSizeOfVertex());
+    }
+
+    /**
+     * @return The number of segments in the streaming ring, or zero if the streaming mode is disabled.
+     */
+    public int getStreamingSegments()
+    {
+        return ringBuffer == null ? 0 : ringBuffer.getNumSegments();
+    }
+
+    /**
+     * @return The number of times the streaming ring wrapped around, zero if the streaming mode is disabled.
+     */
+    public int getSegmentWraps()
+    {
+        return ringBuffer == null ? 0 : ringBuffer.getWraps();
+    }
+
+    /**
+     * @return The number of times the streaming ring had to be reallocated because a batch didn't fit in a segment,
+     * zero if the streaming mode is disabled.
+     */
+    public int getSegmentStalls()
+    {
+        return ringBuffer == null ? 0 : ringBuffer.getStalls();
+    }
+
+    /**
+     * @return The size of a single vertex in bytes, summing up all the buffers.
+     */
+    public int getSizeOfVertex()
+    {
+        if (vertexFormat != null)
+            return vertexFormat.getStride();
+
+        return SIZE_OF_VERTEX + SIZE_OF_NORMAL + SIZE_OF_COLOR + SIZE_OF_TEXCOORD;
+    }
+
     public int getBatchSize()
     {
         return batchSize;
@@ -185,19 +344,71 @@ public class DynamicRenderer implements IResource
         // Don't increase past the max batch size
         batchSize = Math.min(batchSize, maxBatchSize);
 
-        // Free old buffers
-        SilenceEngine.io.free(vBuffer);
-        SilenceEngine.io.free(nBuffer);
-        SilenceEngine.io.free(cBuffer);
-        SilenceEngine.io.free(tBuffer);
+        // Draw what doesn't fit in the new buffers, the rest of the batch is carried over
+        if (vertexCount > batchSize)
+            flush();
+
+        DirectBuffer oldIBuffer = iBuffer;
+        DirectBuffer oldVBuffer = vBuffer;
+        DirectBuffer oldNBuffer = nBuffer;
+        DirectBuffer oldCBuffer = cBuffer;
+        DirectBuffer oldTBuffer = tBuffer;
 
         // Create new buffers
+        createBuffers(batchSize);
+
+        if (vertexFormat != null)
+            moveBuffer(oldIBuffer, iBuffer);
+        else
+        {
+            moveBuffer(oldVBuffer, vBuffer);
+            moveBuffer(oldNBuffer, nBuffer);
+            moveBuffer(oldCBuffer, cBuffer);
+            moveBuffer(oldTBuffer, tBuffer);
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Copies the contents of an old buffer into its replacement and frees it, so that a resize in the middle of a batch
+     * doesn't lose the vertices that are already submitted.
+     */
+    private static void moveBuffer(DirectBuffer oldBuffer, DirectBuffer newBuffer)
+    {
+        if (oldBuffer == null)
+            return;
+
+        oldBuffer.copyTo(0, newBuffer, 0, Math.min(oldBuffer.sizeBytes(), newBuffer.sizeBytes()));
+        SilenceEngine.io.free(oldBuffer);
+    }
+
+    private void createBuffers(int batchSize)
+    {
+        if (vertexFormat != null)
+        {
+            iBuffer = SilenceEngine.io.create(batchSize * vertexFormat.getStride());
+            return;
+        }
+
         vBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_VERTEX);
         nBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_NORMAL);
         cBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_COLOR);
         tBuffer = SilenceEngine.io.create(batchSize * SIZE_OF_TEXCOORD);
+    }
 
-        this.batchSize = batchSize;
+    private void freeBuffers()
+    {
+        if (vertexFormat != null)
+        {
+            SilenceEngine.io.free(iBuffer);
+            return;
+        }
+
+        SilenceEngine.io.free(vBuffer);
+        SilenceEngine.io.free(nBuffer);
+        SilenceEngine.io.free(cBuffer);
+        SilenceEngine.io.free(tBuffer);
     }
 
     /**
@@ -210,6 +421,12 @@ public class DynamicRenderer implements IResource
         vao.bind();
 
         // Create VBOs
+        if (vertexFormat != null)
+        {
+            vboInterleaved = new BufferObject(BufferObject.Target.ARRAY_BUFFER);
+            return;
+        }
+
         vboVert = new BufferObject(BufferObject.Target.ARRAY_BUFFER);
         vboCol = new BufferObject(BufferObject.Target.ARRAY_BUFFER);
         vboTex = new BufferObject(BufferObject.Target.ARRAY_BUFFER);
@@ -238,9 +455,12 @@ public class DynamicRenderer implements IResource
         colorCount = 0;
         texCoordCount = 0;
         normalCount = 0;
+        texIndexCount = 0;
 
         this.beginMode = beginMode;
         this.renderPolicy = renderPolicy;
+
+        quadMode = false;
     }
 
     public void begin()
@@ -248,6 +468,35 @@ public class DynamicRenderer implements IResource
         begin(Primitive.TRIANGLES);
     }
 
+    public void beginQuads()
+    {
+        beginQuads(RenderPolicy.PERFORM_RENDER);
+    }
+
+    /**
+     * Begins the batcher in the quad mode and marks it active. Every four vertices submitted make a quad, whose
+     * corners are specified in order around the quad. The batch is rendered as triangles using the shared element
+     * buffer of quad indices, and is flushed only at the boundaries of quads.
+     *
+     * @param renderPolicy The render policy, specify whether to render or not to render.
+     */
+    public void beginQuads(RenderPolicy renderPolicy)
+    {
+        begin(Primitive.TRIANGLES, renderPolicy);
+        quadMode = true;
+
+        if (!usesQuadIndices)
+        {
+            usesQuadIndices = true;
+            quadIndicesUsers++;
+        }
+    }
+
+    public boolean isQuadMode()
+    {
+        return quadMode;
+    }
+
     /**
      * Ends the batcher by flushing all the data to the OpenGL
      */
@@ -291,18 +540,31 @@ public class DynamicRenderer implements IResource
         if (colorLocation != -1) vao.enableAttributeArray(colorLocation);
         if (texCoordLocation != -1) vao.enableAttributeArray(texCoordLocation);
         if (normalLocation != -1) vao.enableAttributeArray(normalLocation);
+        if (hasTexIndices()) vao.enableAttributeArray(texIndexLocation);
 
         // Setup the buffers
         setupBuffers();
 
         // Do a rendering
-        GLContext.drawArrays(vao, beginMode, 0, vertexCount);
+        if (quadMode)
+        {
+            final int numQuads = vertexCount / 4;
+
+            // The element array binding is a part of the VAO state, so it has to be bound after the VAO
+            prepareQuadIndices(numQuads);
+            quadIndices.bind(true);
+
+            GLContext.drawElements(vao, beginMode, 0, numQuads * 6, GL_UNSIGNED_SHORT);
+        }
+        else
+            GLContext.drawArrays(vao, beginMode, 0, vertexCount);
 
         // Unbind the VAO
         vao.disableAttributeArray(vertexLocation);
         if (colorLocation != -1) vao.disableAttributeArray(colorLocation);
         if (texCoordLocation != -1) vao.disableAttributeArray(texCoordLocation);
         if (normalLocation != -1) vao.disableAttributeArray(normalLocation);
+        if (hasTexIndices()) vao.disableAttributeArray(texIndexLocation);
 
         GLContext.bindVertexArray(null);
 
@@ -311,12 +573,61 @@ public class DynamicRenderer implements IResource
         colorCount = 0;
         texCoordCount = 0;
         normalCount = 0;
+        texIndexCount = 0;
+    }
+
+    /**
+     * Makes sure that the shared element buffer has indices for at least the specified number of quads. The buffer
+     * only grows, and is regenerated at most a few times in the lifetime of the application.
+     */
+    private static void prepareQuadIndices(int numQuads)
+    {
+        if (quadIndices != null && quadIndicesCapacity >= numQuads)
+            return;
+
+        int capacity = Math.max(numQuads, Math.max(1024, quadIndicesCapacity * 2));
+        capacity = Math.min(capacity, MAX_QUAD_VERTICES / 4);
+
+        // Only needed until it is uploaded, so it comes from the frame arena
+        DirectBuffer indices = SilenceEngine.io.createTemporary(capacity * 6 * PrimitiveSize.SHORT);
+
+        for (int i = 0; i < capacity; i++)
+        {
+            final int offset = i * 6 * PrimitiveSize.SHORT;
+            final int vertex = i * 4;
+
+            // The two triangles of the quad, 0-1-3 and 1-2-3
+            indices.writeShort(offset, (short) vertex)
+                    .writeShort(offset + 2, (short) (vertex + 1))
+                    .writeShort(offset + 4, (short) (vertex + 3))
+                    .writeShort(offset + 6, (short) (vertex + 1))
+                    .writeShort(offset + 8, (short) (vertex + 2))
+                    .writeShort(offset + 10, (short) (vertex + 3));
+        }
+
+        if (quadIndices == null)
+            quadIndices = new BufferObject(BufferObject.Target.ELEMENT_ARRAY_BUFFER);
+
+        quadIndices.uploadData(indices, BufferObject.Usage.STATIC_DRAW);
+        quadIndicesCapacity = capacity;
     }
 
     private void setupBuffers()
     {
         vao.bind();
 
+        if (ringBuffer != null)
+        {
+            setupStreamingBuffers();
+            return;
+        }
+
+        if (vertexFormat != null)
+        {
+            setupInterleavedBuffer();
+            return;
+        }
+
         if (vertexLocation != -1)
         {
             vboVert.uploadData(vBuffer.sizeBytes(), BufferObject.Usage.DYNAMIC_DRAW);
@@ -346,6 +657,75 @@ public class DynamicRenderer implements IResource
         }
     }
 
+    private void setupInterleavedBuffer()
+    {
+        final int stride = vertexFormat.getStride();
+
+        // Orphan the old data store and upload only the vertices in this batch
+        vboInterleaved.uploadData(iBuffer.sizeBytes(), BufferObject.Usage.STREAM_DRAW);
+        vboInterleaved.uploadSubData(iBuffer, 0, vertexCount * stride);
+
+        pointInterleavedAttributes(vboInterleaved, 0);
+    }
+
+    private void setupStreamingBuffers()
+    {
+        if (vertexFormat != null)
+        {
+            int offset = ringBuffer.upload(iBuffer, vertexCount * vertexFormat.getStride());
+            pointInterleavedAttributes(ringBuffer.getBufferObject(), offset);
+            return;
+        }
+
+        // All the separate buffers are uploaded one after the other into the same segment
+        int size = vertexCount * SIZE_OF_VERTEX;
+        if (colorLocation != -1) size += vertexCount * SIZE_OF_COLOR;
+        if (normalLocation != -1) size += vertexCount * SIZE_OF_NORMAL;
+        if (texCoordLocation != -1) size += vertexCount * SIZE_OF_TEXCOORD;
+
+        int offset = ringBuffer.nextSegment(size);
+
+        offset = streamAttribute(vertexLocation, vBuffer, NUM_VERTEX_COMPONENTS, SIZE_OF_VERTEX, offset);
+        offset = streamAttribute(colorLocation, cBuffer, NUM_COLOR_COMPONENTS, SIZE_OF_COLOR, offset);
+        offset = streamAttribute(normalLocation, nBuffer, NUM_NORMAL_COMPONENTS, SIZE_OF_NORMAL, offset);
+        streamAttribute(texCoordLocation, tBuffer, NUM_TEXCOORD_COMPONENTS, SIZE_OF_TEXCOORD, offset);
+    }
+
+    private int streamAttribute(int location, DirectBuffer buffer, int numComponents, int sizeOfComponent, int offset)
+    {
+        if (location == -1)
+            return offset;
+
+        final int size = vertexCount * sizeOfComponent;
+
+        ringBuffer.upload(buffer, offset, size);
+        vao.pointAttribute(location, numComponents, GL_FLOAT, false, 0, offset, ringBuffer.getBufferObject());
+
+        return offset + size;
+    }
+
+    private void pointInterleavedAttributes(BufferObject buffer, int offset)
+    {
+        final int stride = vertexFormat.getStride();
+
+        pointAttribute(vertexLocation, VertexFormat.Usage.POSITION, stride, offset, buffer);
+        pointAttribute(colorLocation, VertexFormat.Usage.COLOR, stride, offset, buffer);
+        pointAttribute(normalLocation, VertexFormat.Usage.NORMAL, stride, offset, buffer);
+        pointAttribute(texCoordLocation, VertexFormat.Usage.TEXCOORD, stride, offset, buffer);
+        pointAttribute(texIndexLocation, VertexFormat.Usage.TEXINDEX, stride, offset, buffer);
+    }
+
+    private void pointAttribute(int location, VertexFormat.Usage usage, int stride, int offset, BufferObject buffer)
+    {
+        VertexFormat.Attribute attribute = vertexFormat.getAttribute(usage);
+
+        if (location == -1 || attribute == null)
+            return;
+
+        vao.pointAttribute(location, attribute.count, attribute.type.getGlType(), attribute.type.isNormalized(),
+                stride, offset + attribute.getOffset(), buffer);
+    }
+
     private void fillBuffers()
     {
         // Determine the fill color
@@ -362,6 +742,10 @@ public class DynamicRenderer implements IResource
         // Fill the normal buffers
         while (normalCount < vertexCount)
             normal(0, 0, 0, 0);
+
+        // Fill the texture indices
+        while (texIndexCount < vertexCount)
+            texIndex(0);
     }
 
     public void vertex(float x, float y)
@@ -371,18 +755,31 @@ public class DynamicRenderer implements IResource
 
     public void vertex(float x, float y, float z, float w)
     {
-        if (vertexCount >= batchSize)
+        // In the quad mode, room is made for the whole quad at its first vertex, so a flush never splits a quad
+        final int required = (quadMode && vertexCount % 4 == 0) ? 4 : 1;
+        final int limit = quadMode ? Math.min(maxBatchSize, MAX_QUAD_VERTICES) : maxBatchSize;
+
+        if (vertexCount + required > Math.min(batchSize, limit))
         {
-            if (batchSize >= maxBatchSize)
+            if (vertexCount + required > limit)
                 // Don't resized more than the max batch size
                 flush();
             else
                 // Resize the batch by adding a block of vertices at the end
-                setBatchSize(batchSize + Math.min(4096, maxBatchSize - batchSize));
+                setBatchSize(Math.min(limit, batchSize + 4096));
         }
 
         fillBuffers();
 
+        if (vertexFormat != null)
+        {
+            vertexFormat.getAttribute(VertexFormat.Usage.POSITION)
+                    .write(iBuffer, vertexFormat.getStride() * vertexCount, x, y, z, w);
+
+            vertexCount++;
+            return;
+        }
+
         final int offset = SIZE_OF_VERTEX * vertexCount;
 
         vBuffer.writeFloat(offset, x)
@@ -393,6 +790,75 @@ public class DynamicRenderer implements IResource
         vertexCount++;
     }
 
+    /**
+     * Emits a quad whose corners are specified in order around it. The first corner takes the minimum texture
+     * coordinates, and the third one takes the maximum. In the quad mode this writes four vertices, otherwise the quad
+     * is written as two separate triangles.
+     *
+     * @param v0       The first corner, usually the top left one.
+     * @param v1       The second corner, usually the top right one.
+     * @param v2       The third corner, usually the bottom right one.
+     * @param v3       The fourth corner, usually the bottom left one.
+     * @param minU     The texture coordinate U of the first and fourth corners.
+     * @param minV     The texture coordinate V of the first and second corners.
+     * @param maxU     The texture coordinate U of the second and third corners.
+     * @param maxV     The texture coordinate V of the third and fourth corners.
+     * @param color    The color of all the corners.
+     * @param texIndex The index of the texture unit, ignored unless the vertex format has texture indices.
+     */
+    public void emitQuad(Vector3 v0, Vector3 v1, Vector3 v2, Vector3 v3, float minU, float minV, float maxU,
+                         float maxV, Color color, float texIndex)
+    {
+        quadVertex(v0.x, v0.y, v0.z, minU, minV, color, texIndex);
+        quadVertex(v1.x, v1.y, v1.z, maxU, minV, color, texIndex);
+
+        if (!quadMode)
+        {
+            quadVertex(v3.x, v3.y, v3.z, minU, maxV, color, texIndex);
+            quadVertex(v1.x, v1.y, v1.z, maxU, minV, color, texIndex);
+        }
+
+        quadVertex(v2.x, v2.y, v2.z, maxU, maxV, color, texIndex);
+        quadVertex(v3.x, v3.y, v3.z, minU, maxV, color, texIndex);
+    }
+
+    /**
+     * Emits an axis aligned quad, the 2D rectangle from (x1, y1) to (x2, y2).
+     *
+     * @param x1    The X coordinate of the first corner.
+     * @param y1    The Y coordinate of the first corner.
+     * @param x2    The X coordinate of the opposite corner.
+     * @param y2    The Y coordinate of the opposite corner.
+     * @param minU  The texture coordinate U at x1.
+     * @param minV  The texture coordinate V at y1.
+     * @param maxU  The texture coordinate U at x2.
+     * @param maxV  The texture coordinate V at y2.
+     * @param color The color of all the corners.
+     */
+    public void emitQuad(float x1, float y1, float x2, float y2, float minU, float minV, float maxU, float maxV,
+                         Color color)
+    {
+        quadVertex(x1, y1, 0, minU, minV, color, 0);
+        quadVertex(x2, y1, 0, maxU, minV, color, 0);
+
+        if (!quadMode)
+        {
+            quadVertex(x1, y2, 0, minU, maxV, color, 0);
+            quadVertex(x2, y1, 0, maxU, minV, color, 0);
+        }
+
+        quadVertex(x2, y2, 0, maxU, maxV, color, 0);
+        quadVertex(x1, y2, 0, minU, maxV, color, 0);
+    }
+
+    private void quadVertex(float x, float y, float z, float u, float v, Color color, float texIndex)
+    {
+        vertex(x, y, z, 1);
+        texCoord(u, v);
+        color(color);
+        texIndex(texIndex);
+    }
+
     public void flushOnOverflow(int capacity)
     {
         if (vertexCount + capacity >= batchSize)
@@ -431,6 +897,12 @@ public class DynamicRenderer implements IResource
 
     public void color(float r, float g, float b, float a)
     {
+        if (vertexFormat != null)
+        {
+            writeInterleaved(VertexFormat.Usage.COLOR, colorCount++, r, g, b, a);
+            return;
+        }
+
         final int offset = SIZE_OF_COLOR * colorCount;
 
         // Add the specified color
@@ -449,6 +921,12 @@ public class DynamicRenderer implements IResource
 
     public void texCoord(float u, float v)
     {
+        if (vertexFormat != null)
+        {
+            writeInterleaved(VertexFormat.Usage.TEXCOORD, texCoordCount++, u, v, 0, 0);
+            return;
+        }
+
         final int offset = SIZE_OF_TEXCOORD * texCoordCount;
 
         // Add the specified texcoord
@@ -465,6 +943,12 @@ public class DynamicRenderer implements IResource
 
     public void normal(float x, float y, float z, float w)
     {
+        if (vertexFormat != null)
+        {
+            writeInterleaved(VertexFormat.Usage.NORMAL, normalCount++, x, y, z, w);
+            return;
+        }
+
         final int offset = SIZE_OF_NORMAL * normalCount;
 
         nBuffer.writeFloat(offset, x)
@@ -480,21 +964,63 @@ public class DynamicRenderer implements IResource
         normal(n.x, n.y, n.z, 0);
     }
 
+    /**
+     * Specifies the index of the texture unit to sample for the current vertex. Texture indices are only stored in the
+     * interleaved mode, when the vertex format has a {@link VertexFormat.Usage#TEXINDEX} attribute, and are ignored
+     * otherwise.
+     *
+     * @param index The index of the texture unit.
+     */
+    public void texIndex(float index)
+    {
+        if (vertexFormat != null)
+            writeInterleaved(VertexFormat.Usage.TEXINDEX, texIndexCount, index, 0, 0, 0);
+
+        texIndexCount++;
+    }
+
+    private boolean hasTexIndices()
+    {
+        return texIndexLocation != -1 && vertexFormat != null && vertexFormat.hasAttribute(VertexFormat.Usage.TEXINDEX);
+    }
+
+    private void writeInterleaved(VertexFormat.Usage usage, int index, float x, float y, float z, float w)
+    {
+        VertexFormat.Attribute attribute = vertexFormat.getAttribute(usage);
+
+        // Attributes that are not in the format are ignored
+        if (attribute != null)
+            attribute.write(iBuffer, vertexFormat.getStride() * index, x, y, z, w);
+    }
+
     public void dispose()
     {
         GLContext.bindVertexArray(null);
         vao.dispose();
 
+        if (usesQuadIndices && --quadIndicesUsers == 0 && quadIndices != null)
+        {
+            quadIndices.dispose();
+            quadIndices = null;
+            quadIndicesCapacity = 0;
+        }
+
         GLContext.bindVertexBuffer(null);
-        vboVert.dispose();
-        vboCol.dispose();
-        vboTex.dispose();
-        vboNorm.dispose();
 
-        SilenceEngine.io.free(vBuffer);
-        SilenceEngine.io.free(nBuffer);
-        SilenceEngine.io.free(cBuffer);
-        SilenceEngine.io.free(tBuffer);
+        if (ringBuffer != null)
+            ringBuffer.dispose();
+
+        if (vertexFormat != null)
+            vboInterleaved.dispose();
+        else
+        {
+            vboVert.dispose();
+            vboCol.dispose();
+            vboTex.dispose();
+            vboNorm.dispose();
+        }
+
+        freeBuffers();
     }
 
     public int getVertexLocation()
@@ -537,6 +1063,16 @@ public class DynamicRenderer implements IResource
         this.normalLocation = normalLocation;
     }
 
+    public int getTexIndexLocation()
+    {
+        return texIndexLocation;
+    }
+
+    public void setTexIndexLocation(int texIndexLocation)
+    {
+        this.texIndexLocation = texIndexLocation;
+    }
+
     public boolean isActive()
     {
         return active;
@@ -63,6 +63,7 @@ public interface IGraphicsDevice
     default void glClear(int flags)
     {
         Data.renderCallsThisFrame = 0;
+        Data.bytesUploadedThisFrame = 0;
     }
 
     int glCheckFramebufferStatus(int target);
@@ -81,6 +82,28 @@ public interface IGraphicsDevice
         Data.totalRenderCalls++;
     }
 
+    /**
+     * Draws multiple instances of the vertices. The devices that don't support instancing, like the GWT backend with
+     * WebGL 1.0, throw a GLException, so check {@link #isInstancingSupported()} first.
+     */
+    default void glDrawArraysInstanced(int primitive, int offset, int vertexCount, int instanceCount)
+    {
+        Data.renderCallsThisFrame++;
+        Data.totalRenderCalls++;
+    }
+
+    /**
+     * Sets the number of instances after which the attribute advances. The devices that don't support instancing, like
+     * the GWT backend with WebGL 1.0, throw a GLException, so check {@link #isInstancingSupported()} first.
+     */
+    void glVertexAttribDivisor(int index, int divisor);
+
+    /**
+     * @return True if this device supports instanced drawing with {@link #glDrawArraysInstanced(int, int, int, int)}
+     * and {@link #glVertexAttribDivisor(int, int)}.
+     */
+    boolean isInstancingSupported();
+
     void glEnable(int capability);
 
     void glBlendFunc(int src, int dst);
@@ -279,6 +302,7 @@ public interface IGraphicsDevice
         public static final int GL_GEQUAL                                       = 0x0206;
         public static final int GL_GREATER                                      = 0x0204;
         public static final int GL_GREEN_BITS                                   = 0x0D53;
+        public static final int GL_HALF_FLOAT                                   = 0x140B;
         public static final int GL_HIGH_FLOAT                                   = 0x8DF2;
         public static final int GL_HIGH_INT                                     = 0x8DF5;
         public static final int GL_IMPLEMENTATION_COLOR_READ_FORMAT             = 0x8B9B;
@@ -488,5 +512,9 @@ public interface IGraphicsDevice
     {
         public static int totalRenderCalls     = 0;
         public static int renderCallsThisFrame = 0;
+
+        // The no. of bytes uploaded to buffer objects
+        public static long totalBytesUploaded     = 0;
+        public static int  bytesUploadedThisFrame = 0;
     }
 }
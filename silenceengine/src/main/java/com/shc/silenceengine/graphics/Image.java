@@ -26,14 +26,21 @@ package com.shc.silenceengine.graphics;
 
 import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.io.DirectBuffer;
-import com.shc.silenceengine.io.DirectFloatBuffer;
+import com.shc.silenceengine.io.PrimitiveSize;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * Represents an image in memory. This is not a texture. The main difference between the image and texture is that image
  * resides in the main memory that is RAM, and the texture is it's copy which resides in the video memory, that is VRAM.
  * Textures are created using images.
  *
+ * <p> By default the pixels are stored as packed RGBA8 bytes, which is what the image decoders produce and what the
+ * textures are uploaded as, taking 4 bytes per pixel. Images that need the extra precision can use the {@link
+ * Format#RGBA32F} format, which stores a float per channel. The pixels can be read as floats with {@link #getPixel(int,
+ * int, Color)} in either of the formats.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class Image implements IResource
@@ -46,7 +53,8 @@ public class Image implements IResource
     private int originalWidth;
     private int originalHeight;
 
-    private DirectFloatBuffer imageData;
+    private Format       format;
+    private DirectBuffer imageData;
 
     public Image(int width, int height)
     {
@@ -55,12 +63,47 @@ public class Image implements IResource
 
     public Image(int width, int height, int originalWidth, int originalHeight)
     {
+        this(width, height, originalWidth, originalHeight, Format.RGBA8);
+    }
+
+    public Image(int width, int height, int originalWidth, int originalHeight, Format format)
+    {
+        this(width, height, originalWidth, originalHeight, format,
+                DirectBuffer.create(width * height * format.getBytesPerPixel()));
+    }
+
+    /**
+     * Creates an image that uses the given buffer of RGBA8 pixels as it's storage. The buffer is not copied, and it is
+     * owned by the image from now on, which means that it is freed when this image is disposed.
+     *
+     * @param width          The width of the image.
+     * @param height         The height of the image.
+     * @param originalWidth  The width of the image before it is resized to a power of two.
+     * @param originalHeight The height of the image before it is resized to a power of two.
+     * @param rgba8Data      The pixels of the image, four bytes per pixel, row by row from the top left.
+     */
+    public Image(int width, int height, int originalWidth, int originalHeight, DirectBuffer rgba8Data)
+    {
+        this(width, height, originalWidth, originalHeight, Format.RGBA8, rgba8Data);
+    }
+
+    private Image(int width, int height, int originalWidth, int originalHeight, Format format, DirectBuffer imageData)
+    {
+        if (imageData.sizeBytes() < width * height * format.getBytesPerPixel())
+            throw new SilenceException("The image data is too small for a " + width + "x" + height + " " + format +
+                                       " image");
+
         this.width = width;
         this.height = height;
         this.originalWidth = originalWidth;
         this.originalHeight = originalHeight;
+        this.format = format;
+        this.imageData = imageData;
+    }
 
-        imageData = new DirectFloatBuffer(width * height * 4);
+    private static byte toUnsignedByte(float value)
+    {
+        return (byte) (Math.max(0, Math.min(1, value)) * 255 + 0.5f);
     }
 
     public Image setPixel(int x, int y, Color pixel)
@@ -68,12 +111,18 @@ public class Image implements IResource
         if (pixel == null)
             throw new IllegalArgumentException("pixel cannot be null.");
 
-        int start = 4 * (width * y + x);
+        int start = format.getBytesPerPixel() * (width * y + x);
 
-        imageData.write(start, pixel.r)
-                .write(start + 1, pixel.g)
-                .write(start + 2, pixel.b)
-                .write(start + 3, pixel.a);
+        if (format == Format.RGBA8)
+            imageData.writeByte(start, toUnsignedByte(pixel.r))
+                    .writeByte(start + 1, toUnsignedByte(pixel.g))
+                    .writeByte(start + 2, toUnsignedByte(pixel.b))
+                    .writeByte(start + 3, toUnsignedByte(pixel.a));
+        else
+            imageData.writeFloat(start, pixel.r)
+                    .writeFloat(start + PrimitiveSize.FLOAT, pixel.g)
+                    .writeFloat(start + 2 * PrimitiveSize.FLOAT, pixel.b)
+                    .writeFloat(start + 3 * PrimitiveSize.FLOAT, pixel.a);
 
         return this;
     }
@@ -83,16 +132,89 @@ public class Image implements IResource
         if (pixelOut == null)
             throw new IllegalArgumentException("pixelOut cannot be null.");
 
-        int start = 4 * (width * y + x);
+        int start = format.getBytesPerPixel() * (width * y + x);
 
-        pixelOut.r = imageData.read(start);
-        pixelOut.g = imageData.read(start + 1);
-        pixelOut.b = imageData.read(start + 2);
-        pixelOut.a = imageData.read(start + 3);
+        if (format == Format.RGBA8)
+        {
+            pixelOut.r = (imageData.readByte(start) & 0xFF) / 255f;
+            pixelOut.g = (imageData.readByte(start + 1) & 0xFF) / 255f;
+            pixelOut.b = (imageData.readByte(start + 2) & 0xFF) / 255f;
+            pixelOut.a = (imageData.readByte(start + 3) & 0xFF) / 255f;
+        }
+        else
+        {
+            pixelOut.r = imageData.readFloat(start);
+            pixelOut.g = imageData.readFloat(start + PrimitiveSize.FLOAT);
+            pixelOut.b = imageData.readFloat(start + 2 * PrimitiveSize.FLOAT);
+            pixelOut.a = imageData.readFloat(start + 3 * PrimitiveSize.FLOAT);
+        }
 
         return pixelOut;
     }
 
+    /**
+     * Fills the entire image with a single color.
+     *
+     * @param color The color to fill the image with.
+     *
+     * @return This image, for chaining calls.
+     */
+    public Image fill(Color color)
+    {
+        if (color == null)
+            throw new IllegalArgumentException("color cannot be null.");
+
+        if (width == 0 || height == 0)
+            return this;
+
+        // Write the first pixel, and then keep doubling the filled region
+        setPixel(0, 0, color);
+
+        int filled = format.getBytesPerPixel();
+        int total = width * height * format.getBytesPerPixel();
+
+        while (filled < total)
+        {
+            int length = Math.min(filled, total - filled);
+            imageData.copyTo(0, imageData, filled, length);
+            filled += length;
+        }
+
+        return this;
+    }
+
+    /**
+     * Creates a copy of this image in another format. This is how the images decoded as RGBA8 can be accessed as floats
+     * in bulk, and how the float images are packed before uploading them to the GPU.
+     *
+     * @param format The format of the new image.
+     *
+     * @return A new image, which has to be disposed separately from this one.
+     */
+    public Image convert(Format format)
+    {
+        Image image = new Image(width, height, originalWidth, originalHeight, format);
+
+        if (format == this.format)
+        {
+            imageData.copyTo(0, image.imageData, 0, width * height * format.getBytesPerPixel());
+            return image;
+        }
+
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Color color = scratch.color();
+
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                image.setPixel(x, y, getPixel(x, y, color));
+
+        scratch.release(mark);
+
+        return image;
+    }
+
     public int getWidth()
     {
         return width;
@@ -113,9 +235,18 @@ public class Image implements IResource
         return originalHeight;
     }
 
+    public Format getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * @return The raw pixels of this image, laid out row by row from the top left, in the {@link #getFormat() format}
+     * of this image.
+     */
     public DirectBuffer getImageData()
     {
-        return imageData.getDirectBuffer();
+        return imageData;
     }
 
     public void dispose()
@@ -126,7 +257,35 @@ public class Image implements IResource
             return;
         }
 
-        SilenceEngine.io.free(imageData.getDirectBuffer());
+        SilenceEngine.io.free(imageData);
         isDisposed = true;
     }
+
+    /**
+     * The format in which the pixels of an image are stored.
+     */
+    public enum Format
+    {
+        /**
+         * Four unsigned normalized bytes per pixel, in the order of red, green, blue and alpha.
+         */
+        RGBA8(4 * PrimitiveSize.BYTE),
+
+        /**
+         * Four floats per pixel, in the order of red, green, blue and alpha.
+         */
+        RGBA32F(4 * PrimitiveSize.FLOAT);
+
+        private final int bytesPerPixel;
+
+        Format(int bytesPerPixel)
+        {
+            this.bytesPerPixel = bytesPerPixel;
+        }
+
+        public int getBytesPerPixel()
+        {
+            return bytesPerPixel;
+        }
+    }
 }
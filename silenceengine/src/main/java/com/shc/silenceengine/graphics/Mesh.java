@@ -28,6 +28,7 @@ import com.shc.silenceengine.graphics.opengl.Primitive;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.utils.IDGenerator;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -107,8 +108,11 @@ public class Mesh
 
     private Vector3 calculateNormal(Vector3 p1, Vector3 p2, Vector3 p3)
     {
-        Vector3 u = Vector3.REUSABLE_STACK.pop();
-        Vector3 v = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 u = scratch.vector3();
+        Vector3 v = scratch.vector3();
 
         Vector3 normal = new Vector3();
 
@@ -119,8 +123,7 @@ public class Mesh
         normal.y = (-u.z * -v.x) - (-u.x * -v.z);
         normal.z = (-u.x * -v.y) - (-u.y * -v.x);
 
-        Vector3.REUSABLE_STACK.push(u);
-        Vector3.REUSABLE_STACK.push(v);
+        scratch.release(mark);
 
         return normal;
     }
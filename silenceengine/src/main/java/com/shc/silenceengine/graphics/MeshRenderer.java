@@ -30,7 +30,6 @@ import com.shc.silenceengine.graphics.opengl.GLContext;
 import com.shc.silenceengine.graphics.opengl.Primitive;
 import com.shc.silenceengine.graphics.opengl.VertexArray;
 import com.shc.silenceengine.io.DirectBuffer;
-import com.shc.silenceengine.io.PrimitiveSize;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
 
@@ -93,19 +92,19 @@ public class MeshRenderer implements IResource
         if (hasNormals)
         {
             normalBuffer.uploadData(vertexCount * DynamicRenderer.SIZE_OF_NORMAL, BufferObject.Usage.STATIC_DRAW);
-            normalBuffer.uploadSubData(renderer.getVBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_NORMAL);
+            normalBuffer.uploadSubData(renderer.getNBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_NORMAL);
         }
 
         if (hasTexCoords)
         {
             texCoordBuffer.uploadData(vertexCount * DynamicRenderer.SIZE_OF_TEXCOORD, BufferObject.Usage.STATIC_DRAW);
-            texCoordBuffer.uploadSubData(renderer.getVBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_TEXCOORD);
+            texCoordBuffer.uploadSubData(renderer.getTBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_TEXCOORD);
         }
 
         if (hasColors)
         {
             colorBuffer.uploadData(vertexCount * DynamicRenderer.SIZE_OF_COLOR, BufferObject.Usage.STATIC_DRAW);
-            colorBuffer.uploadSubData(renderer.getVBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_COLOR);
+            colorBuffer.uploadSubData(renderer.getCBuffer(), 0, vertexCount * DynamicRenderer.SIZE_OF_COLOR);
         }
 
         renderMode = renderer.getBeginMode();
@@ -143,15 +142,19 @@ public class MeshRenderer implements IResource
 
     private void uploadTo4Layout(List<Vector3> data, BufferObject bufferObject, int w)
     {
-        DirectBuffer buffer = DirectBuffer.create(data.size() * 4 * PrimitiveSize.FLOAT);
+        float[] values = new float[data.size() * 4];
 
         int i = 0;
 
         for (Vector3 v : data)
-            buffer.writeFloat(i++, v.x)
-                    .writeFloat(i++, v.y)
-                    .writeFloat(i++, v.z)
-                    .writeFloat(i++, w);
+        {
+            values[i++] = v.x;
+            values[i++] = v.y;
+            values[i++] = v.z;
+            values[i++] = w;
+        }
+
+        DirectBuffer buffer = DirectBuffer.wrap(values);
 
         bufferObject.uploadData(buffer, BufferObject.Usage.STATIC_DRAW);
 
@@ -160,15 +163,19 @@ public class MeshRenderer implements IResource
 
     private void uploadTo4Layout(List<Color> data, BufferObject bufferObject)
     {
-        DirectBuffer buffer = DirectBuffer.create(data.size() * 4 * PrimitiveSize.FLOAT);
+        float[] values = new float[data.size() * 4];
 
         int i = 0;
 
         for (Color c : data)
-            buffer.writeFloat(i++, c.r)
-                    .writeFloat(i++, c.g)
-                    .writeFloat(i++, c.b)
-                    .writeFloat(i++, c.a);
+        {
+            values[i++] = c.r;
+            values[i++] = c.g;
+            values[i++] = c.b;
+            values[i++] = c.a;
+        }
+
+        DirectBuffer buffer = DirectBuffer.wrap(values);
 
         bufferObject.uploadData(buffer, BufferObject.Usage.STATIC_DRAW);
 
@@ -177,13 +184,17 @@ public class MeshRenderer implements IResource
 
     private void uploadTo2Layout(List<Vector2> data, BufferObject bufferObject)
     {
-        DirectBuffer buffer = DirectBuffer.create(data.size() * 2 * PrimitiveSize.FLOAT);
+        float[] values = new float[data.size() * 2];
 
         int i = 0;
 
         for (Vector2 v : data)
-            buffer.writeFloat(i++, v.x)
-                    .writeFloat(i++, v.y);
+        {
+            values[i++] = v.x;
+            values[i++] = v.y;
+        }
+
+        DirectBuffer buffer = DirectBuffer.wrap(values);
 
         bufferObject.uploadData(buffer, BufferObject.Usage.STATIC_DRAW);
 
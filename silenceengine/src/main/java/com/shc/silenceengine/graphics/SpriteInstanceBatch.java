@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.graphics;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.graphics.opengl.BufferObject;
+import com.shc.silenceengine.graphics.opengl.GLContext;
+import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.opengl.RingBufferObject;
+import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.graphics.opengl.VertexArray;
+import com.shc.silenceengine.graphics.programs.InstancedSpriteProgram;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.math.Matrix4;
+
+import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
+
+/**
+ * The instanced path of the {@link SpriteRenderer}. The corners of a single quad are uploaded once into a static
+ * buffer, and every sprite only writes a single instance of 48 bytes: the scaled axes of its 2D transform, its origin,
+ * the texture rectangle and the packed color. The instances are streamed through a {@link RingBufferObject} and drawn
+ * with a single instanced draw call.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+class SpriteInstanceBatch
+{
+    // Axes (4 floats), origin (3 floats), texture rectangle (4 floats) and color (4 bytes)
+    private static final int SIZE_OF_INSTANCE = 11 * 4 + 4;
+
+    private static final int AXES_OFFSET    = 0;
+    private static final int ORIGIN_OFFSET  = 16;
+    private static final int TEXRECT_OFFSET = 28;
+    private static final int COLOR_OFFSET   = 44;
+
+    private InstancedSpriteProgram program;
+
+    private VertexArray      vao;
+    private BufferObject     quadBuffer;
+    private RingBufferObject instanceBuffer;
+    private DirectBuffer     instanceData;
+
+    private int maxInstances;
+    private int instanceCount;
+
+    private int cornerLocation;
+    private int axesLocation;
+    private int originLocation;
+    private int texRectLocation;
+    private int colorLocation;
+
+    SpriteInstanceBatch(InstancedSpriteProgram program, int maxInstances, int numSegments)
+    {
+        this.program = program;
+        this.maxInstances = maxInstances;
+
+        cornerLocation = program.getAttribute(InstancedSpriteProgram.CORNER_ATTRIB);
+        axesLocation = program.getAttribute(InstancedSpriteProgram.AXES_ATTRIB);
+        originLocation = program.getAttribute(InstancedSpriteProgram.ORIGIN_ATTRIB);
+        texRectLocation = program.getAttribute(InstancedSpriteProgram.TEXRECT_ATTRIB);
+        colorLocation = program.getAttribute(InstancedSpriteProgram.COLOR_ATTRIB);
+
+        vao = new VertexArray();
+
+        // The two triangles of the quad, in the same order as the SpriteRenderer emits them
+        DirectBuffer corners = DirectBuffer.wrap(
+                -1f, -1f, +1f, -1f, -1f, +1f,
+                +1f, -1f, +1f, +1f, -1f, +1f
+        );
+
+        quadBuffer = new BufferObject(BufferObject.Target.ARRAY_BUFFER);
+        quadBuffer.uploadData(corners, BufferObject.Usage.STATIC_DRAW);
+        DirectBuffer.free(corners);
+
+        instanceData = DirectBuffer.create(maxInstances * SIZE_OF_INSTANCE);
+        instanceBuffer = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, numSegments,
+                maxInstances * SIZE_OF_INSTANCE);
+
+        vao.pointAttribute(cornerLocation, 2, GL_FLOAT, quadBuffer);
+
+        vao.setAttributeDivisor(axesLocation, 1);
+        vao.setAttributeDivisor(originLocation, 1);
+        vao.setAttributeDivisor(texRectLocation, 1);
+        vao.setAttributeDivisor(colorLocation, 1);
+
+        GLContext.bindVertexArray(null);
+    }
+
+    /**
+     * Adds a sprite to this batch. The caller is responsible for binding the texture, and for flushing the batch when
+     * it is full.
+     */
+    void add(Texture texture, Matrix4 matrix, Color color)
+    {
+        final int offset = instanceCount++ * SIZE_OF_INSTANCE;
+
+        final float tw = texture.getWidth() / 2;
+        final float th = texture.getHeight() / 2;
+
+        // The axes of the transform, scaled to the half size of the texture
+        instanceData.writeFloat(offset + AXES_OFFSET, matrix.get(0, 0) * tw)
+                .writeFloat(offset + AXES_OFFSET + 4, matrix.get(0, 1) * tw)
+                .writeFloat(offset + AXES_OFFSET + 8, matrix.get(1, 0) * th)
+                .writeFloat(offset + AXES_OFFSET + 12, matrix.get(1, 1) * th);
+
+        instanceData.writeFloat(offset + ORIGIN_OFFSET, matrix.get(3, 0))
+                .writeFloat(offset + ORIGIN_OFFSET + 4, matrix.get(3, 1))
+                .writeFloat(offset + ORIGIN_OFFSET + 8, matrix.get(3, 2));
+
+        instanceData.writeFloat(offset + TEXRECT_OFFSET, texture.getMinU())
+                .writeFloat(offset + TEXRECT_OFFSET + 4, texture.getMinV())
+                .writeFloat(offset + TEXRECT_OFFSET + 8, texture.getMaxU())
+                .writeFloat(offset + TEXRECT_OFFSET + 12, texture.getMaxV());
+
+        instanceData.writeByte(offset + COLOR_OFFSET, toUnsignedByte(color.r))
+                .writeByte(offset + COLOR_OFFSET + 1, toUnsignedByte(color.g))
+                .writeByte(offset + COLOR_OFFSET + 2, toUnsignedByte(color.b))
+                .writeByte(offset + COLOR_OFFSET + 3, toUnsignedByte(color.a));
+    }
+
+    private static byte toUnsignedByte(float value)
+    {
+        return (byte) (Math.max(0, Math.min(1, value)) * 255 + 0.5f);
+    }
+
+    void flush()
+    {
+        if (instanceCount == 0)
+            return;
+
+        program.prepareFrame();
+
+        vao.bind();
+
+        int offset = instanceBuffer.upload(instanceData, instanceCount * SIZE_OF_INSTANCE);
+        BufferObject buffer = instanceBuffer.getBufferObject();
+
+        vao.pointAttribute(axesLocation, 4, GL_FLOAT, false, SIZE_OF_INSTANCE, offset + AXES_OFFSET, buffer);
+        vao.pointAttribute(originLocation, 3, GL_FLOAT, false, SIZE_OF_INSTANCE, offset + ORIGIN_OFFSET, buffer);
+        vao.pointAttribute(texRectLocation, 4, GL_FLOAT, false, SIZE_OF_INSTANCE, offset + TEXRECT_OFFSET, buffer);
+        vao.pointAttribute(colorLocation, 4, GL_UNSIGNED_BYTE, true, SIZE_OF_INSTANCE, offset + COLOR_OFFSET, buffer);
+
+        vao.enableAttributeArray(cornerLocation);
+        vao.enableAttributeArray(axesLocation);
+        vao.enableAttributeArray(originLocation);
+        vao.enableAttributeArray(texRectLocation);
+        vao.enableAttributeArray(colorLocation);
+
+        GLContext.drawArraysInstanced(vao, Primitive.TRIANGLES, 0, 6, instanceCount);
+
+        vao.disableAttributeArray(cornerLocation);
+        vao.disableAttributeArray(axesLocation);
+        vao.disableAttributeArray(originLocation);
+        vao.disableAttributeArray(texRectLocation);
+        vao.disableAttributeArray(colorLocation);
+
+        GLContext.bindVertexArray(null);
+
+        instanceCount = 0;
+    }
+
+    boolean isFull()
+    {
+        return instanceCount == maxInstances;
+    }
+
+    int getInstanceCount()
+    {
+        return instanceCount;
+    }
+
+    RingBufferObject getInstanceBuffer()
+    {
+        return instanceBuffer;
+    }
+
+    void dispose()
+    {
+        vao.dispose();
+        quadBuffer.dispose();
+        instanceBuffer.dispose();
+        DirectBuffer.free(instanceData);
+    }
+}
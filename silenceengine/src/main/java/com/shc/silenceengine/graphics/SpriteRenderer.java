@@ -25,62 +25,181 @@
 package com.shc.silenceengine.graphics;
 
 import com.shc.silenceengine.core.SilenceException;
-import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.opengl.GLContext;
+import com.shc.silenceengine.graphics.opengl.Program;
 import com.shc.silenceengine.graphics.opengl.Texture;
 import com.shc.silenceengine.graphics.programs.DynamicProgram;
+import com.shc.silenceengine.graphics.programs.InstancedSpriteProgram;
+import com.shc.silenceengine.graphics.programs.SpriteBatchProgram;
 import com.shc.silenceengine.math.Transform;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 /**
+ * Renders sprites in batches. A SpriteRenderer can be created in one of three modes. The default one binds a single
+ * texture, and has to flush the batch every time a sprite from a different texture is rendered. The multi-texture
+ * mode, created with the {@link #createMultiTextured(UniCallback)} method, binds up to {@link
+ * SpriteBatchProgram#MAX_TEXTURES} textures to separate units and writes the texture index in every vertex, so that
+ * sprites from different textures share the same batch. Sub textures of the same texture always share a unit.
+ *
+ * <p> The instanced mode, created with the {@link #createInstanced(UniCallback)} method, doesn't transform the
+ * vertices on the CPU. A single quad is shared by all the sprites, and every sprite only writes its transform, texture
+ * rectangle and color as an instance. Devices that can't render instances fall back to the default mode. The GWT
+ * backend is one of them, as WebGL 1.0 has no instancing and its device throws a GLException from the instanced
+ * calls.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class SpriteRenderer
 {
-    private static DynamicProgram program;
+    private static DynamicProgram         program;
+    private static SpriteBatchProgram     batchProgram;
+    private static InstancedSpriteProgram instancedProgram;
 
     private static int instances;
+    private static int batchInstances;
+    private static int instancedInstances;
 
-    private Vector3 tempVec = new Vector3();
+    private Vector3 v0 = new Vector3();
+    private Vector3 v1 = new Vector3();
+    private Vector3 v2 = new Vector3();
+    private Vector3 v3 = new Vector3();
     private Color   tempCol = new Color();
 
-    private DynamicRenderer renderer;
-    private Texture         currentTexture;
+    private DynamicRenderer     renderer;
+    private SpriteInstanceBatch instanceBatch;
+    private Texture             currentTexture;
+
+    // The textures bound to the units in the multi-texture mode
+    private Texture[] boundTextures;
+    private int       numBoundTextures;
+
+    // The statistics of this renderer
+    private int   drawCalls;
+    private int[] flushes = new int[FlushReason.values().length];
 
+    private boolean active;
     private boolean disposed;
 
     // Instantiation should happen only via static method
-    private SpriteRenderer()
+    private SpriteRenderer(boolean multiTextured)
     {
-        renderer = new DynamicRenderer(500 * 2 * 3);
-        program.applyToRenderer(renderer);
+        if (multiTextured)
+        {
+            renderer = new DynamicRenderer(500 * 4, VertexFormat.POSITION_COLOR_TEXCOORD_TEXINDEX);
+            boundTextures = new Texture[SpriteBatchProgram.MAX_TEXTURES];
+
+            batchProgram.applyToRenderer(renderer);
+        }
+        else
+        {
+            renderer = new DynamicRenderer(500 * 4, VertexFormat.POSITION_COLOR_TEXCOORD);
+            program.applyToRenderer(renderer);
+        }
+
+        renderer.setStreamingSegments(4);
 
         currentTexture = Texture.CURRENT != null ? Texture.CURRENT
                                                  : Texture.fromColor(Color.BLACK, 16, 16);
     }
 
+    private SpriteRenderer(InstancedSpriteProgram program)
+    {
+        instanceBatch = new SpriteInstanceBatch(program, 4096, 4);
+    }
+
     public static void create(UniCallback<SpriteRenderer> onComplete)
     {
         instances++;
 
         if (program != null)
         {
-            onComplete.invoke(new SpriteRenderer());
+            onComplete.invoke(new SpriteRenderer(false));
             return;
         }
 
         DynamicProgram.create(program ->
         {
             SpriteRenderer.program = program;
-            onComplete.invoke(new SpriteRenderer());
+            onComplete.invoke(new SpriteRenderer(false));
+        });
+    }
+
+    /**
+     * Creates a SpriteRenderer in the multi-texture mode, where sprites from up to {@link
+     * SpriteBatchProgram#MAX_TEXTURES} different textures are rendered in a single batch.
+     *
+     * @param onComplete The callback that receives the renderer once it is created.
+     */
+    public static void createMultiTextured(UniCallback<SpriteRenderer> onComplete)
+    {
+        batchInstances++;
+
+        if (batchProgram != null)
+        {
+            onComplete.invoke(new SpriteRenderer(true));
+            return;
+        }
+
+        SpriteBatchProgram.create(program ->
+        {
+            SpriteRenderer.batchProgram = program;
+            onComplete.invoke(new SpriteRenderer(true));
+        });
+    }
+
+    /**
+     * Creates a SpriteRenderer in the instanced mode, where every sprite is uploaded as a single instance and the
+     * vertices are transformed on the GPU. If the graphics device doesn't support instancing (like WebGL 1.0), a
+     * renderer in the default mode is created instead. This is always the case with the GWT backend, whose device throws
+     * a GLException from the instanced calls. Use {@link #isInstanced()} to find the mode that is created.
+     *
+     * @param onComplete The callback that receives the renderer once it is created.
+     */
+    public static void createInstanced(UniCallback<SpriteRenderer> onComplete)
+    {
+        if (!GLContext.isInstancingSupported())
+        {
+            create(onComplete);
+            return;
+        }
+
+        instancedInstances++;
+
+        if (instancedProgram != null)
+        {
+            onComplete.invoke(new SpriteRenderer(instancedProgram));
+            return;
+        }
+
+        InstancedSpriteProgram.create(program ->
+        {
+            SpriteRenderer.instancedProgram = program;
+            onComplete.invoke(new SpriteRenderer(program));
         });
     }
 
     public void begin()
     {
-        program.use();
-        program.applyToRenderer(renderer);
-        renderer.begin(Primitive.TRIANGLES);
+        if (isInstanced())
+        {
+            instancedProgram.use();
+            active = true;
+            return;
+        }
+
+        if (isMultiTextured())
+        {
+            batchProgram.use();
+            batchProgram.applyToRenderer(renderer);
+        }
+        else
+        {
+            program.use();
+            program.applyToRenderer(renderer);
+        }
+
+        renderer.beginQuads();
     }
 
     public void render(Sprite sprite, Transform transform)
@@ -97,61 +216,167 @@ public class SpriteRenderer
     {
         Texture texture = sprite.getCurrentFrame();
 
-        if (currentTexture == null || texture.getID() != currentTexture.getID())
+        // Make room for the sprite before its texture is bound, as the flush frees all the texture units
+        if (isInstanced() ? instanceBatch.isFull() : renderer.getVertexCount() + 4 > renderer.getBatchSize())
+            flush(FlushReason.BATCH_FULL);
+
+        int texIndex = 0;
+
+        if (isMultiTextured())
+            texIndex = bindToUnit(texture);
+
+        else if (currentTexture == null || texture.getID() != currentTexture.getID())
         {
-            flush();
+            flush(FlushReason.TEXTURE_CHANGE);
             texture.bind(0);
-            program.setUniform("tex", 0);
+
+            if (isInstanced())
+                instancedProgram.setUniform("tex", 0);
+            else
+                program.setUniform("tex", 0);
         }
 
         currentTexture = texture;
 
         tempCol.set(tint).a *= opacity;
 
+        if (isInstanced())
+        {
+            instanceBatch.add(texture, transform.matrix, tempCol);
+            return;
+        }
+
         final float tw = texture.getWidth() / 2;
         final float th = texture.getHeight() / 2;
 
-        renderer.flushOnOverflow(6);
+        v0.set(-1, -1, 0).scale(tw, th, 0).multiply(transform.matrix);
+        v1.set(1, -1, 0).scale(tw, th, 0).multiply(transform.matrix);
+        v2.set(1, 1, 0).scale(tw, th, 0).multiply(transform.matrix);
+        v3.set(-1, 1, 0).scale(tw, th, 0).multiply(transform.matrix);
 
-        renderer.vertex(tempVec.set(-1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMinV());
-        renderer.color(tempCol);
+        renderer.emitQuad(v0, v1, v2, v3, texture.getMinU(), texture.getMinV(), texture.getMaxU(), texture.getMaxV(),
+                tempCol, texIndex);
+    }
 
-        renderer.vertex(tempVec.set(1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMinV());
-        renderer.color(tempCol);
+    /**
+     * Finds the unit to which the texture is bound in the current batch, binding it to the next free unit if it is not
+     * yet bound. When all the units are in use, the batch is flushed and the units are reused.
+     */
+    private int bindToUnit(Texture texture)
+    {
+        for (int i = 0; i < numBoundTextures; i++)
+            if (boundTextures[i].getID() == texture.getID())
+                return i;
 
-        renderer.vertex(tempVec.set(-1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMaxV());
-        renderer.color(tempCol);
+        if (numBoundTextures == boundTextures.length)
+            flush(FlushReason.TEXTURE_UNITS_FULL);
 
-        renderer.vertex(tempVec.set(1, -1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMinV());
-        renderer.color(tempCol);
+        final int unit = numBoundTextures++;
 
-        renderer.vertex(tempVec.set(1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMaxU(), currentTexture.getMaxV());
-        renderer.color(tempCol);
+        boundTextures[unit] = texture;
+        texture.bind(unit);
 
-        renderer.vertex(tempVec.set(-1, 1, 0).scale(tw, th, 0).multiply(transform.matrix));
-        renderer.texCoord(currentTexture.getMinU(), currentTexture.getMaxV());
-        renderer.color(tempCol);
+        return unit;
     }
 
     public void flush()
     {
+        flush(FlushReason.MANUAL);
+    }
+
+    private void flush(FlushReason reason)
+    {
+        if (hasPendingSprites())
+        {
+            flushes[reason.ordinal()]++;
+            drawCalls++;
+        }
+
+        if (isInstanced())
+        {
+            instanceBatch.flush();
+            return;
+        }
+
         renderer.flush();
+
+        // All the texture units are free again
+        numBoundTextures = 0;
     }
 
     public void end()
     {
-        renderer.end();
+        if (hasPendingSprites())
+        {
+            flushes[FlushReason.END.ordinal()]++;
+            drawCalls++;
+        }
+
         currentTexture = null;
+
+        if (isInstanced())
+        {
+            instanceBatch.flush();
+            active = false;
+            return;
+        }
+
+        renderer.end();
+
+        if (isMultiTextured())
+        {
+            numBoundTextures = 0;
+            Texture.setActiveUnit(0);
+        }
+    }
+
+    private boolean hasPendingSprites()
+    {
+        return isInstanced() ? instanceBatch.getInstanceCount() > 0 : renderer.getVertexCount() > 0;
     }
 
     public boolean isActive()
     {
-        return renderer.isActive();
+        return isInstanced() ? active : renderer.isActive();
+    }
+
+    public boolean isInstanced()
+    {
+        return instanceBatch != null;
+    }
+
+    public boolean isMultiTextured()
+    {
+        return boundTextures != null;
+    }
+
+    /**
+     * @return The number of draw calls issued by this renderer since the last reset of the counters.
+     */
+    public int getDrawCalls()
+    {
+        return drawCalls;
+    }
+
+    /**
+     * Gets the number of flushes that happened due to the specified reason since the last reset of the counters. Only
+     * the flushes that actually resulted in a draw call are counted.
+     *
+     * @param reason The reason for the flush.
+     *
+     * @return The number of flushes for that reason.
+     */
+    public int getFlushCount(FlushReason reason)
+    {
+        return flushes[reason.ordinal()];
+    }
+
+    public void resetCounters()
+    {
+        drawCalls = 0;
+
+        for (int i = 0; i < flushes.length; i++)
+            flushes[i] = 0;
     }
 
     public void dispose()
@@ -159,15 +384,81 @@ public class SpriteRenderer
         if (disposed)
             throw new SilenceException("Cannot dispose an already disposed object");
 
-        instances--;
+        if (isInstanced())
+        {
+            instanceBatch.dispose();
+            instancedInstances--;
+
+            if (instancedInstances == 0)
+            {
+                disposeProgram(instancedProgram);
+                instancedProgram = null;
+            }
+
+            disposed = true;
+            return;
+        }
+
         renderer.dispose();
 
-        if (instances == 0)
+        if (isMultiTextured())
         {
-            program.dispose();
-            program = null;
+            batchInstances--;
+
+            if (batchInstances == 0)
+            {
+                disposeProgram(batchProgram);
+                batchProgram = null;
+            }
+        }
+        else
+        {
+            instances--;
+
+            if (instances == 0)
+            {
+                disposeProgram(program);
+                program = null;
+            }
         }
 
         disposed = true;
     }
+
+    private static void disposeProgram(Program program)
+    {
+        if (program != null)
+            program.dispose();
+    }
+
+    /**
+     * The reasons for which a SpriteRenderer flushes its batch.
+     */
+    public enum FlushReason
+    {
+        /**
+         * A sprite from a different texture was rendered in the single texture mode.
+         */
+        TEXTURE_CHANGE,
+
+        /**
+         * All the texture units were in use in the multi-texture mode, and a sprite needed another texture.
+         */
+        TEXTURE_UNITS_FULL,
+
+        /**
+         * The batch is full.
+         */
+        BATCH_FULL,
+
+        /**
+         * The {@link #flush()} method was called by the user.
+         */
+        MANUAL,
+
+        /**
+         * The batch was ended.
+         */
+        END
+    }
 }
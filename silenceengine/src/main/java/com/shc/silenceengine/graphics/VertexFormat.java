@@ -0,0 +1,330 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.PrimitiveSize;
+
+import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
+
+/**
+ * Describes the layout of a single vertex in an interleaved vertex buffer. A vertex format is a list of attributes,
+ * each of which has a usage, a component type and a component count. The attributes are laid out one after the other
+ * in the order they are specified, and every vertex takes {@link #getStride()} bytes in the buffer.
+ *
+ * <p> A {@link DynamicRenderer} that is created with a vertex format writes all the vertex data into a single buffer
+ * and uploads it to the GPU with a single call per flush. Attributes that are not present in the format are silently
+ * ignored by the renderer.</p>
+ *
+ * <p> Note that half float vertex attributes require OpenGL 3.0 or OpenGL ES 3.0, and are not available on WebGL
+ * 1.0.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class VertexFormat
+{
+    /**
+     * Float positions (xyz), packed RGBA8 colors and float texture coordinates. 24 bytes per vertex.
+     */
+    public static final VertexFormat POSITION_COLOR_TEXCOORD = new VertexFormat(
+            new Attribute(Usage.POSITION, Type.FLOAT, 3),
+            new Attribute(Usage.COLOR, Type.UNSIGNED_BYTE, 4),
+            new Attribute(Usage.TEXCOORD, Type.FLOAT, 2)
+    );
+
+    /**
+     * Float positions (xyz), packed RGBA8 colors and half float texture coordinates. 20 bytes per vertex.
+     */
+    public static final VertexFormat POSITION_COLOR_HALF_TEXCOORD = new VertexFormat(
+            new Attribute(Usage.POSITION, Type.FLOAT, 3),
+            new Attribute(Usage.COLOR, Type.UNSIGNED_BYTE, 4),
+            new Attribute(Usage.TEXCOORD, Type.HALF_FLOAT, 2)
+    );
+
+    /**
+     * Float positions (xyz), float normals (xyz), packed RGBA8 colors and float texture coordinates. 36 bytes per
+     * vertex.
+     */
+    public static final VertexFormat POSITION_NORMAL_COLOR_TEXCOORD = new VertexFormat(
+            new Attribute(Usage.POSITION, Type.FLOAT, 3),
+            new Attribute(Usage.NORMAL, Type.FLOAT, 3),
+            new Attribute(Usage.COLOR, Type.UNSIGNED_BYTE, 4),
+            new Attribute(Usage.TEXCOORD, Type.FLOAT, 2)
+    );
+
+    /**
+     * Float positions (xyz), packed RGBA8 colors, float texture coordinates and a float texture index, used for
+     * batching sprites from multiple textures. 28 bytes per vertex.
+     */
+    public static final VertexFormat POSITION_COLOR_TEXCOORD_TEXINDEX = new VertexFormat(
+            new Attribute(Usage.POSITION, Type.FLOAT, 3),
+            new Attribute(Usage.COLOR, Type.UNSIGNED_BYTE, 4),
+            new Attribute(Usage.TEXCOORD, Type.FLOAT, 2),
+            new Attribute(Usage.TEXINDEX, Type.FLOAT, 1)
+    );
+
+    private final Attribute[] attributes;
+    private final Attribute[] attributesByUsage;
+
+    private final int stride;
+
+    /**
+     * Creates a new VertexFormat from a list of attributes. The attributes are laid out in the order specified.
+     *
+     * @param attributes The attributes that make up a single vertex.
+     */
+    public VertexFormat(Attribute... attributes)
+    {
+        this.attributes = new Attribute[attributes.length];
+        this.attributesByUsage = new Attribute[Usage.values().length];
+
+        int offset = 0;
+
+        for (int i = 0; i < attributes.length; i++)
+        {
+            // Copy the attribute, so that its offset is not shared with other formats
+            Attribute attribute = this.attributes[i] = new Attribute(attributes[i].usage, attributes[i].type,
+                    attributes[i].count);
+
+            if (attributesByUsage[attribute.usage.ordinal()] != null)
+                throw new SilenceException("Duplicate vertex attribute usage: " + attribute.usage);
+
+            attribute.offset = offset;
+            attributesByUsage[attribute.usage.ordinal()] = attribute;
+
+            offset += attribute.sizeBytes();
+        }
+
+        if (attributesByUsage[Usage.POSITION.ordinal()] == null)
+            throw new SilenceException("A VertexFormat needs to have a POSITION attribute");
+
+        stride = offset;
+    }
+
+    /**
+     * Converts a single precision float to a half precision float, rounding towards zero. Values that are too large
+     * to be represented are clamped to infinity, and values that are too small are flushed to zero.
+     *
+     * @param value The float value to convert.
+     *
+     * @return The bits of the half precision float, stored in a short.
+     */
+    public static short toHalfFloat(float value)
+    {
+        int bits = Float.floatToIntBits(value);
+
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x007FFFFF;
+
+        // NaN and Infinity
+        if (exponent >= 0x1F)
+            return (short) (sign | 0x7C00 | (((bits & 0x7FFFFFFF) > 0x7F800000) ? 0x0200 : 0));
+
+        // Too small to be a normal half, make it a denormal or zero
+        if (exponent <= 0)
+        {
+            if (exponent < -10)
+                return (short) sign;
+
+            mantissa |= 0x00800000;
+            return (short) (sign | (mantissa >> (14 - exponent)));
+        }
+
+        return (short) (sign | (exponent << 10) | (mantissa >> 13));
+    }
+
+    /**
+     * @return The size of a single vertex in bytes.
+     */
+    public int getStride()
+    {
+        return stride;
+    }
+
+    /**
+     * @return The attributes of this vertex format, in the order they are laid out.
+     */
+    public Attribute[] getAttributes()
+    {
+        return attributes.clone();
+    }
+
+    /**
+     * Gets the attribute which is used for the specified usage.
+     *
+     * @param usage The usage of the attribute.
+     *
+     * @return The attribute, or null if this vertex format doesn't contain it.
+     */
+    public Attribute getAttribute(Usage usage)
+    {
+        return attributesByUsage[usage.ordinal()];
+    }
+
+    public boolean hasAttribute(Usage usage)
+    {
+        return attributesByUsage[usage.ordinal()] != null;
+    }
+
+    /**
+     * The usage of a vertex attribute. This decides which attribute location of the renderer is used for it.
+     */
+    public enum Usage
+    {
+        POSITION,
+        NORMAL,
+        COLOR,
+        TEXCOORD,
+        TEXINDEX
+    }
+
+    /**
+     * The type of the components of a vertex attribute.
+     */
+    public enum Type
+    {
+        FLOAT(GL_FLOAT, PrimitiveSize.FLOAT, false),
+        HALF_FLOAT(GL_HALF_FLOAT, PrimitiveSize.SHORT, false),
+        UNSIGNED_BYTE(GL_UNSIGNED_BYTE, PrimitiveSize.BYTE, true);
+
+        private final int     glType;
+        private final int     sizeBytes;
+        private final boolean normalized;
+
+        Type(int glType, int sizeBytes, boolean normalized)
+        {
+            this.glType = glType;
+            this.sizeBytes = sizeBytes;
+            this.normalized = normalized;
+        }
+
+        public int getGlType()
+        {
+            return glType;
+        }
+
+        public int getSizeBytes()
+        {
+            return sizeBytes;
+        }
+
+        public boolean isNormalized()
+        {
+            return normalized;
+        }
+    }
+
+    /**
+     * A single attribute in a vertex format.
+     */
+    public static class Attribute
+    {
+        public final Usage usage;
+        public final Type  type;
+        public final int   count;
+
+        private int offset;
+
+        /**
+         * Creates a vertex attribute.
+         *
+         * @param usage The usage of this attribute.
+         * @param type  The type of each component.
+         * @param count The number of components, must be in the range of 1-4.
+         */
+        public Attribute(Usage usage, Type type, int count)
+        {
+            if (count < 1 || count > 4)
+                throw new SilenceException("Vertex attributes can only have 1 to 4 components");
+
+            this.usage = usage;
+            this.type = type;
+            this.count = count;
+        }
+
+        /**
+         * Writes the components of this attribute into the buffer. Only the first {@link #count} components are
+         * written, the rest of them are ignored. Values of normalized types are clamped to the range of 0 to 1.
+         *
+         * @param buffer       The buffer to write the vertex data into.
+         * @param vertexOffset The offset of the vertex in the buffer, in bytes.
+         * @param x            The first component.
+         * @param y            The second component.
+         * @param z            The third component.
+         * @param w            The fourth component.
+         */
+        public void write(DirectBuffer buffer, int vertexOffset, float x, float y, float z, float w)
+        {
+            final int offset = vertexOffset + this.offset;
+
+            switch (type)
+            {
+                case FLOAT:
+                    buffer.writeFloat(offset, x);
+                    if (count > 1) buffer.writeFloat(offset + 4, y);
+                    if (count > 2) buffer.writeFloat(offset + 8, z);
+                    if (count > 3) buffer.writeFloat(offset + 12, w);
+                    break;
+
+                case HALF_FLOAT:
+                    buffer.writeShort(offset, toHalfFloat(x));
+                    if (count > 1) buffer.writeShort(offset + 2, toHalfFloat(y));
+                    if (count > 2) buffer.writeShort(offset + 4, toHalfFloat(z));
+                    if (count > 3) buffer.writeShort(offset + 6, toHalfFloat(w));
+                    break;
+
+                case UNSIGNED_BYTE:
+                    buffer.writeByte(offset, toUnsignedByte(x));
+                    if (count > 1) buffer.writeByte(offset + 1, toUnsignedByte(y));
+                    if (count > 2) buffer.writeByte(offset + 2, toUnsignedByte(z));
+                    if (count > 3) buffer.writeByte(offset + 3, toUnsignedByte(w));
+                    break;
+            }
+        }
+
+        private static byte toUnsignedByte(float value)
+        {
+            return (byte) (Math.max(0, Math.min(1, value)) * 255 + 0.5f);
+        }
+
+        /**
+         * @return The byte offset of this attribute from the start of the vertex.
+         */
+        public int getOffset()
+        {
+            return offset;
+        }
+
+        /**
+         * @return The size of this attribute in bytes.
+         */
+        public int sizeBytes()
+        {
+            return type.sizeBytes * count;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.shc.silenceengine.math.Matrix4;
 import com.shc.silenceengine.math.Transforms;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
@@ -64,37 +65,43 @@ public class OrthoCam extends BaseCamera
 
     public OrthoCam translate(Vector2 v)
     {
-        Matrix4 tempMatrix = Matrix4.REUSABLE_STACK.pop();
-        Vector3 tempVector = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 tempMatrix = scratch.matrix4();
+        Vector3 tempVector = scratch.vector3();
 
         mView.multiply(Transforms.createTranslation(tempVector.set(v.x, v.y, 0), tempMatrix));
 
-        Matrix4.REUSABLE_STACK.push(tempMatrix);
-        Vector3.REUSABLE_STACK.push(tempVector);
+        scratch.release(mark);
         return this;
     }
 
     public OrthoCam translateTo(float x, float y)
     {
-        Matrix4 tempMatrix = Matrix4.REUSABLE_STACK.pop();
-        Vector3 tempVector = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 tempMatrix = scratch.matrix4();
+        Vector3 tempVector = scratch.vector3();
 
         mView.initIdentity().multiply(Transforms.createTranslation(tempVector.set(x, y, 0), tempMatrix));
 
-        Matrix4.REUSABLE_STACK.push(tempMatrix);
-        Vector3.REUSABLE_STACK.push(tempVector);
+        scratch.release(mark);
         return this;
     }
 
     public OrthoCam translateTo(Vector2 v)
     {
-        Matrix4 tempMatrix = Matrix4.REUSABLE_STACK.pop();
-        Vector3 tempVector = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 tempMatrix = scratch.matrix4();
+        Vector3 tempVector = scratch.vector3();
 
         mView.initIdentity().multiply(Transforms.createTranslation(tempVector.set(v.x, v.y, 0), tempMatrix));
 
-        Matrix4.REUSABLE_STACK.push(tempMatrix);
-        Vector3.REUSABLE_STACK.push(tempVector);
+        scratch.release(mark);
         return this;
     }
 
@@ -114,23 +121,28 @@ public class OrthoCam extends BaseCamera
 
     public OrthoCam translate(float x, float y)
     {
-        Matrix4 tempMatrix = Matrix4.REUSABLE_STACK.pop();
-        Vector3 tempVector = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 tempMatrix = scratch.matrix4();
+        Vector3 tempVector = scratch.vector3();
 
         mView.multiply(Transforms.createTranslation(tempVector.set(x, y, 0), tempMatrix));
 
-        Matrix4.REUSABLE_STACK.push(tempMatrix);
-        Vector3.REUSABLE_STACK.push(tempVector);
+        scratch.release(mark);
         return this;
     }
 
     public OrthoCam rotate(Vector3 axis, float angle)
     {
-        Matrix4 tempMatrix = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 tempMatrix = scratch.matrix4();
 
         mView.multiply(Transforms.createRotation(axis, angle, tempMatrix));
 
-        Matrix4.REUSABLE_STACK.push(tempMatrix);
+        scratch.release(mark);
         return this;
     }
 
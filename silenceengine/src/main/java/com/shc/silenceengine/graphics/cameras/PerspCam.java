@@ -30,6 +30,7 @@ import com.shc.silenceengine.math.Matrix4;
 import com.shc.silenceengine.math.Quaternion;
 import com.shc.silenceengine.math.Transforms;
 import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
@@ -135,24 +136,30 @@ public class PerspCam extends BaseCamera
 
     public PerspCam rotateX(float angle)
     {
-        Quaternion tempQuat = Quaternion.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Quaternion tempQuat = scratch.quaternion();
 
         Quaternion xRot = tempQuat.set(Vector3.AXIS_X, angle);
         rotation.multiply(xRot);
 
-        Quaternion.REUSABLE_STACK.push(tempQuat);
+        scratch.release(mark);
 
         return this;
     }
 
     public PerspCam rotateY(float angle)
     {
-        Quaternion tempQuat = Quaternion.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Quaternion tempQuat = scratch.quaternion();
 
         Quaternion yRot = tempQuat.set(Vector3.AXIS_Y, angle);
         rotation.set(yRot.multiply(rotation));
 
-        Quaternion.REUSABLE_STACK.push(tempQuat);
+        scratch.release(mark);
 
         return this;
     }
@@ -194,19 +201,19 @@ public class PerspCam extends BaseCamera
     {
         super.apply();
 
-        Vector3 tempVec3 = Vector3.REUSABLE_STACK.pop();
-        Matrix4 tempMat4 = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
 
-        Quaternion tempQuat = Quaternion.REUSABLE_STACK.pop();
+        Vector3 tempVec3 = scratch.vector3();
+        Matrix4 tempMat4 = scratch.matrix4();
+
+        Quaternion tempQuat = scratch.quaternion();
 
         mView.initIdentity()
                 .multiply(Transforms.createRotation(tempQuat.set(rotation).invert(), tempMat4))
                 .multiply(Transforms.createTranslation(tempVec3.set(position).negate(), tempMat4));
 
-        Vector3.REUSABLE_STACK.push(tempVec3);
-        Matrix4.REUSABLE_STACK.push(tempMat4);
-
-        Quaternion.REUSABLE_STACK.push(tempQuat);
+        scratch.release(mark);
 
         // Enable Depth Testing
         GLContext.enable(GL_DEPTH_TEST);
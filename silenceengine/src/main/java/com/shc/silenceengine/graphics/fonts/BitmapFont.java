@@ -50,8 +50,10 @@ public class BitmapFont implements IFont
     public final Common common;
 
     private final Map<Char, Map<Char, Integer>> kerningPairs = new HashMap<>();
+    private final Map<Integer, FilePath>        pageFiles    = new HashMap<>();
 
     private boolean hadKerning = false;
+    private boolean ownsPages  = true;
 
     private BitmapFont(Info info, Common common)
     {
@@ -63,110 +65,14 @@ public class BitmapFont implements IFont
     {
         SilenceEngine.io.getFileReader().readTextFile(fontDesc, xmlString ->
         {
-            XmlTag font = Xml.parse(xmlString);
-
-            Info info = new Info();
-            XmlTag infoTag = font.getTagsByName("info").get(0);
-
-            info.face = infoTag.getAttribute("face").value;
-            info.size = Integer.parseInt(infoTag.getAttribute("size").value);
-            info.bold = Boolean.parseBoolean(infoTag.getAttribute("bold").value);
-            info.italic = Boolean.parseBoolean(infoTag.getAttribute("italic").value);
-            info.charset = infoTag.getAttribute("charset").value;
-            info.unicode = Boolean.parseBoolean(infoTag.getAttribute("unicode").value);
-            info.stretchH = Double.parseDouble(infoTag.getAttribute("stretchH").value);
-            info.smooth = Boolean.parseBoolean(infoTag.getAttribute("smooth").value);
-            info.aa = Integer.parseInt(infoTag.getAttribute("aa").value);
-
-            String[] padding = infoTag.getAttribute("padding").value.split(",");
-            String[] spacing = infoTag.getAttribute("spacing").value.split(",");
-
-            info.padding.set(
-                    Float.parseFloat(padding[0]),
-                    Float.parseFloat(padding[1]),
-                    Float.parseFloat(padding[2]),
-                    Float.parseFloat(padding[3])
-            );
-
-            info.spacing.set(
-                    Float.parseFloat(spacing[0]),
-                    Float.parseFloat(spacing[1])
-            );
-
-            info.outline = Integer.parseInt(infoTag.getAttribute("outline").value);
-
-            Common common = new Common();
-            XmlTag commonTag = font.getTagsByName("common").get(0);
-
-            common.lineHeight = Integer.parseInt(commonTag.getAttribute("lineHeight").value);
-            common.base = Integer.parseInt(commonTag.getAttribute("base").value);
-            common.scaleW = Integer.parseInt(commonTag.getAttribute("scaleW").value);
-            common.scaleH = Integer.parseInt(commonTag.getAttribute("scaleH").value);
-            common.pages = Integer.parseInt(commonTag.getAttribute("pages").value);
-            common.packed = Integer.parseInt(commonTag.getAttribute("packed").value);
-            common.alphaChnl = Integer.parseInt(commonTag.getAttribute("alphaChnl").value);
-            common.redChnl = Integer.parseInt(commonTag.getAttribute("redChnl").value);
-            common.greenChnl = Integer.parseInt(commonTag.getAttribute("greenChnl").value);
-            common.blueChnl = Integer.parseInt(commonTag.getAttribute("blueChnl").value);
-
-            BitmapFont bitmapFont = new BitmapFont(info, common);
-
-            XmlTag charsTag = font.getTagsByName("chars").get(0);
-
-            for (XmlTag charTag : charsTag.children)
-            {
-                Char fChar = new Char();
-
-                fChar.id = Integer.parseInt(charTag.getAttribute("id").value);
-                fChar.x = Integer.parseInt(charTag.getAttribute("x").value);
-                fChar.y = Integer.parseInt(charTag.getAttribute("y").value);
-                fChar.height = Integer.parseInt(charTag.getAttribute("height").value);
-                fChar.width = Integer.parseInt(charTag.getAttribute("width").value);
-                fChar.xOffset = Integer.parseInt(charTag.getAttribute("xoffset").value);
-                fChar.yOffset = Integer.parseInt(charTag.getAttribute("yoffset").value);
-                fChar.xAdvance = Integer.parseInt(charTag.getAttribute("xadvance").value);
-                fChar.page = Integer.parseInt(charTag.getAttribute("page").value);
-                fChar.chnl = Integer.parseInt(charTag.getAttribute("chnl").value);
-
-                bitmapFont.chars.put(fChar.id, fChar);
-            }
-
-            List<XmlTag> kerningTags = font.getTagsByName("kernings");
-            if (kerningTags.size() == 1)
-            {
-                // There is kerning support for this font.
-                bitmapFont.hadKerning = true;
-
-                // Initialize kerning pairs
-                for (Char a : bitmapFont.chars.values())
-                {
-                    bitmapFont.kerningPairs.put(a, new HashMap<>());
-
-                    for (Char b : bitmapFont.chars.values())
-                        bitmapFont.kerningPairs.get(a).put(b, 0);
-                }
-
-                for (XmlTag kerningTag : kerningTags.get(0).children)
-                {
-                    int first = Integer.parseInt(kerningTag.getAttribute("first").value);
-                    int second = Integer.parseInt(kerningTag.getAttribute("second").value);
-                    int amount = Integer.parseInt(kerningTag.getAttribute("amount").value);
-
-                    Char fChar = bitmapFont.chars.get(first);
-                    Char sChar = bitmapFont.chars.get(second);
-
-                    bitmapFont.kerningPairs.get(fChar).put(sChar, amount);
-                }
-            }
-
-            XmlTag pagesTag = font.getTagsByName("pages").get(0);
+            BitmapFont bitmapFont = parse(fontDesc, xmlString);
 
             SimpleCallback loadingCallback = () -> callback.invoke(bitmapFont);
 
-            for (XmlTag page : pagesTag.children)
+            for (Map.Entry<Integer, FilePath> page : bitmapFont.pageFiles.entrySet())
             {
-                int id = Integer.parseInt(page.getAttribute("id").value);
-                FilePath file = fontDesc.getParent().getChild(page.getAttribute("file").value);
+                int id = page.getKey();
+                FilePath file = page.getValue();
 
                 // Just because variable used in lambda should be effectively final.
                 SimpleCallback finalLoadingCallback = loadingCallback;
@@ -189,6 +95,143 @@ public class BitmapFont implements IFont
         });
     }
 
+    /**
+     * Parses a font description without loading its pages. The files of the pages are available from {@link
+     * #getPageFiles()}, and the loaded textures have to be put in {@link #pages} before the font is used.
+     *
+     * @param fontDesc  The path of the font description, which the page files are relative to.
+     * @param xmlString The contents of the font description.
+     *
+     * @return The parsed font, without any pages.
+     */
+    public static BitmapFont parse(FilePath fontDesc, String xmlString)
+    {
+        XmlTag font = Xml.parse(xmlString);
+
+        Info info = new Info();
+        XmlTag infoTag = font.getTagsByName("info").get(0);
+
+        info.face = infoTag.getAttribute("face").value;
+        info.size = Integer.parseInt(infoTag.getAttribute("size").value);
+        info.bold = Boolean.parseBoolean(infoTag.getAttribute("bold").value);
+        info.italic = Boolean.parseBoolean(infoTag.getAttribute("italic").value);
+        info.charset = infoTag.getAttribute("charset").value;
+        info.unicode = Boolean.parseBoolean(infoTag.getAttribute("unicode").value);
+        info.stretchH = Double.parseDouble(infoTag.getAttribute("stretchH").value);
+        info.smooth = Boolean.parseBoolean(infoTag.getAttribute("smooth").value);
+        info.aa = Integer.parseInt(infoTag.getAttribute("aa").value);
+
+        String[] padding = infoTag.getAttribute("padding").value.split(",");
+        String[] spacing = infoTag.getAttribute("spacing").value.split(",");
+
+        info.padding.set(
+                Float.parseFloat(padding[0]),
+                Float.parseFloat(padding[1]),
+                Float.parseFloat(padding[2]),
+                Float.parseFloat(padding[3])
+        );
+
+        info.spacing.set(
+                Float.parseFloat(spacing[0]),
+                Float.parseFloat(spacing[1])
+        );
+
+        info.outline = Integer.parseInt(infoTag.getAttribute("outline").value);
+
+        Common common = new Common();
+        XmlTag commonTag = font.getTagsByName("common").get(0);
+
+        common.lineHeight = Integer.parseInt(commonTag.getAttribute("lineHeight").value);
+        common.base = Integer.parseInt(commonTag.getAttribute("base").value);
+        common.scaleW = Integer.parseInt(commonTag.getAttribute("scaleW").value);
+        common.scaleH = Integer.parseInt(commonTag.getAttribute("scaleH").value);
+        common.pages = Integer.parseInt(commonTag.getAttribute("pages").value);
+        common.packed = Integer.parseInt(commonTag.getAttribute("packed").value);
+        common.alphaChnl = Integer.parseInt(commonTag.getAttribute("alphaChnl").value);
+        common.redChnl = Integer.parseInt(commonTag.getAttribute("redChnl").value);
+        common.greenChnl = Integer.parseInt(commonTag.getAttribute("greenChnl").value);
+        common.blueChnl = Integer.parseInt(commonTag.getAttribute("blueChnl").value);
+
+        BitmapFont bitmapFont = new BitmapFont(info, common);
+
+        XmlTag charsTag = font.getTagsByName("chars").get(0);
+
+        for (XmlTag charTag : charsTag.children)
+        {
+            Char fChar = new Char();
+
+            fChar.id = Integer.parseInt(charTag.getAttribute("id").value);
+            fChar.x = Integer.parseInt(charTag.getAttribute("x").value);
+            fChar.y = Integer.parseInt(charTag.getAttribute("y").value);
+            fChar.height = Integer.parseInt(charTag.getAttribute("height").value);
+            fChar.width = Integer.parseInt(charTag.getAttribute("width").value);
+            fChar.xOffset = Integer.parseInt(charTag.getAttribute("xoffset").value);
+            fChar.yOffset = Integer.parseInt(charTag.getAttribute("yoffset").value);
+            fChar.xAdvance = Integer.parseInt(charTag.getAttribute("xadvance").value);
+            fChar.page = Integer.parseInt(charTag.getAttribute("page").value);
+            fChar.chnl = Integer.parseInt(charTag.getAttribute("chnl").value);
+
+            bitmapFont.chars.put(fChar.id, fChar);
+        }
+
+        List<XmlTag> kerningTags = font.getTagsByName("kernings");
+        if (kerningTags.size() == 1)
+        {
+            // There is kerning support for this font.
+            bitmapFont.hadKerning = true;
+
+            // Initialize kerning pairs
+            for (Char a : bitmapFont.chars.values())
+            {
+                bitmapFont.kerningPairs.put(a, new HashMap<>());
+
+                for (Char b : bitmapFont.chars.values())
+                    bitmapFont.kerningPairs.get(a).put(b, 0);
+            }
+
+            for (XmlTag kerningTag : kerningTags.get(0).children)
+            {
+                int first = Integer.parseInt(kerningTag.getAttribute("first").value);
+                int second = Integer.parseInt(kerningTag.getAttribute("second").value);
+                int amount = Integer.parseInt(kerningTag.getAttribute("amount").value);
+
+                Char fChar = bitmapFont.chars.get(first);
+                Char sChar = bitmapFont.chars.get(second);
+
+                bitmapFont.kerningPairs.get(fChar).put(sChar, amount);
+            }
+        }
+
+        XmlTag pagesTag = font.getTagsByName("pages").get(0);
+
+        for (XmlTag page : pagesTag.children)
+        {
+            int id = Integer.parseInt(page.getAttribute("id").value);
+            bitmapFont.pageFiles.put(id, fontDesc.getParent().getChild(page.getAttribute("file").value));
+        }
+
+        return bitmapFont;
+    }
+
+    /**
+     * @return The files of the pages of this font, mapped by the page id.
+     */
+    public Map<Integer, FilePath> getPageFiles()
+    {
+        return pageFiles;
+    }
+
+    /**
+     * Sets whether the page textures are owned by this font, and are disposed with it. The pages are not owned when
+     * they are shared with other resources, like the ones loaded by a ResourceLoader.
+     *
+     * @param ownsPages Whether this font should dispose its pages.
+     */
+    public void setOwnsPages(boolean ownsPages)
+    {
+        this.ownsPages = ownsPages;
+    }
+
     public int getKerning(Char first, Char second)
     {
         return hadKerning ? kerningPairs.get(first).get(second) : 0;
@@ -196,8 +239,9 @@ public class BitmapFont implements IFont
 
     public void dispose()
     {
-        for (Texture page : pages.values())
-            page.dispose();
+        if (ownsPages)
+            for (Texture page : pages.values())
+                page.dispose();
     }
 
     @Override
@@ -26,7 +26,7 @@ package com.shc.silenceengine.graphics.fonts;
 
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.DynamicRenderer;
-import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.VertexFormat;
 import com.shc.silenceengine.graphics.programs.FontProgram;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.utils.functional.UniCallback;
@@ -46,7 +46,7 @@ public class BitmapFontRenderer
 
     public static void create(UniCallback<BitmapFontRenderer> callback)
     {
-        create(callback, new DynamicRenderer(100), true);
+        create(callback, new DynamicRenderer(100, VertexFormat.POSITION_COLOR_TEXCOORD), true);
     }
 
     public static void create(UniCallback<BitmapFontRenderer> callback, DynamicRenderer renderer)
@@ -71,7 +71,7 @@ public class BitmapFontRenderer
     {
         fontProgram.use();
         fontProgram.applyToRenderer(renderer);
-        renderer.begin(Primitive.TRIANGLES);
+        renderer.beginQuads();
     }
 
     public void flush()
@@ -130,31 +130,8 @@ public class BitmapFontRenderer
             float u2 = sRight / font.common.scaleW;
             float v2 = sBot / font.common.scaleH;
 
-            renderer.flushOnOverflow(6);
-
-            renderer.vertex(dLeft, dTop);
-            renderer.texCoord(u1, v1);
-            renderer.color(color);
-
-            renderer.vertex(dRight, dTop);
-            renderer.texCoord(u2, v1);
-            renderer.color(color);
-
-            renderer.vertex(dLeft, dBot);
-            renderer.texCoord(u1, v2);
-            renderer.color(color);
-
-            renderer.vertex(dRight, dTop);
-            renderer.texCoord(u2, v1);
-            renderer.color(color);
-
-            renderer.vertex(dRight, dBot);
-            renderer.texCoord(u2, v2);
-            renderer.color(color);
-
-            renderer.vertex(dLeft, dBot);
-            renderer.texCoord(u1, v2);
-            renderer.color(color);
+            renderer.flushOnOverflow(4);
+            renderer.emitQuad(dLeft, dTop, dRight, dBot, u1, v1, u2, v2, color);
 
             x += fChar.xAdvance;
 
@@ -25,6 +25,7 @@
 package com.shc.silenceengine.graphics.opengl;
 
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.graphics.IGraphicsDevice;
 import com.shc.silenceengine.io.DirectBuffer;
 
 import java.util.HashMap;
@@ -88,6 +89,8 @@ public class BufferObject
 
         SilenceEngine.graphics.glBufferData(target.getValue(), data, usage.getValue());
         GLError.check();
+
+        countUpload(capacity);
     }
 
     /**
@@ -95,12 +98,24 @@ public class BufferObject
      * constructor.
      */
     public void bind()
+    {
+        bind(false);
+    }
+
+    /**
+     * Binds this VertexBufferObject to the OpenGL binding point specified by the target you specified in the
+     * constructor. Forcing the bind is required for element array buffers, since that binding is a part of the state
+     * of the currently bound VertexArray.
+     *
+     * @param force Force binding the object.
+     */
+    public void bind(boolean force)
     {
         if (disposed)
             throw new GLException("BufferObject is already disposed!");
 
         // Prevent un-necessary bindings, they are costly
-        if (current.containsKey(target.getValue()) && current.get(target.getValue()) == this)
+        if (!force && current.containsKey(target.getValue()) && current.get(target.getValue()) == this)
             return;
 
         SilenceEngine.graphics.glBindBuffer(target.getValue(), id);
@@ -158,13 +173,21 @@ public class BufferObject
      */
     public void uploadSubData(DirectBuffer data, int offset, int size)
     {
-        if (capacity < data.sizeBytes() - offset)
+        if (capacity < offset + size)
             throw new GLException("Not enough capacity");
 
         bind();
 
         SilenceEngine.graphics.glBufferSubData(target.getValue(), offset, size, data);
         GLError.check();
+
+        countUpload(size);
+    }
+
+    private static void countUpload(int bytes)
+    {
+        IGraphicsDevice.Data.bytesUploadedThisFrame += bytes;
+        IGraphicsDevice.Data.totalBytesUploaded += bytes;
     }
 
     /**
@@ -117,6 +117,34 @@ public final class GLContext
 //        SilenceEngine.graphics.renderCalls++;
     }
 
+    /**
+     * Binds a {@link VertexArray} and draws multiple instances of it to the screen. The attributes with a non zero
+     * divisor advance once per instance instead of once per vertex.
+     *
+     * @param vao           The <code>VertexArray</code> to be drawn
+     * @param mode          The GL Primitive to be used for drawing
+     * @param offset        The position in the <code>vao</code> to begin drawing (Use 0 for the beginning)
+     * @param vertexCount   The amount of vertices in a single instance
+     * @param instanceCount The number of instances to draw
+     *
+     * @throws GLException If the device doesn't support instancing, like the GWT backend with WebGL 1.0. Check {@link
+     *                     #isInstancingSupported()} first.
+     */
+    public static void drawArraysInstanced(VertexArray vao, Primitive mode, int offset, int vertexCount, int instanceCount)
+    {
+        vao.bind();
+        SilenceEngine.graphics.glDrawArraysInstanced(mode.getGlPrimitive(), offset, vertexCount, instanceCount);
+        GLError.check();
+    }
+
+    /**
+     * @return True if the current graphics device supports instanced rendering.
+     */
+    public static boolean isInstancingSupported()
+    {
+        return SilenceEngine.graphics.isInstancingSupported();
+    }
+
     /**
      * Bind the VertexArray for use in OpenGL.
      *
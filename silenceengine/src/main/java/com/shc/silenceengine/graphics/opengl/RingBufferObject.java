@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.shc.silenceengine.graphics.opengl;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+
+/**
+ * A BufferObject that is used for streaming data to the GPU. The data store of the buffer is divided into a ring of
+ * segments of equal size, and every batch of data is uploaded into the next free segment. A segment is never written
+ * again until the ring wraps around, so a new batch never has to wait for the draw calls that read the previous
+ * segments to complete.
+ *
+ * <p> When all the segments are used, the data store is orphaned by re-specifying it with NULL data, and the ring
+ * starts again from the first segment. The driver hands out a fresh data store while the GPU keeps reading the old
+ * one, hence the wrap doesn't synchronize either. The only time a stream has to synchronize is when a batch is larger
+ * than a segment, in which case the data store is reallocated with bigger segments. This is counted as a stall.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class RingBufferObject
+{
+    private BufferObject bufferObject;
+
+    private int numSegments;
+    private int segmentSize;
+    private int currentSegment;
+
+    private int wraps;
+    private int stalls;
+
+    /**
+     * Creates a RingBufferObject with the specified number of segments.
+     *
+     * @param target      The target to bind the buffer object.
+     * @param numSegments The number of segments in the ring.
+     * @param segmentSize The initial size of each segment in bytes.
+     */
+    public RingBufferObject(BufferObject.Target target, int numSegments, int segmentSize)
+    {
+        if (numSegments < 1)
+            throw new SilenceException("A RingBufferObject needs at least one segment");
+
+        this.numSegments = numSegments;
+        this.segmentSize = align(segmentSize);
+
+        bufferObject = new BufferObject(target);
+        bufferObject.uploadData(this.segmentSize * numSegments, BufferObject.Usage.STREAM_DRAW);
+    }
+
+    // Segments start at offsets that are multiples of four, as required for the vertex attribute pointers
+    private static int align(int size)
+    {
+        return Math.max(4, (size + 3) & ~3);
+    }
+
+    /**
+     * Reserves the next segment in the ring to upload a batch of the specified size. The returned offset is valid
+     * until the next call to this method.
+     *
+     * @param size The size of the batch in bytes.
+     *
+     * @return The offset of the reserved segment in the data store, in bytes.
+     */
+    public int nextSegment(int size)
+    {
+        if (size > segmentSize)
+        {
+            // The batch doesn't fit, we need to reallocate the store, and this synchronizes
+            segmentSize = align(Math.max(size, segmentSize * 2));
+            bufferObject.uploadData(segmentSize * numSegments, BufferObject.Usage.STREAM_DRAW);
+
+            currentSegment = 0;
+            stalls++;
+        }
+        else if (currentSegment == numSegments)
+        {
+            // Orphan the data store, the driver allocates a new one for us
+            bufferObject.uploadData(segmentSize * numSegments, BufferObject.Usage.STREAM_DRAW);
+
+            currentSegment = 0;
+            wraps++;
+        }
+
+        return segmentSize * currentSegment++;
+    }
+
+    /**
+     * Uploads the first size bytes of the data into the specified offset of the data store. The offset should be the
+     * offset of a segment returned by the {@link #nextSegment(int)} method.
+     *
+     * @param data   The buffer containing the data to be uploaded.
+     * @param offset The offset in the data store to write the data into.
+     * @param size   The number of bytes to upload.
+     */
+    public void upload(DirectBuffer data, int offset, int size)
+    {
+        if (size == 0)
+            return;
+
+        bufferObject.uploadSubData(data, offset, size);
+    }
+
+    /**
+     * Reserves the next segment and uploads the first size bytes of the data into it.
+     *
+     * @param data The buffer containing the data to be uploaded.
+     * @param size The number of bytes to upload.
+     *
+     * @return The offset of the segment in the data store, in bytes.
+     */
+    public int upload(DirectBuffer data, int size)
+    {
+        int offset = nextSegment(size);
+        upload(data, offset, size);
+
+        return offset;
+    }
+
+    public void bind()
+    {
+        bufferObject.bind();
+    }
+
+    public void dispose()
+    {
+        bufferObject.dispose();
+    }
+
+    /**
+     * @return The underlying BufferObject, which can be used to point the vertex attributes.
+     */
+    public BufferObject getBufferObject()
+    {
+        return bufferObject;
+    }
+
+    public int getNumSegments()
+    {
+        return numSegments;
+    }
+
+    public int getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    /**
+     * @return The number of times the ring wrapped around and orphaned the data store.
+     */
+    public int getWraps()
+    {
+        return wraps;
+    }
+
+    /**
+     * @return The number of times the data store had to be reallocated because a batch didn't fit in a segment.
+     */
+    public int getStalls()
+    {
+        return stalls;
+    }
+
+    public void resetCounters()
+    {
+        wraps = 0;
+        stalls = 0;
+    }
+}
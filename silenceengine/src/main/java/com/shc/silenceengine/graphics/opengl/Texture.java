@@ -39,6 +39,9 @@ import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
  */
 public class Texture implements IResource
 {
+    // The textures bound to each of the texture units
+    private static final Texture[] boundTextures = new Texture[32];
+
     private static int activeUnit;
 
     public static Texture CURRENT;
@@ -47,6 +50,8 @@ public class Texture implements IResource
     private int     id;
     private float   width;
     private float   height;
+    private long    baseSizeBytes;
+    private boolean mipMapped;
     private boolean disposed;
 
     public Texture()
@@ -70,21 +75,21 @@ public class Texture implements IResource
         if (unit == activeUnit)
             return;
 
+        if (unit < 0 || unit >= boundTextures.length)
+            throw new SilenceException("Texture unit " + unit + " is out of range, only units 0 to "
+                                       + (boundTextures.length - 1) + " are supported");
+
         GLError.check();
         SilenceEngine.graphics.glActiveTexture(GL_TEXTURE0 + unit);
         GLError.check();
 
         activeUnit = unit;
+        CURRENT = boundTextures[unit];
     }
 
     public static Texture fromColor(Color c, int width, int height)
     {
-        Image image = new Image(width, height);
-
-        for (int y = 0; y < height; y++)
-            for (int x = 0; x < width; x++)
-                image.setPixel(x, y, c);
-
+        Image image = new Image(width, height).fill(c);
         Texture texture = fromImage(image);
 
         image.dispose();
@@ -94,37 +99,17 @@ public class Texture implements IResource
 
     public static Texture fromImage(Image image)
     {
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        DirectBuffer data = SilenceEngine.io.create(width * height * 4);
-
-        Color color = Color.REUSABLE_STACK.pop();
-
-        int index = 0;
-
-        for (int y = 0; y < height; y++)
+        // The RGBA8 pixels are uploaded as is, float images are packed to bytes first
+        if (image.getFormat() != Image.Format.RGBA8)
         {
-            for (int x = 0; x < width; x++)
-            {
-                image.getPixel(x, y, color);
-
-                int r = (int) (color.r * 255f);
-                int g = (int) (color.g * 255f);
-                int b = (int) (color.b * 255f);
-                int a = (int) (color.a * 255f);
-
-                data.writeByte(index++, (byte) r)
-                        .writeByte(index++, (byte) g)
-                        .writeByte(index++, (byte) b)
-                        .writeByte(index++, (byte) a);
-            }
-        }
+            Image packed = image.convert(Image.Format.RGBA8);
+            Texture texture = fromImage(packed);
+            packed.dispose();
 
-        Color.REUSABLE_STACK.push(color);
+            return texture;
+        }
 
-        Texture texture = fromDirectBuffer(data, width, height, 4);
-        SilenceEngine.io.free(data);
+        Texture texture = fromDirectBuffer(image.getImageData(), image.getWidth(), image.getHeight(), 4);
 
         texture.width = image.getOriginalWidth();
         texture.height = image.getOriginalHeight();
@@ -160,7 +145,7 @@ public class Texture implements IResource
         SilenceEngine.graphics.glBindTexture(GL_TEXTURE_2D, id);
         GLError.check();
 
-        CURRENT = this;
+        CURRENT = boundTextures[activeUnit] = this;
     }
 
     public void bind(int unit)
@@ -193,6 +178,25 @@ public class Texture implements IResource
 
         this.width = width;
         this.height = height;
+
+        if (level == 0)
+            baseSizeBytes = (long) width * height * bytesPerPixel(internalFormat);
+    }
+
+    private static int bytesPerPixel(int internalFormat)
+    {
+        switch (internalFormat)
+        {
+            case GL_ALPHA:
+            case GL_LUMINANCE:
+                return 1;
+
+            case GL_RGB:
+                return 3;
+
+            default:
+                return 4;
+        }
     }
 
     public void generateMipMaps()
@@ -200,6 +204,9 @@ public class Texture implements IResource
         bind();
         SilenceEngine.graphics.glGenerateMipmap(GL_TEXTURE_2D);
         GLError.check();
+
+        // Generating again replaces the chain, so it is only counted once in the size
+        mipMapped = true;
     }
 
     public void setWrapping(int s)
@@ -262,6 +269,16 @@ public class Texture implements IResource
         return height;
     }
 
+    /**
+     * @return An estimate of the video memory used by this texture in bytes, computed from the size and the internal
+     * format of its base level, including the mip levels if they are generated.
+     */
+    public long getSizeBytes()
+    {
+        // The whole chain of mip levels takes a third more than the base level
+        return mipMapped ? baseSizeBytes + baseSizeBytes / 3 : baseSizeBytes;
+    }
+
     public float getMinU()
     {
         return 0;
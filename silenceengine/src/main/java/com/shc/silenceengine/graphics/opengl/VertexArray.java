@@ -155,6 +155,20 @@ public class VertexArray
         GLError.check();
     }
 
+    /**
+     * Sets the rate at which the attribute advances during instanced rendering. A divisor of zero advances the
+     * attribute once per vertex, and a divisor of N advances it once every N instances.
+     *
+     * @param index   The index of the vertex attribute
+     * @param divisor The number of instances that share a single value of the attribute
+     */
+    public void setAttributeDivisor(int index, int divisor)
+    {
+        bind();
+        SilenceEngine.graphics.glVertexAttribDivisor(index, divisor);
+        GLError.check();
+    }
+
     /**
      * Disposes this VertexArrayObject. This method should be called once you no longer need to use this
      * VertexArrayObject. Disposed vertex array objects throw GLException if used again.
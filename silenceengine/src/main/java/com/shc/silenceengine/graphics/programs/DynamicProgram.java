@@ -77,6 +77,7 @@ public class DynamicProgram extends Program
         dynamicRenderer.setColorLocation(getAttribute(COLOR_ATTRIB));
         dynamicRenderer.setTexCoordLocation(getAttribute(TEXCOORD_ATTRIB));
         dynamicRenderer.setNormalLocation(-1);
+        dynamicRenderer.setTexIndexLocation(-1);
     }
 
     @Override
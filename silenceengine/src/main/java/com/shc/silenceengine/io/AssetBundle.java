@@ -0,0 +1,507 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.io;
+
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.Image;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single file that packs many assets, which is memory mapped and serves its files without copying them. Images are
+ * stored decoded as RGBA8 pixels, and sounds as PCM samples, so they are uploaded to the GPU and to OpenAL straight
+ * from the memory of the bundle, without decoding them on every launch. All the other files are stored as they are.
+ * Bundles are created offline with a packer, and the {@link Builder} is used to write them.
+ *
+ * <p> The files of a bundle are accessed with the {@link FilePath}s returned by {@link #getFile(String)}, which work
+ * with the {@link FileReader}, the {@link ImageReader}, and the {@link com.shc.silenceengine.core.ResourceLoader}
+ * like any other path. Paths in the files that are relative to each other, like the tilesets of a map or the pages of
+ * a font, are resolved inside the bundle.</p>
+ *
+ * <p> A bundle starts with a header of four ints: the magic number, the version, the number of entries and the size
+ * of the index. The index follows the header, and has the kind, the offset, the size, three parameters and the name of
+ * every entry, with the name padded to four bytes. The data of the entries is aligned to {@link #ALIGNMENT} bytes. All
+ * the values are stored in the native byte order, which is little endian on all the supported platforms.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AssetBundle implements IResource
+{
+    /**
+     * The magic number at the start of every bundle, the bytes {@code SEAB} when read as a little endian int.
+     */
+    public static final int MAGIC = 0x42414553;
+
+    public static final int VERSION = 1;
+
+    /**
+     * The alignment of the data of every entry in bytes.
+     */
+    public static final int ALIGNMENT = 16;
+
+    private static final int HEADER_SIZE     = 16;
+    private static final int ENTRY_INFO_SIZE = 28;
+
+    private final FilePath     file;
+    private final DirectBuffer data;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Opens a bundle from its contents.
+     *
+     * @param file The file of the bundle.
+     * @param data The contents of the bundle, which is owned by the bundle from now on.
+     *
+     * @throws SilenceException If the data is not a bundle, or is of an unsupported version.
+     */
+    public AssetBundle(FilePath file, DirectBuffer data)
+    {
+        this.file = file;
+        this.data = data;
+
+        if (data.sizeBytes() < HEADER_SIZE || data.readInt(0) != MAGIC)
+            throw new SilenceException("The file " + file.getPath() + " is not an asset bundle");
+
+        int version = data.readInt(4);
+
+        if (version != VERSION)
+            throw new SilenceException("Unsupported asset bundle version " + version + " in " + file.getPath());
+
+        int entryCount = data.readInt(8);
+        int position = HEADER_SIZE;
+
+        for (int i = 0; i < entryCount; i++)
+        {
+            Entry entry = new Entry();
+
+            entry.kind = Kind.values()[data.readInt(position)];
+            entry.offset = data.readInt(position + 4);
+            entry.size = data.readInt(position + 8);
+            entry.param0 = data.readInt(position + 12);
+            entry.param1 = data.readInt(position + 16);
+            entry.param2 = data.readInt(position + 20);
+
+            int nameLength = data.readInt(position + 24);
+            byte[] name = new byte[nameLength];
+            data.read(position + ENTRY_INFO_SIZE, name, 0, nameLength);
+
+            entry.name = decodeString(name);
+            entries.put(entry.name, entry);
+
+            position += ENTRY_INFO_SIZE + align(nameLength, 4);
+        }
+    }
+
+    /**
+     * Loads a bundle, memory mapping it if the backend can.
+     *
+     * @param file     The file of the bundle.
+     * @param onLoaded The callback to invoke with the bundle.
+     */
+    public static void load(FilePath file, UniCallback<AssetBundle> onLoaded)
+    {
+        SilenceEngine.io.getFileReader().mapBinaryFile(file, data -> onLoaded.invoke(new AssetBundle(file, data)));
+    }
+
+    private static int align(int value, int alignment)
+    {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static String decodeString(byte[] bytes)
+    {
+        try
+        {
+            return new String(bytes, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new SilenceException(e.getMessage());
+        }
+    }
+
+    private static byte[] encodeString(String string)
+    {
+        try
+        {
+            return string.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new SilenceException(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the path of a file in this bundle. The path can be used even if the file doesn't exist, in which case it
+     * can still be used to resolve other paths.
+     *
+     * @param name The name of the file, relative to the root of the bundle.
+     *
+     * @return The path of the file.
+     */
+    public FilePath getFile(String name)
+    {
+        return new BundleFilePath(this, name);
+    }
+
+    /**
+     * @param name The name of the file, relative to the root of the bundle.
+     *
+     * @return The entry of the file, or null if there is no such file in this bundle.
+     */
+    public Entry getEntry(String name)
+    {
+        return entries.get(name);
+    }
+
+    public Collection<Entry> getEntries()
+    {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Gets the data of an entry, which is a view of the memory of this bundle. The data is read only if the bundle is
+     * memory mapped, and is valid until this bundle is disposed.
+     *
+     * @param entry The entry of this bundle.
+     *
+     * @return The data of the entry.
+     */
+    public DirectBuffer getData(Entry entry)
+    {
+        return data.slice(entry.offset, entry.size);
+    }
+
+    /**
+     * Gets the data of an entry decoded as UTF-8 text.
+     *
+     * @param entry The entry of this bundle.
+     *
+     * @return The text of the entry.
+     */
+    public String getText(Entry entry)
+    {
+        byte[] bytes = new byte[entry.size];
+        data.read(entry.offset, bytes, 0, entry.size);
+
+        return decodeString(bytes);
+    }
+
+    /**
+     * Gets the image of an image entry. The pixels of the image are not copied, so it shares the lifetime of this
+     * bundle, and is read only if the bundle is memory mapped.
+     *
+     * @param entry An image entry of this bundle.
+     *
+     * @return The image of the entry.
+     */
+    public Image getImage(Entry entry)
+    {
+        if (entry.kind != Kind.IMAGE)
+            throw new SilenceException("The entry " + entry.name + " is not an image");
+
+        return new Image(entry.getWidth(), entry.getHeight(), entry.getWidth(), entry.getHeight(), getData(entry));
+    }
+
+    /**
+     * Creates an OpenAL buffer from the samples of a PCM entry.
+     *
+     * @param entry A PCM entry of this bundle.
+     *
+     * @return A new OpenAL buffer with the samples of the entry.
+     */
+    public ALBuffer createALBuffer(Entry entry)
+    {
+        if (entry.kind != Kind.PCM)
+            throw new SilenceException("The entry " + entry.name + " is not PCM audio");
+
+        ALBuffer buffer = new ALBuffer();
+        buffer.uploadData(getData(entry), entry.getFormat(), entry.getSampleRate());
+
+        return buffer;
+    }
+
+    public FilePath getBundleFile()
+    {
+        return file;
+    }
+
+    /**
+     * Frees the memory of this bundle. The data of the entries, and the images from it, are no longer valid after
+     * this.
+     */
+    @Override
+    public void dispose()
+    {
+        SilenceEngine.io.free(data);
+    }
+
+    /**
+     * The kinds of the entries of a bundle.
+     */
+    public enum Kind
+    {
+        /**
+         * A file that is stored as it is.
+         */
+        RAW,
+
+        /**
+         * An image that is stored as RGBA8 pixels. The parameters are the width and the height.
+         */
+        IMAGE,
+
+        /**
+         * Audio that is stored as PCM samples. The parameters are the OpenAL format and the sample rate.
+         */
+        PCM
+    }
+
+    /**
+     * A file in a bundle.
+     */
+    public static class Entry
+    {
+        private String name;
+        private Kind   kind;
+        private int    offset;
+        private int    size;
+        private int    param0;
+        private int    param1;
+        private int    param2;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public Kind getKind()
+        {
+            return kind;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+
+        public int getWidth()
+        {
+            return param0;
+        }
+
+        public int getHeight()
+        {
+            return param1;
+        }
+
+        public ALFormat getFormat()
+        {
+            return ALFormat.values()[param0];
+        }
+
+        public int getSampleRate()
+        {
+            return param1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Entry{" +
+                   "name='" + name + '\'' +
+                   ", kind=" + kind +
+                   ", size=" + size +
+                   '}';
+        }
+    }
+
+    /**
+     * Writes the entries of a bundle into a buffer. The builder doesn't need the engine to be running, so it can be
+     * used by offline packers with buffers they allocate themselves.
+     */
+    public static class Builder
+    {
+        private List<Entry>        entries = new ArrayList<>();
+        private List<DirectBuffer> data    = new ArrayList<>();
+
+        private Builder add(String name, Kind kind, DirectBuffer buffer, int param0, int param1)
+        {
+            for (Entry entry : entries)
+                if (entry.name.equals(name))
+                    throw new SilenceException("Duplicate entry " + name + " in the asset bundle");
+
+            Entry entry = new Entry();
+            entry.name = name;
+            entry.kind = kind;
+            entry.size = buffer.sizeBytes();
+            entry.param0 = param0;
+            entry.param1 = param1;
+
+            entries.add(entry);
+            data.add(buffer);
+
+            return this;
+        }
+
+        /**
+         * Adds a file that is stored as it is.
+         *
+         * @param name The name of the file, relative to the root of the bundle.
+         * @param data The contents of the file.
+         *
+         * @return This builder, for chaining.
+         */
+        public Builder addRaw(String name, DirectBuffer data)
+        {
+            return add(name, Kind.RAW, data, 0, 0);
+        }
+
+        /**
+         * Adds a decoded image.
+         *
+         * @param name   The name of the image, relative to the root of the bundle.
+         * @param width  The width of the image in pixels.
+         * @param height The height of the image in pixels.
+         * @param pixels The pixels of the image, in the RGBA8 format.
+         *
+         * @return This builder, for chaining.
+         */
+        public Builder addImage(String name, int width, int height, DirectBuffer pixels)
+        {
+            if (pixels.sizeBytes() != width * height * 4)
+                throw new SilenceException("The pixels of " + name + " are not of the size of an RGBA8 image");
+
+            return add(name, Kind.IMAGE, pixels, width, height);
+        }
+
+        /**
+         * Adds decoded audio.
+         *
+         * @param name       The name of the audio, relative to the root of the bundle.
+         * @param format     The format of the samples.
+         * @param sampleRate The sample rate in Hz.
+         * @param samples    The PCM samples.
+         *
+         * @return This builder, for chaining.
+         */
+        public Builder addPCM(String name, ALFormat format, int sampleRate, DirectBuffer samples)
+        {
+            return add(name, Kind.PCM, samples, format.ordinal(), sampleRate);
+        }
+
+        // Computes the offsets of the entries, and returns the size of the index
+        private int layout()
+        {
+            int indexSize = 0;
+
+            for (Entry entry : entries)
+                indexSize += ENTRY_INFO_SIZE + align(encodeString(entry.name).length, 4);
+
+            int offset = align(HEADER_SIZE + indexSize, ALIGNMENT);
+
+            for (Entry entry : entries)
+            {
+                entry.offset = offset;
+                offset = align(offset + entry.size, ALIGNMENT);
+            }
+
+            return indexSize;
+        }
+
+        /**
+         * @return The size of the bundle in bytes, which is the size of the buffer that is needed to build it.
+         */
+        public int getSizeBytes()
+        {
+            layout();
+
+            if (entries.isEmpty())
+                return HEADER_SIZE;
+
+            Entry last = entries.get(entries.size() - 1);
+            return last.offset + last.size;
+        }
+
+        /**
+         * Writes the bundle into a buffer.
+         *
+         * @param target The buffer to write into, which should be at least {@link #getSizeBytes()} bytes in size.
+         *
+         * @return The buffer, for chaining.
+         */
+        public DirectBuffer build(DirectBuffer target)
+        {
+            int indexSize = layout();
+
+            if (target.sizeBytes() < getSizeBytes())
+                throw new SilenceException("The buffer is too small for the asset bundle");
+
+            target.fill(0, target.sizeBytes(), (byte) 0);
+
+            target.writeInt(0, MAGIC);
+            target.writeInt(4, VERSION);
+            target.writeInt(8, entries.size());
+            target.writeInt(12, indexSize);
+
+            int position = HEADER_SIZE;
+
+            for (int i = 0; i < entries.size(); i++)
+            {
+                Entry entry = entries.get(i);
+                byte[] name = encodeString(entry.name);
+
+                target.writeInt(position, entry.kind.ordinal());
+                target.writeInt(position + 4, entry.offset);
+                target.writeInt(position + 8, entry.size);
+                target.writeInt(position + 12, entry.param0);
+                target.writeInt(position + 16, entry.param1);
+                target.writeInt(position + 20, entry.param2);
+                target.writeInt(position + 24, name.length);
+                target.write(position + ENTRY_INFO_SIZE, name, 0, name.length);
+
+                position += ENTRY_INFO_SIZE + align(name.length, 4);
+
+                data.get(i).copyTo(0, target, entry.offset, entry.size);
+            }
+
+            return target;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.io;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.Image;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A path to a file in an {@link AssetBundle}. The files are read only, and are read straight from the memory of the
+ * bundle. The type of the path is the type of the file of the bundle.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class BundleFilePath extends FilePath
+{
+    private final AssetBundle bundle;
+
+    BundleFilePath(AssetBundle bundle, String name)
+    {
+        super(normalize(name), bundle.getBundleFile().getType());
+        this.bundle = bundle;
+    }
+
+    // Resolves the . and .. parts of a name, so that the relative paths in the files of the bundle find their entries
+    private static String normalize(String name)
+    {
+        List<String> parts = new ArrayList<>();
+
+        for (String part : name.replaceAll("\\\\", "" + SEPARATOR).split("" + SEPARATOR))
+        {
+            if (part.isEmpty() || part.equals("."))
+                continue;
+
+            if (part.equals(".."))
+            {
+                if (!parts.isEmpty())
+                    parts.remove(parts.size() - 1);
+            }
+            else
+                parts.add(part);
+        }
+
+        StringBuilder path = new StringBuilder();
+
+        for (String part : parts)
+        {
+            if (path.length() > 0)
+                path.append(SEPARATOR);
+
+            path.append(part);
+        }
+
+        return path.toString();
+    }
+
+    /**
+     * @return The entry of this file, or null if it doesn't exist in the bundle.
+     */
+    public AssetBundle.Entry getEntry()
+    {
+        return bundle.getEntry(path);
+    }
+
+    private AssetBundle.Entry getExistingEntry()
+    {
+        AssetBundle.Entry entry = getEntry();
+
+        if (entry == null)
+            throw new SilenceException("The file " + path + " doesn't exist in the bundle "
+                                       + bundle.getBundleFile().getPath());
+
+        return entry;
+    }
+
+    public AssetBundle getBundle()
+    {
+        return bundle;
+    }
+
+    /**
+     * @return The contents of this file, which is a view of the memory of the bundle.
+     */
+    public DirectBuffer getData()
+    {
+        return bundle.getData(getExistingEntry());
+    }
+
+    /**
+     * @return The contents of this file as UTF-8 text.
+     */
+    public String getText()
+    {
+        return bundle.getText(getExistingEntry());
+    }
+
+    /**
+     * @return True if this file is an image that is stored decoded in the bundle.
+     */
+    public boolean isDecodedImage()
+    {
+        AssetBundle.Entry entry = getEntry();
+        return entry != null && entry.getKind() == AssetBundle.Kind.IMAGE;
+    }
+
+    /**
+     * @return True if this file is audio that is stored as PCM samples in the bundle.
+     */
+    public boolean isDecodedAudio()
+    {
+        AssetBundle.Entry entry = getEntry();
+        return entry != null && entry.getKind() == AssetBundle.Kind.PCM;
+    }
+
+    /**
+     * @return The image of this file, without copying its pixels.
+     */
+    public Image getImage()
+    {
+        return bundle.getImage(getExistingEntry());
+    }
+
+    @Override
+    public boolean exists()
+    {
+        return isFile() || isDirectory();
+    }
+
+    @Override
+    public boolean isDirectory()
+    {
+        if (path.isEmpty())
+            return true;
+
+        String prefix = path + SEPARATOR;
+
+        for (AssetBundle.Entry entry : bundle.getEntries())
+            if (entry.getName().startsWith(prefix))
+                return true;
+
+        return false;
+    }
+
+    @Override
+    public boolean isFile()
+    {
+        return getEntry() != null;
+    }
+
+    @Override
+    public void copyTo(FilePath path)
+    {
+        throw new SilenceException("Files in an asset bundle cannot be copied");
+    }
+
+    @Override
+    public void moveTo(FilePath path)
+    {
+        throw new SilenceException("Files in an asset bundle are read only");
+    }
+
+    @Override
+    public void mkdirs()
+    {
+        throw new SilenceException("Files in an asset bundle are read only");
+    }
+
+    @Override
+    public void createFile()
+    {
+        throw new SilenceException("Files in an asset bundle are read only");
+    }
+
+    @Override
+    public FilePath getParent()
+    {
+        int index = path.lastIndexOf(SEPARATOR);
+        return new BundleFilePath(bundle, index < 0 ? "" : path.substring(0, index));
+    }
+
+    @Override
+    public FilePath getChild(String path)
+    {
+        if (isFile())
+            throw new SilenceException("Cannot get a child for a file.");
+
+        return new BundleFilePath(bundle, this.path + SEPARATOR + path);
+    }
+
+    @Override
+    public String getAbsolutePath()
+    {
+        return bundle.getBundleFile().getAbsolutePath() + "!" + SEPARATOR + path;
+    }
+
+    @Override
+    public boolean delete()
+    {
+        throw new SilenceException("Files in an asset bundle are read only");
+    }
+
+    @Override
+    public void deleteOnExit()
+    {
+        throw new SilenceException("Files in an asset bundle are read only");
+    }
+
+    @Override
+    public long sizeInBytes()
+    {
+        AssetBundle.Entry entry = getEntry();
+
+        if (entry != null)
+            return entry.getSize();
+
+        if (!isDirectory())
+            return -1;
+
+        long size = 0;
+        String prefix = path.isEmpty() ? "" : path + SEPARATOR;
+
+        for (AssetBundle.Entry child : bundle.getEntries())
+            if (child.getName().startsWith(prefix))
+                size += child.getSize();
+
+        return size;
+    }
+
+    @Override
+    public List<FilePath> listFiles()
+    {
+        if (!isDirectory())
+            throw new SilenceException("Cannot list files in a non directory.");
+
+        String prefix = path.isEmpty() ? "" : path + SEPARATOR;
+        List<FilePath> children = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        for (AssetBundle.Entry entry : bundle.getEntries())
+        {
+            if (!entry.getName().startsWith(prefix))
+                continue;
+
+            // Only the direct children, the files in the subdirectories are listed as the subdirectory
+            String rest = entry.getName().substring(prefix.length());
+            int index = rest.indexOf(SEPARATOR);
+            String name = index < 0 ? rest : rest.substring(0, index);
+
+            if (!names.contains(name))
+            {
+                names.add(name);
+                children.add(new BundleFilePath(bundle, prefix + name));
+            }
+        }
+
+        return Collections.unmodifiableList(children);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * super.hashCode() + bundle.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return super.equals(o) && bundle == ((BundleFilePath) o).bundle;
+    }
+}
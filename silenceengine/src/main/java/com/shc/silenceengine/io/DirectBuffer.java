@@ -27,6 +27,11 @@ package com.shc.silenceengine.io;
 import com.shc.silenceengine.core.SilenceEngine;
 
 /**
+ * A block of native memory that can be passed to the graphics and audio APIs. Values can be read and written one at a
+ * time with the typed read and write methods, or in bulk from and to Java arrays with the {@code read} and
+ * {@code write} methods. The bulk methods are implemented with the native bulk transfers of every backend, and should
+ * be preferred over looping when transferring more than a handful of values.
+ *
  * @author Sri Harsha Chilakapati
  */
 public abstract class DirectBuffer
@@ -41,9 +46,7 @@ public abstract class DirectBuffer
     public static DirectBuffer wrap(byte... data)
     {
         DirectBuffer buffer = create(data.length);
-
-        for (int i = 0; i < data.length; i++)
-            buffer.writeByte(i, data[i]);
+        buffer.write(0, data, 0, data.length);
 
         return buffer;
     }
@@ -51,9 +54,7 @@ public abstract class DirectBuffer
     public static DirectBuffer wrap(short... data)
     {
         DirectBuffer buffer = create(data.length * PrimitiveSize.SHORT);
-
-        for (int i = 0; i < data.length; i++)
-            buffer.writeShort(i * PrimitiveSize.SHORT, data[i]);
+        buffer.write(0, data, 0, data.length);
 
         return buffer;
     }
@@ -61,9 +62,7 @@ public abstract class DirectBuffer
     public static DirectBuffer wrap(int... data)
     {
         DirectBuffer buffer = create(data.length * PrimitiveSize.INT);
-
-        for (int i = 0; i < data.length; i++)
-            buffer.writeInt(i * PrimitiveSize.INT, data[i]);
+        buffer.write(0, data, 0, data.length);
 
         return buffer;
     }
@@ -71,9 +70,7 @@ public abstract class DirectBuffer
     public static DirectBuffer wrap(float... data)
     {
         DirectBuffer buffer = create(data.length * PrimitiveSize.FLOAT);
-
-        for (int i = 0; i < data.length; i++)
-            buffer.writeFloat(i * PrimitiveSize.FLOAT, data[i]);
+        buffer.write(0, data, 0, data.length);
 
         return buffer;
     }
@@ -91,9 +88,7 @@ public abstract class DirectBuffer
     public static DirectBuffer wrap(double... data)
     {
         DirectBuffer buffer = create(data.length * PrimitiveSize.DOUBLE);
-
-        for (int i = 0; i < data.length; i++)
-            buffer.writeDouble(i * PrimitiveSize.DOUBLE, data[i]);
+        buffer.write(0, data, 0, data.length);
 
         return buffer;
     }
@@ -103,6 +98,18 @@ public abstract class DirectBuffer
         return SilenceEngine.io.create(sizeInBytes);
     }
 
+    /**
+     * Creates a buffer that is valid only until the end of the current frame, and must not be freed.
+     *
+     * @param sizeInBytes The size of the buffer in bytes.
+     *
+     * @return A temporary buffer from the frame arena.
+     */
+    public static DirectBuffer createTemporary(int sizeInBytes)
+    {
+        return SilenceEngine.io.createTemporary(sizeInBytes);
+    }
+
     public static void free(DirectBuffer buffer)
     {
         SilenceEngine.io.free(buffer);
@@ -132,6 +139,243 @@ public abstract class DirectBuffer
 
     public abstract byte readByte(int byteIndex);
 
+    /**
+     * Writes a range of bytes from an array into this buffer.
+     *
+     * @param byteIndex The index in this buffer to start writing at.
+     * @param src       The array to read the values from.
+     * @param from      The index of the first value in the array.
+     * @param length    The number of values to write.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer write(int byteIndex, byte[] src, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            writeByte(byteIndex + i, src[from + i]);
+
+        return this;
+    }
+
+    /**
+     * Writes a range of shorts from an array into this buffer, in the native byte order.
+     *
+     * @param byteIndex The index in this buffer to start writing at.
+     * @param src       The array to read the values from.
+     * @param from      The index of the first value in the array.
+     * @param length    The number of values to write.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer write(int byteIndex, short[] src, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            writeShort(byteIndex + i * PrimitiveSize.SHORT, src[from + i]);
+
+        return this;
+    }
+
+    /**
+     * Writes a range of ints from an array into this buffer, in the native byte order.
+     *
+     * @param byteIndex The index in this buffer to start writing at.
+     * @param src       The array to read the values from.
+     * @param from      The index of the first value in the array.
+     * @param length    The number of values to write.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer write(int byteIndex, int[] src, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            writeInt(byteIndex + i * PrimitiveSize.INT, src[from + i]);
+
+        return this;
+    }
+
+    /**
+     * Writes a range of floats from an array into this buffer, in the native byte order.
+     *
+     * @param byteIndex The index in this buffer to start writing at.
+     * @param src       The array to read the values from.
+     * @param from      The index of the first value in the array.
+     * @param length    The number of values to write.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer write(int byteIndex, float[] src, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            writeFloat(byteIndex + i * PrimitiveSize.FLOAT, src[from + i]);
+
+        return this;
+    }
+
+    /**
+     * Writes a range of doubles from an array into this buffer, in the native byte order.
+     *
+     * @param byteIndex The index in this buffer to start writing at.
+     * @param src       The array to read the values from.
+     * @param from      The index of the first value in the array.
+     * @param length    The number of values to write.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer write(int byteIndex, double[] src, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            writeDouble(byteIndex + i * PrimitiveSize.DOUBLE, src[from + i]);
+
+        return this;
+    }
+
+    /**
+     * Reads a range of bytes from this buffer into an array.
+     *
+     * @param byteIndex The index in this buffer to start reading from.
+     * @param dst       The array to store the values in.
+     * @param from      The index in the array to store the first value at.
+     * @param length    The number of values to read.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer read(int byteIndex, byte[] dst, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[from + i] = readByte(byteIndex + i);
+
+        return this;
+    }
+
+    /**
+     * Reads a range of shorts from this buffer into an array.
+     *
+     * @param byteIndex The index in this buffer to start reading from.
+     * @param dst       The array to store the values in.
+     * @param from      The index in the array to store the first value at.
+     * @param length    The number of values to read.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer read(int byteIndex, short[] dst, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[from + i] = readShort(byteIndex + i * PrimitiveSize.SHORT);
+
+        return this;
+    }
+
+    /**
+     * Reads a range of ints from this buffer into an array.
+     *
+     * @param byteIndex The index in this buffer to start reading from.
+     * @param dst       The array to store the values in.
+     * @param from      The index in the array to store the first value at.
+     * @param length    The number of values to read.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer read(int byteIndex, int[] dst, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[from + i] = readInt(byteIndex + i * PrimitiveSize.INT);
+
+        return this;
+    }
+
+    /**
+     * Reads a range of floats from this buffer into an array.
+     *
+     * @param byteIndex The index in this buffer to start reading from.
+     * @param dst       The array to store the values in.
+     * @param from      The index in the array to store the first value at.
+     * @param length    The number of values to read.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer read(int byteIndex, float[] dst, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[from + i] = readFloat(byteIndex + i * PrimitiveSize.FLOAT);
+
+        return this;
+    }
+
+    /**
+     * Reads a range of doubles from this buffer into an array.
+     *
+     * @param byteIndex The index in this buffer to start reading from.
+     * @param dst       The array to store the values in.
+     * @param from      The index in the array to store the first value at.
+     * @param length    The number of values to read.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer read(int byteIndex, double[] dst, int from, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[from + i] = readDouble(byteIndex + i * PrimitiveSize.DOUBLE);
+
+        return this;
+    }
+
+    /**
+     * Copies a range of bytes from this buffer into another buffer. The ranges may overlap if both the buffers are
+     * the same buffer.
+     *
+     * @param byteIndex The index in this buffer to start copying from.
+     * @param dst       The buffer to copy the bytes into.
+     * @param dstIndex  The index in the destination buffer to start copying to.
+     * @param length    The number of bytes to copy.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer copyTo(int byteIndex, DirectBuffer dst, int dstIndex, int length)
+    {
+        if (dst == this && dstIndex > byteIndex)
+        {
+            // Copy backwards, so that an overlapping range is not overwritten before it is read
+            for (int i = length - 1; i >= 0; i--)
+                dst.writeByte(dstIndex + i, readByte(byteIndex + i));
+        }
+        else
+        {
+            for (int i = 0; i < length; i++)
+                dst.writeByte(dstIndex + i, readByte(byteIndex + i));
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets a range of bytes in this buffer to a value.
+     *
+     * @param byteIndex The index of the first byte to set.
+     * @param length    The number of bytes to set.
+     * @param value     The value to set the bytes to.
+     *
+     * @return This buffer, for chaining.
+     */
+    public DirectBuffer fill(int byteIndex, int length, byte value)
+    {
+        for (int i = 0; i < length; i++)
+            writeByte(byteIndex + i, value);
+
+        return this;
+    }
+
+    /**
+     * Creates a view of a range of bytes in this buffer. The view shares the memory of this buffer, so no bytes are
+     * copied, and writes to either of them are visible in the other. The view doesn't own the memory, freeing it does
+     * nothing, and it must not be used after this buffer is freed.
+     *
+     * @param byteIndex The index of the first byte of the view.
+     * @param length    The size of the view in bytes.
+     *
+     * @return The view of the range.
+     */
+    public abstract DirectBuffer slice(int byteIndex, int length);
+
     public abstract Object nativeBuffer();
 
     public abstract DirectBuffer clear();
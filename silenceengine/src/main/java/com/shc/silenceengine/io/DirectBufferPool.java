@@ -0,0 +1,479 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.io;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pooling allocator for direct buffers, which sits behind the {@link IODevice} of every backend. Native memory is
+ * allocated in blocks whose sizes are powers of two, and the buffers that are handed out are views of exactly the
+ * requested size into those blocks. When a buffer is freed, its block is kept in a free list of its size class, and is
+ * reused by the next allocation of that class instead of going to the native allocator again. Requests larger than
+ * {@link #MAX_POOLED_SIZE} are not pooled, and are allocated and freed directly.
+ *
+ * <p> The pool also has a frame arena for temporary buffers, created with {@link #createTemporary(int)}. These are
+ * carved out of a single block with a bump pointer, and are all released together at the end of every frame, after the
+ * last render handler is called. They must not be freed or used after the frame they are created in.</p>
+ *
+ * <p> All the buffers that are not freed yet are tracked, and reported as leaks when the engine is disposed. Enable
+ * {@link #setLeakTracking(boolean)} to also record where each of them is allocated.</p>
+ *
+ * @param <T> The type of the native memory blocks of the backend.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public abstract class DirectBufferPool<T>
+{
+    /**
+     * The smallest size class, smaller requests are rounded up to this.
+     */
+    public static final int MIN_POOLED_SIZE = 64;
+
+    /**
+     * The largest size class, larger requests are not pooled.
+     */
+    public static final int MAX_POOLED_SIZE = 4 * 1024 * 1024;
+
+    // Alignment of the temporary buffers, so that typed views of them are aligned
+    private static final int ARENA_ALIGNMENT = 16;
+
+    private static final int MIN_SIZE_CLASS_SHIFT = 6;
+    private static final int NUM_SIZE_CLASSES     = 17;
+
+    private final List<T>[] freeBlocks;
+
+    private final Map<DirectBuffer, Allocation<T>> liveBuffers = new IdentityHashMap<>();
+
+    private int     maxPooledBytes = 64 * 1024 * 1024;
+    private boolean leakTracking;
+
+    // The frame arena
+    private T       arenaBlock;
+    private int     arenaSize;
+    private int     arenaOffset;
+    private List<T> arenaOverflow = new ArrayList<>();
+    private int     arenaOverflowBytes;
+    private int     arenaPeak;
+
+    // Statistics
+    private long pooledBytes;
+    private long liveBytes;
+    private long highWaterMark;
+    private long reservedBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new pool, and registers it to release the temporary buffers at the end of every frame, and to free all
+     * the memory when the engine is disposed.
+     *
+     * @param arenaSize The initial size of the frame arena in bytes.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DirectBufferPool(int arenaSize)
+    {
+        if (arenaSize <= 0)
+            throw new SilenceException("The size of the frame arena should be positive");
+
+        freeBlocks = new List[NUM_SIZE_CLASSES];
+
+        for (int i = 0; i < NUM_SIZE_CLASSES; i++)
+            freeBlocks[i] = new ArrayList<>();
+
+        this.arenaSize = arenaSize;
+
+        // Release the temporary buffers after everything in the frame is rendered
+        SilenceEngine.eventManager.addRenderHandler(delta -> resetTemporary(), Integer.MIN_VALUE);
+        SilenceEngine.eventManager.addDisposeHandler(this::dispose, Integer.MIN_VALUE);
+    }
+
+    private static int sizeClassOf(int sizeInBytes)
+    {
+        if (sizeInBytes > MAX_POOLED_SIZE)
+            return -1;
+
+        if (sizeInBytes <= MIN_POOLED_SIZE)
+            return 0;
+
+        return 32 - Integer.numberOfLeadingZeros(sizeInBytes - 1) - MIN_SIZE_CLASS_SHIFT;
+    }
+
+    private static int sizeOfClass(int sizeClass)
+    {
+        return 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT);
+    }
+
+    /**
+     * Allocates a block of native memory from the backend.
+     *
+     * @param sizeInBytes The size of the block in bytes.
+     *
+     * @return The allocated block.
+     */
+    protected abstract T allocateBlock(int sizeInBytes);
+
+    /**
+     * Frees a block of native memory that is allocated with {@link #allocateBlock(int)}.
+     *
+     * @param block The block to free.
+     */
+    protected abstract void freeBlock(T block);
+
+    /**
+     * Creates a direct buffer that is a view of a part of a block. The buffer shouldn't free the block when it itself
+     * is freed, the pool takes care of that.
+     *
+     * @param block       The block of native memory.
+     * @param offset      The offset of the view into the block in bytes.
+     * @param sizeInBytes The size of the view in bytes.
+     *
+     * @return A direct buffer of exactly sizeInBytes bytes.
+     */
+    protected abstract DirectBuffer wrapBlock(T block, int offset, int sizeInBytes);
+
+    public synchronized DirectBuffer create(int sizeInBytes)
+    {
+        if (sizeInBytes < 0)
+            throw new SilenceException("Cannot create a DirectBuffer of negative size: " + sizeInBytes);
+
+        int sizeClass = sizeClassOf(sizeInBytes);
+        T block;
+
+        if (sizeClass >= 0 && !freeBlocks[sizeClass].isEmpty())
+        {
+            List<T> blocks = freeBlocks[sizeClass];
+            block = blocks.remove(blocks.size() - 1);
+            pooledBytes -= sizeOfClass(sizeClass);
+            hits++;
+        }
+        else
+        {
+            int blockSize = sizeClass >= 0 ? sizeOfClass(sizeClass) : sizeInBytes;
+            block = allocateBlock(blockSize);
+            reservedBytes += blockSize;
+            misses++;
+        }
+
+        DirectBuffer buffer = wrapBlock(block, 0, sizeInBytes);
+
+        Allocation<T> allocation = new Allocation<>(block, sizeClass, sizeInBytes);
+
+        if (leakTracking)
+            allocation.site = new Throwable("DirectBuffer of " + sizeInBytes + " bytes allocated here");
+
+        liveBuffers.put(buffer, allocation);
+
+        liveBytes += sizeInBytes;
+        highWaterMark = Math.max(highWaterMark, liveBytes);
+
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer The buffer to free.
+     *
+     * @return True if the buffer is allocated by this pool, false if it is not, in which case the caller has to free
+     * it in some other way.
+     */
+    public synchronized boolean free(DirectBuffer buffer)
+    {
+        Allocation<T> allocation = liveBuffers.remove(buffer);
+
+        if (allocation == null)
+            return false;
+
+        liveBytes -= allocation.sizeInBytes;
+
+        int sizeClass = allocation.sizeClass;
+
+        if (sizeClass >= 0 && pooledBytes + sizeOfClass(sizeClass) <= maxPooledBytes)
+        {
+            freeBlocks[sizeClass].add(allocation.block);
+            pooledBytes += sizeOfClass(sizeClass);
+        }
+        else
+        {
+            freeBlock(allocation.block);
+            reservedBytes -= sizeClass >= 0 ? sizeOfClass(sizeClass) : allocation.sizeInBytes;
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates a temporary buffer from the frame arena. It is valid only till the end of the current frame, and must
+     * not be freed. If the arena runs out of space, the buffer is allocated separately, and the arena is grown at the
+     * end of the frame to fit all the temporary buffers of that frame.
+     *
+     * @param sizeInBytes The size of the buffer in bytes.
+     *
+     * @return A temporary buffer, which is not cleared.
+     */
+    public synchronized DirectBuffer createTemporary(int sizeInBytes)
+    {
+        if (sizeInBytes < 0)
+            throw new SilenceException("Cannot create a DirectBuffer of negative size: " + sizeInBytes);
+
+        if (arenaBlock == null)
+        {
+            arenaBlock = allocateBlock(arenaSize);
+            reservedBytes += arenaSize;
+        }
+
+        int offset = (arenaOffset + ARENA_ALIGNMENT - 1) & -ARENA_ALIGNMENT;
+
+        if (offset + sizeInBytes <= arenaSize)
+        {
+            arenaOffset = offset + sizeInBytes;
+            arenaPeak = Math.max(arenaPeak, arenaOffset + arenaOverflowBytes);
+
+            return wrapBlock(arenaBlock, offset, sizeInBytes);
+        }
+
+        int blockSize = (sizeInBytes + ARENA_ALIGNMENT - 1) & -ARENA_ALIGNMENT;
+        T block = allocateBlock(blockSize);
+        reservedBytes += blockSize;
+
+        arenaOverflow.add(block);
+        arenaOverflowBytes += blockSize;
+        arenaPeak = Math.max(arenaPeak, arenaOffset + arenaOverflowBytes);
+
+        return wrapBlock(block, 0, sizeInBytes);
+    }
+
+    /**
+     * Releases all the temporary buffers. This is called automatically at the end of every frame.
+     */
+    public synchronized void resetTemporary()
+    {
+        if (!arenaOverflow.isEmpty())
+        {
+            // The arena was too small for this frame, so replace it with one that is big enough
+            int required = arenaOffset + arenaOverflowBytes;
+
+            for (T block : arenaOverflow)
+                freeBlock(block);
+
+            freeBlock(arenaBlock);
+            reservedBytes -= arenaSize + arenaOverflowBytes;
+
+            while (arenaSize < required)
+                arenaSize *= 2;
+
+            arenaBlock = null;
+            arenaOverflow.clear();
+            arenaOverflowBytes = 0;
+        }
+
+        arenaOffset = 0;
+    }
+
+    /**
+     * Logs all the buffers that are not freed yet. If leak tracking is enabled, the place where each of them is
+     * allocated is logged too.
+     *
+     * @return The number of buffers that are not freed.
+     */
+    public synchronized int reportLeaks()
+    {
+        for (Allocation<T> allocation : liveBuffers.values())
+        {
+            StringBuilder message = new StringBuilder("Leaked DirectBuffer of ")
+                    .append(allocation.sizeInBytes).append(" bytes");
+
+            if (allocation.site != null)
+                for (StackTraceElement element : allocation.site.getStackTrace())
+                    message.append("\n    at ").append(element);
+
+            SilenceEngine.log.getRootLogger().warn(message.toString());
+        }
+
+        return liveBuffers.size();
+    }
+
+    /**
+     * Frees all the native memory held by this pool, including the buffers that are not freed yet, which are reported
+     * as leaks. This is called automatically when the engine is disposed.
+     */
+    public synchronized void dispose()
+    {
+        reportLeaks();
+
+        for (Allocation<T> allocation : liveBuffers.values())
+            freeBlock(allocation.block);
+
+        for (List<T> blocks : freeBlocks)
+        {
+            for (T block : blocks)
+                freeBlock(block);
+
+            blocks.clear();
+        }
+
+        for (T block : arenaOverflow)
+            freeBlock(block);
+
+        if (arenaBlock != null)
+            freeBlock(arenaBlock);
+
+        liveBuffers.clear();
+        arenaOverflow.clear();
+        arenaBlock = null;
+        arenaOffset = arenaOverflowBytes = 0;
+
+        liveBytes = pooledBytes = reservedBytes = 0;
+    }
+
+    /**
+     * @return The number of bytes in the buffers that are not freed yet.
+     */
+    public synchronized long getLiveBytes()
+    {
+        return liveBytes;
+    }
+
+    /**
+     * @return The largest number of bytes that were live at the same time.
+     */
+    public synchronized long getHighWaterMark()
+    {
+        return highWaterMark;
+    }
+
+    /**
+     * @return The number of bytes of native memory held by this pool, including the rounding to the size classes, the
+     * free blocks and the frame arena.
+     */
+    public synchronized long getReservedBytes()
+    {
+        return reservedBytes;
+    }
+
+    /**
+     * @return The number of bytes in the free blocks, that are waiting to be reused.
+     */
+    public synchronized long getPooledBytes()
+    {
+        return pooledBytes;
+    }
+
+    /**
+     * @return The number of buffers that are not freed yet.
+     */
+    public synchronized int getLiveBuffers()
+    {
+        return liveBuffers.size();
+    }
+
+    /**
+     * @return The fraction of the allocations that reused a free block, in the range of 0 to 1.
+     */
+    public synchronized float getHitRate()
+    {
+        return hits + misses == 0 ? 0 : (float) hits / (hits + misses);
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return The largest number of bytes used by the temporary buffers in a single frame.
+     */
+    public synchronized int getTemporaryHighWaterMark()
+    {
+        return arenaPeak;
+    }
+
+    public synchronized void resetStatistics()
+    {
+        highWaterMark = liveBytes;
+        arenaPeak = 0;
+        hits = misses = 0;
+    }
+
+    public synchronized int getMaxPooledBytes()
+    {
+        return maxPooledBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes that are kept in the free blocks. When freeing a buffer would exceed this, its
+     * block is returned to the native allocator instead.
+     *
+     * @param maxPooledBytes The maximum number of bytes in the free blocks.
+     */
+    public synchronized void setMaxPooledBytes(int maxPooledBytes)
+    {
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    public synchronized boolean isLeakTracking()
+    {
+        return leakTracking;
+    }
+
+    /**
+     * Enables or disables recording the stack trace of every allocation, which is logged if the buffer is leaked. This
+     * is expensive, and only affects the buffers that are created after it is enabled.
+     *
+     * @param leakTracking Whether to record the allocation sites.
+     */
+    public synchronized void setLeakTracking(boolean leakTracking)
+    {
+        this.leakTracking = leakTracking;
+    }
+
+    private static class Allocation<T>
+    {
+        private final T   block;
+        private final int sizeClass;
+        private final int sizeInBytes;
+
+        private Throwable site;
+
+        private Allocation(T block, int sizeClass, int sizeInBytes)
+        {
+            this.block = block;
+            this.sizeClass = sizeClass;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
@@ -24,14 +24,74 @@
 
 package com.shc.silenceengine.io;
 
+import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 /**
+ * Reads the contents of files. The files in an {@link AssetBundle} are served from the memory of the bundle, all the
+ * other files are read by the backend.
+ *
  * @author Sri Harsha Chilakapati
  */
 public abstract class FileReader
 {
-    public abstract void readBinaryFile(FilePath file, UniCallback<DirectBuffer> uniCallback);
+    // The errors of the reads that are not given an error callback are logged, like the errors of the async jobs
+    private static final UniCallback<Throwable> LOG_ERROR = error -> SilenceEngine.log.getRootLogger().error(error);
+
+    public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    {
+        readBinaryFile(file, onComplete, LOG_ERROR);
+    }
+
+    /**
+     * Reads a binary file, and reports the errors to a callback instead of logging them.
+     *
+     * @param file       The file to read.
+     * @param onComplete The callback to invoke with the contents of the file.
+     * @param onError    The callback to invoke with the error, if the file can't be read.
+     */
+    public void readBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete, UniCallback<Throwable> onError)
+    {
+        if (file instanceof BundleFilePath)
+            onComplete.invoke(((BundleFilePath) file).getData());
+        else
+            readBinary(file, onComplete, onError);
+    }
+
+    public void readTextFile(FilePath file, UniCallback<String> onComplete)
+    {
+        readTextFile(file, onComplete, LOG_ERROR);
+    }
+
+    /**
+     * Reads a text file, and reports the errors to a callback instead of logging them.
+     *
+     * @param file       The file to read.
+     * @param onComplete The callback to invoke with the contents of the file.
+     * @param onError    The callback to invoke with the error, if the file can't be read.
+     */
+    public void readTextFile(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError)
+    {
+        if (file instanceof BundleFilePath)
+            onComplete.invoke(((BundleFilePath) file).getText());
+        else
+            readText(file, onComplete, onError);
+    }
+
+    /**
+     * Reads a binary file that is kept in memory for a long time, like an asset bundle. Backends that can memory map
+     * files do so for external files, the others read the file like {@link #readBinaryFile(FilePath, UniCallback)}.
+     *
+     * @param file       The file to read.
+     * @param onComplete The callback to invoke with the contents of the file.
+     */
+    public void mapBinaryFile(FilePath file, UniCallback<DirectBuffer> onComplete)
+    {
+        readBinaryFile(file, onComplete);
+    }
+
+    protected abstract void readBinary(FilePath file, UniCallback<DirectBuffer> onComplete,
+                                       UniCallback<Throwable> onError);
 
-    public abstract void readTextFile(FilePath file, UniCallback<String> uniCallback);
+    protected abstract void readText(FilePath file, UniCallback<String> onComplete, UniCallback<Throwable> onError);
 }
@@ -33,6 +33,21 @@ public interface IODevice
 
     void free(DirectBuffer directBuffer);
 
+    /**
+     * Creates a temporary buffer from the frame arena, which is valid only until the end of the current frame. These
+     * buffers must not be freed.
+     *
+     * @param sizeInBytes The size of the buffer in bytes.
+     *
+     * @return A temporary buffer.
+     */
+    DirectBuffer createTemporary(int sizeInBytes);
+
+    /**
+     * @return The pool that the buffers of this device are allocated from, which has the allocation statistics.
+     */
+    DirectBufferPool<?> getBufferPool();
+
     FilePath createResourceFilePath(String path);
 
     FilePath createExternalFilePath(String path);
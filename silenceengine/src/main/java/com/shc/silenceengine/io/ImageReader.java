@@ -35,6 +35,13 @@ public abstract class ImageReader
 {
     public void readImage(FilePath filePath, UniCallback<Image> uniCallback)
     {
+        // Images in bundles are already decoded
+        if (filePath instanceof BundleFilePath && ((BundleFilePath) filePath).isDecodedImage())
+        {
+            uniCallback.invoke(((BundleFilePath) filePath).getImage());
+            return;
+        }
+
         SilenceEngine.io.getFileReader().readBinaryFile(filePath, directBuffer ->
                 readImage(directBuffer, image ->
                 {
@@ -46,5 +53,17 @@ public abstract class ImageReader
                 }));
     }
 
-    public abstract void readImage(DirectBuffer memory, UniCallback<Image> uniCallback);
+    public void readImage(DirectBuffer memory, UniCallback<Image> uniCallback)
+    {
+        readImage(memory, uniCallback, error -> SilenceEngine.log.getRootLogger().error(error));
+    }
+
+    /**
+     * Decodes an image from the memory, and reports the errors to a callback instead of logging them.
+     *
+     * @param memory     The encoded image.
+     * @param onComplete The callback to invoke with the decoded image.
+     * @param onError    The callback to invoke with the error, if the image can't be decoded.
+     */
+    public abstract void readImage(DirectBuffer memory, UniCallback<Image> onComplete, UniCallback<Throwable> onError);
 }
@@ -28,6 +28,7 @@ import com.shc.silenceengine.graphics.cameras.BaseCamera;
 import com.shc.silenceengine.math.geom2d.Polygon;
 import com.shc.silenceengine.math.geom3d.Polyhedron;
 import com.shc.silenceengine.math.geom3d.Sphere;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * This class represents the Frustum, the volume of the camera view. Contains useful functions to check whether a shape
@@ -219,7 +220,10 @@ public class Frustum
 
         boolean inside = false;
 
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
         for (Vector2 v : polygon.getVertices())
         {
             temp.set(v.x, v.y, planes[NEAR].d).add(polygon.getPosition(), 0);
@@ -228,7 +232,7 @@ public class Frustum
             if (!inside)
                 break;
         }
-        Vector3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return inside;
     }
@@ -310,7 +314,10 @@ public class Frustum
 
         boolean inside = false;
 
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
         for (Vector3 v : polyhedron.getVertices())
         {
             temp.set(v).add(polyhedron.getPosition());
@@ -319,7 +326,7 @@ public class Frustum
             if (!inside)
                 break;
         }
-        Vector3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return inside;
     }
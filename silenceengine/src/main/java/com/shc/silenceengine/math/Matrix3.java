@@ -25,7 +25,7 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.io.DirectFloatBuffer;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import java.util.Arrays;
 
@@ -38,8 +38,6 @@ import java.util.Arrays;
  */
 public class Matrix3
 {
-    public static final ReusableStack<Matrix3> REUSABLE_STACK = new ReusableStack<>(Matrix3::new);
-
     public final float[][] m;
 
     public Matrix3(Matrix3 m)
@@ -180,9 +178,12 @@ public class Matrix3
 
     public Matrix3 multiply(Matrix3 m)
     {
-        // Use a temporary matrix from the matrix stack instead of
+        // Use a temporary matrix from the scratch pool instead of
         // creating a temporary float array every frame.
-        Matrix3 temp = Matrix3.REUSABLE_STACK.pop().initZero();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix3 temp = scratch.matrix3().initZero();
 
         for (int r = 0; r < 3; r++)
         {
@@ -194,7 +195,7 @@ public class Matrix3
         }
 
         this.set(temp);
-        Matrix3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -228,7 +229,10 @@ public class Matrix3
 
     public Matrix3 transpose()
     {
-        Matrix3 temp = Matrix3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix3 temp = scratch.matrix3();
 
         for (int i = 0; i < 3; i++)
         {
@@ -239,7 +243,7 @@ public class Matrix3
         }
 
         this.set(temp);
-        Matrix3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -258,7 +262,10 @@ public class Matrix3
 
         s = 1f / s;
 
-        Matrix3 dest = Matrix3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix3 dest = scratch.matrix3();
 
         dest.m[0][0] = +((m[1][1] * m[2][2]) - (m[2][1] * m[1][2])) * s;
         dest.m[0][1] = -((m[0][1] * m[2][2]) - (m[2][1] * m[0][2])) * s;
@@ -272,7 +279,7 @@ public class Matrix3
 
         set(dest);
 
-        Matrix3.REUSABLE_STACK.push(dest);
+        scratch.release(mark);
         return this;
     }
 
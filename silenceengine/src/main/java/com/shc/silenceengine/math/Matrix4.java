@@ -25,7 +25,7 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.io.DirectFloatBuffer;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import java.util.Arrays;
 
@@ -34,8 +34,6 @@ import java.util.Arrays;
  */
 public class Matrix4
 {
-    public static final ReusableStack<Matrix4> REUSABLE_STACK = new ReusableStack<>(Matrix4::new);
-
     public final float[][] m;
 
     public Matrix4(Vector4 c0, Vector4 c1, Vector4 c2, Vector4 c3)
@@ -172,9 +170,12 @@ public class Matrix4
 
     public Matrix4 multiply(Matrix4 m)
     {
-        // Use a temporary matrix from the matrix stack instead of
+        // Use a temporary matrix from the scratch pool instead of
         // creating a temporary float array every frame.
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop().initZero();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4().initZero();
 
         for (int r = 0; r < 4; r++)
         {
@@ -186,7 +187,7 @@ public class Matrix4
         }
 
         this.set(temp);
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -278,7 +279,10 @@ public class Matrix4
 
     public Matrix4 transpose()
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
 
         for (int i = 0; i < 4; i++)
         {
@@ -289,7 +293,7 @@ public class Matrix4
         }
 
         this.set(temp);
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -303,7 +307,10 @@ public class Matrix4
 
         s = 1f / s;
 
-        Matrix4 dest = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 dest = scratch.matrix4();
 
         dest.m[0][0] = (m[1][1] * (m[2][2] * m[3][3] - m[2][3] * m[3][2]) + m[1][2] * (m[2][3] * m[3][1] - m[2][1] * m[3][3]) + m[1][3] * (m[2][1] * m[3][2] - m[2][2] * m[3][1])) * s;
         dest.m[0][1] = (m[2][1] * (m[0][2] * m[3][3] - m[0][3] * m[3][2]) + m[2][2] * (m[0][3] * m[3][1] - m[0][1] * m[3][3]) + m[2][3] * (m[0][1] * m[3][2] - m[0][2] * m[3][1])) * s;
@@ -323,7 +330,7 @@ public class Matrix4
         dest.m[3][3] = (m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1]) + m[0][1] * (m[1][2] * m[2][0] - m[1][0] * m[2][2]) + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0])) * s;
 
         set(dest);
-        Matrix4.REUSABLE_STACK.push(dest);
+        scratch.release(mark);
 
         return this;
     }
@@ -25,15 +25,13 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.utils.MathUtils;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
  */
 public class Quaternion
 {
-    public static final ReusableStack<Quaternion> REUSABLE_STACK = new ReusableStack<>(Quaternion::new);
-
     public float x;
     public float y;
     public float z;
@@ -195,11 +193,14 @@ public class Quaternion
 
     public Vector3 multiply(Vector3 v, Vector3 dest)
     {
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
 
-        Quaternion temp1 = Quaternion.REUSABLE_STACK.pop();
-        Quaternion temp2 = Quaternion.REUSABLE_STACK.pop();
-        Quaternion temp3 = Quaternion.REUSABLE_STACK.pop();
+        Quaternion temp1 = scratch.quaternion();
+        Quaternion temp2 = scratch.quaternion();
+        Quaternion temp3 = scratch.quaternion();
 
         float length = v.length();
         v = temp.set(v).normalize();
@@ -214,11 +215,7 @@ public class Quaternion
         dest.y = res.y;
         dest.z = res.z;
 
-        Vector3.REUSABLE_STACK.push(temp);
-
-        Quaternion.REUSABLE_STACK.push(temp1);
-        Quaternion.REUSABLE_STACK.push(temp2);
-        Quaternion.REUSABLE_STACK.push(temp3);
+        scratch.release(mark);
 
         return dest.normalize().scale(length);
     }
@@ -245,8 +242,11 @@ public class Quaternion
 
     public Quaternion lerp(Quaternion target, float alpha)
     {
-        Vector4 temp1 = Vector4.REUSABLE_STACK.pop();
-        Vector4 temp2 = Vector4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector4 temp1 = scratch.vector4();
+        Vector4 temp2 = scratch.vector4();
 
         Vector4 start = temp1.set(x, y, z, w);
         Vector4 end = temp2.set(target.x, target.y, target.z, target.w);
@@ -254,8 +254,7 @@ public class Quaternion
 
         set(lerp.x, lerp.y, lerp.z, lerp.w);
 
-        Vector4.REUSABLE_STACK.push(temp1);
-        Vector4.REUSABLE_STACK.push(temp2);
+        scratch.release(mark);
 
         return this;
     }
@@ -267,7 +266,10 @@ public class Quaternion
 
         if ((1 - dot) > 0.1)
         {
-            Quaternion temp = REUSABLE_STACK.pop();
+            ScratchPool scratch = ScratchPool.get();
+            int mark = scratch.mark();
+
+            Quaternion temp = scratch.quaternion();
 
             if (dot < 0.0f)
                 temp.set(-target.x, -target.y, -target.z, -target.w);
@@ -275,7 +277,7 @@ public class Quaternion
                 temp.set(target);
 
             lerp(temp, alpha);
-            REUSABLE_STACK.push(temp);
+            scratch.release(mark);
 
             return this;
         }
@@ -24,15 +24,13 @@
 
 package com.shc.silenceengine.math;
 
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
  */
 public class Transform
 {
-    public static final ReusableStack<Transform> REUSABLE_STACK = new ReusableStack<>(Transform::new);
-
     // The transformation matrix
     public final Matrix4 matrix;
 
@@ -45,10 +43,13 @@ public class Transform
 
     public Transform translate(Vector2 v)
     {
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
         translate(temp.set(v.x, v.y, 0));
 
-        Vector3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         changed = true;
         return this;
@@ -61,9 +62,12 @@ public class Transform
 
     public Transform translate(Vector3 v)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         matrix.set(Transforms.createTranslation(v, temp).multiply(matrix));
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
 
         return this;
@@ -71,18 +75,24 @@ public class Transform
 
     public Transform apply(Matrix4 matrix)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         this.matrix.set(temp.set(matrix).multiply(this.matrix));
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
         return this;
     }
 
     public Transform rotate(Vector3 axis, float angle)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         matrix.set(Transforms.createRotation(axis, angle, temp).multiply(matrix));
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
 
         return this;
@@ -90,23 +100,27 @@ public class Transform
 
     public Transform rotate(float rx, float ry, float rz)
     {
-        Quaternion temp = Quaternion.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Quaternion temp = scratch.quaternion();
         temp.set(rx, ry, rz);
 
-        Matrix4 tMat = Matrix4.REUSABLE_STACK.pop();
+        Matrix4 tMat = scratch.matrix4();
         matrix.set(Transforms.createRotation(temp, tMat).multiply(matrix));
-        Matrix4.REUSABLE_STACK.push(tMat);
-
-        Quaternion.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
         return this;
     }
 
     public Transform scale(Vector2 scale)
     {
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
         scale(temp.set(scale.x, scale.y, 0));
-        Vector3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
 
         return this;
@@ -114,9 +128,12 @@ public class Transform
 
     public Transform scale(Vector3 scale)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         matrix.set(Transforms.createScaling(scale, temp).multiply(matrix));
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
 
         return this;
@@ -129,11 +146,14 @@ public class Transform
 
     public Transform applyInverse(Matrix4 matrix)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
 
         temp.set(matrix).invert();
         apply(temp);
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
 
         return this;
@@ -141,20 +161,26 @@ public class Transform
 
     public Transform apply(Quaternion q)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         apply(Transforms.createRotation(q, temp));
 
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
         return this;
     }
 
     public Transform applyInverse(Quaternion q)
     {
-        Matrix4 temp = Matrix4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Matrix4 temp = scratch.matrix4();
         applyInverse(Transforms.createRotation(q, temp));
 
-        Matrix4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
         changed = true;
         return this;
     }
@@ -25,22 +25,22 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.utils.MathUtils;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * <p>This class is the core of the SilenceEngine's GraphicsEngine, and does the job of creating transformation matrices
  * and transformation quaternions. All the other functions call-back to this class.</p>
  *
  * <pre>
- *     Matrix4 temp1 = Matrix4.REUSABLE_STACK.pop();
- *     Matrix4 temp2 = Matrix4.REUSABLE_STACK.pop();
+ *     ScratchPool scratch = ScratchPool.get();
+ *     int mark = scratch.mark();
  *
- *     Matrix4 scalingMatrix     = Transforms.createScaling(scale, temp1);
- *     Matrix4 translationMatrix = Transforms.createTranslation(translation, temp2);
+ *     Matrix4 scalingMatrix     = Transforms.createScaling(scale, scratch.matrix4());
+ *     Matrix4 translationMatrix = Transforms.createTranslation(translation, scratch.matrix4());
  *
- *     // Use the temporary matrices here until they are pushed to the stack again.
+ *     // Use the temporary matrices here until the scratch scope is released.
  *
- *     Matrix4.REUSABLE_STACK.push(temp1);
- *     Matrix4.REUSABLE_STACK.push(temp2);
+ *     scratch.release(mark);
  * </pre>
  *
  * @author Sri Harsha Chilakapati
@@ -92,8 +92,11 @@ public final class Transforms
         float c = MathUtils.cos(angle);
         float s = MathUtils.sin(angle);
 
-        Vector3 nAxis = Vector3.REUSABLE_STACK.pop().set(axis).normalize();
-        Vector3 tempV = Vector3.REUSABLE_STACK.pop().set(nAxis).scale(1f - c);
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 nAxis = scratch.vector3().set(axis).normalize();
+        Vector3 tempV = scratch.vector3().set(nAxis).scale(1f - c);
 
         result.set(0, 0, c + tempV.x * nAxis.x)
                 .set(0, 1, tempV.x * nAxis.y + s * nAxis.z)
@@ -107,8 +110,7 @@ public final class Transforms
                 .set(2, 1, tempV.z * nAxis.y - s * nAxis.x)
                 .set(2, 2, c + tempV.z * nAxis.z);
 
-        Vector3.REUSABLE_STACK.push(nAxis);
-        Vector3.REUSABLE_STACK.push(tempV);
+        scratch.release(mark);
 
         return result;
     }
@@ -176,9 +178,12 @@ public final class Transforms
 
         Matrix4 result = dest.initIdentity();
 
-        Vector3 f = Vector3.REUSABLE_STACK.pop();
-        Vector3 s = Vector3.REUSABLE_STACK.pop();
-        Vector3 u = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 f = scratch.vector3();
+        Vector3 s = scratch.vector3();
+        Vector3 u = scratch.vector3();
 
         f.set(center).subtract(eye).normalize();
         s.set(f).cross(up).normalize();
@@ -200,9 +205,7 @@ public final class Transforms
                 .set(3, 1, -u.dot(eye))
                 .set(3, 2, f.dot(eye));
 
-        Vector3.REUSABLE_STACK.push(f);
-        Vector3.REUSABLE_STACK.push(s);
-        Vector3.REUSABLE_STACK.push(u);
+        scratch.release(mark);
 
         return result;
     }
@@ -212,8 +215,11 @@ public final class Transforms
         if (dest == null)
             dest = new Quaternion();
 
-        Vector3 temp1 = Vector3.REUSABLE_STACK.pop();
-        Vector3 temp2 = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp1 = scratch.vector3();
+        Vector3 temp2 = scratch.vector3();
 
         Vector3 forward = temp1.set(center).subtract(eye).normalize();
         Vector3 negativeZ = temp2.set(Vector3.AXIS_Z).negate();
@@ -222,16 +228,14 @@ public final class Transforms
 
         if (Math.abs(dot + 1) < 0.000001f)
         {
-            Vector3.REUSABLE_STACK.push(temp1);
-            Vector3.REUSABLE_STACK.push(temp2);
+            scratch.release(mark);
 
             return dest.set(up.x, up.y, up.z, (float) Math.PI);
         }
 
         if (Math.abs(dot - 1) < 0.000001f)
         {
-            Vector3.REUSABLE_STACK.push(temp1);
-            Vector3.REUSABLE_STACK.push(temp2);
+            scratch.release(mark);
 
             return dest.set();
         }
@@ -241,8 +245,7 @@ public final class Transforms
 
         dest.set(rotAxis, rotAngle);
 
-        Vector3.REUSABLE_STACK.push(temp1);
-        Vector3.REUSABLE_STACK.push(temp2);
+        scratch.release(mark);
 
         return dest;
     }
@@ -25,7 +25,7 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.utils.MathUtils;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -36,8 +36,6 @@ public class Vector2
     public static final Vector2 AXIS_X = new Vector2(1, 0);
     public static final Vector2 AXIS_Y = new Vector2(0, 1);
 
-    public static final ReusableStack<Vector2> REUSABLE_STACK = new ReusableStack<>(Vector2::new);
-
     public float x, y;
 
     public Vector2()
@@ -194,9 +192,12 @@ public class Vector2
 
     public Vector2 reflect(Vector2 axis)
     {
-        Vector2 temp = REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector2 temp = scratch.vector2();
         set(temp.set(this).project(axis).scale(2).subtract(this));
-        REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -25,7 +25,7 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.utils.MathUtils;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -37,8 +37,6 @@ public class Vector3
     public static final Vector3 AXIS_Y = new Vector3(0, 1, 0);
     public static final Vector3 AXIS_Z = new Vector3(0, 0, 1);
 
-    public static final ReusableStack<Vector3> REUSABLE_STACK = new ReusableStack<>(Vector3::new);
-
     public float x, y, z;
 
     public Vector3()
@@ -240,21 +238,27 @@ public class Vector3
 
     public Vector3 rotate(Vector3 axis, float angle)
     {
-        Quaternion temp = Quaternion.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Quaternion temp = scratch.quaternion();
 
         temp.set(axis, angle);
         temp.multiply(this, this);
 
-        Quaternion.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
 
     public Vector3 lerp(Vector3 target, float alpha)
     {
-        Vector3 temp = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 temp = scratch.vector3();
         scale(1f - alpha).add(temp.set(target).scale(alpha));
-        Vector3.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -304,12 +308,15 @@ public class Vector3
 
     public Vector3 rotate(Vector3 rotation)
     {
-        Quaternion temp = Quaternion.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Quaternion temp = scratch.quaternion();
 
         temp.set(rotation.x, rotation.y, rotation.z);
         temp.multiply(this, this);
 
-        Quaternion.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -25,7 +25,7 @@
 package com.shc.silenceengine.math;
 
 import com.shc.silenceengine.graphics.Color;
-import com.shc.silenceengine.utils.ReusableStack;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -34,8 +34,6 @@ public class Vector4
 {
     public static final Vector4 ZERO = new Vector4(0, 0, 0, 0);
 
-    public static final ReusableStack<Vector4> REUSABLE_STACK = new ReusableStack<>(Vector4::new);
-
     public float x, y, z, w;
 
     public Vector4()
@@ -245,9 +243,12 @@ public class Vector4
 
     public Vector4 lerp(Vector4 target, float alpha)
     {
-        Vector4 temp = Vector4.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector4 temp = scratch.vector4();
         scale(1f - alpha).add(temp.set(target).scale(alpha));
-        Vector4.REUSABLE_STACK.push(temp);
+        scratch.release(mark);
 
         return this;
     }
@@ -26,6 +26,7 @@ package com.shc.silenceengine.math.geom2d;
 
 import com.shc.silenceengine.collision.Collision2D;
 import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -111,8 +112,11 @@ public class Polygon
         int i, j = getVertices().size() - 1;
         boolean oddNodes = false;
 
-        Vector2 vi = Vector2.REUSABLE_STACK.pop();
-        Vector2 vj = Vector2.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector2 vi = scratch.vector2();
+        Vector2 vj = scratch.vector2();
 
         for (i = 0; i < getVertices().size(); j = i++)
         {
@@ -125,8 +129,7 @@ public class Polygon
                 oddNodes = !oddNodes;
         }
 
-        Vector2.REUSABLE_STACK.push(vi);
-        Vector2.REUSABLE_STACK.push(vj);
+        scratch.release(mark);
 
         return oddNodes;
     }
@@ -27,6 +27,7 @@ package com.shc.silenceengine.math.geom3d;
 import com.shc.silenceengine.collision.Collision3D;
 import com.shc.silenceengine.math.Quaternion;
 import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ScratchPool;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -156,12 +157,12 @@ public class Polyhedron
 
         updateBounds();
 
-        scale.add(sx, sy, sz);
+        scale.scale(sx, sy, sz);
     }
 
     public void setScale(float sx, float sy, float sz)
     {
-        scale(sx - scale.x, sy - scale.y, sz - scale.z);
+        scale(sx / scale.x, sy / scale.y, sz / scale.z);
     }
 
     public void translate(float x, float y, float z)
@@ -182,8 +183,11 @@ public class Polyhedron
         int i, j = getVertices().size() - 1;
         boolean oddNodes = false;
 
-        Vector3 vi = Vector3.REUSABLE_STACK.pop();
-        Vector3 vj = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 vi = scratch.vector3();
+        Vector3 vj = scratch.vector3();
 
         for (i = 0; i < getVertices().size(); j = i++)
         {
@@ -197,8 +201,7 @@ public class Polyhedron
                 oddNodes = !oddNodes;
         }
 
-        Vector3.REUSABLE_STACK.push(vi);
-        Vector3.REUSABLE_STACK.push(vj);
+        scratch.release(mark);
 
         return oddNodes;
     }
@@ -24,11 +24,13 @@
 
 package com.shc.silenceengine.scene.components;
 
+import com.shc.silenceengine.collision.Collision2D;
 import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.math.Vector2;
 import com.shc.silenceengine.math.geom2d.Polygon;
 import com.shc.silenceengine.scene.entity.Entity2D;
 import com.shc.silenceengine.utils.IDGenerator;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -68,8 +70,11 @@ public class CollisionComponent2D implements IComponent2D
         if (!entity.transformComponent.transformed)
             return;
 
-        Vector2 tPosition = Vector2.REUSABLE_STACK.pop();
-        Vector2 tScale = Vector2.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector2 tPosition = scratch.vector2();
+        Vector2 tScale = scratch.vector2();
 
         float rotation = 0;
 
@@ -92,8 +97,7 @@ public class CollisionComponent2D implements IComponent2D
         polygon.setScale(tScale);
         polygon.setRotation(rotation);
 
-        Vector2.REUSABLE_STACK.push(tPosition);
-        Vector2.REUSABLE_STACK.push(tScale);
+        scratch.release(mark);
     }
 
     @Override
@@ -106,9 +110,44 @@ public class CollisionComponent2D implements IComponent2D
     {
     }
 
+    /**
+     * The callback of a collision component. The scene collider calls it for the pairs of components whose tags are
+     * registered, in the order of begin, handle and end for every contact. The callbacks of a frame are called after
+     * all the pairs of the frame are tested, so the response of a contact is handed to the callback along with it.
+     */
     @FunctionalInterface
     public interface CollisionCallback
     {
+        /**
+         * Called on every frame that the component overlaps with the other component, including the first one.
+         */
         void handleCollision(Entity2D other, CollisionComponent2D component);
+
+        /**
+         * Called on every frame that the component overlaps with the other component, with the response of the test
+         * of the two, where the polygon A is the polygon of this component. The response is also the one returned by
+         * {@link Collision2D#getResponse()} during the call. It is reused after the call, and should be copied to be
+         * kept. This calls {@link #handleCollision(Entity2D, CollisionComponent2D)} unless it is overridden.
+         */
+        default void handleCollision(Entity2D other, CollisionComponent2D component, Collision2D.Response response)
+        {
+            handleCollision(other, component);
+        }
+
+        /**
+         * Called on the first frame that the component overlaps with the other component, before the {@link
+         * #handleCollision(Entity2D, CollisionComponent2D)} of that frame.
+         */
+        default void collisionBegin(Entity2D other, CollisionComponent2D component)
+        {
+        }
+
+        /**
+         * Called on the first frame that the component no longer overlaps with the other component, or when either of
+         * them is removed from the scene.
+         */
+        default void collisionEnd(Entity2D other, CollisionComponent2D component)
+        {
+        }
     }
 }
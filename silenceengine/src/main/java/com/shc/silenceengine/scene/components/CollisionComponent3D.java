@@ -24,11 +24,13 @@
 
 package com.shc.silenceengine.scene.components;
 
+import com.shc.silenceengine.collision.Collision3D;
 import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.math.geom3d.Polyhedron;
 import com.shc.silenceengine.scene.entity.Entity3D;
 import com.shc.silenceengine.utils.IDGenerator;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -68,9 +70,12 @@ public class CollisionComponent3D implements IComponent3D
         if (!entity.transformComponent.transformed)
             return;
 
-        Vector3 tPosition = Vector3.REUSABLE_STACK.pop();
-        Vector3 tScale = Vector3.REUSABLE_STACK.pop();
-        Vector3 tRotation = Vector3.REUSABLE_STACK.pop();
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 tPosition = scratch.vector3();
+        Vector3 tScale = scratch.vector3();
+        Vector3 tRotation = scratch.vector3();
 
         tPosition.set(entity.position);
         tScale.set(entity.scale);
@@ -91,9 +96,7 @@ public class CollisionComponent3D implements IComponent3D
         polyhedron.setScale(tScale);
         polyhedron.setRotation(tRotation);
 
-        Vector3.REUSABLE_STACK.push(tPosition);
-        Vector3.REUSABLE_STACK.push(tScale);
-        Vector3.REUSABLE_STACK.push(tRotation);
+        scratch.release(mark);
     }
 
     @Override
@@ -106,9 +109,24 @@ public class CollisionComponent3D implements IComponent3D
     {
     }
 
+    /**
+     * The callback of a collision component. The callbacks of a frame are called after all the pairs of the frame are
+     * tested, so the response of a collision is handed to the callback along with it.
+     */
     @FunctionalInterface
     public interface CollisionCallback
     {
         void handleCollision(Entity3D other, CollisionComponent3D component);
+
+        /**
+         * Called for every collision with the response of the test, where the polyhedron A is the polyhedron of this
+         * component. The response is also the one returned by {@link Collision3D#getResponse()} during the call. It
+         * is reused after the call, and should be copied to be kept. This calls {@link #handleCollision(Entity3D,
+         * CollisionComponent3D)} unless it is overridden.
+         */
+        default void handleCollision(Entity3D other, CollisionComponent3D component, Collision3D.Response response)
+        {
+            handleCollision(other, component);
+        }
     }
 }
@@ -26,25 +26,33 @@ package com.shc.silenceengine.scene.tiled;
 
 import com.shc.easyxml.Xml;
 import com.shc.easyxml.XmlTag;
+import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.Color;
+import com.shc.silenceengine.graphics.opengl.Texture;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.scene.tiled.layers.TmxImageLayer;
 import com.shc.silenceengine.scene.tiled.layers.TmxMapLayer;
 import com.shc.silenceengine.scene.tiled.layers.TmxObjectLayer;
 import com.shc.silenceengine.scene.tiled.layers.TmxTileLayer;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.TimeUtils;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A TiledMap represents the data format of the TMX file format, used by the Tiled Map Editor.
  *
  * @author Sri Harsha Chilakapati
  */
-public class TmxMap
+public class TmxMap implements IResource
 {
     public static final int FLIPPED_HORIZONTALLY_FLAG = 0x80000000;
     public static final int FLIPPED_VERTICALLY_FLAG   = 0x40000000;
@@ -75,11 +83,81 @@ public class TmxMap
 
     private TmxProperties properties;
 
+    private LoadMode loadMode;
+    private double   parseTime;
+
+    // Textures of the images that are loaded along with the map, these are not owned by the map
+    private Map<FilePath, Texture> textures = new HashMap<>();
+
+    // The errors of the maps that are not given an error callback are logged, like the errors of the file reads
+    private static final UniCallback<Throwable> LOG_ERROR = error -> SilenceEngine.log.getRootLogger().error(error);
+
     private TmxMap()
     {
     }
 
     public static void load(FilePath filePath, UniCallback<TmxMap> callback)
+    {
+        load(filePath, LoadMode.EAGER, callback);
+    }
+
+    /**
+     * Loads a TMX map from a file. The XML of the map is always parsed on the thread that reads the file, but the
+     * tile data of the layers is decoded according to the load mode. The callback is invoked on the update thread
+     * once all the layers that are not deferred are decoded.
+     *
+     * @param filePath The path of the TMX file.
+     * @param loadMode How the tile layers should be decoded.
+     * @param callback The callback that receives the loaded map.
+     */
+    public static void load(FilePath filePath, LoadMode loadMode, UniCallback<TmxMap> callback)
+    {
+        load(filePath, loadMode, callback, LOG_ERROR);
+    }
+
+    /**
+     * Loads a TMX map from a file, and reports the errors to a callback instead of logging them. The errors of reading
+     * the file and decoding the layers are reported on the update thread, and the map callback is not invoked then.
+     *
+     * @param filePath The path of the TMX file.
+     * @param loadMode How the tile layers should be decoded.
+     * @param callback The callback that receives the loaded map.
+     * @param onError  The callback that receives the error if the map fails to load.
+     */
+    public static void load(FilePath filePath, LoadMode loadMode, UniCallback<TmxMap> callback,
+                            UniCallback<Throwable> onError)
+    {
+        SilenceEngine.io.getFileReader().readTextFile(filePath,
+                xml -> parse(filePath, xml, loadMode, callback, onError), onError);
+    }
+
+    /**
+     * Parses a TMX map that is already read from a file. This can be called on any thread, the callback is invoked on
+     * the update thread unless the load mode is {@link LoadMode#EAGER}, in which case it is invoked right away.
+     *
+     * @param filePath The path of the TMX file, which the paths of the tilesets and images are relative to.
+     * @param xml      The contents of the TMX file.
+     * @param loadMode How the tile layers should be decoded.
+     * @param callback The callback that receives the parsed map.
+     */
+    public static void parse(FilePath filePath, String xml, LoadMode loadMode, UniCallback<TmxMap> callback)
+    {
+        parse(filePath, xml, loadMode, callback, LOG_ERROR);
+    }
+
+    /**
+     * Parses a TMX map that is already read from a file, and reports the errors to a callback instead of logging them.
+     * A map that fails to parse, or a layer that fails to decode in the background, is reported on the thread that the
+     * map would have been given to, and the map callback is not invoked then.
+     *
+     * @param filePath The path of the TMX file, which the paths of the tilesets and images are relative to.
+     * @param xml      The contents of the TMX file.
+     * @param loadMode How the tile layers should be decoded.
+     * @param callback The callback that receives the parsed map.
+     * @param onError  The callback that receives the error if the map fails to load.
+     */
+    public static void parse(FilePath filePath, String xml, LoadMode loadMode, UniCallback<TmxMap> callback,
+                             UniCallback<Throwable> onError)
     {
         TmxMap map = new TmxMap();
 
@@ -101,26 +179,96 @@ public class TmxMap
         map.backgroundColor = Color.TRANSPARENT;
 
         map.filePath = filePath;
+        map.loadMode = loadMode;
 
-        SilenceEngine.io.getFileReader().readTextFile(filePath, xml ->
+        try
         {
-            try
-            {
-                XmlTag mapNode = Xml.parse(xml);
+            double startTime = TimeUtils.currentMillis();
 
-                if (!mapNode.name.equals("map"))
-                    throw new SilenceException("Invalid TMX map file. The first child must be a <map> element.");
+            XmlTag mapNode = Xml.parse(xml);
 
-                map.parse(mapNode);
+            if (!mapNode.name.equals("map"))
+                throw new SilenceException("Invalid TMX map file. The first child must be a <map> element.");
 
-                callback.invoke(map);
-            }
-            catch (Exception e)
+            map.parse(mapNode);
+            map.parseTime = TimeUtils.currentMillis() - startTime;
+        }
+        catch (Exception e)
+        {
+            // The error is reported on the same thread that the map would have been given to
+            if (loadMode == LoadMode.EAGER)
+                onError.invoke(e);
+            else
+                TaskManager.runOnUpdate(() -> onError.invoke(e));
+
+            return;
+        }
+
+        if (loadMode == LoadMode.EAGER)
+            callback.invoke(map);
+        else
+            map.decodeLayers(callback, onError);
+    }
+
+    private void decodeLayers(UniCallback<TmxMap> callback, UniCallback<Throwable> onError)
+    {
+        List<TmxTileLayer> pendingLayers = new ArrayList<>();
+
+        for (TmxTileLayer tileLayer : tileLayers)
+        {
+            // Invisible layers are decoded when they are first accessed, if at all
+            if (loadMode == LoadMode.PARALLEL || tileLayer.isVisible())
+                pendingLayers.add(tileLayer);
+        }
+
+        if (pendingLayers.isEmpty())
+        {
+            TaskManager.runOnUpdate(() -> callback.invoke(this));
+            return;
+        }
+
+        AtomicInteger pendingCount = new AtomicInteger(pendingLayers.size());
+        AtomicBoolean failed = new AtomicBoolean();
+
+        for (TmxTileLayer tileLayer : pendingLayers)
+        {
+            TaskManager.runAsync(() ->
             {
-                if (!(e instanceof SilenceException))
-                    SilenceException.reThrow(e);
-            }
-        });
+                try
+                {
+                    tileLayer.decode();
+                }
+                catch (Exception e)
+                {
+                    // The failed layer is never counted as decoded, so the map callback is not invoked. Only the first
+                    // failure is reported, on the update thread like the map callback.
+                    if (failed.compareAndSet(false, true))
+                        TaskManager.runOnUpdate(() -> onError.invoke(e));
+
+                    return;
+                }
+
+                if (pendingCount.decrementAndGet() == 0)
+                    TaskManager.runOnUpdate(() -> callback.invoke(this));
+            });
+        }
+    }
+
+    /**
+     * @return The mode that was used to load this map.
+     */
+    public LoadMode getLoadMode()
+    {
+        return loadMode;
+    }
+
+    /**
+     * @return The time taken to parse the XML of this map and all its layers, in milliseconds. This doesn't include the
+     * time taken to decode the tile layers, which is reported by each of the layers.
+     */
+    public double getParseTime()
+    {
+        return parseTime;
     }
 
     public Orientation getOrientation()
@@ -148,6 +296,57 @@ public class TmxMap
         return filePath;
     }
 
+    /**
+     * @return The sources of all the images used by the tilesets and the image layers of this map, without duplicates.
+     */
+    public List<FilePath> getImageSources()
+    {
+        List<FilePath> sources = new ArrayList<>();
+
+        for (TmxTileSet tileSet : tileSets)
+            if (!sources.contains(tileSet.getImage().getSource()))
+                sources.add(tileSet.getImage().getSource());
+
+        for (TmxImageLayer imageLayer : imageLayers)
+            if (!sources.contains(imageLayer.getImage().getSource()))
+                sources.add(imageLayer.getImage().getSource());
+
+        return sources;
+    }
+
+    /**
+     * Gets the texture of an image of this map, if it is loaded along with the map.
+     *
+     * @param source The source of the image.
+     *
+     * @return The texture, or null if it isn't loaded with the map.
+     */
+    public Texture getTexture(FilePath source)
+    {
+        return textures.get(source);
+    }
+
+    /**
+     * Sets the texture of an image of this map. The renderers use these textures instead of loading the images again,
+     * and they are not disposed along with the map or the renderers.
+     *
+     * @param source  The source of the image.
+     * @param texture The texture of the image.
+     */
+    public void setTexture(FilePath source, Texture texture)
+    {
+        textures.put(source, texture);
+    }
+
+    /**
+     * Releases the textures that are set on this map, without disposing them.
+     */
+    @Override
+    public void dispose()
+    {
+        textures.clear();
+    }
+
     public Color getBackgroundColor()
     {
         return backgroundColor;
@@ -378,6 +577,10 @@ public class TmxMap
                 case "layer":
                     TmxTileLayer tileLayer = new TmxTileLayer(this);
                     tileLayer.parse(child);
+
+                    if (loadMode == LoadMode.EAGER)
+                        tileLayer.decode();
+
                     tileLayers.add(tileLayer);
                     break;
 
@@ -431,4 +634,25 @@ public class TmxMap
     {
         NONE, EVEN, ODD
     }
+
+    /**
+     * How the tile layers of the TiledMap are decoded when it is loaded.
+     */
+    public enum LoadMode
+    {
+        /**
+         * Decode all the tile layers while parsing the map, on the thread that reads the file.
+         */
+        EAGER,
+
+        /**
+         * Decode all the tile layers in parallel, using the background tasks of the TaskManager.
+         */
+        PARALLEL,
+
+        /**
+         * Decode the visible tile layers in parallel, and defer decoding the invisible layers till first access.
+         */
+        PARALLEL_LAZY
+    }
 }
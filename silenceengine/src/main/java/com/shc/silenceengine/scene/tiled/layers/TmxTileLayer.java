@@ -27,21 +27,36 @@ package com.shc.silenceengine.scene.tiled.layers;
 import com.shc.easyxml.XmlTag;
 import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.scene.tiled.TmxMap;
-import com.shc.silenceengine.scene.tiled.TmxTileSet;
 import com.shc.silenceengine.scene.tiled.tiles.TmxMapTile;
+import com.shc.silenceengine.utils.TimeUtils;
 
 import java.util.List;
 
 /**
+ * A layer of tiles in a TMX map. The tiles are stored as their raw global IDs in a compact int array, with the flip
+ * flags in the upper bits, exactly as they are specified in the TMX file. This takes four bytes per tile, and code
+ * that processes a whole layer should iterate over {@link #getRawTiles()} instead of asking for every tile.
+ *
+ * <p> Parsing a tile layer only reads its attributes, the tile data is decoded separately by the {@link #decode()}
+ * method. This allows the {@link TmxMap} to decode the layers in parallel, or to defer decoding a layer until its
+ * tiles are first accessed. All the accessors decode the layer if it is not decoded yet.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class TmxTileLayer extends TmxMapLayer
 {
-    private TmxMapTile[] tileMap;
+    private static final String BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    private volatile int[] tiles;
+
+    private XmlTag dataElement;
 
     private Encoding    encoding;
     private Compression compression;
 
+    private double parseTime;
+    private double decodeTime;
+
     public TmxTileLayer(TmxMap map)
     {
         super(map, "", 0, 0, map.getWidth(), map.getHeight(), 1.0f, true, TmxLayerType.TILE);
@@ -50,8 +65,49 @@ public class TmxTileLayer extends TmxMapLayer
         compression = Compression.NONE;
     }
 
+    private static byte[] decodeBase64(String data)
+    {
+        byte[] bytes = new byte[data.length() * 3 / 4];
+        int numBytes = 0;
+
+        int bits = 0;
+        int numBits = 0;
+
+        for (int i = 0; i < data.length(); i++)
+        {
+            char c = data.charAt(i);
+
+            if (c == '=')
+                break;
+
+            int value = BASE64_CHARS.indexOf(c);
+
+            // Skip the whitespace and line breaks that Tiled uses to indent the data
+            if (value == -1)
+                continue;
+
+            bits = (bits << 6) | value;
+            numBits += 6;
+
+            if (numBits >= 8)
+            {
+                numBits -= 8;
+                bytes[numBytes++] = (byte) (bits >> numBits);
+            }
+        }
+
+        if (numBytes == bytes.length)
+            return bytes;
+
+        byte[] result = new byte[numBytes];
+        System.arraycopy(bytes, 0, result, 0, numBytes);
+        return result;
+    }
+
     public void parse(XmlTag element)
     {
+        double startTime = TimeUtils.currentMillis();
+
         name = element.getAttribute("name").value;
 
         x = element.getAttribute("x") != null ? Integer.parseInt(element.getAttribute("x").value) : 0;
@@ -64,9 +120,7 @@ public class TmxTileLayer extends TmxMapLayer
         if (nodes.size() > 0)
             properties.parse(nodes.get(0));
 
-        tileMap = new TmxMapTile[width * height];
-
-        XmlTag dataElement = element.getTagsByName("data").get(0);
+        dataElement = element.getTagsByName("data").get(0);
 
         if (dataElement.getAttribute("encoding") != null)
         {
@@ -100,98 +154,224 @@ public class TmxTileLayer extends TmxMapLayer
             }
         }
 
+        // Fail early, instead of failing on a worker thread or when the layer is first accessed
+        if (compression != Compression.NONE)
+            throw new SilenceException("Compressed maps are unsupported.");
+
+        parseTime = TimeUtils.currentMillis() - startTime;
+    }
+
+    /**
+     * Decodes the tile data of this layer. This method is safe to be called from any thread, and does nothing if the
+     * layer is already decoded.
+     */
+    public synchronized void decode()
+    {
+        if (tiles != null)
+            return;
+
+        double startTime = TimeUtils.currentMillis();
+
+        int[] tiles = new int[width * height];
+
         switch (encoding)
         {
             case XML:
-                parseXML(dataElement);
+                parseXML(dataElement, tiles);
                 break;
 
             case BASE64:
-                throw new SilenceException("Compressed maps are unsupported.");
+                parseBase64(dataElement.text, tiles);
+                break;
 
             case CSV:
-                parseCSV(dataElement.text);
+                parseCSV(dataElement.text, tiles);
                 break;
         }
+
+        // The XML tree is no longer needed, let it be collected
+        dataElement = null;
+
+        decodeTime = TimeUtils.currentMillis() - startTime;
+        this.tiles = tiles;
     }
 
-    private void parseXML(XmlTag node)
+    private void parseXML(XmlTag node, int[] tiles)
     {
         List<XmlTag> nodes = node.getTagsByName("tile");
 
-        for (int tileCount = 0; tileCount < nodes.size(); tileCount++)
+        for (int tileCount = 0; tileCount < nodes.size() && tileCount < tiles.length; tileCount++)
         {
             XmlTag tileElement = nodes.get(tileCount);
 
-            int gid = (int) Long.parseLong((tileElement.getAttribute("gid").value)) & 0xff;
-            int tileSetIndex = map.findTileSetIndex(gid);
-
-            if (tileSetIndex != -1)
-            {
-                TmxTileSet tileSet = map.getTileset(tileSetIndex);
-                tileMap[tileCount] = new TmxMapTile(gid, tileSet.getFirstGID(), tileSetIndex);
-            }
-            else
-                tileMap[tileCount] = new TmxMapTile(gid, 0, -1);
+            if (tileElement.getAttribute("gid") != null)
+                tiles[tileCount] = (int) Long.parseLong(tileElement.getAttribute("gid").value.trim());
         }
     }
 
-    private void parseCSV(String csv)
+    private void parseCSV(String csv, int[] tiles)
     {
         String[] tokens = csv.split(",");
         int tileCount = 0;
 
         for (String token : tokens)
         {
-            int gid = (int) (Long.parseLong(token.trim()) & 0xFF);
+            token = token.trim();
 
-            int tileSetIndex = map.findTileSetIndex(gid);
+            if (token.isEmpty())
+                continue;
 
-            if (tileSetIndex != -1)
-            {
-                TmxTileSet tileSet = map.getTileset(tileSetIndex);
-                tileMap[tileCount] = new TmxMapTile(gid, tileSet.getFirstGID(), tileSetIndex);
-            }
-            else
-                tileMap[tileCount] = new TmxMapTile(gid, 0, -1);
+            if (tileCount == tiles.length)
+                break;
+
+            // The GIDs are unsigned, parse them as long to keep the flip flags
+            tiles[tileCount++] = (int) Long.parseLong(token);
+        }
+    }
+
+    private void parseBase64(String data, int[] tiles)
+    {
+        byte[] bytes = decodeBase64(data);
+
+        if (bytes.length < tiles.length * 4)
+            throw new SilenceException("Invalid TMX layer data. Expected " + tiles.length * 4 + " bytes, but found "
+                                       + bytes.length + " bytes.");
+
+        // Every GID is an unsigned 32-bit integer in little endian byte order
+        for (int i = 0; i < tiles.length; i++)
+        {
+            int offset = i * 4;
 
-            tileCount++;
+            tiles[i] = (bytes[offset] & 0xFF)
+                       | (bytes[offset + 1] & 0xFF) << 8
+                       | (bytes[offset + 2] & 0xFF) << 16
+                       | (bytes[offset + 3] & 0xFF) << 24;
         }
     }
 
+    private int[] getTiles()
+    {
+        int[] tiles = this.tiles;
+
+        if (tiles == null)
+        {
+            decode();
+            tiles = this.tiles;
+        }
+
+        return tiles;
+    }
+
+    /**
+     * @return Whether the tile data of this layer is already decoded.
+     */
+    public boolean isDecoded()
+    {
+        return tiles != null;
+    }
+
+    /**
+     * Returns the packed tiles of this layer in row major order, the tile at (x, y) is at the index {@code y * width +
+     * x}. Every element is the raw global ID of the tile with the flip flags in the upper bits, and zero for an empty
+     * tile. The array is not copied, so it should not be modified.
+     *
+     * @return The raw global IDs of all the tiles in this layer.
+     */
+    public int[] getRawTiles()
+    {
+        return getTiles();
+    }
+
+    /**
+     * @return The raw global ID of the tile at the location, including the flip flags.
+     */
+    public int getRawTileGID(int x, int y)
+    {
+        return getTiles()[y * width + x];
+    }
+
     public int getTileID(int x, int y)
     {
-        return tileMap[y * width + x].getID();
+        int gid = getTileGID(x, y);
+        int tileSetIndex = map.findTileSetIndex(gid);
+
+        return tileSetIndex == -1 ? gid : gid - map.getTileset(tileSetIndex).getFirstGID();
     }
 
     public int getTileGID(int x, int y)
     {
-        return tileMap[y * width + x].getGID();
+        return TmxMapTile.stripFlags(getRawTileGID(x, y));
     }
 
     public int getTileTileSetIndex(int x, int y)
     {
-        return tileMap[y * width + x].getTileSetID();
+        return map.findTileSetIndex(getTileGID(x, y));
     }
 
     public boolean isTileFlippedHorizontally(int x, int y)
     {
-        return tileMap[y * width + x].isFlippedHorizontally();
+        return (getRawTileGID(x, y) & TmxMap.FLIPPED_HORIZONTALLY_FLAG) != 0;
     }
 
     public boolean isTileFlippedVertically(int x, int y)
     {
-        return tileMap[y * width + x].isFlippedVertically();
+        return (getRawTileGID(x, y) & TmxMap.FLIPPED_VERTICALLY_FLAG) != 0;
     }
 
     public boolean isTileFlippedDiagonally(int x, int y)
     {
-        return tileMap[y * width + x].isFlippedDiagonally();
+        return (getRawTileGID(x, y) & TmxMap.FLIPPED_DIAGONALLY_FLAG) != 0;
     }
 
+    /**
+     * Decodes the tile at the location into a new tile. Code that reads a lot of tiles should use the {@link
+     * #getTile(int, int, TmxMapTile)} method with a tile of its own, or the raw tiles instead.
+     *
+     * @param x The column of the tile.
+     * @param y The row of the tile.
+     *
+     * @return A new tile, holding the tile at the location.
+     */
     public TmxMapTile getTile(int x, int y)
     {
-        return tileMap[y * width + x];
+        return getTile(x, y, new TmxMapTile(0, 0, -1));
+    }
+
+    /**
+     * Decodes the tile at the location into the specified tile, replacing its previous contents. No objects are
+     * created, so this can be used to read the tiles one after the other with a single instance.
+     *
+     * @param x   The column of the tile.
+     * @param y   The row of the tile.
+     * @param out The tile to decode into.
+     *
+     * @return The out tile, holding the tile at the location.
+     */
+    public TmxMapTile getTile(int x, int y, TmxMapTile out)
+    {
+        int gid = getTiles()[y * width + x];
+        int tileSetIndex = map.findTileSetIndex(gid);
+
+        if (tileSetIndex != -1)
+            return out.set(gid, map.getTileset(tileSetIndex).getFirstGID(), tileSetIndex);
+        else
+            return out.set(gid, 0, -1);
+    }
+
+    /**
+     * @return The time taken to parse the attributes of this layer, in milliseconds.
+     */
+    public double getParseTime()
+    {
+        return parseTime;
+    }
+
+    /**
+     * @return The time taken to decode the tile data of this layer in milliseconds, or zero if not decoded yet.
+     */
+    public double getDecodeTime()
+    {
+        return decodeTime;
     }
 
     public Encoding getEncoding()
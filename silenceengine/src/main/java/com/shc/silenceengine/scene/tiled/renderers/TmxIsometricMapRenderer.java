@@ -122,19 +122,23 @@ public class TmxIsometricMapRenderer extends TmxMapRenderer
         Texture current = textureMap.get(map.getTileset(0).getImage().getSource().getAbsolutePath());
         current.bind();
 
+        final int[] tiles = tileLayer.getRawTiles();
+
         renderer.begin(Primitive.TRIANGLES);
         {
             for (int x = 0; x < tileLayer.getWidth(); x++)
             {
                 for (int y = 0; y < tileLayer.getHeight(); y++)
                 {
-                    TmxMapTile mapTile = tileLayer.getTile(x, y);
+                    final int rawGID = tiles[y * tileLayer.getWidth() + x];
+                    final int gid = TmxMapTile.stripFlags(rawGID);
+                    final int tileSetIndex = map.findTileSetIndex(gid);
 
-                    if (mapTile.getTileSetID() == -1)
+                    if (tileSetIndex == -1)
                         continue;
 
-                    TmxTileSet tileSet = map.getTileset(mapTile.getTileSetID());
-                    TmxTile tile = tileSet.getTile(mapTile.getGID() - tileSet.getFirstGID());
+                    TmxTileSet tileSet = map.getTileset(tileSetIndex);
+                    TmxTile tile = tileSet.getTile(gid - tileSet.getFirstGID());
 
                     Texture texture = textureMap.get(tileSet.getImage().getSource().getAbsolutePath());
 
@@ -146,7 +150,7 @@ public class TmxIsometricMapRenderer extends TmxMapRenderer
                         renderer.begin(Primitive.TRIANGLES);
                     }
 
-                    long tileID = mapTile.getGID() - tileSet.getFirstGID();
+                    long tileID = gid - tileSet.getFirstGID();
                     if (tile.isAnimated())
                         tileID = tileAnimators.get(tile).getCurrentFrame().getTileID();
 
@@ -169,9 +173,9 @@ public class TmxIsometricMapRenderer extends TmxMapRenderer
                     float maxV = (clipY + tileHeight) / tileSet.getImage().getHeight();
 
                     // Flip the texture coordinates to flip the tile
-                    boolean flipX = mapTile.isFlippedHorizontally();
-                    boolean flipY = mapTile.isFlippedVertically();
-                    boolean flipZ = mapTile.isFlippedDiagonally();
+                    boolean flipX = (rawGID & TmxMap.FLIPPED_HORIZONTALLY_FLAG) != 0;
+                    boolean flipY = (rawGID & TmxMap.FLIPPED_VERTICALLY_FLAG) != 0;
+                    boolean flipZ = (rawGID & TmxMap.FLIPPED_DIAGONALLY_FLAG) != 0;
 
                     if (flipZ)
                     {
@@ -44,7 +44,9 @@ import com.shc.silenceengine.utils.functional.SimpleCallback;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
 
@@ -58,6 +60,9 @@ public abstract class TmxMapRenderer
     protected Map<String, Texture>       textureMap;
     protected Map<TmxTile, TileAnimator> tileAnimators;
 
+    // Textures that are set on the map, which are not disposed by the renderer
+    private Set<Texture> sharedTextures;
+
     public static void create(TmxMap map, UniCallback<TmxMapRenderer> callback)
     {
         switch (map.getOrientation())
@@ -79,6 +84,7 @@ public abstract class TmxMapRenderer
     {
         textureMap = new HashMap<>();
         tileAnimators = new HashMap<>();
+        sharedTextures = new HashSet<>();
 
         this.map = map;
 
@@ -89,7 +95,12 @@ public abstract class TmxMapRenderer
         {
             FilePath path = tileSet.getImage().getSource();
 
-            if (!textureMap.containsKey(path.getAbsolutePath()))
+            if (map.getTexture(path) != null)
+            {
+                textureMap.put(path.getAbsolutePath(), map.getTexture(path));
+                sharedTextures.add(map.getTexture(path));
+            }
+            else if (!textureMap.containsKey(path.getAbsolutePath()))
             {
                 SimpleCallback lastFinishCallback = finishCallback;
 
@@ -117,7 +128,12 @@ public abstract class TmxMapRenderer
         {
             FilePath path = imageLayer.getImage().getSource();
 
-            if (!textureMap.containsKey(path.getAbsolutePath()))
+            if (map.getTexture(path) != null)
+            {
+                textureMap.put(path.getAbsolutePath(), map.getTexture(path));
+                sharedTextures.add(map.getTexture(path));
+            }
+            else if (!textureMap.containsKey(path.getAbsolutePath()))
             {
                 SimpleCallback lastFinishCallback = finishCallback;
 
@@ -220,7 +236,8 @@ public abstract class TmxMapRenderer
     public void dispose()
     {
         for (Texture texture : textureMap.values())
-            texture.dispose();
+            if (!sharedTextures.contains(texture))
+                texture.dispose();
     }
 
     public TmxMap getMap()
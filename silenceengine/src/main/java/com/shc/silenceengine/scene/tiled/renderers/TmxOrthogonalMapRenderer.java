@@ -24,9 +24,17 @@
 
 package com.shc.silenceengine.scene.tiled.renderers;
 
+import com.shc.silenceengine.graphics.DefaultMaterial;
 import com.shc.silenceengine.graphics.DynamicRenderer;
+import com.shc.silenceengine.graphics.Material;
+import com.shc.silenceengine.graphics.MeshRenderer;
+import com.shc.silenceengine.graphics.cameras.BaseCamera;
+import com.shc.silenceengine.graphics.cameras.OrthoCam;
 import com.shc.silenceengine.graphics.opengl.Primitive;
+import com.shc.silenceengine.graphics.opengl.Program;
 import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.math.Matrix4;
+import com.shc.silenceengine.math.Vector3;
 import com.shc.silenceengine.scene.tiled.TmxMap;
 import com.shc.silenceengine.scene.tiled.TmxTileSet;
 import com.shc.silenceengine.scene.tiled.layers.TmxImageLayer;
@@ -35,17 +43,62 @@ import com.shc.silenceengine.scene.tiled.tiles.TmxMapTile;
 import com.shc.silenceengine.scene.tiled.tiles.TmxTile;
 import com.shc.silenceengine.utils.functional.UniCallback;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
+ * Renders orthogonal maps. The tile layers are baked into static meshes, one set of meshes for every chunk of {@link
+ * #CHUNK_SIZE} x {@link #CHUNK_SIZE} tiles, and only the chunks that are visible in the current {@link OrthoCam} are
+ * rendered. The chunks are baked lazily when they are first seen. Animated tiles are left out of the meshes, and are
+ * rendered with the dynamic renderer every frame, on top of the chunk they belong to.
+ *
+ * <p> If a tile layer is changed after it is rendered, call the {@link #invalidateTileLayers()} method so that the
+ * chunks are baked again.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public class TmxOrthogonalMapRenderer extends TmxMapRenderer
 {
+    /**
+     * The number of tiles in each row and each column of a chunk.
+     */
+    public static final int CHUNK_SIZE = 32;
+
+    private Map<TmxTileLayer, TileLayerChunks> layerChunks = new HashMap<>();
+
+    // Collects the vertices of a chunk before they are uploaded into a mesh
+    private DynamicRenderer chunkBuilder;
+
+    // The renderer that is used in the current frame, the meshes take the attribute locations from it
+    private DynamicRenderer currentRenderer;
+    private Material        chunkMaterial;
+
+    // The visible region of the map in the current frame
+    private float viewMinX;
+    private float viewMinY;
+    private float viewMaxX;
+    private float viewMaxY;
+
+    private Matrix4 tempMatrix = new Matrix4();
+    private Vector3 tempVector = new Vector3();
+
+    private int chunksRendered;
+
     public static void create(TmxMap map, UniCallback<TmxMapRenderer> callback)
     {
         TmxOrthogonalMapRenderer renderer = new TmxOrthogonalMapRenderer();
         renderer.init(map, () -> callback.invoke(renderer));
     }
 
+    @Override
+    public void render(DynamicRenderer renderer)
+    {
+        chunksRendered = 0;
+        super.render(renderer);
+    }
+
     protected void renderImageLayer(DynamicRenderer renderer, TmxImageLayer imageLayer)
     {
         if (!imageLayer.isVisible())
@@ -78,113 +131,392 @@ public class TmxOrthogonalMapRenderer extends TmxMapRenderer
         if (!tileLayer.isVisible())
             return;
 
+        TileLayerChunks chunks = layerChunks.get(tileLayer);
+
+        if (chunks == null)
+        {
+            chunks = new TileLayerChunks(tileLayer);
+            layerChunks.put(tileLayer, chunks);
+        }
+
         Texture original = Texture.CURRENT;
-        Texture current = textureMap.get(map.getTileset(0).getImage().getSource().getAbsolutePath());
-        current.bind();
 
-        renderer.begin(Primitive.TRIANGLES);
+        currentRenderer = renderer;
+        updateViewBounds();
+
+        final float chunkWidth = CHUNK_SIZE * map.getTileWidth();
+        final float chunkHeight = CHUNK_SIZE * map.getTileHeight();
+
+        // Only the chunks that intersect the view are visited, so the cost doesn't depend on the size of the map
+        int minChunkX = Math.max(0, (int) Math.floor(viewMinX / chunkWidth));
+        int minChunkY = Math.max(0, (int) Math.floor(viewMinY / chunkHeight));
+        int maxChunkX = Math.min(chunks.numChunksX - 1, (int) Math.floor(viewMaxX / chunkWidth));
+        int maxChunkY = Math.min(chunks.numChunksY - 1, (int) Math.floor(viewMaxY / chunkHeight));
+
+        // The meshes don't go through the dynamic renderer, so the program has to be prepared here
+        if (Program.CURRENT != null)
+            Program.CURRENT.prepareFrame();
+
+        for (int cy = minChunkY; cy <= maxChunkY; cy++)
         {
-            for (int x = 0; x < tileLayer.getWidth(); x++)
+            for (int cx = minChunkX; cx <= maxChunkX; cx++)
             {
-                for (int y = 0; y < tileLayer.getHeight(); y++)
+                TileChunk chunk = chunks.getChunk(cx, cy);
+
+                for (int i = 0; i < chunk.meshes.size(); i++)
                 {
-                    TmxMapTile mapTile = tileLayer.getTile(x, y);
+                    chunk.textures.get(i).bind();
+                    chunk.meshes.get(i).render(chunkMaterial);
+                }
 
-                    if (mapTile.getTileSetID() == -1)
-                        continue;
+                chunksRendered++;
+            }
+        }
 
-                    TmxTileSet tileSet = map.getTileset(mapTile.getTileSetID());
-                    TmxTile tile = tileSet.getTile(mapTile.getGID() - tileSet.getFirstGID());
+        renderAnimatedTiles(renderer, tileLayer, chunks, minChunkX, minChunkY, maxChunkX, maxChunkY);
 
-                    Texture texture = textureMap.get(tileSet.getImage().getSource().getAbsolutePath());
+        if (original != null)
+            original.bind();
+    }
+
+    private void renderAnimatedTiles(DynamicRenderer renderer, TmxTileLayer tileLayer, TileLayerChunks chunks,
+                                     int minChunkX, int minChunkY, int maxChunkX, int maxChunkY)
+    {
+        final int[] tiles = tileLayer.getRawTiles();
 
-                    if (texture.getID() != current.getID())
+        Texture current = null;
+
+        for (int cy = minChunkY; cy <= maxChunkY; cy++)
+        {
+            for (int cx = minChunkX; cx <= maxChunkX; cx++)
+            {
+                TileChunk chunk = chunks.getChunk(cx, cy);
+
+                for (int i = 0; i < chunk.numAnimatedTiles; i++)
+                {
+                    final int x = chunk.animatedTiles[i] % tileLayer.getWidth();
+                    final int y = chunk.animatedTiles[i] / tileLayer.getWidth();
+
+                    final int rawGID = tiles[chunk.animatedTiles[i]];
+
+                    Texture texture = getTileTexture(map.findTileSetIndex(rawGID));
+
+                    if (current == null || texture.getID() != current.getID())
                     {
-                        renderer.end();
+                        if (current != null)
+                            renderer.end();
+
                         current = texture;
                         texture.bind();
                         renderer.begin(Primitive.TRIANGLES);
                     }
 
-                    int tileID = mapTile.getGID() - tileSet.getFirstGID();
-                    if (tile.isAnimated())
-                        tileID = tileAnimators.get(tile).getCurrentFrame().getTileID();
+                    renderer.flushOnOverflow(6);
+                    emitTile(renderer, rawGID, x, y);
+                }
+            }
+        }
 
-                    int numColsPerRow = tileSet.getImage().getWidth() / tileSet.getTileWidth();
+        if (current != null)
+            renderer.end();
+    }
 
-                    int tileSetCol = tileID % numColsPerRow;
-                    int tileSetRow = tileID / numColsPerRow;
+    private Texture getTileTexture(int tileSetIndex)
+    {
+        TmxTileSet tileSet = map.getTileset(tileSetIndex);
+        return textureMap.get(tileSet.getImage().getSource().getAbsolutePath());
+    }
 
-                    float tileWidth = map.getTileWidth();
-                    float tileHeight = map.getTileHeight();
+    /**
+     * Computes the region of the map that is visible through the current camera, by un-projecting the corners of the
+     * clip space. If the current camera is not an {@link OrthoCam}, the whole map is considered to be visible.
+     */
+    private void updateViewBounds()
+    {
+        if (!(BaseCamera.CURRENT instanceof OrthoCam))
+        {
+            viewMinX = viewMinY = 0;
+            viewMaxX = map.getWidth() * map.getTileWidth();
+            viewMaxY = map.getHeight() * map.getTileHeight();
+            return;
+        }
 
-                    // The position of the tile in the world
-                    float posX = x * tileWidth;
-                    float posY = y * tileWidth;
+        tempMatrix.set(BaseCamera.CURRENT.getProjection()).multiply(BaseCamera.CURRENT.getView()).invert();
 
-                    // The clip space of the tile in the texture
-                    float clipX = (tileSet.getMargin() + (tileSet.getTileWidth() + tileSet.getSpacing()) * tileSetCol);
-                    float clipY = (tileSet.getMargin() + (tileSet.getTileHeight() + tileSet.getSpacing()) * tileSetRow);
+        viewMinX = viewMinY = Float.POSITIVE_INFINITY;
+        viewMaxX = viewMaxY = Float.NEGATIVE_INFINITY;
 
-                    // The texture coordinates of the tile
-                    float minU = clipX / tileSet.getImage().getWidth();
-                    float maxU = (clipX + tileWidth) / tileSet.getImage().getWidth();
-                    float minV = clipY / tileSet.getImage().getHeight();
-                    float maxV = (clipY + tileHeight) / tileSet.getImage().getHeight();
+        for (int i = 0; i < 4; i++)
+        {
+            tempVector.set(i % 2 == 0 ? -1 : 1, i < 2 ? -1 : 1, 0).multiply(tempMatrix);
 
-                    // Flip the texture coordinates to flip the tile
-                    boolean flipX = mapTile.isFlippedHorizontally();
-                    boolean flipY = mapTile.isFlippedVertically();
-                    boolean flipZ = mapTile.isFlippedDiagonally();
+            viewMinX = Math.min(viewMinX, tempVector.x);
+            viewMinY = Math.min(viewMinY, tempVector.y);
+            viewMaxX = Math.max(viewMaxX, tempVector.x);
+            viewMaxY = Math.max(viewMaxY, tempVector.y);
+        }
+    }
 
-                    if (flipZ)
-                    {
-                        flipX = !flipX;
-                        flipY = !flipY;
-                    }
+    private void emitTile(DynamicRenderer renderer, int rawGID, int x, int y)
+    {
+        final int gid = TmxMapTile.stripFlags(rawGID);
 
-                    if (flipX)
-                    {
-                        float temp = minU;
-                        minU = maxU;
-                        maxU = temp;
-                    }
+        TmxTileSet tileSet = map.getTileset(map.findTileSetIndex(gid));
+        TmxTile tile = tileSet.getTile(gid - tileSet.getFirstGID());
 
-                    if (flipY)
-                    {
-                        float temp = minV;
-                        minV = maxV;
-                        maxV = temp;
-                    }
+        int tileID = gid - tileSet.getFirstGID();
+        if (tile.isAnimated())
+            tileID = tileAnimators.get(tile).getCurrentFrame().getTileID();
 
-                    float uvCorrectionX = (0.2f / tileSet.getImage().getWidth());
-                    float uvCorrectionY = (0.2f / tileSet.getImage().getHeight());
+        int numColsPerRow = tileSet.getImage().getWidth() / tileSet.getTileWidth();
 
-                    renderer.flushOnOverflow(6);
+        int tileSetCol = tileID % numColsPerRow;
+        int tileSetRow = tileID / numColsPerRow;
+
+        float tileWidth = map.getTileWidth();
+        float tileHeight = map.getTileHeight();
+
+        // The position of the tile in the world
+        float posX = x * tileWidth;
+        float posY = y * tileHeight;
+
+        // The clip space of the tile in the texture
+        float clipX = (tileSet.getMargin() + (tileSet.getTileWidth() + tileSet.getSpacing()) * tileSetCol);
+        float clipY = (tileSet.getMargin() + (tileSet.getTileHeight() + tileSet.getSpacing()) * tileSetRow);
+
+        // The texture coordinates of the tile
+        float minU = clipX / tileSet.getImage().getWidth();
+        float maxU = (clipX + tileWidth) / tileSet.getImage().getWidth();
+        float minV = clipY / tileSet.getImage().getHeight();
+        float maxV = (clipY + tileHeight) / tileSet.getImage().getHeight();
+
+        // Flip the texture coordinates to flip the tile
+        boolean flipX = (rawGID & TmxMap.FLIPPED_HORIZONTALLY_FLAG) != 0;
+        boolean flipY = (rawGID & TmxMap.FLIPPED_VERTICALLY_FLAG) != 0;
+        boolean flipZ = (rawGID & TmxMap.FLIPPED_DIAGONALLY_FLAG) != 0;
+
+        if (flipZ)
+        {
+            flipX = !flipX;
+            flipY = !flipY;
+        }
+
+        if (flipX)
+        {
+            float temp = minU;
+            minU = maxU;
+            maxU = temp;
+        }
+
+        if (flipY)
+        {
+            float temp = minV;
+            minV = maxV;
+            maxV = temp;
+        }
+
+        float uvCorrectionX = (0.2f / tileSet.getImage().getWidth());
+        float uvCorrectionY = (0.2f / tileSet.getImage().getHeight());
+
+        // Draw the tile
+        renderer.vertex(posX, posY);
+        renderer.texCoord(minU + uvCorrectionX, minV + uvCorrectionY);
 
-                    // Draw the tile
-                    renderer.vertex(posX, posY);
-                    renderer.texCoord(minU + uvCorrectionX, minV + uvCorrectionY);
+        renderer.vertex(flipZ ? posX : posX + tileWidth, flipZ ? posY + tileHeight : posY);
+        renderer.texCoord(maxU - uvCorrectionX, minV + uvCorrectionY);
 
-                    renderer.vertex(flipZ ? posX : posX + tileWidth, flipZ ? posY + tileHeight : posY);
-                    renderer.texCoord(maxU - uvCorrectionX, minV + uvCorrectionY);
+        renderer.vertex(flipZ ? posX + tileWidth : posX, flipZ ? posY : posY + tileHeight);
+        renderer.texCoord(minU + uvCorrectionX, maxV - uvCorrectionY);
 
-                    renderer.vertex(flipZ ? posX + tileWidth : posX, flipZ ? posY : posY + tileHeight);
-                    renderer.texCoord(minU + uvCorrectionX, maxV - uvCorrectionY);
+        renderer.vertex(flipZ ? posX : posX + tileWidth, flipZ ? posY + tileHeight : posY);
+        renderer.texCoord(maxU - uvCorrectionX, minV + uvCorrectionY);
 
-                    renderer.vertex(flipZ ? posX : posX + tileWidth, flipZ ? posY + tileHeight : posY);
-                    renderer.texCoord(maxU - uvCorrectionX, minV + uvCorrectionY);
+        renderer.vertex(posX + tileWidth, posY + tileHeight);
+        renderer.texCoord(maxU - uvCorrectionX, maxV - uvCorrectionY);
 
-                    renderer.vertex(posX + tileWidth, posY + tileHeight);
-                    renderer.texCoord(maxU - uvCorrectionX, maxV - uvCorrectionY);
+        renderer.vertex(flipZ ? posX + tileWidth : posX, flipZ ? posY : posY + tileHeight);
+        renderer.texCoord(minU + uvCorrectionX, maxV - uvCorrectionY);
+    }
+
+    /**
+     * Bakes the static tiles of a chunk into meshes, one mesh for every texture used in the chunk.
+     */
+    private TileChunk bakeChunk(TmxTileLayer tileLayer, int chunkX, int chunkY)
+    {
+        if (chunkBuilder == null)
+        {
+            // Only the locations that are not -1 are uploaded into the meshes
+            chunkBuilder = new DynamicRenderer(CHUNK_SIZE * CHUNK_SIZE * 6);
+            chunkBuilder.setVertexLocation(0);
+            chunkBuilder.setTexCoordLocation(1);
+
+            chunkMaterial = new DefaultMaterial(Program.CURRENT, mesh ->
+            {
+                mesh.vertexLocation = currentRenderer.getVertexLocation();
+                mesh.uvLocation = currentRenderer.getTexCoordLocation();
+            });
+        }
+
+        TileChunk chunk = new TileChunk();
+
+        final int startX = chunkX * CHUNK_SIZE;
+        final int startY = chunkY * CHUNK_SIZE;
+        final int endX = Math.min(startX + CHUNK_SIZE, tileLayer.getWidth());
+        final int endY = Math.min(startY + CHUNK_SIZE, tileLayer.getHeight());
+
+        final int[] tiles = tileLayer.getRawTiles();
+        final int layerWidth = tileLayer.getWidth();
 
-                    renderer.vertex(flipZ ? posX + tileWidth : posX, flipZ ? posY : posY + tileHeight);
-                    renderer.texCoord(minU + uvCorrectionX, maxV - uvCorrectionY);
+        // Find the textures used by this chunk, and the animated tiles
+        for (int y = startY; y < endY; y++)
+        {
+            for (int x = startX; x < endX; x++)
+            {
+                final int gid = TmxMapTile.stripFlags(tiles[y * layerWidth + x]);
+                final int tileSetIndex = map.findTileSetIndex(gid);
+
+                if (tileSetIndex == -1)
+                    continue;
+
+                TmxTileSet tileSet = map.getTileset(tileSetIndex);
+
+                if (tileSet.getTile(gid - tileSet.getFirstGID()).isAnimated())
+                {
+                    chunk.addAnimatedTile(y * layerWidth + x);
+                    continue;
                 }
+
+                Texture texture = getTileTexture(tileSetIndex);
+
+                if (!chunk.textures.contains(texture))
+                    chunk.textures.add(texture);
             }
         }
-        renderer.end();
 
-        original.bind();
+        for (Texture texture : chunk.textures)
+        {
+            chunkBuilder.begin(Primitive.TRIANGLES, DynamicRenderer.RenderPolicy.NO_RENDER);
+
+            for (int y = startY; y < endY; y++)
+            {
+                for (int x = startX; x < endX; x++)
+                {
+                    final int rawGID = tiles[y * layerWidth + x];
+                    final int gid = TmxMapTile.stripFlags(rawGID);
+                    final int tileSetIndex = map.findTileSetIndex(gid);
+
+                    if (tileSetIndex == -1)
+                        continue;
+
+                    TmxTileSet tileSet = map.getTileset(tileSetIndex);
+
+                    if (tileSet.getTile(gid - tileSet.getFirstGID()).isAnimated()
+                        || getTileTexture(tileSetIndex) != texture)
+                        continue;
+
+                    emitTile(chunkBuilder, rawGID, x, y);
+                }
+            }
+
+            chunkBuilder.end();
+            chunk.meshes.add(new MeshRenderer(chunkBuilder));
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Disposes the baked chunks of all the tile layers, so that they are baked again when they are next rendered.
+     * This has to be called whenever the tiles of a layer are changed.
+     */
+    public void invalidateTileLayers()
+    {
+        for (TileLayerChunks chunks : layerChunks.values())
+            chunks.dispose();
+
+        layerChunks.clear();
+    }
+
+    /**
+     * @return The number of chunks that were rendered in the last frame, summing up all the tile layers.
+     */
+    public int getChunksRendered()
+    {
+        return chunksRendered;
+    }
+
+    @Override
+    public void dispose()
+    {
+        invalidateTileLayers();
+
+        if (chunkBuilder != null)
+            chunkBuilder.dispose();
+
+        super.dispose();
+    }
+
+    private static class TileChunk
+    {
+        private List<Texture>      textures = new ArrayList<>();
+        private List<MeshRenderer> meshes   = new ArrayList<>();
+
+        // The indices of the animated tiles in the layer
+        private int[] animatedTiles = new int[0];
+        private int   numAnimatedTiles;
+
+        private void addAnimatedTile(int index)
+        {
+            if (numAnimatedTiles == animatedTiles.length)
+            {
+                int[] newTiles = new int[Math.max(4, numAnimatedTiles * 2)];
+                System.arraycopy(animatedTiles, 0, newTiles, 0, numAnimatedTiles);
+                animatedTiles = newTiles;
+            }
+
+            animatedTiles[numAnimatedTiles++] = index;
+        }
+
+        private void dispose()
+        {
+            for (MeshRenderer mesh : meshes)
+                mesh.dispose();
+        }
+    }
+
+    private class TileLayerChunks
+    {
+        private TmxTileLayer tileLayer;
+        private TileChunk[]  chunks;
+
+        private int numChunksX;
+        private int numChunksY;
+
+        private TileLayerChunks(TmxTileLayer tileLayer)
+        {
+            this.tileLayer = tileLayer;
+
+            numChunksX = (tileLayer.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            numChunksY = (tileLayer.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+            chunks = new TileChunk[numChunksX * numChunksY];
+        }
+
+        private TileChunk getChunk(int chunkX, int chunkY)
+        {
+            final int index = chunkY * numChunksX + chunkX;
+
+            if (chunks[index] == null)
+                chunks[index] = bakeChunk(tileLayer, chunkX, chunkY);
+
+            return chunks[index];
+        }
+
+        private void dispose()
+        {
+            for (TileChunk chunk : chunks)
+                if (chunk != null)
+                    chunk.dispose();
+        }
     }
 }
@@ -27,6 +27,10 @@ package com.shc.silenceengine.scene.tiled.tiles;
 import static com.shc.silenceengine.scene.tiled.TmxMap.*;
 
 /**
+ * A tile in a tile layer of a TMX map. The tile layers store their tiles as packed raw GIDs, and instances of this
+ * class are only created when a tile is decoded on demand. An instance can be reused to decode many tiles with the
+ * {@link #set(int, int, int)} method, and the static helpers decode a raw GID without creating an instance at all.
+ *
  * @author Sri Harsha Chilakapati
  */
 public class TmxMapTile
@@ -40,6 +44,32 @@ public class TmxMapTile
     private boolean flippedDiagonally;
 
     public TmxMapTile(int gid, int tileSetFirstID, int tileSetID)
+    {
+        set(gid, tileSetFirstID, tileSetID);
+    }
+
+    /**
+     * Removes the flip flags from a raw GID, as it is stored in a tile layer.
+     *
+     * @param rawGID The raw GID of the tile, with the flip flags.
+     *
+     * @return The global ID of the tile.
+     */
+    public static int stripFlags(int rawGID)
+    {
+        return rawGID & ~(FLIPPED_HORIZONTALLY_FLAG | FLIPPED_VERTICALLY_FLAG | FLIPPED_DIAGONALLY_FLAG);
+    }
+
+    /**
+     * Decodes a raw GID into this tile, replacing its previous contents.
+     *
+     * @param gid            The raw GID of the tile, with the flip flags.
+     * @param tileSetFirstID The first GID of the tile set the tile belongs to.
+     * @param tileSetID      The index of the tile set, or -1 if the tile is empty.
+     *
+     * @return This tile, for chaining.
+     */
+    public TmxMapTile set(int gid, int tileSetFirstID, int tileSetID)
     {
         this.tileSetID = tileSetID;
 
@@ -47,8 +77,10 @@ public class TmxMapTile
         flippedVertically = (gid & FLIPPED_VERTICALLY_FLAG) != 0;
         flippedDiagonally = (gid & FLIPPED_DIAGONALLY_FLAG) != 0;
 
-        this.gid = gid & ~(FLIPPED_HORIZONTALLY_FLAG | FLIPPED_VERTICALLY_FLAG | FLIPPED_DIAGONALLY_FLAG);
-        this.id = gid - tileSetFirstID;
+        this.gid = stripFlags(gid);
+        this.id = this.gid - tileSetFirstID;
+
+        return this;
     }
 
     public int getTileSetID()
@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.utils.functional.Provider;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+/**
+ * A job that is run in the background by the {@link TaskManager}, and its result. Callbacks can be chained on a job
+ * to receive the result on the update or render thread, no matter whether the job is already complete or not.
+ *
+ * <pre>
+ *     TaskManager.runAsync(() -&gt; decode(data))
+ *                .thenOnUpdate(result -&gt; use(result))
+ *                .onError(error -&gt; report(error));
+ * </pre>
+ *
+ * If a job fails and no error callback is set by then, the error is logged to the root logger.
+ *
+ * @param <T> The type of the result of the job.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class AsyncJob<T>
+{
+    private final Provider<T> job;
+
+    private UniCallback<T>         onUpdate;
+    private UniCallback<T>         onRender;
+    private UniCallback<Throwable> onError;
+
+    private State     state;
+    private T         result;
+    private Throwable error;
+
+    double submitTime;
+    double startTime;
+
+    AsyncJob(Provider<T> job)
+    {
+        this.job = job;
+        this.state = State.QUEUED;
+    }
+
+    /**
+     * Runs the job on the calling thread, and dispatches the result to the callbacks that are already set.
+     */
+    void execute()
+    {
+        synchronized (this)
+        {
+            state = State.RUNNING;
+        }
+
+        T result = null;
+        Throwable error = null;
+
+        try
+        {
+            result = job.provide();
+        }
+        catch (Throwable e)
+        {
+            error = e;
+        }
+
+        complete(result, error);
+    }
+
+    /**
+     * Fails the job without running it, used when the job could not be handed to a worker.
+     *
+     * @param error The error that prevented the job from running.
+     */
+    void fail(Throwable error)
+    {
+        complete(null, error);
+    }
+
+    private synchronized void complete(T result, Throwable error)
+    {
+        this.result = result;
+        this.error = error;
+
+        if (error == null)
+        {
+            state = State.COMPLETED;
+
+            if (onUpdate != null)
+                postOnUpdate(onUpdate);
+
+            if (onRender != null)
+                postOnRender(onRender);
+        }
+        else
+        {
+            state = State.FAILED;
+
+            if (onError != null)
+                postError(onError);
+            else
+                SilenceEngine.log.getRootLogger().error(error);
+        }
+    }
+
+    /**
+     * Invokes the callback with the result of this job on the update thread, once the job is complete.
+     *
+     * @param callback The callback that receives the result.
+     *
+     * @return This job, for chaining.
+     */
+    public synchronized AsyncJob<T> thenOnUpdate(UniCallback<T> callback)
+    {
+        onUpdate = callback;
+
+        if (state == State.COMPLETED)
+            postOnUpdate(callback);
+
+        return this;
+    }
+
+    /**
+     * Invokes the callback with the result of this job on the render thread, once the job is complete.
+     *
+     * @param callback The callback that receives the result.
+     *
+     * @return This job, for chaining.
+     */
+    public synchronized AsyncJob<T> thenOnRender(UniCallback<T> callback)
+    {
+        onRender = callback;
+
+        if (state == State.COMPLETED)
+            postOnRender(callback);
+
+        return this;
+    }
+
+    /**
+     * Invokes the callback with the error on the update thread, if this job fails.
+     *
+     * @param callback The callback that receives the error.
+     *
+     * @return This job, for chaining.
+     */
+    public synchronized AsyncJob<T> onError(UniCallback<Throwable> callback)
+    {
+        onError = callback;
+
+        if (state == State.FAILED)
+            postError(callback);
+
+        return this;
+    }
+
+    private void postOnUpdate(UniCallback<T> callback)
+    {
+        final T result = this.result;
+        TaskManager.runOnUpdate(() -> callback.invoke(result));
+    }
+
+    private void postOnRender(UniCallback<T> callback)
+    {
+        final T result = this.result;
+        TaskManager.runOnRender(() -> callback.invoke(result));
+    }
+
+    private void postError(UniCallback<Throwable> callback)
+    {
+        final Throwable error = this.error;
+        TaskManager.runOnUpdate(() -> callback.invoke(error));
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    public synchronized boolean isDone()
+    {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    public enum State
+    {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.utils;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code long} keys to {@code int} values, used to map the IDs generated by the {@link IDGenerator} to the
+ * indices in flat arrays. The keys and the values are stored in flat arrays with open addressing, so the lookups don't
+ * box the keys and the map doesn't allocate anything unless it grows.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class LongIntMap
+{
+    /**
+     * The value returned for the keys that are not in the map.
+     */
+    public static final int NONE = -1;
+
+    private long[] keys;
+    private int[]  values;
+    private boolean[] used;
+
+    private int size;
+    private int mask;
+
+    public LongIntMap()
+    {
+        this(64);
+    }
+
+    public LongIntMap(int capacity)
+    {
+        int size = 16;
+
+        while (size < capacity * 2)
+            size <<= 1;
+
+        keys = new long[size];
+        values = new int[size];
+        used = new boolean[size];
+        mask = size - 1;
+    }
+
+    private static int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @param key The key to look up.
+     *
+     * @return The value mapped to the key, or {@link #NONE} if the key is not in the map.
+     */
+    public int get(long key)
+    {
+        for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask)
+        {
+            if (keys[i] == key)
+                return values[i];
+        }
+
+        return NONE;
+    }
+
+    public void put(long key, int value)
+    {
+        if ((size + 1) * 2 > keys.length)
+            grow();
+
+        int i = hash(key) & mask;
+
+        for (; used[i]; i = (i + 1) & mask)
+        {
+            if (keys[i] == key)
+            {
+                values[i] = value;
+                return;
+            }
+        }
+
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * @param key The key to remove.
+     *
+     * @return The value that was mapped to the key, or {@link #NONE} if the key was not in the map.
+     */
+    public int remove(long key)
+    {
+        int i = hash(key) & mask;
+
+        while (used[i] && keys[i] != key)
+            i = (i + 1) & mask;
+
+        if (!used[i])
+            return NONE;
+
+        int value = values[i];
+
+        // Shift the following entries of the cluster back, so that the lookups don't stop at the hole
+        for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask)
+        {
+            int home = hash(keys[j]) & mask;
+
+            if (((j - home) & mask) >= ((j - i) & mask))
+            {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+
+        used[i] = false;
+        size--;
+
+        return value;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldUsed[i])
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.utils;
+
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.Color;
+import com.shc.silenceengine.math.Matrix3;
+import com.shc.silenceengine.math.Matrix4;
+import com.shc.silenceengine.math.Quaternion;
+import com.shc.silenceengine.math.Vector2;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.Vector4;
+import com.shc.silenceengine.utils.functional.Provider;
+
+import java.util.Arrays;
+
+/**
+ * A pool of temporary math objects, which are used by the engine to avoid allocating garbage in the methods that need
+ * intermediate values. The objects are kept in arrays, and are taken in a scope that is opened with {@link #mark()}
+ * and closed with {@link #release(int)}, which gives back all the objects taken since the mark at once.
+ *
+ * <pre>
+ *     ScratchPool scratch = ScratchPool.get();
+ *     int mark = scratch.mark();
+ *
+ *     Matrix4 temp = scratch.matrix4();
+ *     Vector3 tempV = scratch.vector3();
+ *
+ *     // Use the temporaries
+ *
+ *     scratch.release(mark);
+ * </pre>
+ *
+ * <p> The objects are not cleared when they are taken, and must not be kept after the scope is released. A pool
+ * belongs to a single thread, the backends that support threads install a provider that gives every thread its own
+ * pool with {@link #setProvider(Provider)}. Without a provider, a single pool is shared, which is what the platforms
+ * without threads use.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public final class ScratchPool
+{
+    private static final int VECTOR2    = 0;
+    private static final int VECTOR3    = 1;
+    private static final int VECTOR4    = 2;
+    private static final int QUATERNION = 3;
+    private static final int MATRIX3    = 4;
+    private static final int MATRIX4    = 5;
+    private static final int COLOR      = 6;
+    private static final int NUM_TYPES  = 7;
+
+    private static final ScratchPool shared = new ScratchPool();
+
+    private static Provider<ScratchPool> provider = () -> shared;
+
+    // The objects of every type, and the number of them that are taken
+    private final Object[][] objects = new Object[NUM_TYPES][16];
+    private final int[]      taken   = new int[NUM_TYPES];
+
+    // The taken counts of all the types at every open mark
+    private int[] marks = new int[NUM_TYPES * 16];
+    private int   depth;
+
+    /**
+     * @return The scratch pool of the current thread.
+     */
+    public static ScratchPool get()
+    {
+        return provider.provide();
+    }
+
+    /**
+     * Sets the function that finds the pool of the current thread. This is called by the backends that support
+     * threads, usually with a thread local.
+     *
+     * @param provider The provider of the pool of the current thread, or null to share a single pool.
+     */
+    public static void setProvider(Provider<ScratchPool> provider)
+    {
+        ScratchPool.provider = provider == null ? () -> shared : provider;
+    }
+
+    /**
+     * Opens a new scope. All the objects that are taken after this are given back when the scope is released.
+     *
+     * @return The mark of the scope, which is to be passed to {@link #release(int)}.
+     */
+    public int mark()
+    {
+        if ((depth + 1) * NUM_TYPES > marks.length)
+            marks = Arrays.copyOf(marks, marks.length * 2);
+
+        System.arraycopy(taken, 0, marks, depth * NUM_TYPES, NUM_TYPES);
+        return depth++;
+    }
+
+    /**
+     * Closes the innermost scope, and gives back all the objects that are taken in it.
+     *
+     * @param mark The mark that is returned when the scope is opened.
+     */
+    public void release(int mark)
+    {
+        if (mark != depth - 1)
+            throw new SilenceException("Scratch scopes must be released in the reverse order that they are marked");
+
+        depth--;
+        System.arraycopy(marks, depth * NUM_TYPES, taken, 0, NUM_TYPES);
+    }
+
+    /**
+     * @return The number of scopes that are currently open.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    public Vector2 vector2()
+    {
+        Object object = take(VECTOR2);
+        return object == null ? (Vector2) put(VECTOR2, new Vector2()) : (Vector2) object;
+    }
+
+    public Vector3 vector3()
+    {
+        Object object = take(VECTOR3);
+        return object == null ? (Vector3) put(VECTOR3, new Vector3()) : (Vector3) object;
+    }
+
+    public Vector4 vector4()
+    {
+        Object object = take(VECTOR4);
+        return object == null ? (Vector4) put(VECTOR4, new Vector4()) : (Vector4) object;
+    }
+
+    public Quaternion quaternion()
+    {
+        Object object = take(QUATERNION);
+        return object == null ? (Quaternion) put(QUATERNION, new Quaternion()) : (Quaternion) object;
+    }
+
+    public Matrix3 matrix3()
+    {
+        Object object = take(MATRIX3);
+        return object == null ? (Matrix3) put(MATRIX3, new Matrix3()) : (Matrix3) object;
+    }
+
+    public Matrix4 matrix4()
+    {
+        Object object = take(MATRIX4);
+        return object == null ? (Matrix4) put(MATRIX4, new Matrix4()) : (Matrix4) object;
+    }
+
+    public Color color()
+    {
+        Object object = take(COLOR);
+        return object == null ? (Color) put(COLOR, new Color()) : (Color) object;
+    }
+
+    private Object take(int type)
+    {
+        if (depth == 0)
+            throw new SilenceException("Scratch objects can only be taken after a mark");
+
+        Object[] pool = objects[type];
+        int index = taken[type]++;
+
+        if (index == pool.length)
+            pool = objects[type] = Arrays.copyOf(pool, pool.length * 2);
+
+        return pool[index];
+    }
+
+    private Object put(int type, Object object)
+    {
+        // The pool grows to the deepest use, and the objects are reused after that
+        return objects[type][taken[type] - 1] = object;
+    }
+}
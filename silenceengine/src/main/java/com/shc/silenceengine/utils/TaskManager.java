@@ -25,54 +25,342 @@
 package com.shc.silenceengine.utils;
 
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.utils.functional.Provider;
 import com.shc.silenceengine.utils.functional.SimpleCallback;
+import com.shc.silenceengine.utils.functional.UniCallback;
 
 import java.util.LinkedList;
 import java.util.Queue;
 
 /**
+ * The TaskManager runs tasks on the update and render threads of the game, and also acts as the job system for the
+ * background work. Tasks can be posted from any thread, they are executed at the start of the next update or render.
+ *
+ * <p> Background jobs are submitted with {@link #runAsync(Provider)}, and are queued until one of the worker threads
+ * is free. The number of jobs that run at the same time is bounded by {@link #setMaxConcurrentJobs(int)}, so
+ * submitting thousands of jobs never creates thousands of threads. The worker threads themselves are supplied by the
+ * backend with {@link #setAsyncRunner(UniCallback)}. Without them, the jobs are run inline on the calling thread,
+ * which is what happens on platforms without threads.</p>
+ *
  * @author Sri Harsha Chilakapati
  */
 public final class TaskManager
 {
-    private static Queue<SimpleCallback> updateTasks = new LinkedList<>();
-    private static Queue<SimpleCallback> renderTasks = new LinkedList<>();
+    private static final Queue<SimpleCallback> updateTasks = new LinkedList<>();
+    private static final Queue<SimpleCallback> renderTasks = new LinkedList<>();
+
+    private static final Queue<AsyncJob<?>> pendingJobs = new LinkedList<>();
+
+    // Runs the jobs inline until a backend supplies a worker pool, which is what happens on platforms without threads
+    private static UniCallback<SimpleCallback> asyncRunner = SimpleCallback::invoke;
+
+    // Lets the other threads run while a thread waits for them, does nothing until a backend with threads supplies it
+    private static SimpleCallback threadYielder = () -> {};
+
+    private static int maxConcurrentJobs = 4;
+    private static int runningJobs;
+
+    // Metrics of the job system, guarded by the pendingJobs lock
+    private static int    peakQueueDepth;
+    private static long   completedJobs;
+    private static double totalQueueWait;
+    private static double totalLatency;
+    private static double maxLatency;
 
     private static boolean initialized = false;
 
     public static void runOnUpdate(SimpleCallback task)
     {
-        updateTasks.add(task);
+        synchronized (updateTasks)
+        {
+            updateTasks.add(task);
+        }
         checkInitialized();
     }
 
     public static void runOnRender(SimpleCallback task)
     {
-        renderTasks.add(task);
+        synchronized (renderTasks)
+        {
+            renderTasks.add(task);
+        }
         checkInitialized();
     }
 
-    public static void forceUpdateTasks(float deltaTime)
+    /**
+     * Submits a job to be run in the background. The job is run on one of the worker threads as soon as one of them is
+     * free. Jobs should not touch any of the graphics or audio state, and should hand their results to the update or
+     * render thread with {@link AsyncJob#thenOnUpdate(UniCallback)} or {@link AsyncJob#thenOnRender(UniCallback)}.
+     *
+     * @param job The job that produces the result in the background.
+     * @param <T> The type of the result of the job.
+     *
+     * @return The submitted job, to chain the callbacks on.
+     */
+    public static <T> AsyncJob<T> runAsync(Provider<T> job)
     {
-        while (!updateTasks.isEmpty())
+        AsyncJob<T> asyncJob = new AsyncJob<>(job);
+
+        synchronized (pendingJobs)
         {
-            SimpleCallback task;
-            if ((task = updateTasks.poll()) != null)
-                task.invoke();
+            asyncJob.submitTime = TimeUtils.currentMillis();
+
+            pendingJobs.add(asyncJob);
+            peakQueueDepth = Math.max(peakQueueDepth, pendingJobs.size());
         }
+
+        dispatchJobs();
+        return asyncJob;
+    }
+
+    /**
+     * Submits a job that doesn't produce a result to be run in the background.
+     *
+     * @param task The task to run in the background.
+     *
+     * @return The submitted job, to chain the callbacks on.
+     */
+    public static AsyncJob<Void> runAsync(SimpleCallback task)
+    {
+        return runAsync(() ->
+        {
+            task.invoke();
+            return null;
+        });
+    }
+
+    private static void dispatchJobs()
+    {
+        while (true)
+        {
+            AsyncJob<?> job;
+
+            synchronized (pendingJobs)
+            {
+                if (runningJobs >= maxConcurrentJobs || pendingJobs.isEmpty())
+                    return;
+
+                job = pendingJobs.poll();
+                runningJobs++;
+            }
+
+            try
+            {
+                asyncRunner.invoke(() -> runJob(job));
+            }
+            catch (RuntimeException e)
+            {
+                // A job that has started releases its slot by itself, as it does when the runner runs it inline
+                if (job.getState() != AsyncJob.State.QUEUED)
+                    throw e;
+
+                synchronized (pendingJobs)
+                {
+                    runningJobs--;
+                }
+
+                job.fail(e);
+            }
+        }
+    }
+
+    private static void runJob(AsyncJob<?> job)
+    {
+        job.startTime = TimeUtils.currentMillis();
+
+        try
+        {
+            job.execute();
+        }
+        finally
+        {
+            double endTime = TimeUtils.currentMillis();
+
+            synchronized (pendingJobs)
+            {
+                runningJobs--;
+                completedJobs++;
+
+                totalQueueWait += job.startTime - job.submitTime;
+                totalLatency += endTime - job.submitTime;
+                maxLatency = Math.max(maxLatency, endTime - job.submitTime);
+            }
+        }
+
+        // This worker is free now, so start the next job
+        dispatchJobs();
+    }
+
+    /**
+     * Sets the function that runs the background jobs. This is called by the backends that support threads, so that
+     * the jobs are dispatched to their worker pool.
+     *
+     * @param runner The function that runs a task on a worker thread, or null to run the jobs inline.
+     */
+    public static void setAsyncRunner(UniCallback<SimpleCallback> runner)
+    {
+        asyncRunner = runner == null ? SimpleCallback::invoke : runner;
+    }
+
+    /**
+     * Sets the function that gives up the rest of the time slice of the calling thread. This is called by the backends
+     * that support threads, and is used by the engine when it waits for the background jobs to finish.
+     *
+     * @param yielder The function that yields the calling thread, or null to do nothing.
+     */
+    public static void setThreadYielder(SimpleCallback yielder)
+    {
+        threadYielder = yielder == null ? () -> {} : yielder;
+    }
+
+    /**
+     * Lets the other threads run while the calling thread waits for them. This does nothing on the platforms without
+     * threads, where the background jobs are already run inline.
+     */
+    public static void yieldThread()
+    {
+        threadYielder.invoke();
+    }
+
+    /**
+     * Sets the maximum number of background jobs that are run at the same time. The other jobs wait in the queue. This
+     * is usually the number of worker threads in the pool of the backend.
+     *
+     * @param maxConcurrentJobs The maximum number of concurrent jobs, at least one.
+     */
+    public static void setMaxConcurrentJobs(int maxConcurrentJobs)
+    {
+        synchronized (pendingJobs)
+        {
+            TaskManager.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+        }
+
+        dispatchJobs();
+    }
+
+    public static int getMaxConcurrentJobs()
+    {
+        synchronized (pendingJobs)
+        {
+            return maxConcurrentJobs;
+        }
+    }
+
+    /**
+     * @return The number of jobs that are waiting for a free worker.
+     */
+    public static int getQueueDepth()
+    {
+        synchronized (pendingJobs)
+        {
+            return pendingJobs.size();
+        }
+    }
+
+    /**
+     * @return The highest number of jobs that were waiting at the same time, since the metrics were last reset.
+     */
+    public static int getPeakQueueDepth()
+    {
+        synchronized (pendingJobs)
+        {
+            return peakQueueDepth;
+        }
+    }
+
+    /**
+     * @return The number of jobs that are currently running on the workers.
+     */
+    public static int getRunningJobs()
+    {
+        synchronized (pendingJobs)
+        {
+            return runningJobs;
+        }
+    }
+
+    /**
+     * @return The number of jobs that are completed, successfully or not, since the metrics were last reset.
+     */
+    public static long getCompletedJobs()
+    {
+        synchronized (pendingJobs)
+        {
+            return completedJobs;
+        }
+    }
+
+    /**
+     * @return The average time the completed jobs waited in the queue before they were started, in milliseconds.
+     */
+    public static double getAverageQueueWait()
+    {
+        synchronized (pendingJobs)
+        {
+            return completedJobs == 0 ? 0 : totalQueueWait / completedJobs;
+        }
+    }
+
+    /**
+     * @return The average time from submitting a job to its completion, in milliseconds.
+     */
+    public static double getAverageJobLatency()
+    {
+        synchronized (pendingJobs)
+        {
+            return completedJobs == 0 ? 0 : totalLatency / completedJobs;
+        }
+    }
+
+    /**
+     * @return The longest time from submitting a job to its completion, in milliseconds.
+     */
+    public static double getMaxJobLatency()
+    {
+        synchronized (pendingJobs)
+        {
+            return maxLatency;
+        }
+    }
+
+    public static void resetMetrics()
+    {
+        synchronized (pendingJobs)
+        {
+            peakQueueDepth = pendingJobs.size();
+            completedJobs = 0;
+            totalQueueWait = 0;
+            totalLatency = 0;
+            maxLatency = 0;
+        }
+    }
+
+    public static void forceUpdateTasks(float deltaTime)
+    {
+        SimpleCallback task;
+
+        while ((task = poll(updateTasks)) != null)
+            task.invoke();
     }
 
     public static void forceRenderTasks(float delta)
     {
-        while (!renderTasks.isEmpty())
+        SimpleCallback task;
+
+        while ((task = poll(renderTasks)) != null)
+            task.invoke();
+    }
+
+    private static SimpleCallback poll(Queue<SimpleCallback> tasks)
+    {
+        // The task is invoked outside the lock, so that it can post more tasks
+        synchronized (tasks)
         {
-            SimpleCallback task;
-            if ((task = renderTasks.poll()) != null)
-                task.invoke();
+            return tasks.poll();
         }
     }
 
-    private static void checkInitialized()
+    private static synchronized void checkInitialized()
     {
         if (!initialized)
         {
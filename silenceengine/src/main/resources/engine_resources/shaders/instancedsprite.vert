@@ -0,0 +1,28 @@
+#ifdef GL_ES
+    precision mediump float;
+#endif
+
+uniform mat4 proj;
+uniform mat4 view;
+
+// The corner of the quad, in the range of -1 to 1
+attribute vec2 corner;
+
+// Per instance attributes
+attribute vec4 axes;
+attribute vec3 origin;
+attribute vec4 texRect;
+attribute vec4 color;
+
+varying vec4 vColor;
+varying vec2 vTexCoords;
+
+void main()
+{
+    vec3 position = vec3(axes.xy * corner.x + axes.zw * corner.y, 0.0) + origin;
+
+    vColor = color;
+    vTexCoords = mix(texRect.xy, texRect.zw, corner * 0.5 + 0.5);
+
+    gl_Position = proj * view * vec4(position, 1.0);
+}
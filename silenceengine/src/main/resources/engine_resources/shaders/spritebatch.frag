@@ -0,0 +1,34 @@
+#ifdef GL_ES
+    precision mediump float;
+#endif
+
+uniform sampler2D textures[8];
+
+varying vec4 vColor;
+varying vec2 vTexCoords;
+varying float vTexIndex;
+
+void main()
+{
+    // Samplers can only be indexed with constants in GLSL ES 1.0
+    vec4 texColor;
+
+    if (vTexIndex < 0.5)
+        texColor = texture2D(textures[0], vTexCoords);
+    else if (vTexIndex < 1.5)
+        texColor = texture2D(textures[1], vTexCoords);
+    else if (vTexIndex < 2.5)
+        texColor = texture2D(textures[2], vTexCoords);
+    else if (vTexIndex < 3.5)
+        texColor = texture2D(textures[3], vTexCoords);
+    else if (vTexIndex < 4.5)
+        texColor = texture2D(textures[4], vTexCoords);
+    else if (vTexIndex < 5.5)
+        texColor = texture2D(textures[5], vTexCoords);
+    else if (vTexIndex < 6.5)
+        texColor = texture2D(textures[6], vTexCoords);
+    else
+        texColor = texture2D(textures[7], vTexCoords);
+
+    gl_FragColor = vec4(texColor.rgb + vColor.rgb, texColor.a * vColor.a);
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+#ifdef GL_ES
+    precision mediump float;
+#endif
+
+uniform mat4 proj;
+uniform mat4 view;
+
+attribute vec4 position;
+attribute vec4 color;
+attribute vec2 texCoords;
+attribute float texIndex;
+
+varying vec4 vColor;
+varying vec2 vTexCoords;
+varying float vTexIndex;
+
+void main()
+{
+    vColor = color;
+    vTexCoords = texCoords;
+    vTexIndex = texIndex;
+
+    gl_Position = proj * view * position;
+}
\ No newline at end of file
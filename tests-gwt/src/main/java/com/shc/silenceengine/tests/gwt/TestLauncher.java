@@ -30,6 +30,7 @@ import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.ListBox;
 import com.google.gwt.user.client.ui.RootPanel;
 import com.shc.silenceengine.backend.gwt.GwtRuntime;
+import com.shc.silenceengine.tests.DirectBufferBenchmarkTest;
 import com.shc.silenceengine.tests.DynamicRendererTest;
 import com.shc.silenceengine.tests.EntityCollisionTest2D;
 import com.shc.silenceengine.tests.FontRendererTest;
@@ -109,9 +110,12 @@ public class TestLauncher implements EntryPoint
         tests.put("SoundTest", SoundTest::new);
         tests.put("ResourceLoaderTest", ResourceLoaderTest::new);
         tests.put("SpriteRendererTest", SpriteRendererTest::new);
+        tests.put("SpriteRendererTestMultiTextured", () -> new SpriteRendererTest(SpriteRendererTest.Mode.MULTI_TEXTURED));
+        tests.put("SpriteRendererTestInstanced", () -> new SpriteRendererTest(SpriteRendererTest.Mode.INSTANCED));
         tests.put("FontRendererTest", FontRendererTest::new);
         tests.put("TmxMapTestOrthogonal", () -> new TmxMapTest("test_resources/example.tmx"));
         tests.put("TmxMapTestIsometric", () -> new TmxMapTest("test_resources/example-isometric.tmx"));
+        tests.put("DirectBufferBenchmarkTest", DirectBufferBenchmarkTest::new);
     }
 
     @FunctionalInterface
@@ -22,65 +22,32 @@
  * SOFTWARE.
  */
 
-package com.shc.silenceengine.utils;
 
-import com.shc.silenceengine.core.SilenceException;
+package com.shc.silenceengine.tests.lwjgl;
 
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.LinkedList;
-import java.util.List;
+import com.shc.silenceengine.backend.lwjgl.AssetBundlePacker;
+import com.shc.silenceengine.backend.lwjgl.LwjglRuntime;
+import com.shc.silenceengine.tests.AssetBundleTest;
+import com.shc.silenceengine.tests.TestRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * @param <T> Any typed parameter.
- *
  * @author Sri Harsha Chilakapati
  */
-public final class ReusableStack<T>
+public class AssetBundleTestRun
 {
-    private Deque<T> stack;
-    private List<T>  list;
-
-    private ObjectProvider<T> objectProvider;
-
-    public ReusableStack(ObjectProvider<T> objectProvider)
-    {
-        stack = new LinkedList<>();
-        list = new ArrayList<>();
-        this.objectProvider = objectProvider;
-    }
-
-    public T pop()
-    {
-        if (stack.size() == 0)
-            try
-            {
-                T object = objectProvider.createObject();
-
-                list.add(object);
-                stack.push(object);
-            }
-            catch (Exception e)
-            {
-                SilenceException.reThrow(e);
-            }
-
-        return stack.pop();
-    }
-
-    public void push(T value)
+    public static void main(String[] args) throws Exception
     {
-        stack.push(value);
-    }
+        // Pack the test resources from the classpath, which only works when they are not in a JAR
+        Path resources = Paths.get(AssetBundleTestRun.class.getClassLoader().getResource("test_resources").toURI());
+        Path bundle = Files.createTempFile("test_resources", ".bundle");
+        bundle.toFile().deleteOnExit();
 
-    public List<T> getAsList()
-    {
-        return list;
-    }
+        AssetBundlePacker.pack(resources, bundle);
 
-    @FunctionalInterface
-    public interface ObjectProvider<T>
-    {
-        T createObject();
+        LwjglRuntime.start(new TestRunner(new AssetBundleTest(bundle.toString())));
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.core.AssetCache;
+import com.shc.silenceengine.core.IResource;
+import com.shc.silenceengine.core.ResourceLoader;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.graphics.Color;
+import com.shc.silenceengine.graphics.opengl.GLContext;
+import com.shc.silenceengine.graphics.opengl.Texture;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.AssetBundle;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.scene.tiled.TmxMap;
+import com.shc.silenceengine.utils.TimeUtils;
+
+/**
+ * Compares the time taken to load the test resources from the loose files, and from an asset bundle that is packed
+ * from the same files. Each of them is loaded with a cache of its own, so that nothing is shared between them.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AssetBundleTest extends SilenceTest
+{
+    private static final String RESOURCES = "test_resources/";
+
+    private String      bundlePath;
+    private AssetBundle bundle;
+
+    private ResourceLoader looseLoader;
+    private ResourceLoader bundleLoader;
+
+    private double startTime;
+    private double bundleOpenTime;
+    private double looseTime;
+    private double bundleTime;
+
+    public AssetBundleTest(String bundlePath)
+    {
+        this.bundlePath = bundlePath;
+    }
+
+    private static Class<? extends IResource> getType(String name)
+    {
+        if (name.endsWith(".png"))
+            return Texture.class;
+
+        if (name.endsWith(".wav") || name.endsWith(".ogg"))
+            return Sound.class;
+
+        if (name.endsWith(".tmx"))
+            return TmxMap.class;
+
+        return null;
+    }
+
+    @Override
+    public void init()
+    {
+        GLContext.clearColor(Color.DARK_SLATE_BLUE);
+
+        startTime = TimeUtils.currentMillis();
+
+        looseLoader = new ResourceLoader(new AssetCache());
+
+        for (String name : names())
+            looseLoader.define(getType(name), FilePath.getResourceFile(RESOURCES + name));
+
+        looseLoader.start();
+    }
+
+    // The names of the test resources that can be loaded, packed into the bundle by the runner
+    private static String[] names()
+    {
+        return new String[]{
+                "coin_sprinkle.png", "grass-tiles-2-small.png", "isometric.png", "littleshrooms_0.png",
+                "qubodup-bush_0.png", "qubodup-bush_berries_0.png", "tree2-final.png", "test_texture.png",
+                "example.tmx", "example-isometric.tmx", "shoot.wav", "siren.ogg"
+        };
+    }
+
+    private void startBundle()
+    {
+        startTime = TimeUtils.currentMillis();
+
+        AssetBundle.load(FilePath.getExternalFile(bundlePath), bundle ->
+        {
+            this.bundle = bundle;
+            bundleOpenTime = TimeUtils.currentMillis() - startTime;
+
+            bundleLoader = new ResourceLoader(new AssetCache());
+
+            for (String name : names())
+                bundleLoader.define(getType(name), bundle.getFile(name));
+
+            bundleLoader.start();
+        });
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+
+        if (looseTime == 0 && looseLoader.isDone())
+        {
+            looseTime = TimeUtils.currentMillis() - startTime;
+            startBundle();
+        }
+
+        if (bundleTime == 0 && bundleLoader != null && bundleLoader.isDone())
+        {
+            bundleTime = TimeUtils.currentMillis() - startTime;
+
+            SilenceEngine.log.getRootLogger().info("Loose files: " + looseTime + " ms, asset bundle: " + bundleTime
+                                                   + " ms, of which opening the bundle took " + bundleOpenTime + " ms");
+        }
+
+        SilenceEngine.display.setTitle("AssetBundleTest | Loose: " + (looseTime == 0 ? "loading" : looseTime + " ms")
+                                       + " | Bundle: " + (bundleTime == 0 ? "loading" : bundleTime + " ms"));
+    }
+
+    @Override
+    public void dispose()
+    {
+        looseLoader.disposeAll();
+        looseLoader.getCache().clear();
+
+        if (bundleLoader != null)
+        {
+            bundleLoader.disposeAll();
+            bundleLoader.getCache().clear();
+        }
+
+        // The images and samples of the bundle are views of its memory, so it is disposed last
+        if (bundle != null)
+            bundle.dispose();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.audio.AudioBus;
+import com.shc.silenceengine.audio.AudioScene;
+import com.shc.silenceengine.audio.AudioSource;
+import com.shc.silenceengine.audio.AudioStream;
+import com.shc.silenceengine.audio.PCMStreamDecoder;
+import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.DirectBuffer;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * Counts the OpenAL calls that the AudioScene of a {@link RecordingAudioDevice} makes in an update, when the volume of
+ * a bus is changed, when a bus is muted and unmuted, and when nothing is changed. Each change is made in a frame, and
+ * the calls are checked in the next frame, after the scene is updated once. Then a stream is played twice on the
+ * scene, to check that the buffers of its sink are reused. The results are logged once the checks are done, press
+ * ESCAPE to close the test after that.
+ *
+ * <p> The recording device stays installed until the test is closed, since the OpenAL sources of its scene are
+ * disposed along with the engine. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AudioBusTest extends SilenceTest
+{
+    private static final int EFFECTS = 3;
+
+    // The calls to resume a voice: the buffer, looping, position, velocity, direction, gain, offset and play
+    private static final int RESUME_CALLS = 8;
+
+    private RecordingAudioDevice device;
+    private AudioScene           scene;
+    private AudioBus             effectsBus;
+
+    private Sound[] sounds;
+
+    private AudioStream stream;
+    private Stage       stage = Stage.DONE;
+    private int         settleFrames;
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("AudioBusTest failed: " + message);
+    }
+
+    // A sound that is a minute long, so that it doesn't end on its own while the test runs
+    private static Sound createSound(AudioBus bus)
+    {
+        DirectBuffer samples = SilenceEngine.io.create(60 * 1000);
+
+        ALBuffer buffer = new ALBuffer();
+        buffer.uploadData(samples, ALFormat.MONO_8, 1000);
+
+        SilenceEngine.io.free(samples);
+
+        Sound sound = new Sound(buffer);
+        sound.setBus(bus);
+
+        return sound;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("AudioBusTest");
+
+        device = new RecordingAudioDevice();
+        SilenceEngine.audio = device;
+
+        scene = device.scene;
+
+        AudioBus musicBus = new AudioBus("Music", scene.master);
+        effectsBus = new AudioBus("Effects", scene.master);
+
+        sounds = new Sound[EFFECTS + 1];
+
+        for (int i = 0; i < EFFECTS; i++)
+            sounds[i] = createSound(effectsBus);
+
+        sounds[EFFECTS] = createSound(musicBus);
+
+        AudioSource source = new AudioSource();
+
+        for (Sound sound : sounds)
+            scene.play(sound, source, false);
+
+        stage = Stage.SETTLE;
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+
+        switch (stage)
+        {
+            case SETTLE:
+                // The first update of the scene sends the new source, so the counting starts after it is surely done,
+                // whether the scene is updated before or after the test in a frame
+                if (++settleFrames == 2)
+                    stage = Stage.NO_CHANGE;
+                break;
+
+            case NO_CHANGE:
+                checkCalls(0, "when nothing is changed");
+
+                effectsBus.setVolume(0.5f);
+                stage = Stage.VOLUME;
+                break;
+
+            case VOLUME:
+                // Only the gains of the voices on the bus are sent
+                checkCalls(EFFECTS, "when the volume of a bus is changed");
+                check(device.count("alSourcef") == EFFECTS, "the volume is not sent as the gain of the sources");
+
+                for (RecordingGraphicsDevice.Call call : device.getCalls("alSourcef"))
+                    check(call.getInt(1) == AL_GAIN && (float) call.args[2] == 0.5f, "unexpected call " + call);
+
+                effectsBus.setMuted(true);
+                stage = Stage.MUTE;
+                break;
+
+            case MUTE:
+                // The muted voices are made virtual, which stops their sources and detaches their buffers
+                checkCalls(2 * EFFECTS, "when a bus is muted");
+                check(device.count("alSourceStop") == EFFECTS, "the sources of the muted voices are not stopped");
+                check(scene.getVirtualVoiceCount() == EFFECTS, "the muted voices are not virtual");
+
+                stage = Stage.MUTED;
+                break;
+
+            case MUTED:
+                checkCalls(0, "when a bus stays muted");
+
+                effectsBus.setMuted(false);
+                stage = Stage.UNMUTE;
+                break;
+
+            case UNMUTE:
+                checkCalls(RESUME_CALLS * EFFECTS, "when a bus is unmuted");
+                check(device.count("alSourcePlay") == EFFECTS, "the unmuted voices are not resumed");
+                check(scene.getVirtualVoiceCount() == 0, "the unmuted voices are still virtual");
+
+                stage = Stage.UNMUTED;
+                break;
+
+            case UNMUTED:
+                checkCalls(0, "when nothing is changed after unmuting");
+
+                checkStreamSinks();
+
+                SilenceEngine.log.getRootLogger().info("AudioBusTest passed");
+                stage = Stage.DONE;
+                break;
+        }
+
+        device.clear();
+    }
+
+    private void checkCalls(int expected, String when)
+    {
+        // The errors are only checked in development, so those calls are not counted
+        int calls = device.getCalls().size() - device.count("alGetError");
+
+        check(calls == expected, "expected " + expected + " AL calls " + when + ", found " + calls + ": "
+                                 + device.getCalls());
+
+        SilenceEngine.log.getRootLogger().info(expected + " AL calls " + when);
+    }
+
+    private void checkStreamSinks()
+    {
+        // Ten seconds of silence, which is more than a stream plays while the test runs
+        DirectBuffer samples = SilenceEngine.io.create(10 * 8000);
+        stream = new AudioStream(new PCMStreamDecoder(samples, ALFormat.MONO_8, 8000));
+
+        scene.playStream(stream, true);
+        check(device.count("alGenBuffers") == AudioStream.DEFAULT_BUFFER_COUNT,
+                "the first stream doesn't create the buffers of its sink");
+
+        scene.stopStream(stream);
+        device.clear();
+
+        scene.playStream(stream, true);
+        check(device.count("alGenBuffers") == 0, "the buffers are created again for the next stream");
+        check(device.count("alDeleteBuffers") == 0, "the buffers of the stopped stream are deleted");
+
+        scene.stopStream(stream);
+
+        SilenceEngine.log.getRootLogger().info("The buffers of the stream sink are reused by the next stream");
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (stream != null)
+            stream.dispose();
+
+        if (sounds != null)
+            for (Sound sound : sounds)
+                sound.dispose();
+    }
+
+    private enum Stage
+    {
+        SETTLE, NO_CHANGE, VOLUME, MUTE, MUTED, UNMUTE, UNMUTED, DONE
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.audio.AudioScene;
+import com.shc.silenceengine.audio.AudioSource;
+import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.audio.openal.ALFormat;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.DirectBuffer;
+
+import java.util.List;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * Plays more sounds than there are voices in the AudioScene of a {@link RecordingAudioDevice}, which is installed in
+ * the place of the real device. The scene has two real voices and six voices in total, and the sounds are played with
+ * different priorities, to check which voices are stolen, which are made virtual and which are dropped. The voices
+ * that are updated by the scene are checked over the next frames, and the results are logged once they are done,
+ * press ESCAPE to close the test after that.
+ *
+ * <p> The recording device stays installed until the test is closed, since the OpenAL sources of its scene are
+ * disposed along with the engine. </p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AudioSceneTest extends SilenceTest
+{
+    private static final int REAL_VOICES = 2;
+    private static final int ALL_VOICES  = 6;
+
+    // The number of frames a stage may wait for the scene to update before the test fails
+    private static final int MAX_WAIT_FRAMES = 10;
+
+    private RecordingAudioDevice device;
+    private AudioScene           scene;
+    private AudioSource          source;
+
+    private Sound a0, b0, c0, d9, e7, f0;
+    private Sound unknown0, unknown5;
+
+    private Stage stage = Stage.DONE;
+    private int   waitFrames;
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("AudioSceneTest failed: " + message);
+    }
+
+    // A sound that is a minute long, so that it doesn't end on its own while the test runs
+    private static Sound createSound(int priority)
+    {
+        DirectBuffer samples = SilenceEngine.io.create(60 * 1000);
+
+        ALBuffer buffer = new ALBuffer();
+        buffer.uploadData(samples, ALFormat.MONO_8, 1000);
+
+        SilenceEngine.io.free(samples);
+
+        Sound sound = new Sound(buffer);
+        sound.setPriority(priority);
+
+        return sound;
+    }
+
+    // A sound whose samples are never uploaded, so its duration is not known, like the sounds that are still decoding
+    private static Sound createUnknownSound(int priority)
+    {
+        Sound sound = new Sound(new ALBuffer());
+        sound.setPriority(priority);
+
+        return sound;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("AudioSceneTest");
+
+        device = new RecordingAudioDevice();
+        SilenceEngine.audio = device;
+
+        scene = device.scene;
+        scene.setMaxVoices(REAL_VOICES);
+        scene.setMaxVirtualVoices(ALL_VOICES);
+
+        // The sounds are played at the listener, so that all of them are heard at the same volume
+        source = new AudioSource();
+
+        a0 = createSound(0);
+        b0 = createSound(0);
+        c0 = createSound(0);
+        d9 = createSound(9);
+        e7 = createSound(7);
+        f0 = createSound(0);
+
+        unknown0 = createUnknownSound(0);
+        unknown5 = createUnknownSound(5);
+
+        checkAllocation();
+
+        stage = Stage.DROP_STOLEN_UNKNOWN;
+    }
+
+    private void play(Sound sound)
+    {
+        scene.play(sound, source, false);
+    }
+
+    private void checkVoices(int real, int virtual, long stolen, long dropped, String when)
+    {
+        check(scene.getRealVoiceCount() == real, "expected " + real + " real voices " + when + ", found "
+                                                 + scene.getRealVoiceCount());
+        check(scene.getVirtualVoiceCount() == virtual, "expected " + virtual + " virtual voices " + when
+                                                       + ", found " + scene.getVirtualVoiceCount());
+        check(scene.getStolenVoices() == stolen, "expected " + stolen + " stolen voices " + when + ", found "
+                                                 + scene.getStolenVoices());
+        check(scene.getDroppedVoices() == dropped, "expected " + dropped + " dropped voices " + when + ", found "
+                                                   + scene.getDroppedVoices());
+    }
+
+    private void checkPlaying(String when, Sound... sounds)
+    {
+        List<Integer> playing = device.getPlayingBuffers();
+        check(playing.size() == sounds.length, "expected " + sounds.length + " playing sources " + when
+                                               + ", found " + playing.size());
+
+        for (Sound sound : sounds)
+            check(playing.contains(sound.buffer.getID()), "the sound of buffer " + sound.buffer.getID()
+                                                          + " is not playing " + when);
+    }
+
+    private void checkAllocation()
+    {
+        play(a0);
+        play(b0);
+        checkVoices(2, 0, 0, 0, "after filling the real voices");
+
+        // Equally important, and not known when it ends, so it can't wait as a virtual voice either
+        play(unknown0);
+        checkVoices(2, 0, 0, 1, "after playing a sound of unknown duration");
+
+        // Equally important, so it waits as a virtual voice
+        play(c0);
+        checkVoices(2, 1, 0, 1, "after playing an equally important sound");
+        checkPlaying("after playing an equally important sound", a0, b0);
+
+        // Each of these steals the voice of the least important real voice, which is made virtual
+        play(unknown5);
+        checkVoices(2, 2, 1, 1, "after playing a more important sound");
+
+        play(d9);
+        checkVoices(2, 3, 2, 1, "after playing the most important sound");
+
+        play(e7);
+        checkVoices(2, 4, 3, 1, "after stealing the voice of a sound of unknown duration");
+        checkPlaying("after stealing the voice of a sound of unknown duration", d9, e7);
+
+        // All the voices are taken now
+        play(f0);
+        checkVoices(2, 4, 3, 2, "after playing more sounds than there are voices");
+
+        SilenceEngine.log.getRootLogger().info("The voices are stolen by priority, and the extra sounds are made "
+                                               + "virtual or dropped");
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+
+        if (stage == Stage.DONE)
+            return;
+
+        check(++waitFrames <= MAX_WAIT_FRAMES, "the scene is not updated in " + MAX_WAIT_FRAMES + " frames at "
+                                               + stage);
+
+        switch (stage)
+        {
+            case DROP_STOLEN_UNKNOWN:
+                // The stolen sound of unknown duration can't be resumed from the right time, so it is dropped
+                if (scene.getVirtualVoiceCount() == 4)
+                    break;
+
+                checkVoices(2, 3, 3, 3, "after the scene drops the stolen sound of unknown duration");
+                checkPlaying("after the scene drops the stolen sound of unknown duration", d9, e7);
+
+                SilenceEngine.log.getRootLogger().info("The stolen voice of unknown duration is dropped");
+
+                scene.stop(d9, source);
+                device.clear();
+
+                stage = Stage.RESUME_VIRTUAL;
+                waitFrames = 0;
+                break;
+
+            case RESUME_VIRTUAL:
+                // The first virtual voice takes the real voice that is freed, and resumes from its own time
+                if (scene.getVirtualVoiceCount() == 3)
+                    break;
+
+                checkVoices(2, 2, 3, 3, "after a real voice is freed");
+                checkResumed();
+
+                SilenceEngine.log.getRootLogger().info("The virtual voice is resumed when a real voice is freed");
+                SilenceEngine.log.getRootLogger().info("AudioSceneTest passed");
+
+                scene.stopAllSources();
+                stage = Stage.DONE;
+                break;
+        }
+    }
+
+    private void checkResumed()
+    {
+        List<Integer> playing = device.getPlayingBuffers();
+        check(playing.contains(e7.buffer.getID()), "the sound that is still real is not playing");
+
+        boolean resumed = false;
+
+        for (Sound sound : new Sound[]{ a0, b0, c0 })
+            resumed |= playing.contains(sound.buffer.getID());
+
+        check(resumed, "none of the virtual voices is playing after a real voice is freed");
+
+        boolean seeked = false;
+
+        for (RecordingGraphicsDevice.Call call : device.getCalls("alSourcef"))
+            seeked |= call.getInt(1) == AL_SEC_OFFSET && (float) call.args[2] > 0;
+
+        check(seeked, "the resumed voice is not seeked to its time");
+    }
+
+    @Override
+    public void dispose()
+    {
+        for (Sound sound : new Sound[]{ a0, b0, c0, d9, e7, f0, unknown0, unknown5 })
+            if (sound != null)
+                sound.dispose();
+    }
+
+    private enum Stage
+    {
+        DROP_STOLEN_UNKNOWN, RESUME_VIRTUAL, DONE
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.AudioStream;
+import com.shc.silenceengine.audio.AudioStreamDecoder;
+import com.shc.silenceengine.audio.NullPCMSink;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.FilePath;
+
+/**
+ * Streams an OGG file through an {@link AudioStream} into a {@link NullPCMSink}, which consumes the chunks on every
+ * update without an audio device. The stream is played to the end, then seeked to the middle of the track, and then
+ * looped, and the bytes submitted to the sink are checked against the length of the track every time. The results are
+ * logged once the checks are done, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class AudioStreamTest extends SilenceTest
+{
+    private static final FilePath TRACK = FilePath.getResourceFile("test_resources/siren.ogg");
+
+    // The number of times the track is played over in the loop stage
+    private static final int LOOPS = 3;
+
+    private AudioStream stream;
+    private NullPCMSink sink;
+    private Stage       stage;
+
+    private long trackBytes;
+    private long seekBytes;
+    private int  updates;
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("AudioStreamTest failed: " + message);
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("AudioStreamTest");
+
+        if (!SilenceEngine.audio.isStreamingSupported(AudioDevice.AudioFormat.OGG))
+        {
+            SilenceEngine.log.getRootLogger().info("AudioStreamTest skipped, OGG streaming is not supported");
+            return;
+        }
+
+        AudioStream.open(TRACK, stream ->
+        {
+            this.stream = stream;
+
+            AudioStreamDecoder decoder = stream.getDecoder();
+            check(decoder.getLengthInFrames() > 0, "the length of the track is not known");
+
+            trackBytes = (long) decoder.getLengthInFrames() * decoder.getFormat().getFrameSize();
+            start(Stage.PLAY, false);
+        });
+    }
+
+    private void start(Stage stage, boolean loop)
+    {
+        this.stage = stage;
+
+        sink = new NullPCMSink(AudioStream.DEFAULT_BUFFER_COUNT);
+        updates = 0;
+
+        stream.play(sink, loop);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+
+        if (stream == null || stage == Stage.DONE)
+            return;
+
+        stream.update();
+        updates++;
+
+        switch (stage)
+        {
+            case PLAY:
+                if (stream.getState() == AudioStream.State.STOPPED)
+                {
+                    check(sink.getSubmittedBytes() == trackBytes,
+                            "streamed " + sink.getSubmittedBytes() + " bytes of a track of " + trackBytes + " bytes");
+
+                    SilenceEngine.log.getRootLogger().info("Streamed all the " + trackBytes + " bytes in "
+                                                           + sink.getSubmittedChunks() + " chunks and " + updates
+                                                           + " updates");
+
+                    startSeek();
+                }
+                break;
+
+            case SEEK:
+                if (stream.getState() == AudioStream.State.STOPPED)
+                {
+                    check(sink.getSubmittedBytes() == seekBytes, "streamed " + sink.getSubmittedBytes()
+                                                                 + " bytes after the seek, expected " + seekBytes);
+
+                    SilenceEngine.log.getRootLogger().info("Streamed the " + seekBytes + " bytes after the seek");
+
+                    start(Stage.LOOP, true);
+                }
+                break;
+
+            case LOOP:
+                check(stream.getState() == AudioStream.State.PLAYING, "the looping stream stopped after "
+                                                                      + sink.getSubmittedBytes() + " bytes");
+                check(stream.getPosition() < stream.getDuration(), "the position " + stream.getPosition()
+                                                                   + " is past the end of the track");
+
+                if (sink.getSubmittedBytes() > LOOPS * trackBytes)
+                {
+                    stream.stop();
+                    stage = Stage.DONE;
+
+                    SilenceEngine.log.getRootLogger().info("Looped over the track " + LOOPS + " times in "
+                                                           + updates + " updates");
+                    SilenceEngine.log.getRootLogger().info("AudioStreamTest passed");
+                }
+                break;
+        }
+    }
+
+    private void startSeek()
+    {
+        start(Stage.SEEK, false);
+
+        AudioStreamDecoder decoder = stream.getDecoder();
+
+        // The frame is computed the same way as the stream does, so that the expected bytes are exact
+        float seconds = decoder.getLengthInFrames() / 2 / (float) decoder.getSampleRate();
+        int frame = (int) (seconds * decoder.getSampleRate());
+
+        seekBytes = trackBytes - (long) frame * decoder.getFormat().getFrameSize();
+        stream.seek(seconds);
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (stream != null)
+            stream.dispose();
+    }
+
+    private enum Stage
+    {
+        PLAY, SEEK, LOOP, DONE
+    }
+}
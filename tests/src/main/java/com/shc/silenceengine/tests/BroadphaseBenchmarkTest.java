@@ -0,0 +1,321 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.broadphase.DynamicTree2D;
+import com.shc.silenceengine.collision.broadphase.DynamicTree3D;
+import com.shc.silenceengine.collision.broadphase.Grid;
+import com.shc.silenceengine.collision.broadphase.IBroadphase2D;
+import com.shc.silenceengine.collision.broadphase.IBroadphase3D;
+import com.shc.silenceengine.collision.broadphase.QuadTree;
+import com.shc.silenceengine.collision.broadphase.SweepAndPrune2D;
+import com.shc.silenceengine.collision.broadphase.SweepAndPrune3D;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.math.geom3d.Cuboid;
+import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.scene.components.CollisionComponent3D;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs all the broadphase implementations on the same synthetic workloads, and logs the time taken to update and query
+ * them per frame. The worlds are four times wider than they are high (or deep), like a side scrolling level. The Grid
+ * and the QuadTree are cleared and filled again every frame, as they look up the components with their current bounds
+ * when removing them.
+ *
+ * <p> The number of hits, the candidates which really overlap with the query, is logged too as a check. It is the same
+ * for all the implementations that return every candidate once, the Grid counts a component once for every cell that
+ * it shares with the query. The sweep and prune sorts lazily on the first query after the updates, so the sort shows
+ * up in its query time.</p>
+ *
+ * <p> All the workloads are run once with fewer components to warm up the JIT, and the results are logged in the
+ * init. Press ESCAPE to close the test after that.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class BroadphaseBenchmarkTest extends SilenceTest
+{
+    private static final int   FRAMES   = 60;
+    private static final float ASPECT   = 4;
+    private static final float CELL     = 32;
+    private static final int   CLUSTERS = 16;
+
+    private static final CollisionTag TAG = new CollisionTag();
+
+    /**
+     * Generates the positions and velocities of the components of a workload.
+     *
+     * @return The size of the world along every axis.
+     */
+    private static float[] generate(Workload workload, int count, int dimensions, float[] positions, float[] velocities)
+    {
+        Random random = new Random(count * 31 + workload.ordinal());
+
+        // One component per cell of the world on average
+        float depth = (float) Math.pow(count / ASPECT, 1.0 / dimensions) * CELL;
+        float[] worldSize = new float[dimensions];
+
+        for (int d = 0; d < dimensions; d++)
+            worldSize[d] = d == 0 ? depth * ASPECT : depth;
+
+        float[] centers = new float[CLUSTERS * dimensions];
+
+        for (int i = 0; i < centers.length; i++)
+            centers[i] = random.nextFloat() * worldSize[i % dimensions];
+
+        float speed = workload == Workload.FAST_MOVING ? 24 : 1;
+
+        for (int i = 0; i < count; i++)
+        {
+            int cluster = random.nextInt(CLUSTERS);
+
+            for (int d = 0; d < dimensions; d++)
+            {
+                int j = i * dimensions + d;
+
+                if (workload == Workload.CLUSTERED)
+                    positions[j] = wrap(centers[cluster * dimensions + d] + (float) random.nextGaussian() * depth / 32,
+                            worldSize[d]);
+                else
+                    positions[j] = random.nextFloat() * worldSize[d];
+
+                velocities[j] = (random.nextFloat() * 2 - 1) * speed;
+            }
+        }
+
+        return worldSize;
+    }
+
+    private static float wrap(float value, float size)
+    {
+        value %= size;
+        return value < 0 ? value + size : value;
+    }
+
+    private static String format(String name, Workload workload, int count, double updateTime, double queryTime,
+                                 long candidates, long hits)
+    {
+        return name + ", " + workload + ", " + count + " components: update " + (updateTime / FRAMES)
+               + " ms/frame, query " + (queryTime / FRAMES) + " ms/frame, " + (candidates / FRAMES)
+               + " candidates/frame, " + hits + " hits in the last frame";
+    }
+
+    public static String benchmark2D(String name, IBroadphase2D broadphase, boolean rebuild, Workload workload,
+                                     int count)
+    {
+        float[] positions = new float[count * 2];
+        float[] velocities = new float[count * 2];
+        float[] worldSize = generate(workload, count, 2, positions, velocities);
+
+        Random random = new Random(count);
+        CollisionComponent2D[] components = new CollisionComponent2D[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            float size = 8 + random.nextFloat() * 8;
+            components[i] = new CollisionComponent2D(TAG, new Rectangle(positions[i * 2], positions[i * 2 + 1], size,
+                    size));
+
+            broadphase.insert(components[i]);
+        }
+
+        double updateTime = 0;
+        double queryTime = 0;
+        long candidates = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            for (int i = 0; i < count * 2; i++)
+                positions[i] = wrap(positions[i] + velocities[i], worldSize[i % 2]);
+
+            for (int i = 0; i < count; i++)
+                components[i].polygon.setPosition(positions[i * 2], positions[i * 2 + 1]);
+
+            double start = TimeUtils.currentMillis();
+
+            if (rebuild)
+            {
+                broadphase.clear();
+
+                for (CollisionComponent2D component : components)
+                    broadphase.insert(component);
+            }
+            else
+            {
+                for (CollisionComponent2D component : components)
+                    broadphase.update(component);
+            }
+
+            updateTime += TimeUtils.currentMillis() - start;
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent2D component : components)
+                candidates += broadphase.retrieve(component).size();
+
+            queryTime += TimeUtils.currentMillis() - start;
+        }
+
+        long hits = 0;
+
+        for (CollisionComponent2D component : components)
+        {
+            Rectangle a = component.polygon.getBounds();
+            List<CollisionComponent2D> collidables = broadphase.retrieve(component);
+
+            for (int i = 0, n = collidables.size(); i < n; i++)
+            {
+                Rectangle b = collidables.get(i).polygon.getBounds();
+
+                if (a.getX() <= b.getX() + b.getWidth() && b.getX() <= a.getX() + a.getWidth() &&
+                    a.getY() <= b.getY() + b.getHeight() && b.getY() <= a.getY() + a.getHeight())
+                    hits++;
+            }
+        }
+
+        return format(name, workload, count, updateTime, queryTime, candidates, hits);
+    }
+
+    public static String benchmark3D(String name, IBroadphase3D broadphase, Workload workload, int count)
+    {
+        float[] positions = new float[count * 3];
+        float[] velocities = new float[count * 3];
+        float[] worldSize = generate(workload, count, 3, positions, velocities);
+
+        Random random = new Random(count);
+        CollisionComponent3D[] components = new CollisionComponent3D[count];
+        Vector3 position = new Vector3();
+
+        for (int i = 0; i < count; i++)
+        {
+            float size = 8 + random.nextFloat() * 8;
+            position.set(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+            components[i] = new CollisionComponent3D(TAG, new Cuboid(position, size, size, size));
+
+            broadphase.insert(components[i]);
+        }
+
+        double updateTime = 0;
+        double queryTime = 0;
+        long candidates = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            for (int i = 0; i < count * 3; i++)
+                positions[i] = wrap(positions[i] + velocities[i], worldSize[i % 3]);
+
+            for (int i = 0; i < count; i++)
+                components[i].polyhedron.setPosition(position.set(positions[i * 3], positions[i * 3 + 1],
+                        positions[i * 3 + 2]));
+
+            double start = TimeUtils.currentMillis();
+
+            for (CollisionComponent3D component : components)
+                broadphase.update(component);
+
+            updateTime += TimeUtils.currentMillis() - start;
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent3D component : components)
+                candidates += broadphase.retrieve(component).size();
+
+            queryTime += TimeUtils.currentMillis() - start;
+        }
+
+        long hits = 0;
+
+        for (CollisionComponent3D component : components)
+        {
+            Cuboid a = component.polyhedron.getBounds();
+            List<CollisionComponent3D> collidables = broadphase.retrieve(component);
+
+            for (int i = 0, n = collidables.size(); i < n; i++)
+            {
+                Cuboid b = collidables.get(i).polyhedron.getBounds();
+
+                if (Math.abs(a.getPosition().x - b.getPosition().x) <= (a.getWidth() + b.getWidth()) / 2 &&
+                    Math.abs(a.getPosition().y - b.getPosition().y) <= (a.getHeight() + b.getHeight()) / 2 &&
+                    Math.abs(a.getPosition().z - b.getPosition().z) <= (a.getThickness() + b.getThickness()) / 2)
+                    hits++;
+            }
+        }
+
+        return format(name, workload, count, updateTime, queryTime, candidates, hits);
+    }
+
+    public static void runAll(int count, boolean log)
+    {
+        for (Workload workload : Workload.values())
+        {
+            // The size of the world, as computed by the generate method for two dimensions
+            int width = (int) (Math.sqrt(count / ASPECT) * CELL * ASPECT) + 1;
+            int height = (int) (Math.sqrt(count / ASPECT) * CELL) + 1;
+
+            log(log, benchmark2D("Grid", new Grid(width, height, 64, 64), true, workload, count));
+            log(log, benchmark2D("QuadTree", new QuadTree(width, height), true, workload, count));
+            log(log, benchmark2D("DynamicTree2D", new DynamicTree2D(), false, workload, count));
+            log(log, benchmark2D("SweepAndPrune2D", new SweepAndPrune2D(), false, workload, count));
+
+            log(log, benchmark3D("DynamicTree3D", new DynamicTree3D(), workload, count));
+            log(log, benchmark3D("SweepAndPrune3D", new SweepAndPrune3D(), workload, count));
+        }
+    }
+
+    private static void log(boolean log, String message)
+    {
+        if (log)
+            SilenceEngine.log.getRootLogger().info(message);
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("BroadphaseBenchmarkTest");
+
+        runAll(1000, false);
+        runAll(5000, true);
+        runAll(20000, true);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+
+    public enum Workload
+    {
+        UNIFORM,
+        CLUSTERED,
+        FAST_MOVING
+    }
+}
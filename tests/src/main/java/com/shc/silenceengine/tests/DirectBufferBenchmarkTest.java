@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.utils.TimeUtils;
+
+/**
+ * Measures the bulk transfer methods of the DirectBuffer against a loop of single element accesses, which is what
+ * they did before they were specialized by the backends. Since the buffers are created with the IODevice of the
+ * running backend, running this on each of the LWJGL, GWT and Android backends compares all the three
+ * implementations. Every operation is run a few times on a 4 MB buffer and the best time is logged as MB/s. The
+ * results are logged once in the init, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class DirectBufferBenchmarkTest extends SilenceTest
+{
+    private static final int FLOATS = 1024 * 1024;
+    private static final int BYTES  = FLOATS * 4;
+    private static final int RUNS   = 10;
+
+    private static float checksum;
+
+    private static double toMBps(double nanos)
+    {
+        return (BYTES / (1024.0 * 1024.0)) / (nanos / 1000000000.0);
+    }
+
+    /**
+     * Runs every operation on a pair of buffers a number of times.
+     *
+     * @param runs The number of times to run every operation.
+     *
+     * @return The best time of every operation in nanoseconds, single element loop followed by the bulk method for
+     * writing floats, reading floats, copying bytes and filling bytes.
+     */
+    public static double[] benchmark(int runs)
+    {
+        DirectBuffer src = DirectBuffer.create(BYTES);
+        DirectBuffer dst = DirectBuffer.create(BYTES);
+
+        float[] data = new float[FLOATS];
+
+        for (int i = 0; i < FLOATS; i++)
+            data[i] = i * 0.5f;
+
+        double[] best = new double[8];
+
+        for (int i = 0; i < best.length; i++)
+            best[i] = Double.MAX_VALUE;
+
+        for (int run = 0; run < runs; run++)
+        {
+            double start = TimeUtils.currentNanos();
+
+            for (int i = 0; i < FLOATS; i++)
+                src.writeFloat(i * 4, data[i]);
+
+            best[0] = Math.min(best[0], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            src.write(0, data, 0, FLOATS);
+
+            best[1] = Math.min(best[1], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            for (int i = 0; i < FLOATS; i++)
+                data[i] = src.readFloat(i * 4);
+
+            best[2] = Math.min(best[2], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            src.read(0, data, 0, FLOATS);
+
+            best[3] = Math.min(best[3], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            for (int i = 0; i < BYTES; i++)
+                dst.writeByte(i, src.readByte(i));
+
+            best[4] = Math.min(best[4], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            src.copyTo(0, dst, 0, BYTES);
+
+            best[5] = Math.min(best[5], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            for (int i = 0; i < BYTES; i++)
+                dst.writeByte(i, (byte) run);
+
+            best[6] = Math.min(best[6], TimeUtils.currentNanos() - start);
+            start = TimeUtils.currentNanos();
+
+            dst.fill(0, BYTES, (byte) run);
+
+            best[7] = Math.min(best[7], TimeUtils.currentNanos() - start);
+
+            // Use the results, so that the loops can't be optimized away
+            checksum += data[run] + dst.readByte(run) + src.readFloat(run * 4);
+        }
+
+        DirectBuffer.free(src);
+        DirectBuffer.free(dst);
+
+        return best;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("DirectBufferBenchmarkTest");
+
+        // Warm up, so that the compiler has seen every loop before they are measured
+        benchmark(3);
+
+        double[] best = benchmark(RUNS);
+        String[] names = { "write(float[])", "read(float[])", "copyTo", "fill" };
+
+        DirectBuffer buffer = DirectBuffer.create(4);
+        SilenceEngine.log.getRootLogger().info("DirectBuffer implementation: " + buffer.getClass().getName());
+        DirectBuffer.free(buffer);
+
+        for (int i = 0; i < names.length; i++)
+        {
+            double loop = best[i * 2];
+            double bulk = best[i * 2 + 1];
+
+            SilenceEngine.log.getRootLogger().info(names[i] + ": single elements " + (int) toMBps(loop)
+                                                   + " MB/s, bulk " + (int) toMBps(bulk) + " MB/s, speedup "
+                                                   + (loop / bulk) + "x");
+        }
+
+        SilenceEngine.log.getRootLogger().info("Checksum: " + checksum);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.broadphase.DynamicTree2D;
+import com.shc.silenceengine.collision.broadphase.DynamicTree3D;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.math.geom3d.Cuboid;
+import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.scene.components.CollisionComponent3D;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.util.Random;
+
+/**
+ * Measures the time taken to insert, update and query the dynamic trees with 10k and 100k components. The components
+ * are boxes scattered with a constant density, which move by a small random step every frame. The results are logged
+ * once in the init, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class DynamicTreeBenchmarkTest extends SilenceTest
+{
+    private static final int   FRAMES = 60;
+    private static final float SPEED  = 2;
+
+    private static final CollisionTag TAG = new CollisionTag();
+
+    public static String benchmark2D(int count)
+    {
+        Random random = new Random(count);
+        float worldSize = (float) Math.sqrt(count) * 32;
+
+        CollisionComponent2D[] components = new CollisionComponent2D[count];
+        float[] velocities = new float[count * 2];
+
+        for (int i = 0; i < count; i++)
+        {
+            float size = 8 + random.nextFloat() * 8;
+
+            components[i] = new CollisionComponent2D(TAG, new Rectangle(random.nextFloat() * worldSize,
+                    random.nextFloat() * worldSize, size, size));
+
+            velocities[i * 2] = (random.nextFloat() * 2 - 1) * SPEED;
+            velocities[i * 2 + 1] = (random.nextFloat() * 2 - 1) * SPEED;
+        }
+
+        DynamicTree2D tree = new DynamicTree2D();
+
+        double start = TimeUtils.currentMillis();
+
+        for (CollisionComponent2D component : components)
+            tree.insert(component);
+
+        double insertTime = TimeUtils.currentMillis() - start;
+        double updateTime = 0;
+        double queryTime = 0;
+        long candidates = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            for (int i = 0; i < count; i++)
+                components[i].polygon.translate(velocities[i * 2], velocities[i * 2 + 1]);
+
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent2D component : components)
+                tree.update(component);
+
+            updateTime += TimeUtils.currentMillis() - start;
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent2D component : components)
+                candidates += tree.retrieve(component).size();
+
+            queryTime += TimeUtils.currentMillis() - start;
+        }
+
+        return "DynamicTree2D, " + count + " proxies: insert " + insertTime + " ms, update "
+               + (updateTime / FRAMES) + " ms/frame, query " + (queryTime / FRAMES) + " ms/frame, "
+               + (candidates / FRAMES / count) + " candidates per query, height " + tree.getHeight();
+    }
+
+    public static String benchmark3D(int count)
+    {
+        Random random = new Random(count);
+        float worldSize = (float) Math.cbrt(count) * 32;
+
+        CollisionComponent3D[] components = new CollisionComponent3D[count];
+        float[] velocities = new float[count * 3];
+
+        for (int i = 0; i < count; i++)
+        {
+            float size = 8 + random.nextFloat() * 8;
+            Vector3 position = new Vector3(random.nextFloat() * worldSize, random.nextFloat() * worldSize,
+                    random.nextFloat() * worldSize);
+
+            components[i] = new CollisionComponent3D(TAG, new Cuboid(position, size, size, size));
+
+            velocities[i * 3] = (random.nextFloat() * 2 - 1) * SPEED;
+            velocities[i * 3 + 1] = (random.nextFloat() * 2 - 1) * SPEED;
+            velocities[i * 3 + 2] = (random.nextFloat() * 2 - 1) * SPEED;
+        }
+
+        DynamicTree3D tree = new DynamicTree3D();
+
+        double start = TimeUtils.currentMillis();
+
+        for (CollisionComponent3D component : components)
+            tree.insert(component);
+
+        double insertTime = TimeUtils.currentMillis() - start;
+        double updateTime = 0;
+        double queryTime = 0;
+        long candidates = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            for (int i = 0; i < count; i++)
+                components[i].polyhedron.translate(velocities[i * 3], velocities[i * 3 + 1], velocities[i * 3 + 2]);
+
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent3D component : components)
+                tree.update(component);
+
+            updateTime += TimeUtils.currentMillis() - start;
+            start = TimeUtils.currentMillis();
+
+            for (CollisionComponent3D component : components)
+                candidates += tree.retrieve(component).size();
+
+            queryTime += TimeUtils.currentMillis() - start;
+        }
+
+        return "DynamicTree3D, " + count + " proxies: insert " + insertTime + " ms, update "
+               + (updateTime / FRAMES) + " ms/frame, query " + (queryTime / FRAMES) + " ms/frame, "
+               + (candidates / FRAMES / count) + " candidates per query, height " + tree.getHeight();
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("DynamicTreeBenchmarkTest");
+
+        for (int count : new int[]{ 10000, 100000 })
+        {
+            SilenceEngine.log.getRootLogger().info(benchmark2D(count));
+            SilenceEngine.log.getRootLogger().info(benchmark3D(count));
+        }
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}
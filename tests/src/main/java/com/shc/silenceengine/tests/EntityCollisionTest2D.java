@@ -45,6 +45,7 @@ import com.shc.silenceengine.scene.Scene2D;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
 import com.shc.silenceengine.scene.components.IComponent2D;
 import com.shc.silenceengine.scene.entity.Entity2D;
+import com.shc.silenceengine.utils.ScratchPool;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -173,12 +174,16 @@ public class EntityCollisionTest2D extends SilenceTest
         if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
             SilenceEngine.display.close();
 
+        if (Keyboard.isKeyTapped(Keyboard.KEY_P))
+            collider.setParallel(!collider.isParallel());
+
         scene.update(deltaTime);
         collider.checkCollisions();
 
         SilenceEngine.display.setTitle("UPS: " + SilenceEngine.gameLoop.getUPS()
                                        + " | FPS: " + SilenceEngine.gameLoop.getFPS()
                                        + " | RC: " + IGraphicsDevice.Data.renderCallsThisFrame
+                                       + " | Parallel (P): " + collider.isParallel()
                                        + " | EntityCollisionTest2D");
     }
 
@@ -283,7 +288,10 @@ public class EntityCollisionTest2D extends SilenceTest
         @Override
         public void render(float deltaTime)
         {
-            Vector2 temp = Vector2.REUSABLE_STACK.pop();
+            ScratchPool scratch = ScratchPool.get();
+            int mark = scratch.mark();
+
+            Vector2 temp = scratch.vector2();
 
             for (int i = 0, n = collisionComponent.polygon.getVertices().size(); i < n; i++)
             {
@@ -297,7 +305,7 @@ public class EntityCollisionTest2D extends SilenceTest
                 renderer.color(color);
             }
 
-            Vector2.REUSABLE_STACK.push(temp);
+            scratch.release(mark);
         }
 
         @Override
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.EventManager;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.events.IUpdateEventHandler;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.utils.TimeUtils;
+
+/**
+ * Measures the garbage created by raising update events with 1,000 registered handlers. The memory in use is read
+ * before and after a run of frames without collecting in between, so anything allocated by the dispatch shows up as
+ * growth. The growth of a short and a long run is compared, so that the constant overhead of the measurement cancels
+ * out. Another run adds and removes a handler every frame, which has to rebuild the dispatch array, to show that the
+ * measurement does see the garbage. The engine's own update handlers are raised along with the benchmark ones.
+ * The results are logged once in the init, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class EventManagerBenchmarkTest extends SilenceTest
+{
+    private static final int HANDLERS = 1000;
+
+    private static long counter;
+
+    private static long collectAndGetUsedMemory()
+    {
+        for (int i = 0; i < 4; i++)
+            System.gc();
+
+        return getUsedMemory();
+    }
+
+    private static long getUsedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Raises the update events for a number of frames, and measures the memory in use before and after.
+     *
+     * @param frames The number of frames to raise the events for.
+     * @param churn  Whether to add and remove a handler every frame.
+     *
+     * @return The growth of the used memory in bytes, and the time taken in microseconds per frame.
+     */
+    public static double[] benchmark(int frames, boolean churn)
+    {
+        EventManager eventManager = SilenceEngine.eventManager;
+        IUpdateEventHandler churnHandler = delta -> counter--;
+
+        long before = collectAndGetUsedMemory();
+        double start = TimeUtils.currentNanos();
+
+        for (int frame = 0; frame < frames; frame++)
+        {
+            if (churn)
+            {
+                if (frame % 2 == 0)
+                    eventManager.addUpdateHandler(churnHandler);
+                else
+                    eventManager.removeUpdateHandler(churnHandler);
+            }
+
+            eventManager.raiseUpdateEvent(0);
+        }
+
+        double time = TimeUtils.currentNanos() - start;
+        long garbage = getUsedMemory() - before;
+
+        // Don't leave the handler registered after an odd number of frames
+        eventManager.removeUpdateHandler(churnHandler);
+        eventManager.raiseUpdateEvent(0);
+
+        return new double[]{ garbage, time / frames / 1000 };
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("EventManagerBenchmarkTest");
+
+        IUpdateEventHandler[] handlers = new IUpdateEventHandler[HANDLERS];
+
+        for (int i = 0; i < HANDLERS; i++)
+        {
+            handlers[i] = delta -> counter++;
+            SilenceEngine.eventManager.addUpdateHandler(handlers[i], i % 4);
+        }
+
+        // Commit the new handlers and warm up the dispatch
+        benchmark(10000, false);
+        benchmark(10000, true);
+
+        double[] shortRun = benchmark(10000, false);
+        double[] longRun = benchmark(100000, false);
+        double[] churn = benchmark(1000, true);
+
+        SilenceEngine.log.getRootLogger().info(HANDLERS + " handlers: memory grew by " + (long) shortRun[0]
+                                               + " bytes in 10000 frames and " + (long) longRun[0]
+                                               + " bytes in 100000 frames, that is "
+                                               + ((longRun[0] - shortRun[0]) / 90000) + " bytes/frame, "
+                                               + longRun[1] + " us/frame");
+
+        SilenceEngine.log.getRootLogger().info("Adding or removing a handler every frame: " + (churn[0] / 1000)
+                                               + " bytes/frame, " + churn[1] + " us/frame");
+
+        for (IUpdateEventHandler handler : handlers)
+            SilenceEngine.eventManager.removeUpdateHandler(handler);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Compares the throughput and the heap allocation of reading 1 MB, 50 MB and 500 MB external files through the file
+ * reader of the backend, against the stream copy that the LWJGL file reader used before. The files are filled with
+ * random bytes and written to the temporary directory, so the page cache is warm when they are read. Every read is
+ * done a few times and the best time is taken, and every page of the result is touched, so that memory mapped files
+ * are paged in. The time of the file reader is the latency of its background job, the delivery of the buffer to the
+ * update thread is not counted.
+ *
+ * <p> The heap allocation is the growth of the used memory over a read. The stream copy allocates more than the file
+ * size, so the heap is collected during its larger reads and its figures are only a lower bound. The reads are run
+ * one after the other in the update, and the results are logged as they complete, press ESCAPE to close the test
+ * after that.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class FileReadBenchmarkTest extends SilenceTest
+{
+    private static final int   MB    = 1024 * 1024;
+    private static final int[] SIZES = { 1, 50, 500 };
+    private static final int   RUNS  = 3;
+
+    private File[] files;
+
+    private int     step;
+    private boolean waiting;
+
+    private double bestStreamTime;
+    private long   streamAllocation;
+    private double bestReaderTime;
+    private long   readerAllocation;
+
+    private static long collectAndGetUsedMemory()
+    {
+        for (int i = 0; i < 4; i++)
+            System.gc();
+
+        return getUsedMemory();
+    }
+
+    private static long getUsedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static File createFile(int sizeMB) throws IOException
+    {
+        File file = File.createTempFile("silenceengine-benchmark-" + sizeMB + "mb-", ".bin");
+        file.deleteOnExit();
+
+        Random random = new Random(sizeMB);
+        byte[] chunk = new byte[MB];
+
+        try (OutputStream outputStream = new FileOutputStream(file))
+        {
+            for (int i = 0; i < sizeMB; i++)
+            {
+                random.nextBytes(chunk);
+                outputStream.write(chunk);
+            }
+        }
+
+        return file;
+    }
+
+    // Reads one byte of every page, so that the pages of a mapped file are actually read
+    private static long touchPages(DirectBuffer buffer)
+    {
+        long sum = 0;
+
+        for (int i = 0; i < buffer.sizeBytes(); i += 4096)
+            sum += buffer.readByte(i);
+
+        return sum;
+    }
+
+    /**
+     * Reads the file like the LWJGL file reader did before, through a byte array, a ByteArrayOutputStream and then
+     * byte by byte into a direct buffer.
+     *
+     * @return The time taken in milliseconds.
+     */
+    private static double readWithStreamCopy(File file) throws IOException
+    {
+        double start = TimeUtils.currentMillis();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = new FileInputStream(file))
+        {
+            byte[] buffer = new byte[4096];
+            int n;
+
+            while ((n = inputStream.read(buffer)) >= 0)
+                outputStream.write(buffer, 0, n);
+        }
+
+        byte[] bytes = outputStream.toByteArray();
+        DirectBuffer directBuffer = SilenceEngine.io.create(bytes.length);
+
+        for (int i = 0; i < bytes.length; i++)
+            directBuffer.writeByte(i, bytes[i]);
+
+        touchPages(directBuffer);
+        double time = TimeUtils.currentMillis() - start;
+
+        SilenceEngine.io.free(directBuffer);
+        return time;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("FileReadBenchmarkTest");
+
+        files = new File[SIZES.length];
+
+        try
+        {
+            for (int i = 0; i < SIZES.length; i++)
+                files[i] = createFile(SIZES[i]);
+        }
+        catch (IOException e)
+        {
+            throw new SilenceException("Cannot create the benchmark files: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+
+        if (waiting || step == SIZES.length * RUNS * 2)
+            return;
+
+        int sizeIndex = step / (RUNS * 2);
+        int run = step % (RUNS * 2);
+
+        File file = files[sizeIndex];
+        step++;
+
+        if (run == 0)
+        {
+            bestStreamTime = bestReaderTime = Double.MAX_VALUE;
+            streamAllocation = readerAllocation = 0;
+        }
+
+        // The stream copy runs first, and then the file reader
+        if (run < RUNS)
+        {
+            long before = collectAndGetUsedMemory();
+
+            try
+            {
+                bestStreamTime = Math.min(bestStreamTime, readWithStreamCopy(file));
+            }
+            catch (IOException e)
+            {
+                throw new SilenceException("Cannot read " + file + ": " + e.getMessage(), e);
+            }
+
+            streamAllocation = Math.max(streamAllocation, getUsedMemory() - before);
+            return;
+        }
+
+        long before = collectAndGetUsedMemory();
+
+        waiting = true;
+        TaskManager.resetMetrics();
+
+        SilenceEngine.io.getFileReader().readBinaryFile(FilePath.getExternalFile(file.getAbsolutePath()), buffer ->
+        {
+            double touchStart = TimeUtils.currentMillis();
+            touchPages(buffer);
+
+            double time = TaskManager.getMaxJobLatency() + TimeUtils.currentMillis() - touchStart;
+
+            bestReaderTime = Math.min(bestReaderTime, time);
+            readerAllocation = Math.max(readerAllocation, getUsedMemory() - before);
+
+            SilenceEngine.io.free(buffer);
+            waiting = false;
+
+            if (run == RUNS * 2 - 1)
+                logResults(SIZES[sizeIndex]);
+        });
+    }
+
+    private void logResults(int sizeMB)
+    {
+        SilenceEngine.log.getRootLogger().info(sizeMB + " MB: stream copy " + (sizeMB * 1000 / bestStreamTime)
+                                               + " MB/s, " + (streamAllocation / 1024) + " KB allocated; file reader "
+                                               + (sizeMB * 1000 / bestReaderTime) + " MB/s, "
+                                               + (readerAllocation / 1024) + " KB allocated");
+    }
+
+    @Override
+    public void dispose()
+    {
+        for (File file : files)
+            if (file != null)
+                file.delete();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.openal.ALBuffer;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.utils.functional.UniCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.shc.silenceengine.audio.AudioDevice.Constants.*;
+
+/**
+ * An audio device that doesn't play anything, but records every call made to it, like the {@link
+ * RecordingGraphicsDevice}. The tests install it in the place of the real device to check the OpenAL calls issued by
+ * the AudioScene. It keeps the state of the sources, so that a source is playing from the time it is played until it
+ * is stopped, and the queued buffers are processed as soon as their source is playing. No errors are ever reported, and
+ * no audio can be decoded with it.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class RecordingAudioDevice extends AudioDevice
+{
+    private final List<RecordingGraphicsDevice.Call> calls   = new ArrayList<>();
+    private final Map<Integer, Source>               sources = new HashMap<>();
+
+    private int nextName = 1;
+
+    private void record(String name, Object... args)
+    {
+        calls.add(new RecordingGraphicsDevice.Call(name, args));
+    }
+
+    private Source getSource(int id)
+    {
+        Source source = sources.get(id);
+
+        if (source == null)
+            throw new SilenceException("The source " + id + " is not generated by this device");
+
+        return source;
+    }
+
+    /**
+     * @return All the calls recorded since this device is created or cleared, in the order they are made.
+     */
+    public List<RecordingGraphicsDevice.Call> getCalls()
+    {
+        return calls;
+    }
+
+    /**
+     * @param name The name of the function, like alSourcef.
+     *
+     * @return The recorded calls to the function with the specified name, in the order they are made.
+     */
+    public List<RecordingGraphicsDevice.Call> getCalls(String name)
+    {
+        List<RecordingGraphicsDevice.Call> result = new ArrayList<>();
+
+        for (RecordingGraphicsDevice.Call call : calls)
+            if (call.name.equals(name))
+                result.add(call);
+
+        return result;
+    }
+
+    public int count(String name)
+    {
+        return getCalls(name).size();
+    }
+
+    public void clear()
+    {
+        calls.clear();
+    }
+
+    /**
+     * @return The buffers that are attached to the sources which are playing now, which are the sounds that would be
+     * heard.
+     */
+    public List<Integer> getPlayingBuffers()
+    {
+        List<Integer> buffers = new ArrayList<>();
+
+        for (Source source : sources.values())
+            if (source.state == AL_PLAYING && source.buffer != 0)
+                buffers.add(source.buffer);
+
+        return buffers;
+    }
+
+    @Override
+    public int alGenBuffers()
+    {
+        record("alGenBuffers");
+        return nextName++;
+    }
+
+    @Override
+    public void alBufferData(int id, int format, DirectBuffer data, int frequency)
+    {
+        record("alBufferData", id, format, data.sizeBytes(), frequency);
+    }
+
+    @Override
+    public void alDeleteBuffers(int... buffers)
+    {
+        record("alDeleteBuffers", (Object) buffers);
+    }
+
+    @Override
+    public int alGetError()
+    {
+        record("alGetError");
+        return AL_NO_ERROR;
+    }
+
+    @Override
+    public int alGenSources()
+    {
+        record("alGenSources");
+
+        int id = nextName++;
+        sources.put(id, new Source());
+
+        return id;
+    }
+
+    @Override
+    public void alSourcei(int id, int param, int value)
+    {
+        record("alSourcei", id, param, value);
+
+        if (param == AL_BUFFER)
+        {
+            Source source = getSource(id);
+
+            source.buffer = value;
+            source.queue.clear();
+        }
+    }
+
+    @Override
+    public void alSourcef(int id, int param, float value)
+    {
+        record("alSourcef", id, param, value);
+    }
+
+    @Override
+    public void alSource3f(int id, int param, float v1, float v2, float v3)
+    {
+        record("alSource3f", id, param, v1, v2, v3);
+    }
+
+    @Override
+    public void alSourcePlay(int id)
+    {
+        record("alSourcePlay", id);
+        getSource(id).state = AL_PLAYING;
+    }
+
+    @Override
+    public void alSourcePause(int id)
+    {
+        record("alSourcePause", id);
+        getSource(id).state = AL_PAUSED;
+    }
+
+    @Override
+    public void alSourceRewind(int id)
+    {
+        record("alSourceRewind", id);
+        getSource(id).state = AL_INITIAL;
+    }
+
+    @Override
+    public void alSourceStop(int id)
+    {
+        record("alSourceStop", id);
+        getSource(id).state = AL_STOPPED;
+    }
+
+    @Override
+    public int alGetSourcei(int id, int parameter)
+    {
+        record("alGetSourcei", id, parameter);
+        Source source = getSource(id);
+
+        switch (parameter)
+        {
+            case AL_SOURCE_STATE:
+                return source.state;
+
+            case AL_BUFFER:
+                return source.buffer;
+
+            case AL_BUFFERS_QUEUED:
+                return source.queue.size();
+
+            case AL_BUFFERS_PROCESSED:
+                return source.state == AL_PLAYING ? source.queue.size() : 0;
+
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void alDeleteSources(int... sources)
+    {
+        record("alDeleteSources", (Object) sources);
+
+        for (int id : sources)
+            this.sources.remove(id);
+    }
+
+    @Override
+    public void alSourceQueueBuffers(int id, int buffer)
+    {
+        record("alSourceQueueBuffers", id, buffer);
+        getSource(id).queue.add(buffer);
+    }
+
+    @Override
+    public int alSourceUnqueueBuffers(int id)
+    {
+        record("alSourceUnqueueBuffers", id);
+        List<Integer> queue = getSource(id).queue;
+
+        return queue.isEmpty() ? 0 : queue.remove(0);
+    }
+
+    @Override
+    public void alListenerf(int param, float value)
+    {
+        record("alListenerf", param, value);
+    }
+
+    @Override
+    public void alListener3f(int param, float v1, float v2, float v3)
+    {
+        record("alListener3f", param, v1, v2, v3);
+    }
+
+    @Override
+    public void alListenerfv(int param, float[] values)
+    {
+        record("alListenerfv", param, values.clone());
+    }
+
+    @Override
+    public void readToALBuffer(AudioFormat format, DirectBuffer data, UniCallback<ALBuffer> onDecoded,
+                               UniCallback<Throwable> onError)
+    {
+        record("readToALBuffer", format, data.sizeBytes());
+        onError.invoke(new SilenceException("The RecordingAudioDevice cannot decode audio"));
+    }
+
+    @Override
+    public boolean isSupported(AudioFormat format)
+    {
+        return false;
+    }
+
+    private static class Source
+    {
+        private int state = AL_INITIAL;
+        private int buffer;
+
+        private List<Integer> queue = new ArrayList<>();
+    }
+}
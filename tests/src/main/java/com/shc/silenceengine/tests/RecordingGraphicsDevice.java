@@ -0,0 +1,573 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.graphics.IGraphicsDevice;
+import com.shc.silenceengine.io.DirectBuffer;
+import com.shc.silenceengine.io.DirectFloatBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
+
+/**
+ * A graphics device that doesn't draw anything, but records every call made to it. The tests install it in the place
+ * of the real device to check the OpenGL calls issued by the engine classes. Object names are generated from a single
+ * counter, all the queries succeed and no errors are ever reported.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class RecordingGraphicsDevice implements IGraphicsDevice
+{
+    private final List<Call>   calls      = new ArrayList<>();
+    private final List<String> attributes = new ArrayList<>();
+
+    private int nextName = 1;
+
+    private void record(String name, Object... args)
+    {
+        calls.add(new Call(name, args));
+    }
+
+    // Copies the uploaded data, as the buffer is reused by the engine after the call
+    private static float[] readFloats(DirectBuffer data, int size)
+    {
+        float[] floats = new float[size / 4];
+        data.read(0, floats, 0, floats.length);
+
+        return floats;
+    }
+
+    /**
+     * @return All the calls recorded since this device is created or cleared, in the order they are made.
+     */
+    public List<Call> getCalls()
+    {
+        return calls;
+    }
+
+    /**
+     * @param name The name of the function, like glBufferData.
+     *
+     * @return The recorded calls to the function with the specified name, in the order they are made.
+     */
+    public List<Call> getCalls(String name)
+    {
+        List<Call> result = new ArrayList<>();
+
+        for (Call call : calls)
+            if (call.name.equals(name))
+                result.add(call);
+
+        return result;
+    }
+
+    public int count(String name)
+    {
+        return getCalls(name).size();
+    }
+
+    public void clear()
+    {
+        calls.clear();
+    }
+
+    @Override
+    public int glGenBuffers()
+    {
+        record("glGenBuffers");
+        return nextName++;
+    }
+
+    @Override
+    public boolean glIsBuffer(int buffer)
+    {
+        record("glIsBuffer", buffer);
+        return true;
+    }
+
+    @Override
+    public void glBufferData(int value, DirectBuffer data, int usage)
+    {
+        record("glBufferData", value, data.sizeBytes(), usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, DirectBuffer data)
+    {
+        record("glBufferSubData", target, offset, size, readFloats(data, size));
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer)
+    {
+        record("glBindBuffer", target, buffer);
+    }
+
+    @Override
+    public void glBufferData(int target, int capacity, int usage)
+    {
+        record("glBufferData", target, capacity, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, DirectBuffer data)
+    {
+        record("glBufferSubData", target, offset, data.sizeBytes(), readFloats(data, data.sizeBytes()));
+    }
+
+    @Override
+    public void glDeleteBuffers(int... buffer)
+    {
+        record("glDeleteBuffers", (Object) buffer);
+    }
+
+    @Override
+    public int glGenFramebuffers()
+    {
+        record("glGenFramebuffers");
+        return nextName++;
+    }
+
+    @Override
+    public boolean glIsFramebuffer(int framebuffer)
+    {
+        record("glIsFramebuffer", framebuffer);
+        return true;
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textureTarget, int texture, int level)
+    {
+        record("glFramebufferTexture2D", target, attachment, textureTarget, texture, level);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer)
+    {
+        record("glBindFramebuffer", target, framebuffer);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height)
+    {
+        record("glViewport", x, y, width, height);
+    }
+
+    @Override
+    public void glClear(int flags)
+    {
+        IGraphicsDevice.super.glClear(flags);
+        record("glClear", flags);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target)
+    {
+        record("glCheckFramebufferStatus", target);
+        return GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int... framebuffer)
+    {
+        record("glDeleteFramebuffers", (Object) framebuffer);
+    }
+
+    @Override
+    public void glDrawArrays(int primitive, int offset, int vertexCount)
+    {
+        IGraphicsDevice.super.glDrawArrays(primitive, offset, vertexCount);
+        record("glDrawArrays", primitive, offset, vertexCount);
+    }
+
+    @Override
+    public void glDrawElements(int primitive, int vertexCount, int type, int offset)
+    {
+        IGraphicsDevice.super.glDrawElements(primitive, vertexCount, type, offset);
+        record("glDrawElements", primitive, vertexCount, type, offset);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int primitive, int offset, int vertexCount, int instanceCount)
+    {
+        IGraphicsDevice.super.glDrawArraysInstanced(primitive, offset, vertexCount, instanceCount);
+        record("glDrawArraysInstanced", primitive, offset, vertexCount, instanceCount);
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor)
+    {
+        record("glVertexAttribDivisor", index, divisor);
+    }
+
+    @Override
+    public boolean isInstancingSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public void glEnable(int capability)
+    {
+        record("glEnable", capability);
+    }
+
+    @Override
+    public void glBlendFunc(int src, int dst)
+    {
+        record("glBlendFunc", src, dst);
+    }
+
+    @Override
+    public void glDisable(int capability)
+    {
+        record("glDisable", capability);
+    }
+
+    @Override
+    public void glClearColor(float r, float g, float b, float a)
+    {
+        record("glClearColor", r, g, b, a);
+    }
+
+    @Override
+    public void glBindVertexArray(int vaoID)
+    {
+        record("glBindVertexArray", vaoID);
+    }
+
+    @Override
+    public void glDepthMask(boolean value)
+    {
+        record("glDepthMask", value);
+    }
+
+    @Override
+    public void glDepthFunc(int func)
+    {
+        record("glDepthFunc", func);
+    }
+
+    @Override
+    public void glCullFace(int mode)
+    {
+        record("glCullFace", mode);
+    }
+
+    @Override
+    public int glGetError()
+    {
+        return GL_NO_ERROR;
+    }
+
+    @Override
+    public int glCreateProgram()
+    {
+        record("glCreateProgram");
+        return nextName++;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader)
+    {
+        record("glAttachShader", program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program)
+    {
+        record("glLinkProgram", program);
+    }
+
+    @Override
+    public int glGetProgrami(int program, int param)
+    {
+        record("glGetProgrami", program, param);
+        return GL_TRUE;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program)
+    {
+        record("glGetProgramInfoLog", program);
+        return "";
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name)
+    {
+        record("glGetAttribLocation", program, name);
+
+        // Every attribute is active, so that the renderers don't skip drawing for a missing position
+        if (!attributes.contains(name))
+            attributes.add(name);
+
+        return attributes.indexOf(name);
+    }
+
+    @Override
+    public void glUseProgram(int program)
+    {
+        record("glUseProgram", program);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name)
+    {
+        record("glGetUniformLocation", program, name);
+        return -1;
+    }
+
+    @Override
+    public void glUniform1i(int location, int value)
+    {
+        record("glUniform1i", location, value);
+    }
+
+    @Override
+    public void glUniform2i(int location, int v1, int v2)
+    {
+        record("glUniform2i", location, v1, v2);
+    }
+
+    @Override
+    public void glUniform3i(int location, int v1, int v2, int v3)
+    {
+        record("glUniform3i", location, v1, v2, v3);
+    }
+
+    @Override
+    public void glUniform4i(int location, int v1, int v2, int v3, int v4)
+    {
+        record("glUniform4i", location, v1, v2, v3, v4);
+    }
+
+    @Override
+    public void glUniform1f(int location, float value)
+    {
+        record("glUniform1f", location, value);
+    }
+
+    @Override
+    public void glUniform2f(int location, float v1, float v2)
+    {
+        record("glUniform2f", location, v1, v2);
+    }
+
+    @Override
+    public void glUniform3f(int location, float v1, float v2, float v3)
+    {
+        record("glUniform3f", location, v1, v2, v3);
+    }
+
+    @Override
+    public void glUniform4f(int location, float v1, float v2, float v3, float v4)
+    {
+        record("glUniform4f", location, v1, v2, v3, v4);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, boolean transpose, DirectFloatBuffer matrix)
+    {
+        record("glUniformMatrix3fv", location, transpose);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, boolean transpose, DirectFloatBuffer matrix)
+    {
+        record("glUniformMatrix4fv", location, transpose);
+    }
+
+    @Override
+    public void glDeleteProgram(int... id)
+    {
+        record("glDeleteProgram", (Object) id);
+    }
+
+    @Override
+    public int glCreateShader(int type)
+    {
+        record("glCreateShader", type);
+        return nextName++;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String... source)
+    {
+        record("glShaderSource", shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader)
+    {
+        record("glCompileShader", shader);
+    }
+
+    @Override
+    public int glGetShaderi(int shader, int param)
+    {
+        record("glGetShaderi", shader, param);
+        return GL_TRUE;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader)
+    {
+        record("glGetShaderInfoLog", shader);
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int... shader)
+    {
+        record("glDeleteShader", (Object) shader);
+    }
+
+    @Override
+    public int glGenTextures()
+    {
+        record("glGenTextures");
+        return nextName++;
+    }
+
+    @Override
+    public void glActiveTexture(int unit)
+    {
+        record("glActiveTexture", unit);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture)
+    {
+        record("glBindTexture", target, texture);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int param, int value)
+    {
+        record("glTexParameteri", target, param, value);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+                             int type, DirectBuffer pixels)
+    {
+        record("glTexImage2D", target, level, internalFormat, width, height, border, format, type);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target)
+    {
+        record("glGenerateMipmap", target);
+    }
+
+    @Override
+    public void glDeleteTextures(int... texture)
+    {
+        record("glDeleteTextures", (Object) texture);
+    }
+
+    @Override
+    public int glGenVertexArrays()
+    {
+        record("glGenVertexArrays");
+        return nextName++;
+    }
+
+    @Override
+    public boolean glIsVertexArray(int vertexArray)
+    {
+        record("glIsVertexArray", vertexArray);
+        return true;
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index)
+    {
+        record("glEnableVertexAttribArray", index);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index)
+    {
+        record("glDisableVertexAttribArray", index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int count, int type, boolean normalized, int stride, long offset)
+    {
+        record("glVertexAttribPointer", index, count, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int... vertexArray)
+    {
+        record("glDeleteVertexArrays", (Object) vertexArray);
+    }
+
+    /**
+     * A single call made to the device. Data buffers are recorded as their sizes in bytes, their contents are not
+     * copied.
+     */
+    public static class Call
+    {
+        public final String   name;
+        public final Object[] args;
+
+        public Call(String name, Object... args)
+        {
+            this.name = name;
+            this.args = args;
+        }
+
+        public int getInt(int index)
+        {
+            return ((Number) args[index]).intValue();
+        }
+
+        /**
+         * @return The data of an upload call, like glBufferSubData, read as floats.
+         */
+        public float[] getFloats(int index)
+        {
+            return (float[]) args[index];
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder(name).append('(');
+
+            for (int i = 0; i < args.length; i++)
+                builder.append(i == 0 ? "" : ", ")
+                        .append(args[i] instanceof float[] ? "float[" + ((float[]) args[i]).length + "]" : args[i]);
+
+            return builder.append(')').toString();
+        }
+    }
+}
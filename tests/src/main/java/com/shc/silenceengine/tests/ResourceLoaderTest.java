@@ -25,8 +25,11 @@
 package com.shc.silenceengine.tests;
 
 import com.shc.silenceengine.audio.Sound;
+import com.shc.silenceengine.core.AssetCache;
+import com.shc.silenceengine.core.IResource;
 import com.shc.silenceengine.core.ResourceLoader;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.DynamicRenderer;
 import com.shc.silenceengine.graphics.cameras.OrthoCam;
@@ -37,13 +40,20 @@ import com.shc.silenceengine.graphics.programs.DynamicProgram;
 import com.shc.silenceengine.input.Keyboard;
 import com.shc.silenceengine.input.Touch;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.scene.tiled.TmxMap;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Sri Harsha Chilakapati
  */
 public class ResourceLoaderTest extends SilenceTest
 {
+    private static final FilePath MAP_FILE = FilePath.getResourceFile("test_resources/example.tmx");
+
     private ResourceLoader loader;
+    private ResourceLoader mapLoader;
     private OrthoCam       camera;
 
     private Texture texture;
@@ -53,8 +63,16 @@ public class ResourceLoaderTest extends SilenceTest
     private DynamicProgram  program;
 
     private long texID, sndID;
+    private long invalidMapID, compressedMapID;
+
+    private boolean loaded     = false;
+    private boolean mapChecked = false;
 
-    private boolean loaded = false;
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("ResourceLoaderTest failed: " + message);
+    }
 
     @Override
     public void init()
@@ -68,6 +86,31 @@ public class ResourceLoaderTest extends SilenceTest
         texID = loader.define(Texture.class, FilePath.getResourceFile("test_resources/test_texture.png"));
         sndID = loader.define(Sound.class, FilePath.getResourceFile("test_resources/shoot.wav"));
 
+        // These maps fail to parse, the loader should still be done once they are reported
+        invalidMapID = loader.define(TmxMap.class, FilePath.getResourceFile("test_resources/invalid_root.tmx"));
+        compressedMapID = loader.define(TmxMap.class,
+                FilePath.getResourceFile("test_resources/compressed_layer.tmx"));
+
+        // The map is loaded into a cache of its own, which the map check disposes
+        mapLoader = new ResourceLoader(new AssetCache());
+        mapLoader.define(TmxMap.class, MAP_FILE);
+
+        loader.setListener(new ResourceLoader.ILoadListener()
+        {
+            @Override
+            public void loaded(FilePath path, IResource resource, ResourceLoader.Timing timing)
+            {
+                SilenceEngine.log.getRootLogger().info("Loaded " + path + " " + timing);
+            }
+
+            @Override
+            public void failed(FilePath path, Throwable error)
+            {
+                SilenceEngine.log.getRootLogger().info("Failed to load " + path + " as expected: "
+                                                       + error.getMessage());
+            }
+        });
+
         DynamicProgram.create(program -> {
             this.program = program;
             program.use();
@@ -75,6 +118,7 @@ public class ResourceLoaderTest extends SilenceTest
             program.applyToRenderer(renderer);
 
             loader.start();
+            mapLoader.start();
         });
 
         GLContext.clearColor(Color.DARK_RED);
@@ -86,10 +130,21 @@ public class ResourceLoaderTest extends SilenceTest
         if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
             SilenceEngine.display.close();
 
+        if (!mapChecked && mapLoader.isDone())
+        {
+            checkSharedMap();
+            mapChecked = true;
+        }
+
         if (!loaded)
         {
             if (loader.isDone())
             {
+                check(loader.getFailedCount() == 2, "expected 2 failed resources, found " + loader.getFailedCount());
+                check(loader.getError(invalidMapID) != null, "the map with an invalid root is not reported");
+                check(loader.getError(compressedMapID) != null, "the map with a compressed layer is not reported");
+                check(loader.getError(texID) == null, "the texture failed to load");
+
                 texture = loader.get(texID);
                 sound = loader.get(sndID);
 
@@ -104,6 +159,42 @@ public class ResourceLoaderTest extends SilenceTest
         }
     }
 
+    /**
+     * Gets the map from the cache with a second loader, which never loads the tileset textures itself. The textures
+     * should stay alive after the first loader is disposed, until the second loader lets go of the map.
+     */
+    private void checkSharedMap()
+    {
+        AssetCache cache = mapLoader.getCache();
+
+        ResourceLoader sharedLoader = new ResourceLoader(cache);
+        long sharedMapID = sharedLoader.define(TmxMap.class, MAP_FILE);
+        sharedLoader.start();
+
+        check(sharedLoader.isDone(), "the map is not found in the cache");
+
+        TmxMap map = sharedLoader.get(sharedMapID);
+        List<Texture> textures = new ArrayList<>();
+
+        for (FilePath source : map.getImageSources())
+            textures.add(map.getTexture(source));
+
+        mapLoader.disposeAll();
+        cache.trim();
+
+        for (Texture tileSetTexture : textures)
+            check(!tileSetTexture.isDisposed(), "a tileset texture is disposed while the map is still held");
+
+        sharedLoader.disposeAll();
+        cache.trim();
+
+        for (Texture tileSetTexture : textures)
+            check(tileSetTexture.isDisposed(), "a tileset texture is kept after the map is released");
+
+        SilenceEngine.log.getRootLogger().info("The " + textures.size() + " tileset textures of the shared map "
+                                               + "are kept alive by the map");
+    }
+
     @Override
     public void render(float delta)
     {
@@ -136,6 +227,9 @@ public class ResourceLoaderTest extends SilenceTest
     public void dispose()
     {
         loader.disposeAll();
+
+        SilenceEngine.log.getRootLogger().info("Asset cache: " + loader.getCache().getStatistics());
+
         program.dispose();
         renderer.dispose();
     }
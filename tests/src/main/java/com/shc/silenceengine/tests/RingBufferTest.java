@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.graphics.IGraphicsDevice;
+import com.shc.silenceengine.graphics.opengl.BufferObject;
+import com.shc.silenceengine.graphics.opengl.RingBufferObject;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.DirectBuffer;
+
+import java.util.List;
+
+import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
+
+/**
+ * Checks the segments, the orphaning on wrap around and the reallocation stalls of the RingBufferObject against a
+ * {@link RecordingGraphicsDevice}, which is installed in the place of the real device while the checks run. The
+ * results are logged once in the init, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class RingBufferTest extends SilenceTest
+{
+    private static final int SEGMENTS     = 4;
+    private static final int SEGMENT_SIZE = 256;
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("RingBufferTest failed: " + message);
+    }
+
+    private static void checkStoreSpecified(RecordingGraphicsDevice device, int capacity)
+    {
+        List<RecordingGraphicsDevice.Call> calls = device.getCalls("glBufferData");
+
+        check(calls.size() == 1, "expected one glBufferData call, got " + calls);
+        check(calls.get(0).getInt(1) == capacity, "expected a data store of " + capacity + " bytes, got " + calls);
+        check(calls.get(0).getInt(2) == GL_STREAM_DRAW, "the data store is not specified as GL_STREAM_DRAW");
+    }
+
+    private static void checkSubData(RecordingGraphicsDevice device, int offset, int size)
+    {
+        List<RecordingGraphicsDevice.Call> calls = device.getCalls("glBufferSubData");
+
+        check(calls.size() == 1, "expected one glBufferSubData call, got " + calls);
+        check(calls.get(0).getInt(1) == offset, "expected the data at offset " + offset + ", got " + calls);
+        check(calls.get(0).getInt(2) == size, "expected " + size + " bytes of data, got " + calls);
+    }
+
+    /**
+     * Every batch that fits goes into the next segment, without re-specifying the data store.
+     */
+    public static void testSegments(RecordingGraphicsDevice device, DirectBuffer data)
+    {
+        device.clear();
+        RingBufferObject ring = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, SEGMENTS, SEGMENT_SIZE);
+        checkStoreSpecified(device, SEGMENTS * SEGMENT_SIZE);
+
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            device.clear();
+            int offset = ring.upload(data, 100);
+
+            check(offset == i * SEGMENT_SIZE, "batch " + i + " is uploaded at offset " + offset);
+            check(device.count("glBufferData") == 0, "batch " + i + " re-specified the data store");
+            checkSubData(device, offset, 100);
+        }
+
+        // Empty batches still take a segment, but there is nothing to upload
+        device.clear();
+        ring.upload(data, 0);
+        check(device.count("glBufferSubData") == 0, "an empty batch uploaded data");
+
+        check(ring.getWraps() == 1, "expected one wrap, got " + ring.getWraps());
+        check(ring.getStalls() == 0, "expected no stalls, got " + ring.getStalls());
+
+        // Segments are aligned to four bytes
+        RingBufferObject aligned = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, SEGMENTS, 10);
+        check(aligned.getSegmentSize() == 12, "a segment of 10 bytes is aligned to " + aligned.getSegmentSize());
+
+        ring.dispose();
+        aligned.dispose();
+    }
+
+    /**
+     * When all the segments are used, the data store is orphaned with the same size and the ring starts over.
+     */
+    public static void testWrapAround(RecordingGraphicsDevice device, DirectBuffer data)
+    {
+        RingBufferObject ring = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, SEGMENTS, SEGMENT_SIZE);
+
+        for (int i = 0; i < SEGMENTS; i++)
+            ring.upload(data, SEGMENT_SIZE);
+
+        check(ring.getWraps() == 0, "the ring wrapped before all the segments are used");
+
+        device.clear();
+        int offset = ring.upload(data, SEGMENT_SIZE);
+
+        check(offset == 0, "the batch after a wrap is uploaded at offset " + offset);
+        checkStoreSpecified(device, SEGMENTS * SEGMENT_SIZE);
+        checkSubData(device, 0, SEGMENT_SIZE);
+
+        check(ring.getWraps() == 1, "expected one wrap, got " + ring.getWraps());
+        check(ring.getStalls() == 0, "a wrap is counted as a stall");
+
+        for (int i = 1; i < SEGMENTS * 2; i++)
+            ring.upload(data, SEGMENT_SIZE);
+
+        check(ring.getWraps() == 2, "expected two wraps, got " + ring.getWraps());
+
+        ring.resetCounters();
+        check(ring.getWraps() == 0 && ring.getStalls() == 0, "the counters are not reset");
+
+        ring.dispose();
+    }
+
+    /**
+     * A batch larger than a segment reallocates the data store with bigger segments, which is counted as a stall.
+     */
+    public static void testStall(RecordingGraphicsDevice device, DirectBuffer data)
+    {
+        RingBufferObject ring = new RingBufferObject(BufferObject.Target.ARRAY_BUFFER, SEGMENTS, SEGMENT_SIZE);
+        ring.upload(data, 100);
+
+        device.clear();
+        int offset = ring.upload(data, SEGMENT_SIZE + 44);
+
+        check(offset == 0, "the batch after a stall is uploaded at offset " + offset);
+        check(ring.getSegmentSize() == SEGMENT_SIZE * 2, "the segments grew to " + ring.getSegmentSize());
+        checkStoreSpecified(device, SEGMENTS * SEGMENT_SIZE * 2);
+        checkSubData(device, 0, SEGMENT_SIZE + 44);
+
+        check(ring.getStalls() == 1, "expected one stall, got " + ring.getStalls());
+        check(ring.getWraps() == 0, "a stall is counted as a wrap");
+
+        // The bigger segments are used from then on
+        offset = ring.upload(data, SEGMENT_SIZE + 44);
+        check(offset == SEGMENT_SIZE * 2, "the batch after a stall is followed by offset " + offset);
+
+        // A batch much larger than the segments grows them to fit at once
+        ring.upload(data, SEGMENT_SIZE * 5);
+        check(ring.getSegmentSize() == SEGMENT_SIZE * 5, "the segments grew to " + ring.getSegmentSize());
+        check(ring.getStalls() == 2, "expected two stalls, got " + ring.getStalls());
+
+        ring.dispose();
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("RingBufferTest");
+
+        IGraphicsDevice graphics = SilenceEngine.graphics;
+        RecordingGraphicsDevice device = new RecordingGraphicsDevice();
+
+        DirectBuffer data = SilenceEngine.io.create(SEGMENT_SIZE * 5);
+        SilenceEngine.graphics = device;
+
+        try
+        {
+            testSegments(device, data);
+            testWrapAround(device, data);
+            testStall(device, data);
+        }
+        finally
+        {
+            SilenceEngine.graphics = graphics;
+            SilenceEngine.io.free(data);
+        }
+
+        SilenceEngine.log.getRootLogger().info("RingBufferObject: segments, wrap around and stalls are correct");
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.collision.Collision3D;
+import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.broadphase.DynamicTree3D;
+import com.shc.silenceengine.collision.colliders.SceneCollider3D;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.math.geom3d.Cuboid;
+import com.shc.silenceengine.scene.Scene3D;
+import com.shc.silenceengine.scene.components.CollisionComponent3D;
+import com.shc.silenceengine.scene.entity.Entity3D;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the callbacks and the responses of the SceneCollider3D, with the narrowphase run on the update thread and in
+ * parallel. The scene is a row of cubes of two tags that are registered with each other both ways, where every cube
+ * overlaps with its neighbours by a known distance along the row. The row is long enough for the parallel narrowphase
+ * to split the pairs between the background jobs. The results are logged once in the init, press ESCAPE to close the
+ * test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class SceneCollider3DTest extends SilenceTest
+{
+    private static final int   COUNT   = 200;
+    private static final float SIZE    = 4;
+    private static final float SPACING = 3;
+
+    private static final CollisionTag TAG_A = new CollisionTag();
+    private static final CollisionTag TAG_B = new CollisionTag();
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new SilenceException("SceneCollider3DTest failed: " + message);
+    }
+
+    /**
+     * Checks the collisions of the row of cubes, and returns the order in which the callbacks are invoked.
+     */
+    public static List<String> testCollisions(boolean parallel)
+    {
+        Scene3D scene = new Scene3D();
+        List<String> collisions = new ArrayList<>();
+
+        for (int i = 0; i < COUNT; i++)
+        {
+            final int index = i;
+            final Entity3D entity = new Entity3D();
+            entity.position.set(i * SPACING, 0, 0);
+
+            CollisionComponent3D.CollisionCallback callback = new CollisionComponent3D.CollisionCallback()
+            {
+                @Override
+                public void handleCollision(Entity3D other, CollisionComponent3D component)
+                {
+                    check(false, "the callback without the response is invoked");
+                }
+
+                @Override
+                public void handleCollision(Entity3D other, CollisionComponent3D component,
+                                            Collision3D.Response response)
+                {
+                    // The entity is the one of this component, like in the callbacks of the 2D collider
+                    CollisionComponent3D self = entity.getComponent(CollisionComponent3D.class);
+                    int otherIndex = scene.entities.indexOf(component.entity);
+
+                    check(other == entity, "the callback of cube " + index + " is given another entity");
+                    check(Math.abs(otherIndex - index) == 1, "cube " + index + " collides with cube " + otherIndex);
+
+                    // The response must be the one of this pair, and not of the last pair that was tested
+                    check(response.getPolygonA() == self.polyhedron, "the polyhedron A is not of this component");
+                    check(response.getPolygonB() == component.polyhedron, "the polyhedron B is not of the other");
+                    check(Math.abs(response.getOverlapDistance() - (SIZE - SPACING)) < 0.001f,
+                            "cubes " + index + " and " + otherIndex + " overlap by " + response.getOverlapDistance());
+                    check(Math.abs(Math.abs(response.getOverlapAxis().x) - 1) < 0.001f,
+                            "cubes " + index + " and " + otherIndex + " overlap along " + response.getOverlapAxis());
+
+                    Collision3D.Response shared = Collision3D.getResponse();
+
+                    check(shared.getPolygonA() == response.getPolygonA()
+                          && shared.getPolygonB() == response.getPolygonB()
+                          && shared.getOverlapDistance() == response.getOverlapDistance(),
+                            "the response of Collision3D is not the response of this pair");
+
+                    collisions.add(index + "-" + otherIndex);
+                }
+            };
+
+            entity.addComponent(new CollisionComponent3D(i % 2 == 0 ? TAG_A : TAG_B,
+                    new Cuboid(new Vector3(), SIZE, SIZE, SIZE), callback));
+            scene.entities.add(entity);
+        }
+
+        SceneCollider3D collider = new SceneCollider3D(new DynamicTree3D());
+        collider.setScene(scene);
+        collider.register(TAG_A, TAG_B);
+        collider.register(TAG_B, TAG_A);
+        collider.setParallel(parallel);
+
+        scene.update(0);
+        collider.checkCollisions();
+
+        check(collisions.size() == (COUNT - 1) * 2, "expected " + ((COUNT - 1) * 2) + " collisions, got "
+                                                    + collisions.size());
+
+        return collisions;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("SceneCollider3DTest");
+
+        List<String> serial = testCollisions(false);
+        List<String> parallel = testCollisions(true);
+
+        check(serial.equals(parallel), "the parallel narrowphase invokes the callbacks in a different order");
+
+        SilenceEngine.log.getRootLogger().info("SceneCollider3D: callbacks and responses are correct, serial and "
+                                               + "parallel");
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}
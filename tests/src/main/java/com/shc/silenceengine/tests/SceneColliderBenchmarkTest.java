@@ -0,0 +1,274 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.collision.CollisionTag;
+import com.shc.silenceengine.collision.broadphase.DynamicTree2D;
+import com.shc.silenceengine.collision.broadphase.IBroadphase2D;
+import com.shc.silenceengine.collision.colliders.SceneCollider2D;
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.math.geom2d.Rectangle;
+import com.shc.silenceengine.scene.Scene2D;
+import com.shc.silenceengine.scene.components.CollisionComponent2D;
+import com.shc.silenceengine.scene.components.IComponent2D;
+import com.shc.silenceengine.scene.entity.Entity2D;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the time taken by the SceneCollider2D to check the collisions of a scene with 5k entities, against the
+ * collider that it replaced, which is kept in this test as the LegacySceneCollider2D. The entities are boxes of two
+ * tags registered with each other both ways, which move by a small random step every frame. The number of collisions
+ * reported by the callbacks is logged too as a check, the legacy collider reports every contact once for every way
+ * that it is registered, while the SceneCollider2D reports it once to each of the components.
+ *
+ * <p> All the colliders are run once with fewer entities to warm up the JIT, and the results are logged in the init.
+ * Press ESCAPE to close the test after that.</p>
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class SceneColliderBenchmarkTest extends SilenceTest
+{
+    private static final int   FRAMES = 60;
+    private static final float SPEED  = 2;
+
+    private static final CollisionTag TAG_A = new CollisionTag();
+    private static final CollisionTag TAG_B = new CollisionTag();
+
+    private static long collisions;
+
+    private static final CollisionComponent2D.CollisionCallback CALLBACK = (other, component) -> collisions++;
+
+    public static String benchmark(String name, int count, ColliderFactory factory)
+    {
+        Random random = new Random(count);
+        float worldSize = (float) Math.sqrt(count) * 24;
+
+        Scene2D scene = new Scene2D();
+        float[] velocities = new float[count * 2];
+
+        for (int i = 0; i < count; i++)
+        {
+            Entity2D entity = new Entity2D();
+            entity.position.set(random.nextFloat() * worldSize, random.nextFloat() * worldSize);
+            entity.addComponent(new CollisionComponent2D(i % 2 == 0 ? TAG_A : TAG_B, new Rectangle(16, 16), CALLBACK));
+            scene.entities.add(entity);
+
+            velocities[i * 2] = (random.nextFloat() * 2 - 1) * SPEED;
+            velocities[i * 2 + 1] = (random.nextFloat() * 2 - 1) * SPEED;
+        }
+
+        Collider collider = factory.create(scene);
+        collisions = 0;
+
+        double time = 0;
+
+        for (int frame = 0; frame < FRAMES; frame++)
+        {
+            for (int i = 0; i < count; i++)
+                scene.entities.get(i).position.add(velocities[i * 2], velocities[i * 2 + 1]);
+
+            scene.update(0);
+
+            double start = TimeUtils.currentMillis();
+            collider.checkCollisions();
+            time += TimeUtils.currentMillis() - start;
+        }
+
+        return name + ", " + count + " entities: " + (time / FRAMES) + " ms/frame, "
+               + (collisions / FRAMES) + " collisions reported per frame";
+    }
+
+    private static Collider sceneCollider(Scene2D scene, boolean parallel)
+    {
+        SceneCollider2D collider = new SceneCollider2D(new DynamicTree2D());
+        collider.setScene(scene);
+        collider.register(TAG_A, TAG_B);
+        collider.register(TAG_B, TAG_A);
+        collider.setParallel(parallel);
+
+        return collider::checkCollisions;
+    }
+
+    private static Collider legacyCollider(Scene2D scene)
+    {
+        LegacySceneCollider2D collider = new LegacySceneCollider2D(new DynamicTree2D());
+        collider.setScene(scene);
+        collider.register(TAG_A, TAG_B);
+        collider.register(TAG_B, TAG_A);
+
+        return collider::checkCollisions;
+    }
+
+    private static void benchmarkAll(int count, boolean log)
+    {
+        String[] results = {
+                benchmark("LegacySceneCollider2D", count, SceneColliderBenchmarkTest::legacyCollider),
+                benchmark("SceneCollider2D", count, scene -> sceneCollider(scene, false)),
+                benchmark("SceneCollider2D parallel", count, scene -> sceneCollider(scene, true))
+        };
+
+        if (log)
+            for (String result : results)
+                SilenceEngine.log.getRootLogger().info(result);
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("SceneColliderBenchmarkTest");
+
+        benchmarkAll(1000, false);
+        benchmarkAll(5000, true);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+
+    @FunctionalInterface
+    private interface Collider
+    {
+        void checkCollisions();
+    }
+
+    @FunctionalInterface
+    private interface ColliderFactory
+    {
+        Collider create(Scene2D scene);
+    }
+
+    /**
+     * The SceneCollider2D as it was before the candidate pairs were kept across the frames. It queries the broadphase
+     * for every component of every registered tag in every frame, and invokes the callback right after every test.
+     */
+    private static class LegacySceneCollider2D
+    {
+        private Map<CollisionTag, List<CollisionTag>> collisionMap = new HashMap<>();
+
+        private Scene2D       scene;
+        private IBroadphase2D broadphase;
+
+        private int childrenInScene;
+
+        private List<Entity2D> entities = new ArrayList<>();
+
+        LegacySceneCollider2D(IBroadphase2D broadphase)
+        {
+            this.broadphase = broadphase;
+        }
+
+        void setScene(Scene2D scene)
+        {
+            this.scene = scene;
+        }
+
+        void register(CollisionTag type1, CollisionTag type2)
+        {
+            if (!collisionMap.containsKey(type1))
+                collisionMap.put(type1, new ArrayList<>());
+
+            collisionMap.get(type1).add(type2);
+        }
+
+        void checkCollisions()
+        {
+            if (scene.entities.size() == 0)
+            {
+                childrenInScene = 0;
+                return;
+            }
+
+            if (scene.numEntities() != childrenInScene)
+            {
+                entities.clear();
+                broadphase.clear();
+                childrenInScene = 0;
+
+                updateEntities(scene.entities);
+            }
+
+            for (Entity2D entity : entities)
+            {
+                for (IComponent2D component : entity.getComponents())
+                {
+                    if (component instanceof CollisionComponent2D && entity.transformComponent.transformed)
+                        broadphase.update((CollisionComponent2D) component);
+                }
+            }
+
+            for (CollisionTag type1 : collisionMap.keySet())
+            {
+                for (Entity2D entity : entities)
+                {
+                    CollisionComponent2D collision = entity.getComponent(CollisionComponent2D.class);
+
+                    if (type1 == collision.tag)
+                    {
+                        List<CollisionComponent2D> collidables = broadphase.retrieve(collision);
+
+                        for (CollisionTag type2 : collisionMap.get(type1))
+                        {
+                            for (CollisionComponent2D collidable : collidables)
+                                if (collidable.tag == type2)
+                                    if (collision.polygon.intersects(collidable.polygon))
+                                        collision.callback.handleCollision(collision.entity, collidable);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void updateEntities(List<Entity2D> entities)
+        {
+            for (Entity2D entity : entities)
+            {
+                for (IComponent2D component : entity.getComponents())
+                {
+                    if (component instanceof CollisionComponent2D)
+                    {
+                        broadphase.insert((CollisionComponent2D) component);
+                        this.entities.add(entity);
+                    }
+                }
+
+                childrenInScene++;
+
+                if (entity.getChildren().size() != 0)
+                    updateEntities(entity.getChildren());
+            }
+        }
+    }
+}
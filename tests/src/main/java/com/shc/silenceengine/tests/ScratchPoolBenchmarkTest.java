@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.math.Matrix4;
+import com.shc.silenceengine.math.Vector3;
+import com.shc.silenceengine.utils.ScratchPool;
+import com.shc.silenceengine.utils.TaskManager;
+import com.shc.silenceengine.utils.TimeUtils;
+import com.shc.silenceengine.utils.functional.Provider;
+
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the ScratchPool with the linked list stacks that the math classes used before, on a loop that takes two
+ * vectors and a matrix like the transformation methods do. The old stacks were not thread safe, so they are locked
+ * when they are shared by the background jobs, while every job uses the scratch pool of its own thread. The results
+ * are logged once in the init, press ESCAPE to close the test after that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class ScratchPoolBenchmarkTest extends SilenceTest
+{
+    private static final LegacyStack<Vector3> VECTOR3_STACK = new LegacyStack<>(Vector3::new);
+    private static final LegacyStack<Matrix4> MATRIX4_STACK = new LegacyStack<>(Matrix4::new);
+
+    private static final LegacyStack<Vector3> LOCKED_VECTOR3_STACK = new LockedLegacyStack<>(Vector3::new);
+    private static final LegacyStack<Matrix4> LOCKED_MATRIX4_STACK = new LockedLegacyStack<>(Matrix4::new);
+
+    private static float scratchIteration(int i)
+    {
+        ScratchPool scratch = ScratchPool.get();
+        int mark = scratch.mark();
+
+        Vector3 a = scratch.vector3().set(i, 1, 2);
+        Vector3 b = scratch.vector3().set(3, i, 4);
+        Matrix4 m = scratch.matrix4().initIdentity();
+
+        float result = a.cross(b).dot(a) + m.get(0, 0);
+
+        scratch.release(mark);
+        return result;
+    }
+
+    private static float stackIteration(int i, LegacyStack<Vector3> vectors, LegacyStack<Matrix4> matrices)
+    {
+        Vector3 a = vectors.pop().set(i, 1, 2);
+        Vector3 b = vectors.pop().set(3, i, 4);
+        Matrix4 m = matrices.pop().initIdentity();
+
+        float result = a.cross(b).dot(a) + m.get(0, 0);
+
+        vectors.push(a);
+        vectors.push(b);
+        matrices.push(m);
+        return result;
+    }
+
+    /**
+     * Runs the iterations on the calling thread.
+     *
+     * @return The time taken in nanoseconds per iteration.
+     */
+    public static double benchmark(Mode mode, int iterations)
+    {
+        float sink = 0;
+        double start = TimeUtils.currentNanos();
+
+        for (int i = 0; i < iterations; i++)
+        {
+            switch (mode)
+            {
+                case REUSABLE_STACK:
+                    sink += stackIteration(i, VECTOR3_STACK, MATRIX4_STACK);
+                    break;
+
+                case LOCKED_REUSABLE_STACK:
+                    sink += stackIteration(i, LOCKED_VECTOR3_STACK, LOCKED_MATRIX4_STACK);
+                    break;
+
+                case SCRATCH_POOL:
+                    sink += scratchIteration(i);
+                    break;
+            }
+        }
+
+        double time = (TimeUtils.currentNanos() - start) / iterations;
+
+        // Keep the result alive, so the loop is not optimized away
+        if (sink == Float.MIN_VALUE)
+            SilenceEngine.log.getRootLogger().info(sink);
+
+        return time;
+    }
+
+    /**
+     * Splits the iterations across as many background jobs as the TaskManager runs at the same time, and waits for all
+     * of them to complete.
+     *
+     * @return The wall clock time taken in nanoseconds per iteration.
+     */
+    public static double benchmarkParallel(Mode mode, int iterations)
+    {
+        int jobs = TaskManager.getMaxConcurrentJobs();
+        AtomicInteger completed = new AtomicInteger();
+
+        double start = TimeUtils.currentNanos();
+
+        for (int j = 0; j < jobs; j++)
+            TaskManager.runAsync(() ->
+            {
+                benchmark(mode, iterations / jobs);
+                completed.incrementAndGet();
+            });
+
+        while (completed.get() < jobs)
+        {
+            // Wait for the jobs to complete
+        }
+
+        return (TimeUtils.currentNanos() - start) / iterations;
+    }
+
+    public static void runAll(int iterations, boolean log)
+    {
+        double stack = benchmark(Mode.REUSABLE_STACK, iterations);
+        double scratch = benchmark(Mode.SCRATCH_POOL, iterations);
+
+        double parallelStack = benchmarkParallel(Mode.LOCKED_REUSABLE_STACK, iterations);
+        double parallelScratch = benchmarkParallel(Mode.SCRATCH_POOL, iterations);
+
+        if (!log)
+            return;
+
+        SilenceEngine.log.getRootLogger().info("Single thread, " + iterations + " iterations: ReusableStack "
+                                               + stack + " ns, ScratchPool " + scratch + " ns");
+
+        SilenceEngine.log.getRootLogger().info(TaskManager.getMaxConcurrentJobs() + " jobs, " + iterations
+                                               + " iterations: locked ReusableStack " + parallelStack
+                                               + " ns, ScratchPool " + parallelScratch + " ns");
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("ScratchPoolBenchmarkTest");
+
+        runAll(1000000, false);
+        runAll(10000000, true);
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+
+    public enum Mode
+    {
+        REUSABLE_STACK,
+        LOCKED_REUSABLE_STACK,
+        SCRATCH_POOL
+    }
+
+    /**
+     * The stack that the math classes used for their temporaries before the ScratchPool.
+     */
+    private static class LegacyStack<T>
+    {
+        private final Deque<T>    stack = new LinkedList<>();
+        private final Provider<T> provider;
+
+        LegacyStack(Provider<T> provider)
+        {
+            this.provider = provider;
+        }
+
+        T pop()
+        {
+            if (stack.isEmpty())
+                stack.push(provider.provide());
+
+            return stack.pop();
+        }
+
+        void push(T value)
+        {
+            stack.push(value);
+        }
+    }
+
+    /**
+     * The old stack with a lock, which is what it takes to share it between threads.
+     */
+    private static class LockedLegacyStack<T> extends LegacyStack<T>
+    {
+        LockedLegacyStack(Provider<T> provider)
+        {
+            super(provider);
+        }
+
+        @Override
+        synchronized T pop()
+        {
+            return super.pop();
+        }
+
+        @Override
+        synchronized void push(T value)
+        {
+            super.push(value);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package com.shc.silenceengine.tests;
 
 import com.shc.silenceengine.audio.AudioDevice;
+import com.shc.silenceengine.audio.AudioStream;
 import com.shc.silenceengine.audio.Sound;
 import com.shc.silenceengine.core.SilenceEngine;
 import com.shc.silenceengine.input.Keyboard;
@@ -39,6 +40,8 @@ public class SoundTest extends SilenceTest
     private Sound sound1;
     private Sound sound2;
 
+    private AudioStream stream;
+
     private boolean playS1;
 
     @Override
@@ -51,6 +54,9 @@ public class SoundTest extends SilenceTest
         SilenceEngine.io.getFileReader().readBinaryFile(FilePath.getResourceFile("test_resources/siren.ogg"), data ->
                 SilenceEngine.audio.readToALBuffer(AudioDevice.AudioFormat.OGG, data, buffer ->
                         sound2 = new Sound(buffer)));
+
+        if (SilenceEngine.audio.isStreamingSupported(AudioDevice.AudioFormat.OGG))
+            AudioStream.open(FilePath.getResourceFile("test_resources/siren.ogg"), stream -> this.stream = stream);
     }
 
     @Override
@@ -66,6 +72,19 @@ public class SoundTest extends SilenceTest
             if (sound != null)
                 sound.play();
         }
+
+        if (stream != null && Keyboard.isKeyTapped(Keyboard.KEY_S))
+        {
+            if (stream.getState() == AudioStream.State.STOPPED)
+                SilenceEngine.audio.scene.playStream(stream, true);
+            else
+                SilenceEngine.audio.scene.stopStream(stream);
+        }
+
+        SilenceEngine.display.setTitle("SilenceEngine SoundTest | AL calls: " + AudioDevice.Data.alCallsThisFrame +
+                                       " | Voices: " + SilenceEngine.audio.scene.getRealVoiceCount() +
+                                       (stream == null ? "" : " | Stream: " + stream.getState() + " at " +
+                                                              stream.getPosition() + " of " + stream.getDuration() + " s"));
     }
 
     @Override
@@ -76,5 +95,8 @@ public class SoundTest extends SilenceTest
 
         if (sound2 != null)
             sound2.buffer.dispose();
+
+        if (stream != null)
+            stream.dispose();
     }
 }
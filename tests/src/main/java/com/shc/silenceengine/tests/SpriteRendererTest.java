@@ -28,27 +28,40 @@ import com.shc.silenceengine.collision.CollisionTag;
 import com.shc.silenceengine.collision.broadphase.DynamicTree2D;
 import com.shc.silenceengine.collision.colliders.SceneCollider2D;
 import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.core.SilenceException;
 import com.shc.silenceengine.graphics.Color;
 import com.shc.silenceengine.graphics.IGraphicsDevice;
 import com.shc.silenceengine.graphics.Sprite;
 import com.shc.silenceengine.graphics.SpriteRenderer;
+import com.shc.silenceengine.graphics.VertexFormat;
 import com.shc.silenceengine.graphics.cameras.OrthoCam;
 import com.shc.silenceengine.graphics.opengl.GLContext;
+import com.shc.silenceengine.graphics.opengl.Program;
 import com.shc.silenceengine.graphics.opengl.Texture;
 import com.shc.silenceengine.input.Keyboard;
 import com.shc.silenceengine.input.Touch;
 import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.math.Transform;
 import com.shc.silenceengine.math.geom2d.Rectangle;
 import com.shc.silenceengine.scene.Scene2D;
 import com.shc.silenceengine.scene.components.CollisionComponent2D;
 import com.shc.silenceengine.scene.components.SpriteComponent;
 import com.shc.silenceengine.scene.entity.Entity2D;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.shc.silenceengine.graphics.IGraphicsDevice.Constants.*;
+
 /**
  * @author Sri Harsha Chilakapati
  */
 public class SpriteRendererTest extends SilenceTest
 {
+    // The sprites and textures of the check of the full batches, the batches of the renderer hold 500 sprites
+    private static final int CHECK_SPRITES  = 1500;
+    private static final int CHECK_TEXTURES = 4;
+
     private static SpriteRenderer renderer;
 
     private static CollisionTag heroTag    = new CollisionTag();
@@ -61,6 +74,22 @@ public class SpriteRendererTest extends SilenceTest
     private Scene2D         scene;
     private SceneCollider2D collider;
 
+    private Mode    mode;
+    private boolean batchesChecked;
+
+    public SpriteRendererTest()
+    {
+        this(Mode.DEFAULT);
+    }
+
+    /**
+     * @param mode The mode of the SpriteRenderer to test.
+     */
+    public SpriteRendererTest(Mode mode)
+    {
+        this.mode = mode;
+    }
+
     @Override
     public void init()
     {
@@ -70,7 +99,20 @@ public class SpriteRendererTest extends SilenceTest
         {
             sprite = new Sprite(Texture.fromImage(image).getSubTexture(0, 0, 1, 1, 48, 48));
             image.dispose();
-            SpriteRenderer.create(this::init);
+
+            switch (mode)
+            {
+                case MULTI_TEXTURED:
+                    SpriteRenderer.createMultiTextured(this::init);
+                    break;
+
+                case INSTANCED:
+                    SpriteRenderer.createInstanced(this::init);
+                    break;
+
+                default:
+                    SpriteRenderer.create(this::init);
+            }
         });
     }
 
@@ -138,7 +180,9 @@ public class SpriteRendererTest extends SilenceTest
         SilenceEngine.display.setTitle("UPS: " + SilenceEngine.gameLoop.getUPS()
                                        + " | FPS: " + SilenceEngine.gameLoop.getFPS()
                                        + " | RC: " + IGraphicsDevice.Data.renderCallsThisFrame
-                                       + " | SpriteRendererTest");
+                                       + " | BU: " + IGraphicsDevice.Data.bytesUploadedThisFrame
+                                       + " | DC: " + renderer.getDrawCalls()
+                                       + " | SpriteRendererTest (" + getModeName() + ")");
     }
 
     @Override
@@ -148,9 +192,124 @@ public class SpriteRendererTest extends SilenceTest
             return;
 
         camera.apply();
+        renderer.resetCounters();
         renderer.begin();
         scene.render(deltaTime);
         renderer.end();
+
+        // The first frame has set up the shared state of the renderers, which the check must not create itself
+        if (mode == Mode.MULTI_TEXTURED && !batchesChecked)
+        {
+            checkFullBatches();
+            batchesChecked = true;
+        }
+    }
+
+    /**
+     * Renders the sprites of several textures into full batches against a {@link RecordingGraphicsDevice}, and checks
+     * that every quad is drawn with the unit that its texture is bound to. The sprite that fills up a batch is moved to
+     * the next batch, and must not keep a unit that is only bound in the flushed batch.
+     */
+    private static void checkFullBatches()
+    {
+        IGraphicsDevice graphics = SilenceEngine.graphics;
+        RecordingGraphicsDevice device = new RecordingGraphicsDevice();
+
+        // The caches of the GL state are shared with the real device, so the check starts and ends on the first unit
+        Texture.setActiveUnit(0);
+        SilenceEngine.graphics = device;
+
+        List<Integer> expected = new ArrayList<>();
+        List<Integer> drawn = new ArrayList<>();
+
+        try
+        {
+            // The textures are only names in the recording device, so they are not disposed
+            Sprite[] sprites = new Sprite[CHECK_TEXTURES];
+
+            for (int i = 0; i < CHECK_TEXTURES; i++)
+                sprites[i] = new Sprite(Texture.fromColor(Color.WHITE, 4, 4));
+
+            SpriteRenderer.createMultiTextured(checkRenderer ->
+            {
+                Transform transform = new Transform();
+
+                checkRenderer.begin();
+
+                for (int i = 0; i < CHECK_SPRITES; i++)
+                {
+                    Sprite sprite = sprites[i % CHECK_TEXTURES];
+
+                    checkRenderer.render(sprite, transform);
+                    expected.add(sprite.getCurrentFrame().getID());
+                }
+
+                checkRenderer.end();
+                checkRenderer.dispose();
+            });
+
+            // Replay the texture bindings, and look up the texture of every quad from the index in its vertices
+            VertexFormat format = VertexFormat.POSITION_COLOR_TEXCOORD_TEXINDEX;
+
+            int stride = format.getStride() / 4;
+            int texIndex = format.getAttribute(VertexFormat.Usage.TEXINDEX).getOffset() / 4;
+
+            int[] units = new int[32];
+            int activeUnit = 0;
+            float[] vertices = null;
+
+            for (RecordingGraphicsDevice.Call call : device.getCalls())
+            {
+                switch (call.name)
+                {
+                    case "glActiveTexture":
+                        activeUnit = call.getInt(0) - GL_TEXTURE0;
+                        break;
+
+                    case "glBindTexture":
+                        units[activeUnit] = call.getInt(1);
+                        break;
+
+                    case "glBufferSubData":
+                        if (call.getInt(0) == GL_ARRAY_BUFFER)
+                            vertices = call.getFloats(3);
+                        break;
+
+                    case "glDrawElements":
+                        for (int quad = 0; quad < call.getInt(1) / 6; quad++)
+                            drawn.add(units[(int) vertices[quad * 4 * stride + texIndex]]);
+                        break;
+                }
+            }
+        }
+        finally
+        {
+            SilenceEngine.graphics = graphics;
+
+            // The program is used on the recording device, and has to be used again on the real one
+            Program.CURRENT = null;
+        }
+
+        if (expected.size() != CHECK_SPRITES || drawn.size() != CHECK_SPRITES)
+            throw new SilenceException("SpriteRendererTest failed: " + drawn.size() + " of " + expected.size()
+                                       + " sprites are drawn, expected " + CHECK_SPRITES);
+
+        for (int i = 0; i < CHECK_SPRITES; i++)
+            if (!drawn.get(i).equals(expected.get(i)))
+                throw new SilenceException("SpriteRendererTest failed: sprite " + i + " is drawn with the texture "
+                                           + drawn.get(i) + " instead of " + expected.get(i));
+
+        SilenceEngine.log.getRootLogger().info("SpriteRenderer: full batches of " + CHECK_TEXTURES
+                                               + " textures are drawn with the right textures");
+    }
+
+    private String getModeName()
+    {
+        // The instanced renderer falls back to the default mode on the devices without instancing, like WebGL 1.0
+        if (mode == Mode.INSTANCED && !renderer.isInstanced())
+            return "instancing not supported, default";
+
+        return mode.name().toLowerCase().replace('_', ' ');
     }
 
     @Override
@@ -171,6 +330,18 @@ public class SpriteRendererTest extends SilenceTest
             renderer.dispose();
     }
 
+    /**
+     * The modes of the SpriteRenderer, the renderers are created with {@link SpriteRenderer#create}, {@link
+     * SpriteRenderer#createMultiTextured} and {@link SpriteRenderer#createInstanced} respectively. The full batches of
+     * the multi textured renderer are also checked after the first frame, see {@link #checkFullBatches()}.
+     */
+    public enum Mode
+    {
+        DEFAULT,
+        MULTI_TEXTURED,
+        INSTANCED
+    }
+
     private static class Hero extends Entity2D
     {
         private SpriteComponent renderComponent;
@@ -34,7 +34,9 @@ import com.shc.silenceengine.graphics.programs.DynamicProgram;
 import com.shc.silenceengine.input.Keyboard;
 import com.shc.silenceengine.io.FilePath;
 import com.shc.silenceengine.scene.tiled.TmxMap;
+import com.shc.silenceengine.scene.tiled.layers.TmxTileLayer;
 import com.shc.silenceengine.scene.tiled.renderers.TmxMapRenderer;
+import com.shc.silenceengine.scene.tiled.renderers.TmxOrthogonalMapRenderer;
 
 /**
  * @author Sri Harsha Chilakapati
@@ -59,12 +61,20 @@ public class TmxMapTest extends SilenceTest
     @Override
     public void init()
     {
-        TmxMap.load(FilePath.getResourceFile(path), map ->
+        TmxMap.load(FilePath.getResourceFile(path), TmxMap.LoadMode.PARALLEL_LAZY, map ->
         {
             this.map = map;
+
+            SilenceEngine.log.getRootLogger().info("Parsed " + path + " in " + map.getParseTime() + " ms");
+
+            for (TmxTileLayer tileLayer : map.getTileLayers())
+                SilenceEngine.log.getRootLogger().info("Layer " + tileLayer.getName() + ": parsed in "
+                                                       + tileLayer.getParseTime() + " ms, decoded in "
+                                                       + tileLayer.getDecodeTime() + " ms");
             camera = new OrthoCam(SilenceEngine.display.getWidth(), SilenceEngine.display.getHeight());
 
             dynamicRenderer = new DynamicRenderer(500);
+            dynamicRenderer.setStreamingSegments(8);
 
             DynamicProgram.create(dynamicProgram ->
             {
@@ -95,7 +105,12 @@ public class TmxMapTest extends SilenceTest
 
         SilenceEngine.display.setTitle("SilenceEngine TmxMapTest | FPS: " + SilenceEngine.gameLoop.getFPS() +
                                        " | UPS: " + SilenceEngine.gameLoop.getUPS() +
-                                       " | RC: " + IGraphicsDevice.Data.renderCallsThisFrame);
+                                       " | RC: " + IGraphicsDevice.Data.renderCallsThisFrame +
+                                       (dynamicRenderer == null ? "" :
+                                        " | Wraps: " + dynamicRenderer.getSegmentWraps() +
+                                        " | Stalls: " + dynamicRenderer.getSegmentStalls()) +
+                                       (mapRenderer instanceof TmxOrthogonalMapRenderer ?
+                                        " | Chunks: " + ((TmxOrthogonalMapRenderer) mapRenderer).getChunksRendered() : ""));
 
         if (mapRenderer != null)
             mapRenderer.update(delta);
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2016 Sri Harsha Chilakapati
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.shc.silenceengine.tests;
+
+import com.shc.silenceengine.core.SilenceEngine;
+import com.shc.silenceengine.input.Keyboard;
+import com.shc.silenceengine.io.FilePath;
+import com.shc.silenceengine.scene.tiled.TmxMap;
+import com.shc.silenceengine.scene.tiled.layers.TmxTileLayer;
+import com.shc.silenceengine.scene.tiled.tiles.TmxMapTile;
+import com.shc.silenceengine.utils.TimeUtils;
+
+import java.util.Random;
+
+/**
+ * Measures the memory taken by a 1024x1024 tile layer, stored as packed raw GIDs, against storing a TmxMapTile for
+ * every cell as the layers did before. It also measures the time taken to read all the tiles from the packed array,
+ * through a single reused tile, and from the tile objects. The map is generated in memory with a single tile set and
+ * random tiles, some of them flipped. The results are logged once in the init, press ESCAPE to close the test after
+ * that.
+ *
+ * @author Sri Harsha Chilakapati
+ */
+public class TmxTileLayerBenchmarkTest extends SilenceTest
+{
+    private static final int SIZE = 1024;
+
+    private static String generateMap(int size)
+    {
+        Random random = new Random(size);
+        StringBuilder xml = new StringBuilder(size * size * 4 + 1024);
+
+        xml.append("<map version=\"1.0\" orientation=\"orthogonal\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" tilewidth=\"32\" tileheight=\"32\" nextobjectid=\"1\">")
+                .append("<tileset firstgid=\"1\" name=\"tiles\" tilewidth=\"32\" tileheight=\"32\">")
+                .append("<image source=\"tiles.png\" width=\"256\" height=\"256\"/></tileset>")
+                .append("<layer name=\"ground\" width=\"").append(size).append("\" height=\"").append(size).append("\">")
+                .append("<data encoding=\"csv\">");
+
+        for (int i = 0; i < size * size; i++)
+        {
+            long gid = random.nextInt(65);
+
+            // Flip one in eight of the tiles, the GIDs are written as unsigned integers
+            if (gid != 0 && random.nextInt(8) == 0)
+                gid |= (TmxMap.FLIPPED_HORIZONTALLY_FLAG & 0xFFFFFFFFL);
+
+            if (i != 0)
+                xml.append(',');
+
+            xml.append(gid);
+        }
+
+        return xml.append("</data></layer></map>").toString();
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 4; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static String benchmark(FilePath path, int size)
+    {
+        long baseMemory = usedMemory();
+
+        TmxMap[] maps = new TmxMap[1];
+        TmxMap.parse(path, generateMap(size), TmxMap.LoadMode.EAGER, map -> maps[0] = map);
+
+        TmxTileLayer layer = maps[0].getTileLayer(0);
+
+        long packedMemory = usedMemory() - baseMemory;
+        baseMemory += packedMemory;
+
+        // The storage used by the layers before, a tile object for every cell
+        TmxMapTile[] cells = new TmxMapTile[size * size];
+
+        for (int y = 0; y < size; y++)
+            for (int x = 0; x < size; x++)
+                cells[y * size + x] = layer.getTile(x, y);
+
+        long cellsMemory = usedMemory() - baseMemory;
+
+        long sum = 0;
+        double start = TimeUtils.currentMillis();
+
+        for (int rawGID : layer.getRawTiles())
+            sum += TmxMapTile.stripFlags(rawGID);
+
+        double rawTime = TimeUtils.currentMillis() - start;
+        TmxMapTile tile = new TmxMapTile(0, 0, -1);
+        start = TimeUtils.currentMillis();
+
+        for (int y = 0; y < size; y++)
+            for (int x = 0; x < size; x++)
+                sum += layer.getTile(x, y, tile).getGID();
+
+        double reusedTime = TimeUtils.currentMillis() - start;
+        start = TimeUtils.currentMillis();
+
+        for (TmxMapTile cell : cells)
+            sum += cell.getGID();
+
+        double cellsTime = TimeUtils.currentMillis() - start;
+
+        return size + "x" + size + " tile layer: packed GIDs " + (packedMemory / 1024) + " KiB ("
+               + ((double) packedMemory / (size * size)) + " bytes per tile), tile objects " + (cellsMemory / 1024)
+               + " KiB (" + ((double) cellsMemory / (size * size)) + " bytes per tile). Reading all the tiles: raw "
+               + rawTime + " ms, reused tile " + reusedTime + " ms, tile objects " + cellsTime + " ms, checksum " + sum;
+    }
+
+    @Override
+    public void init()
+    {
+        SilenceEngine.display.setTitle("TmxTileLayerBenchmarkTest");
+
+        // The tile set image is never loaded, so the path only has to exist for resolving it
+        FilePath path = FilePath.getResourceFile("test_resources/example.tmx");
+
+        // Warm up once, so that the timings are not of the interpreted code
+        benchmark(path, SIZE / 4);
+        SilenceEngine.log.getRootLogger().info(benchmark(path, SIZE));
+    }
+
+    @Override
+    public void update(float deltaTime)
+    {
+        if (Keyboard.isKeyTapped(Keyboard.KEY_ESCAPE))
+            SilenceEngine.display.close();
+    }
+}